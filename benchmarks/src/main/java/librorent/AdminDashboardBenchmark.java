@@ -0,0 +1,36 @@
+package librorent;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** The admin dashboard counters and the user fees summary. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminDashboardBenchmark {
+
+    /** AdminDashboard.updateDashboardStats */
+    @Benchmark
+    public DashboardStats.Snapshot dashboardStats(DatasetState data) throws SQLException {
+        return DashboardStats.load();
+    }
+
+    /** AdminDashboard.loadUserFeesSummary, reading every row like the table does */
+    @Benchmark
+    public int userFeesSummary(DatasetState data, Blackhole bh) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(AdminDashboard.USER_FEES_QUERY)) {
+            return Rows.consume(pstmt, bh);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package librorent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+
+/**
+ * Synthetic librorent.db for the benchmarks.
+ *
+ * The schema comes from DatabaseManager's own migrations, so the tables,
+ * indexes and triggers are exactly the application's. The rows are
+ * generated in SQL with recursive CTEs, from a fixed hash of the row
+ * number, so the same sizes always produce the same data:
+ * <ul>
+ * <li>books titled from a 32-word vocabulary, a third of them E-Books,
+ *     each with enough copies that the open rentals never run it out</li>
+ * <li>one member per 100 rentals (at least 100, at most 100,000)</li>
+ * <li>rentals spread over 2022-2024 and returned up to 20 days after
+ *     rental, with late fees on the late ones; 1% are still open and
+ *     were rented in the last 30 days, so some of them are overdue</li>
+ * </ul>
+ *
+ * A dataset is generated once per size into
+ * {@code librorent.bench.dir} (default target/datasets) and reused by
+ * later runs. DatabaseManager reads its file name once, so a JVM can only
+ * use one dataset; JMH forks a new JVM per parameter combination.
+ */
+final class BenchmarkDataset {
+    private static final Path DIR = Paths.get(System.getProperty("librorent.bench.dir", "target/datasets"));
+    private static final int CHUNK = 500_000;
+    private static final String[] WORDS = {
+        "Dragon", "Shadow", "Garden", "River", "Empire", "Winter", "Ocean", "Stone",
+        "Crown", "Forest", "Mirror", "Silver", "Storm", "Night", "Light", "Castle",
+        "Secret", "Journey", "Island", "Fire", "Star", "Legend", "Heart", "Moon",
+        "Blade", "Voice", "Glass", "Harbor", "Thunder", "Dream", "Iron", "Spring"
+    };
+
+    private static String activeFile;
+
+    private BenchmarkDataset() {
+    }
+
+    /** Number of members generated for a rental count. */
+    static int users(int rentals) {
+        return Math.max(100, Math.min(100_000, rentals / 100));
+    }
+
+    /**
+     * Points DatabaseManager at the dataset for these sizes, generating it
+     * first if it is not cached yet.
+     */
+    static synchronized void use(int books, int rentals) throws SQLException, IOException {
+        Path file = DIR.resolve("librorent-" + books + "b-" + rentals + "r.db").toAbsolutePath();
+        if (activeFile != null) {
+            if (!activeFile.equals(file.toString())) {
+                throw new IllegalStateException("This JVM already uses " + activeFile + "; run each dataset in its own fork");
+            }
+            return;
+        }
+        Files.createDirectories(DIR);
+        if (!isComplete(file)) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Paths.get(file + "-wal"));
+            Files.deleteIfExists(Paths.get(file + "-shm"));
+        }
+        System.setProperty("librorent.db.file", file.toString());
+        activeFile = file.toString();
+
+        // Creates or upgrades the schema through the application's migrations
+        DatabaseManager.getInstance();
+        if (!isComplete(file)) {
+            generate(file, books, rentals);
+        }
+    }
+
+    private static boolean isComplete(Path file) throws SQLException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'bench_dataset'")) {
+            return rs.next();
+        }
+    }
+
+    private static void generate(Path file, int books, int rentals) throws SQLException {
+        long start = System.currentTimeMillis();
+        int users = users(rentals);
+        System.out.println("Generating benchmark dataset " + file + " (" + books + " books, "
+            + rentals + " rentals, " + users + " members)");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA synchronous = OFF");
+            stmt.execute("PRAGMA cache_size = -262144");
+            conn.setAutoCommit(false);
+
+            stmt.execute("CREATE TEMP TABLE bench_words (id INTEGER PRIMARY KEY, word TEXT NOT NULL)");
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO bench_words VALUES (?, ?)")) {
+                for (int i = 0; i < WORDS.length; i++) {
+                    pstmt.setInt(1, i);
+                    pstmt.setString(2, WORDS[i]);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            // The migrations already created the admin account
+            insertRange(conn, users, """
+                INSERT INTO users (username, password, full_name, email, role)
+                SELECT 'member' || i, 'password', 'Member ' || i, 'member' || i || '@bench.local', 'Member'
+                FROM n
+                """);
+            int firstMember;
+            try (ResultSet rs = stmt.executeQuery("SELECT id FROM users WHERE username = 'member1'")) {
+                rs.next();
+                firstMember = rs.getInt(1);
+            }
+
+            // Enough copies per book that the open rentals never run one out
+            int copies = 10 + rentals / 100 / books;
+            insertRange(conn, books, """
+                INSERT INTO books (title, author, isbn, genre, format, copies, fee, late_return_fee, status)
+                SELECT (SELECT word FROM bench_words WHERE id = i % 32) || ' ' ||
+                       (SELECT word FROM bench_words WHERE id = (i / 32) % 32) || ' ' || i,
+                       'Author ' || (i % 5000),
+                       printf('978%010d', i),
+                       CASE i % 6 WHEN 0 THEN 'Fiction' WHEN 1 THEN 'Non-Fiction' WHEN 2 THEN 'Science Fiction'
+                                  WHEN 3 THEN 'Biography' WHEN 4 THEN 'History' ELSE 'Fantasy' END,
+                       CASE WHEN i % 3 = 0 THEN 'E-Book' ELSE 'Physical' END,
+                       ?, 10 + i % 40, 5, 'Available'
+                FROM n
+                """, copies);
+
+            // h is a fixed hash of the row number; every 100th rental is still open, and
+            // those go round the books in order so no book runs out of copies
+            insertRange(conn, rentals, """
+                INSERT INTO rentals (user_id, book_id, rental_date, due_date, return_date, late_fee, status, payment_status)
+                SELECT ? + h % ?, 1 + (CASE WHEN is_open THEN i / 100 ELSE h / 7 END) % ?,
+                       rental_date, date(rental_date, '+14 days'),
+                       CASE WHEN is_open THEN NULL ELSE date(rental_date, '+' || (h % 21) || ' days') END,
+                       CASE WHEN is_open OR h % 21 <= 14 THEN 0 ELSE ((h % 21) - 14) * 10.0 END,
+                       CASE WHEN is_open THEN 'Active' ELSE 'Returned' END,
+                       CASE WHEN h % 4 = 0 THEN 'pending' ELSE 'paid' END
+                FROM (
+                    SELECT i, h, i % 100 = 0 AS is_open,
+                           CASE WHEN i % 100 = 0 THEN date('now', '-' || (h % 30) || ' days')
+                                ELSE date('2022-01-01', '+' || (h % 1095) || ' days') END AS rental_date
+                    FROM (SELECT i, (i * 1103515245 + 12345) % 2147483648 AS h FROM n)
+                )
+                """, firstMember, users, books);
+
+            stmt.execute("CREATE TABLE bench_dataset (books INTEGER, rentals INTEGER, users INTEGER, created_at TEXT)");
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO bench_dataset VALUES (?, ?, ?, datetime('now'))")) {
+                pstmt.setInt(1, books);
+                pstmt.setInt(2, rentals);
+                pstmt.setInt(3, users);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            stmt.execute("ANALYZE");
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+        System.out.println("Generated in " + (System.currentTimeMillis() - start) / 1000 + " s");
+    }
+
+    /**
+     * Runs an INSERT ... SELECT ... FROM n for i = 1..count, in chunks so each
+     * statement stays bounded; {@code args} bind the ?s of the insert.
+     */
+    private static void insertRange(Connection conn, int count, String insert, Object... args) throws SQLException {
+        String sql = "WITH RECURSIVE n(i) AS (SELECT ? UNION ALL SELECT i + 1 FROM n WHERE i < ?) " + insert;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) {
+                pstmt.setObject(i + 3, args[i]);
+            }
+            for (int from = 1; from <= count; from += CHUNK) {
+                pstmt.setInt(1, from);
+                pstmt.setInt(2, Math.min(count, from + CHUNK - 1));
+                pstmt.executeUpdate();
+                conn.commit();
+            }
+        }
+    }
+}
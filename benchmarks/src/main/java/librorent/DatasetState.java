@@ -0,0 +1,33 @@
+package librorent;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The dataset a benchmark runs against. Override the sizes with
+ * {@code -p books=... -p rentals=...}, e.g. {@code -p rentals=10000000}
+ * for the large rental history; every combination gets its own cached
+ * database, see {@link BenchmarkDataset}.
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+    @Param({"10000", "1000000"})
+    public int books;
+
+    @Param("1000000")
+    public int rentals;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkDataset.use(books, rentals);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.getInstance().shutdown();
+    }
+}
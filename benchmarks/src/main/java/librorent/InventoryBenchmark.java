@@ -0,0 +1,53 @@
+package librorent;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** InventoryPanel.loadData: the row count, the first page and the totals. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryBenchmark {
+    private static final String WHERE = "b.retired_at IS NULL";
+    // Default order of the inventory table: title, A to Z
+    private static final String SORT = "b.title";
+
+    @Benchmark
+    public int count(DatasetState data) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PagedTableModel.countQuery(
+                 InventoryPanel.INVENTORY_SELECT, InventoryPanel.INVENTORY_FROM, "b.book_id", WHERE));
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Benchmark
+    public int firstPage(DatasetState data, Blackhole bh) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PagedTableModel.pageQuery(
+                 InventoryPanel.INVENTORY_SELECT, InventoryPanel.INVENTORY_FROM, "b.book_id", WHERE, SORT, true, false))) {
+            pstmt.setInt(1, PagedTableModel.PAGE_SIZE);
+            pstmt.setInt(2, 0);
+            return Rows.consume(pstmt, bh);
+        }
+    }
+
+    @Benchmark
+    public void totals(DatasetState data, Blackhole bh) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(InventoryPanel.INVENTORY_TOTALS)) {
+            Rows.consume(pstmt, bh);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package librorent;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A counter checkout followed by the return of the same copy, the two write
+ * transactions of RentalReturnPanel, so the stock stays where it was. Run
+ * with {@code -t N} to see how checkouts from N desks share the writer.
+ * Each operation adds one returned rental to the cached dataset.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RentReturnBenchmark {
+    private int firstMember;
+    private int members;
+
+    @Setup(Level.Trial)
+    public void setUp(DatasetState data) throws SQLException {
+        members = BenchmarkDataset.users(data.rentals);
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM users WHERE username = 'member1'")) {
+            rs.next();
+            firstMember = rs.getInt(1);
+        }
+    }
+
+    @Benchmark
+    public int rentAndReturn(DatasetState data) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bookId = 1 + random.nextInt(data.books);
+        int userId = firstMember + random.nextInt(members);
+        LocalDate today = LocalDate.now();
+
+        CheckoutService.Checkout checkout = CheckoutService.checkout(userId, bookId, 1,
+            today.toString(), today.plusDays(14).toString(), "Active");
+        int rentalId = checkout.rentalIds().get(0);
+
+        // RentalReturnPanel.processReturns
+        RentalRepository.returnRentals(List.of(rentalId));
+        return rentalId;
+    }
+}
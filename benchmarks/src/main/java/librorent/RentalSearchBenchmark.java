@@ -0,0 +1,88 @@
+package librorent;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * AdminDashboard.searchRentals: the row count, the first page and the late
+ * fee total the rentals table loads for a search. "-" is the unfiltered
+ * table shown by loadRentals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RentalSearchBenchmark {
+    // Default order of the rentals table: rental date, newest first
+    private static final String SORT = "r.rental_date";
+    private static final boolean ASCENDING = false;
+
+    @Param({"-", "march 2023", "2023-06-01..2023-06-07", "overdue", "fee>50", "user:member42", "dragon", "pending fee:10-30"})
+    public String search;
+
+    private String where;
+    private Object[] args;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RentalQuery query = parse();
+        where = query.where();
+        args = query.args();
+    }
+
+    /** Parsing alone, which runs on the EDT */
+    @Benchmark
+    public RentalQuery parse() {
+        return RentalQuery.parse(search.equals("-") ? "" : search);
+    }
+
+    @Benchmark
+    public int count(DatasetState data) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PagedTableModel.countQuery(
+                 AdminDashboard.RENTAL_SELECT, AdminDashboard.RENTAL_FROM, "r.id", where))) {
+            Rows.bind(pstmt, args);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Benchmark
+    public int firstPage(DatasetState data, Blackhole bh) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(PagedTableModel.pageQuery(
+                 AdminDashboard.RENTAL_SELECT, AdminDashboard.RENTAL_FROM, "r.id", where, SORT, ASCENDING, false))) {
+            Rows.bind(pstmt, args);
+            pstmt.setInt(args.length + 1, PagedTableModel.PAGE_SIZE);
+            pstmt.setInt(args.length + 2, 0);
+            return Rows.consume(pstmt, bh);
+        }
+    }
+
+    @Benchmark
+    public double lateFeeTotal(DatasetState data) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(AdminDashboard.lateFeeTotalQuery(where))) {
+            Rows.bind(pstmt, args);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0.0;
+            }
+        }
+    }
+}
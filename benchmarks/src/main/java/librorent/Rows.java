@@ -0,0 +1,31 @@
+package librorent;
+
+import java.sql.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Reads every column of every row, so a benchmark pays for the whole result like a table load does. */
+final class Rows {
+
+    private Rows() {
+    }
+
+    static int consume(PreparedStatement pstmt, Blackhole bh) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    bh.consume(rs.getObject(i));
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    static void bind(PreparedStatement pstmt, Object[] args) throws SQLException {
+        for (int i = 0; i < args.length; i++) {
+            pstmt.setObject(i + 1, args[i]);
+        }
+    }
+}
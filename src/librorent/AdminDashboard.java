@@ -5,15 +5,15 @@ import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
 import javax.swing.border.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Calendar;
+import java.util.concurrent.atomic.DoubleAdder;
 
 public class AdminDashboard extends JFrame {
+    private static final Log LOG = Log.get(AdminDashboard.class);
     private JPanel sidebar;
     private JPanel contentPanel;
     private CardLayout cardLayout;
@@ -25,16 +25,54 @@ public class AdminDashboard extends JFrame {
     private JTable usersTable;
     private JTable rentalsTable;
     private DefaultTableModel booksModel;
-    private DefaultTableModel usersModel;
-    private DefaultTableModel rentalsModel;
+    private PagedTableModel usersModel;
+    private PagedTableModel rentalsModel;
+    private final AsyncLoader.Channel rentalLoads = AsyncLoader.channel();
+    private static final DateTimeFormatter RENTAL_DATE_DISPLAY = DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm a");
+    
+    // Rental rows with the late fee stored by LateFeeEngine
+    static final String RENTAL_SELECT = """
+        r.id, b.title, u.username, r.rental_date, r.due_date, r.return_date, r.payment_status,
+        COALESCE(r.late_fee, 0) as calculated_fee,
+        CASE 
+            WHEN r.return_date IS NOT NULL THEN 'Returned'
+            ELSE 'Active'
+        END as rental_status
+        """;
+    static final String RENTAL_FROM = """
+        rentals r 
+        JOIN books b ON r.book_id = b.book_id 
+        JOIN users u ON r.user_id = u.id
+        """;
+    
+    // Fees, active and overdue rentals per member for the user fees summary; like the
+    // user fees export it reads live and archived rentals, so archived fees still count
+    static final String USER_FEES_QUERY = """
+        WITH user_rentals AS (
+            SELECT 
+                u.id,
+                u.username,
+                u.full_name,
+                COUNT(DISTINCT r.book_id) as total_books,
+                GROUP_CONCAT(DISTINCT b.title) as book_titles,
+                COALESCE(SUM(r.late_fee), 0) as total_late_fees,
+                COUNT(CASE WHEN r.return_date IS NULL THEN 1 END) as active_rentals,
+                COUNT(CASE WHEN r.return_date IS NULL AND r.due_date < datetime('now') THEN 1 END) as overdue_rentals
+            FROM users u
+            LEFT JOIN rental_history r ON u.id = r.user_id
+            LEFT JOIN books b ON r.book_id = b.book_id
+            WHERE u.role = 'Member'
+            GROUP BY u.id, u.username, u.full_name
+        )
+        SELECT * FROM user_rentals
+        ORDER BY total_late_fees DESC, active_rentals DESC, overdue_rentals DESC
+        """;
     
     // Settings
-    private int defaultRentalDuration = 14; // days
-    private double lateFeeRate = 10.0; // Default late fee rate per day
-    private int reservationExpiration = 24; // hours
+    private final Settings settings = Settings.getInstance();
     
     private JTable bookTable;
-    private DefaultTableModel bookModel;
+    private PagedTableModel bookModel;
     private JLabel totalBooksLabel = new JLabel("0");
     private JLabel totalUsersLabel = new JLabel("0");
     private JLabel totalRentalsLabel = new JLabel("0");
@@ -50,6 +88,8 @@ public class AdminDashboard extends JFrame {
         this.username = username;
         this.currentUserId = -1; // Assuming a default userId
         this.dbManager = DatabaseManager.getInstance();
+        ReservationExpiryEngine.getInstance().start();
+        LateFeeEngine.getInstance().start();
         
         setTitle("Admin Dashboard - LibroRent");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -58,15 +98,13 @@ public class AdminDashboard extends JFrame {
         
         // Get admin's full name
         String fullName = "";
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("SELECT full_name FROM users WHERE username = ?")) {
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                fullName = rs.getString("full_name");
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            UserRepository.User admin = UserRepository.findByUsername(conn, username);
+            if (admin != null) {
+                fullName = admin.fullName();
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error loading the admin's name", e);
         }
         
         // Create main panel with gradient background
@@ -124,7 +162,7 @@ public class AdminDashboard extends JFrame {
         
         // Load initial data only once
         SwingUtilities.invokeLater(() -> {
-            loadBooks(bookModel);
+            loadBooks();
             loadUsers();
             loadRentals();
             updateDashboardStats();
@@ -247,7 +285,7 @@ public class AdminDashboard extends JFrame {
     }
     
     private void refreshRentalManagementPanel() {
-        System.out.println("\n=== Refreshing Rental Management Panel ===");
+        LOG.debug("Refreshing rental management panel");
         try {
             // Get the rental management panel
             JPanel rentalPanel = (JPanel) contentPanel.getComponent(3); // Index 3 is RENTAL_MANAGEMENT
@@ -257,25 +295,18 @@ public class AdminDashboard extends JFrame {
             JTable userFeesTable = (JTable) scrollPane.getViewport().getView();
             DefaultTableModel model = (DefaultTableModel) userFeesTable.getModel();
             
-            System.out.println("Found user fees table, refreshing data...");
             loadUserFeesSummary(model);
-            System.out.println("User fees data refreshed");
             
             // Also refresh the rentals table
             JPanel rentalDetailsPanel = (JPanel) contentPanel.getComponent(1);
             JScrollPane rentalsScrollPane = (JScrollPane) rentalDetailsPanel.getComponent(1);
             JTable rentalsTable = (JTable) rentalsScrollPane.getViewport().getView();
-            DefaultTableModel rentalsModel = (DefaultTableModel) rentalsTable.getModel();
             
-            System.out.println("Found rentals table, refreshing data...");
             loadRentals();
-            System.out.println("Rentals data refreshed");
             
         } catch (Exception e) {
-            System.out.println("Error refreshing rental management panel: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error refreshing rental management panel", e);
         }
-        System.out.println("=== Rental Management Panel Refresh Complete ===\n");
     }
     
     private JPanel createDashboardPanel() {
@@ -466,6 +497,29 @@ public class AdminDashboard extends JFrame {
         addButton.setContentAreaFilled(false);
         addButton.setOpaque(true);
         
+        // Import button for bulk CSV/JSON files
+        JButton importButton = new JButton("Import Books") {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                int w = getWidth();
+                int h = getHeight();
+                Color color1 = new Color(241, 196, 15);   // Yellow
+                Color color2 = new Color(243, 156, 18);   // Orange
+                GradientPaint gp = new GradientPaint(0, 0, color1, w, h, color2);
+                g2d.setPaint(gp);
+                g2d.fillRect(0, 0, w, h);
+                super.paintComponent(g);
+            }
+        };
+        importButton.setForeground(Color.BLACK);
+        importButton.setFont(new Font("Arial", Font.BOLD, 14));
+        importButton.setFocusPainted(false);
+        importButton.setBorderPainted(false);
+        importButton.setContentAreaFilled(false);
+        importButton.setOpaque(true);
+        
         // Refresh button
         JButton refreshButton = new JButton("Refresh") {
             @Override
@@ -491,12 +545,14 @@ public class AdminDashboard extends JFrame {
         
         // Add action listeners
         addButton.addActionListener(e -> showAddBookDialog());
+        importButton.addActionListener(e -> showImportBooksDialog());
         refreshButton.addActionListener(e -> {
-            loadBooks(bookModel);
+            loadBooks();
             updateBookStats(totalBooksLabel, totalCopiesLabel, totalAvailableLabel);
         });
         
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
         buttonPanel.add(addButton);
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
@@ -531,14 +587,43 @@ public class AdminDashboard extends JFrame {
         
         // Create table model
         String[] columns = {"Book ID", "Title", "Author", "ISBN", "Format", "Genre", "Copies", "Rental Fee", "Late Return Fee", "Status", "Action"};
-        bookModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 10; // Only action column is editable
-            }
-        };
+        bookModel = new PagedTableModel(columns,
+            "book_id, title, author, isbn, format, genre, copies, fee, late_return_fee, status",
+            "books", "book_id",
+            new String[]{"book_id", "title", "author", "COALESCE(isbn, '')",
+                         "COALESCE(format, '')", "COALESCE(genre, '')", "copies", "COALESCE(fee, 10.0)",
+                         "COALESCE(late_return_fee, 5.0)", "COALESCE(status, '')", null},
+            0, false, rs -> {
+                double fee = rs.getDouble("fee");
+                if (rs.wasNull()) {
+                    fee = 10.0; // Default fee if null
+                }
+                double lateReturnFee = rs.getDouble("late_return_fee");
+                if (rs.wasNull()) {
+                    lateReturnFee = 5.0; // Default late return fee if null
+                }
+                return new Object[]{
+                    "B" + rs.getInt("book_id"),
+                    rs.getString("title"),
+                    rs.getString("author"),
+                    rs.getString("isbn"),
+                    rs.getString("format"),
+                    rs.getString("genre"),
+                    rs.getInt("copies"),
+                    "₱" + fee,
+                    "₱" + lateReturnFee,
+                    rs.getString("status"),
+                    "Edit"
+                };
+            });
+        bookModel.setEditableColumns(10); // Only action column is editable
+        bookModel.setOnError(e -> JOptionPane.showMessageDialog(this,
+            "Error loading books: " + e.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE));
         
         bookTable = new JTable(bookModel);
+        bookTable.setRowSorter(bookModel.createSorter());
         bookTable.setRowHeight(30);
         bookTable.getTableHeader().setReorderingAllowed(false);
         bookTable.setShowGrid(false);
@@ -560,6 +645,11 @@ public class AdminDashboard extends JFrame {
         bookTable.getColumnModel().getColumn(9).setPreferredWidth(100);  // Status
         bookTable.getColumnModel().getColumn(10).setPreferredWidth(100);  // Action
         
+        // Set up the edit button column
+        TableColumn editColumn = bookTable.getColumnModel().getColumn(10);
+        editColumn.setCellRenderer(new ButtonRenderer());
+        editColumn.setCellEditor(new ButtonEditor(bookTable));
+        
         JScrollPane scrollPane = new JScrollPane(bookTable);
         
         // Statistics panel
@@ -583,112 +673,50 @@ public class AdminDashboard extends JFrame {
         panel.add(statsPanel, BorderLayout.SOUTH);
         
         // Load initial data
-        loadBooks(bookModel);
+        loadBooks();
         updateBookStats(totalBooksLabel, totalCopiesLabel, totalAvailableLabel);
         
         return panel;
     }
     
     private void updateBookStats(JLabel totalBooksLabel, JLabel totalCopiesLabel, JLabel totalAvailableLabel) {
-        try (Connection conn = dbManager.getConnection()) {
-            // Total books and copies
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                     SELECT COUNT(*) as total_books, 
-                            SUM(copies) as total_copies,
-                            SUM(CASE WHEN status = 'Available' THEN copies ELSE 0 END) as available_copies
-                     FROM books
-                     """)) {
-                if (rs.next()) {
-                    int totalBooks = rs.getInt("total_books");
-                    int totalCopies = rs.getInt("total_copies");
-                    int availableCopies = rs.getInt("available_copies");
-                    int unavailableCopies = Math.max(0, totalCopies - availableCopies); // Ensure non-negative value
-                    
-                    totalBooksLabel.setText("Total Books: " + totalBooks);
-                    totalCopiesLabel.setText("Total Copies: " + totalCopies);
-                    totalAvailableLabel.setText("Total Available: " + availableCopies);
-                    
-                    // Update dashboard stats
-                    updateStatCard(0, totalBooks); // Total Books
-                    updateStatCard(1, unavailableCopies); // Unavailable Books
-                }
-            }
-            
-            // E-Books count
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books WHERE format = 'E-Book'")) {
-                if (rs.next()) {
-                    updateStatCard(2, rs.getInt(1));
-                }
-            }
-            
-            // Physical Books count
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books WHERE format = 'Physical'")) {
-                if (rs.next()) {
-                    updateStatCard(3, rs.getInt(1));
-                }
-            }
-            
-            // Active rentals - only count rentals that are currently active and not returned
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                    SELECT COUNT(*) FROM rentals 
-                    WHERE status = 'Active' 
-                    AND return_date IS NULL""")) {
-                if (rs.next()) {
-                    updateStatCard(4, rs.getInt(1));
-                }
-            }
-            
-            // Overdue books - only count currently active overdue rentals
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                    SELECT COUNT(*) FROM rentals 
-                    WHERE status = 'Active' 
-                    AND due_date < datetime('now')
-                 """)) {
-                if (rs.next()) {
-                    updateStatCard(5, rs.getInt(1));
-                }
-            }
+        try {
+            DashboardStats.Snapshot stats = DashboardStats.load();
+            totalBooksLabel.setText("Total Books: " + stats.totalBooks());
+            totalCopiesLabel.setText("Total Copies: " + stats.totalCopies());
+            totalAvailableLabel.setText("Total Available: " + stats.availableCopies());
             
-            // Total users
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
-                if (rs.next()) {
-                    updateStatCard(6, rs.getInt(1));
-                }
-            }
+            // Update dashboard stats
+            applyDashboardStats(stats);
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error updating book stats", e);
             JOptionPane.showMessageDialog(this, "Error updating book stats: " + e.getMessage());
         }
     }
     
+    private void applyDashboardStats(DashboardStats.Snapshot stats) {
+        updateStatCard(0, stats.totalBooks()); // Total Books
+        updateStatCard(1, stats.unavailableBooks()); // Unavailable Books
+        updateStatCard(2, stats.eBooks()); // E-Books
+        updateStatCard(3, stats.physicalBooks()); // Physical Books
+        updateStatCard(4, stats.activeRentals()); // Active Rentals
+        updateStatCard(5, stats.overdueRentals()); // Overdue Books
+        totalUsersLabel.setText(String.format("%,d", stats.totalUsers()));
+    }
+    
     private void updateStatCard(int index, int value) {
-        System.out.println("\n=== Updating Stat Card ===");
-        System.out.println("Index: " + index + ", Value: " + value);
-        
         try {
             JPanel dashboardPanel = (JPanel) contentPanel.getComponent(0);
-            System.out.println("Found dashboard panel");
-            
             JPanel containerPanel = (JPanel) dashboardPanel.getComponent(1);
-            System.out.println("Found container panel");
-            
             JPanel statsPanel = (JPanel) containerPanel.getComponent(0);
-            System.out.println("Found stats panel with " + statsPanel.getComponentCount() + " components");
             
             // Check if the index is valid
             if (index < 0 || index >= statsPanel.getComponentCount()) {
-                System.err.println("Invalid stat card index: " + index);
+                LOG.warn("Invalid stat card index", "index", index);
                 return;
             }
             
             JPanel card = (JPanel) statsPanel.getComponent(index);
-            System.out.println("Found stat card at index " + index);
             
             // Find the value panel and update its label
             boolean labelUpdated = false;
@@ -701,11 +729,7 @@ public class AdminDashboard extends JFrame {
                             String oldValue = label.getText();
                             if (oldValue.equals("0") || oldValue.equals("₱0.00") || 
                                 oldValue.matches("\\d+") || oldValue.matches("₱\\d+\\.\\d+")) {
-                                String newValue = String.valueOf(value);
-                                if (index == 5) { // Overdue books card
-                                    System.out.println("Updating overdue books count from " + oldValue + " to " + newValue);
-                                }
-                                label.setText(newValue);
+                                label.setText(String.valueOf(value));
                                 labelUpdated = true;
                                 break;
                             }
@@ -715,14 +739,12 @@ public class AdminDashboard extends JFrame {
             }
             
             if (!labelUpdated) {
-                System.out.println("WARNING: Could not find label to update in stat card " + index);
+                LOG.warn("Could not find label to update in stat card", "index", index);
             }
             
         } catch (Exception e) {
-            System.err.println("Error updating stat card: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating stat card", e, "index", index);
         }
-        System.out.println("=== Stat Card Update Complete ===\n");
     }
     
     private void showAddBookDialog() {
@@ -785,35 +807,32 @@ public class AdminDashboard extends JFrame {
         
         JButton saveButton = new JButton("Save");
         saveButton.addActionListener(ev -> {
-            try (Connection conn = DatabaseManager.getInstance().getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO books (title, author, isbn, genre, format, copies, fee, late_return_fee, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
-                
-                pstmt.setString(1, titleField.getText());
-                pstmt.setString(2, authorField.getText());
-                pstmt.setString(3, isbnField.getText());
-                pstmt.setString(4, (String)genreCombo.getSelectedItem());
-                pstmt.setString(5, formatCombo.getSelectedItem().toString());
-                pstmt.setInt(6, (Integer)copiesSpinner.getValue());
-                pstmt.setDouble(7, (Double)feeSpinner.getValue());
-                pstmt.setDouble(8, (Double)lateReturnFeeSpinner.getValue());
-                pstmt.setString(9, "Available");
-                pstmt.executeUpdate();
-                
-                dialog.dispose();
-                loadBooks(bookModel);
-                updateBookStats(totalBooksLabel, totalCopiesLabel, totalAvailableLabel);
-                JOptionPane.showMessageDialog(dialog,
-                    "Book added successfully!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
+            try {
+                BookRepository.insert(
+                    titleField.getText(),
+                    authorField.getText(),
+                    isbnField.getText(),
+                    (String)genreCombo.getSelectedItem(),
+                    formatCombo.getSelectedItem().toString(),
+                    (Integer)copiesSpinner.getValue(),
+                    (Double)feeSpinner.getValue(),
+                    (Double)lateReturnFeeSpinner.getValue());
             } catch (SQLException ex) {
-                ex.printStackTrace();
+                LOG.error("Error adding book", ex);
                 JOptionPane.showMessageDialog(dialog,
                     "Error adding book: " + ex.getMessage(),
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            
+            dialog.dispose();
+            loadBooks();
+            updateBookStats(totalBooksLabel, totalCopiesLabel, totalAvailableLabel);
+            JOptionPane.showMessageDialog(dialog,
+                "Book added successfully!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
         });
         
         JButton cancelButton = new JButton("Cancel");
@@ -830,10 +849,93 @@ public class AdminDashboard extends JFrame {
         dialog.setVisible(true);
     }
     
+    private void showImportBooksDialog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Books");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+            "CSV or JSON files", "csv", "json", "jsonl", "ndjson"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        
+        // Non-modal progress dialog; the import runs on its own thread
+        JDialog dialog = new JDialog(this, "Importing " + file.getFileName(), false);
+        dialog.setLayout(new BorderLayout(10, 10));
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        JLabel statusLabel = new JLabel("Reading file...");
+        JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+        progressPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        progressPanel.add(progressBar, BorderLayout.NORTH);
+        progressPanel.add(statusLabel, BorderLayout.CENTER);
+        dialog.add(progressPanel, BorderLayout.CENTER);
+        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        dialog.setSize(420, 120);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        
+        Thread importer = new Thread(() -> {
+            try {
+                BookImporter.Result result = BookImporter.importFile(file, progress -> SwingUtilities.invokeLater(() -> {
+                    if (progress.totalBytes() > 0) {
+                        progressBar.setValue((int) (progress.bytesRead() * 1000 / progress.totalBytes()));
+                    }
+                    statusLabel.setText(String.format("%,d read, %,d imported, %,d rejected",
+                        progress.rowsRead(), progress.imported(), progress.rejected()));
+                }));
+                SwingUtilities.invokeLater(() -> {
+                    dialog.dispose();
+                    loadBooks();
+                    updateBookStats(totalBooksLabel, totalCopiesLabel, totalAvailableLabel);
+                    showImportResult(result);
+                });
+            } catch (java.io.IOException | SQLException ex) {
+                LOG.error("Error importing books", ex);
+                SwingUtilities.invokeLater(() -> {
+                    dialog.dispose();
+                    loadBooks();
+                    JOptionPane.showMessageDialog(this,
+                        "Error importing books: " + ex.getMessage() +
+                        "\nBooks from batches committed before the error were kept.",
+                        "Import Error",
+                        JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        }, "librorent-book-import");
+        importer.setDaemon(true);
+        importer.start();
+    }
+    
+    private void showImportResult(BookImporter.Result result) {
+        StringBuilder message = new StringBuilder(String.format(
+            "Imported %,d book(s) in %.1f s (%,.0f rows/s).\nRejected %,d row(s).",
+            result.imported(), result.elapsedMillis() / 1000.0, result.rowsPerSecond(), result.rejected()));
+        if (result.rejected() == 0) {
+            JOptionPane.showMessageDialog(this, message.toString(), "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        StringBuilder rejections = new StringBuilder();
+        for (BookImporter.Rejection rejection : result.rejections()) {
+            rejections.append("Line ").append(rejection.line()).append(": ").append(rejection.reason()).append('\n');
+        }
+        if (result.rejected() > result.rejections().size()) {
+            rejections.append(String.format("... and %,d more%n", result.rejected() - result.rejections().size()));
+        }
+        JTextArea rejectionArea = new JTextArea(rejections.toString(), 15, 60);
+        rejectionArea.setEditable(false);
+        
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(new JLabel("<html>" + message.toString().replace("\n", "<br>") + "</html>"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(rejectionArea), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, panel, "Import Complete", JOptionPane.WARNING_MESSAGE);
+    }
+    
     private void loadData() {
         // This method is now only used for initial loading
         if (bookModel != null) {
-            loadBooks(bookModel);
+            loadBooks();
         }
         loadUsers();
         loadRentals();
@@ -841,29 +943,7 @@ public class AdminDashboard extends JFrame {
     }
     
     private void loadUsers() {
-        usersModel.setRowCount(0); // Clear existing data
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM users ORDER BY id DESC")) {
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("id"),
-                    rs.getString("username"),
-                    rs.getString("full_name"),
-                    rs.getString("email"),
-                    rs.getString("phone"),
-                    rs.getString("role")
-                };
-                usersModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading users: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        usersModel.reload();
     }
     
     private JPanel createSettingsPanel() {
@@ -927,8 +1007,8 @@ public class AdminDashboard extends JFrame {
         JSpinner rentalMinutesSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 59, 1));
         JSpinner rentalSecondsSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 59, 1));
         
-        // Set initial values from defaultRentalDuration
-        int totalSeconds = defaultRentalDuration;
+        // Set initial values from the saved rental duration
+        int totalSeconds = settings.getDefaultRentalDuration();
         rentalDaysSpinner.setValue(totalSeconds / (24 * 3600));
         rentalHoursSpinner.setValue((totalSeconds % (24 * 3600)) / 3600);
         rentalMinutesSpinner.setValue((totalSeconds % 3600) / 60);
@@ -957,8 +1037,8 @@ public class AdminDashboard extends JFrame {
         JSpinner reservationMinutesSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 59, 1));
         JSpinner reservationSecondsSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 59, 1));
         
-        // Set initial values from reservationExpiration
-        totalSeconds = reservationExpiration;
+        // Set initial values from the saved reservation expiration
+        totalSeconds = settings.getReservationExpiration();
         reservationDaysSpinner.setValue(totalSeconds / (24 * 3600));
         reservationHoursSpinner.setValue((totalSeconds % (24 * 3600)) / 3600);
         reservationMinutesSpinner.setValue((totalSeconds % 3600) / 60);
@@ -976,7 +1056,7 @@ public class AdminDashboard extends JFrame {
         
         // Late Fee Rate settings
         JPanel lateFeePanel = createSettingRow("Late Fee Rate (₱ per day):", 
-            new JSpinner(new SpinnerNumberModel(lateFeeRate, 0.0, 1000.0, 10.0)));
+            new JSpinner(new SpinnerNumberModel(settings.getLateFeeRate(), 0.0, 1000.0, 10.0)));
         
         formPanel.add(rentalDurationPanel);
         formPanel.add(Box.createVerticalStrut(15));
@@ -1039,31 +1119,18 @@ public class AdminDashboard extends JFrame {
     }
     
     private void saveSettings(int rentalDurationSeconds, int reservationSeconds, double lateFeeRate) {
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "INSERT OR REPLACE INTO settings (key, value, last_updated) VALUES (?, ?, datetime('now'))")) {
-            
+        try {
             // Store old values for comparison
-            int oldRentalDuration = this.defaultRentalDuration;
-            int oldReservationExpiration = this.reservationExpiration;
-            double oldLateFeeRate = this.lateFeeRate;
-            
-            pstmt.setString(1, "default_rental_duration");
-            pstmt.setString(2, String.valueOf(rentalDurationSeconds));
-            pstmt.executeUpdate();
+            int oldRentalDuration = settings.getDefaultRentalDuration();
+            int oldReservationExpiration = settings.getReservationExpiration();
+            double oldLateFeeRate = settings.getLateFeeRate();
             
-            pstmt.setString(1, "late_fee_rate");
-            pstmt.setString(2, String.valueOf(lateFeeRate));
-            pstmt.executeUpdate();
-            
-            pstmt.setString(1, "reservation_expiration");
-            pstmt.setString(2, String.valueOf(reservationSeconds));
-            pstmt.executeUpdate();
-            
-            // Update the instance variables
-            this.defaultRentalDuration = rentalDurationSeconds;
-            this.reservationExpiration = reservationSeconds;
-            this.lateFeeRate = lateFeeRate;
+            // Saving notifies every open panel and the late fee engine of what changed
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put(Settings.DEFAULT_RENTAL_DURATION, rentalDurationSeconds);
+            values.put(Settings.LATE_FEE_RATE, lateFeeRate);
+            values.put(Settings.RESERVATION_EXPIRATION, reservationSeconds);
+            settings.putAll(values);
             
             // Get current timestamp
             String timestamp = java.time.LocalDateTime.now().format(
@@ -1136,49 +1203,9 @@ public class AdminDashboard extends JFrame {
         return panel;
     }
     
-    private void loadBooks(DefaultTableModel model) {
-        model.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books ORDER BY book_id DESC")) {
-            
-            while (rs.next()) {
-                double fee = rs.getDouble("fee");
-                if (rs.wasNull()) {
-                    fee = 10.0; // Default fee if null
-                }
-                double lateReturnFee = rs.getDouble("late_return_fee");
-                if (rs.wasNull()) {
-                    lateReturnFee = 5.0; // Default late return fee if null
-                }
-                Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("isbn"),
-                    rs.getString("format"),
-                    rs.getString("genre"),
-                    rs.getInt("copies"),
-                    "₱" + fee,
-                    "₱" + lateReturnFee,
-                    rs.getString("status"),
-                    "Edit"
-                };
-                model.addRow(row);
-            }
-            
-            // Set up the edit button column
-            TableColumn editColumn = bookTable.getColumnModel().getColumn(10);
-            editColumn.setCellRenderer(new ButtonRenderer());
-            editColumn.setCellEditor(new ButtonEditor(bookTable));
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading books: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+    private void loadBooks() {
+        // Retired books keep their row for history but are no longer listed
+        bookModel.setFilter("retired_at IS NULL");
     }
     
     // Custom table cell renderer for action buttons
@@ -1241,375 +1268,207 @@ public class AdminDashboard extends JFrame {
         // Remove 'B' prefix from book ID
         final String numericBookId = bookId.substring(1);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT * FROM books WHERE book_id = ?")) {
-            
-            pstmt.setInt(1, Integer.parseInt(numericBookId));
-            ResultSet rs = pstmt.executeQuery();
+        // Read the row on a read connection; the writer is borrowed only while Save or Delete runs
+        BookCatalog.Book book;
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            book = BookRepository.findById(conn, Integer.parseInt(numericBookId));
+        } catch (SQLException e) {
+            LOG.error("Error loading book details", e, "bookId", bookId);
+            JOptionPane.showMessageDialog(this,
+                "Error loading book details: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        if (book != null) {
+            JDialog dialog = new JDialog(this, "Edit Book", true);
+            dialog.setLayout(new BorderLayout(10, 10));
+            
+            JPanel formPanel = new JPanel(new GridBagLayout());
+            GridBagConstraints gbc = new GridBagConstraints();
+            gbc.fill = GridBagConstraints.HORIZONTAL;
+            gbc.insets = new Insets(5, 5, 5, 5);
+            
+            // Title
+            gbc.gridx = 0; gbc.gridy = 0;
+            formPanel.add(new JLabel("Title:"), gbc);
+            gbc.gridx = 1;
+            JTextField titleField = new JTextField(book.title(), 20);
+            formPanel.add(titleField, gbc);
+            
+            // Author
+            gbc.gridx = 0; gbc.gridy = 1;
+            formPanel.add(new JLabel("Author:"), gbc);
+            gbc.gridx = 1;
+            JTextField authorField = new JTextField(book.author(), 20);
+            formPanel.add(authorField, gbc);
+            
+            // ISBN
+            gbc.gridx = 0; gbc.gridy = 2;
+            formPanel.add(new JLabel("ISBN:"), gbc);
+            gbc.gridx = 1;
+            JTextField isbnField = new JTextField(book.isbn(), 20);
+            formPanel.add(isbnField, gbc);
+            
+            // Genre
+            gbc.gridx = 0; gbc.gridy = 3;
+            formPanel.add(new JLabel("Genre:"), gbc);
+            gbc.gridx = 1;
+            JTextField genreField = new JTextField(book.genre(), 20);
+            formPanel.add(genreField, gbc);
+            
+            // Format
+            gbc.gridx = 0; gbc.gridy = 4;
+            formPanel.add(new JLabel("Format:"), gbc);
+            gbc.gridx = 1;
+            String[] formats = {"Physical", "E-Book",};
+            JComboBox<String> formatCombo = new JComboBox<>(formats);
+            formatCombo.setSelectedItem(book.format());
+            formPanel.add(formatCombo, gbc);
+            
+            // Copies
+            gbc.gridx = 0; gbc.gridy = 5;
+            formPanel.add(new JLabel("Copies:"), gbc);
+            gbc.gridx = 1;
+            JSpinner copiesSpinner = new JSpinner(new SpinnerNumberModel(book.copies(), 0, 1000, 1));
+            formPanel.add(copiesSpinner, gbc);
+            
+            // Rental Fee
+            gbc.gridx = 0; gbc.gridy = 6;
+            formPanel.add(new JLabel("Rental Fee (₱):"), gbc);
+            gbc.gridx = 1;
+            JSpinner feeSpinner = new JSpinner(new SpinnerNumberModel(book.fee(), 0.0, 1000.0, 10.0));
+            formPanel.add(feeSpinner, gbc);
+            
+            // Late Return Fee
+            gbc.gridx = 0; gbc.gridy = 7;
+            formPanel.add(new JLabel("Late Return Fee (₱):"), gbc);
+            gbc.gridx = 1;
+            JSpinner lateFeeSpinner = new JSpinner(new SpinnerNumberModel(book.lateReturnFee(), 0.0, 1000.0, 5.0));
+            formPanel.add(lateFeeSpinner, gbc);
+            
+            // Status
+            gbc.gridx = 0; gbc.gridy = 8;
+            formPanel.add(new JLabel("Status:"), gbc);
+            gbc.gridx = 1;
+            String[] statuses = {"Available", "Rented", "Maintenance"};
+            JComboBox<String> statusCombo = new JComboBox<>(statuses);
+            statusCombo.setSelectedItem(book.status());
+            formPanel.add(statusCombo, gbc);
+            
+            JButton saveButton = new JButton("Save");
+            JButton cancelButton = new JButton("Cancel");
+            JButton deleteButton = new JButton("Delete");
+            
+            saveButton.addActionListener(e -> {
+                try {
+                    // Update book in database
+                    BookRepository.update(
+                        Integer.parseInt(numericBookId),
+                        titleField.getText(),
+                        authorField.getText(),
+                        isbnField.getText(),
+                        genreField.getText(),
+                        (String)formatCombo.getSelectedItem(),
+                        (Integer)copiesSpinner.getValue(),
+                        (Double)feeSpinner.getValue(),
+                        (Double)lateFeeSpinner.getValue(),
+                        (String)statusCombo.getSelectedItem());
+                    
+                    // Refresh book list
+                    loadBooks();
+                    
+                    dialog.dispose();
+                    
+                    JOptionPane.showMessageDialog(this,
+                        "Book updated successfully!",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } catch (SQLException ex) {
+                    LOG.error("Error updating book", ex, "bookId", bookId);
+                    JOptionPane.showMessageDialog(this,
+                        "Error updating book: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            });
             
-            if (rs.next()) {
-                JDialog dialog = new JDialog(this, "Edit Book", true);
-                dialog.setLayout(new BorderLayout(10, 10));
-                
-                JPanel formPanel = new JPanel(new GridBagLayout());
-                GridBagConstraints gbc = new GridBagConstraints();
-                gbc.fill = GridBagConstraints.HORIZONTAL;
-                gbc.insets = new Insets(5, 5, 5, 5);
-                
-                // Title
-                gbc.gridx = 0; gbc.gridy = 0;
-                formPanel.add(new JLabel("Title:"), gbc);
-                gbc.gridx = 1;
-                JTextField titleField = new JTextField(rs.getString("title"), 20);
-                formPanel.add(titleField, gbc);
-                
-                // Author
-                gbc.gridx = 0; gbc.gridy = 1;
-                formPanel.add(new JLabel("Author:"), gbc);
-                gbc.gridx = 1;
-                JTextField authorField = new JTextField(rs.getString("author"), 20);
-                formPanel.add(authorField, gbc);
-                
-                // ISBN
-                gbc.gridx = 0; gbc.gridy = 2;
-                formPanel.add(new JLabel("ISBN:"), gbc);
-                gbc.gridx = 1;
-                JTextField isbnField = new JTextField(rs.getString("isbn"), 20);
-                formPanel.add(isbnField, gbc);
-                
-                // Genre
-                gbc.gridx = 0; gbc.gridy = 3;
-                formPanel.add(new JLabel("Genre:"), gbc);
-                gbc.gridx = 1;
-                JTextField genreField = new JTextField(rs.getString("genre"), 20);
-                formPanel.add(genreField, gbc);
-                
-                // Format
-                gbc.gridx = 0; gbc.gridy = 4;
-                formPanel.add(new JLabel("Format:"), gbc);
-                gbc.gridx = 1;
-                String[] formats = {"Physical", "E-Book",};
-                JComboBox<String> formatCombo = new JComboBox<>(formats);
-                formatCombo.setSelectedItem(rs.getString("format"));
-                formPanel.add(formatCombo, gbc);
+            deleteButton.addActionListener(e -> {
+                int choice = JOptionPane.showConfirmDialog(this,
+                    "Are you sure you want to remove this book from the catalogue?\n" +
+                    "Books that were rented before are retired and their rental history is archived.",
+                    "Confirm Delete",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
                 
-                // Copies
-                gbc.gridx = 0; gbc.gridy = 5;
-                formPanel.add(new JLabel("Copies:"), gbc);
-                gbc.gridx = 1;
-                JSpinner copiesSpinner = new JSpinner(new SpinnerNumberModel(rs.getInt("copies"), 0, 1000, 1));
-                formPanel.add(copiesSpinner, gbc);
-                
-                // Rental Fee
-                gbc.gridx = 0; gbc.gridy = 6;
-                formPanel.add(new JLabel("Rental Fee (₱):"), gbc);
-                gbc.gridx = 1;
-                JSpinner feeSpinner = new JSpinner(new SpinnerNumberModel(rs.getDouble("fee"), 0.0, 1000.0, 10.0));
-                formPanel.add(feeSpinner, gbc);
-                
-                // Late Return Fee
-                gbc.gridx = 0; gbc.gridy = 7;
-                formPanel.add(new JLabel("Late Return Fee (₱):"), gbc);
-                gbc.gridx = 1;
-                JSpinner lateFeeSpinner = new JSpinner(new SpinnerNumberModel(rs.getDouble("late_return_fee"), 0.0, 1000.0, 5.0));
-                formPanel.add(lateFeeSpinner, gbc);
-                
-                // Status
-                gbc.gridx = 0; gbc.gridy = 8;
-                formPanel.add(new JLabel("Status:"), gbc);
-                gbc.gridx = 1;
-                String[] statuses = {"Available", "Rented", "Maintenance"};
-                JComboBox<String> statusCombo = new JComboBox<>(statuses);
-                statusCombo.setSelectedItem(rs.getString("status"));
-                formPanel.add(statusCombo, gbc);
-                
-                JButton saveButton = new JButton("Save");
-                JButton cancelButton = new JButton("Cancel");
-                JButton deleteButton = new JButton("Delete");
-                
-                saveButton.addActionListener(e -> {
+                if (choice == JOptionPane.YES_OPTION) {
+                    int id = Integer.parseInt(numericBookId);
                     try {
-                        // Update book in database
-                        try (PreparedStatement updateStmt = conn.prepareStatement(
-                                "UPDATE books SET title = ?, author = ?, isbn = ?, genre = ?, " +
-                                "format = ?, copies = ?, fee = ?, late_return_fee = ?, status = ? " +
-                                "WHERE book_id = ?")) {
-                        
-                            updateStmt.setString(1, titleField.getText());
-                            updateStmt.setString(2, authorField.getText());
-                            updateStmt.setString(3, isbnField.getText());
-                            updateStmt.setString(4, genreField.getText());
-                            updateStmt.setString(5, (String)formatCombo.getSelectedItem());
-                            updateStmt.setInt(6, (Integer)copiesSpinner.getValue());
-                            updateStmt.setDouble(7, (Double)feeSpinner.getValue());
-                            updateStmt.setDouble(8, (Double)lateFeeSpinner.getValue());
-                            updateStmt.setString(9, (String)statusCombo.getSelectedItem());
-                            updateStmt.setInt(10, Integer.parseInt(numericBookId));
-                            
-                            updateStmt.executeUpdate();
-                            
-                            // Refresh book list
-                        loadBooks(bookModel);
-                        
-                            dialog.dispose();
-                            
-                            JOptionPane.showMessageDialog(this,
-                            "Book updated successfully!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                        }
-                    } catch (SQLException ex) {
-                        ex.printStackTrace();
-                        JOptionPane.showMessageDialog(this,
-                            "Error updating book: " + ex.getMessage(),
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                });
-                
-                deleteButton.addActionListener(e -> {
-                    int choice = JOptionPane.showConfirmDialog(this,
-                        "Are you sure you want to delete this book? This action cannot be undone.",
-                        "Confirm Delete",
-                        JOptionPane.YES_NO_OPTION,
-                        JOptionPane.WARNING_MESSAGE);
-                    
-                    if (choice == JOptionPane.YES_OPTION) {
-                        try {
-                            // First check if the book has any active rentals
-                            try (PreparedStatement checkStmt = conn.prepareStatement(
-                                "SELECT COUNT(*) as rental_count FROM rentals WHERE book_id = ? AND return_date IS NULL")) {
-                                checkStmt.setInt(1, Integer.parseInt(numericBookId));
-                                ResultSet rentalCheck = checkStmt.executeQuery();
-                                
-                                if (rentalCheck.next() && rentalCheck.getInt("rental_count") > 0) {
-                                    JOptionPane.showMessageDialog(this,
-                                        "Cannot delete book: It has active rentals. Please ensure all copies are returned first.",
-                                        "Delete Error",
-                                        JOptionPane.ERROR_MESSAGE);
-                                    return;
-                                }
-                            }
-                            
-                            // Begin transaction
+                        BookRetirement.Result result;
+                        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
                             conn.setAutoCommit(false);
                             try {
-                                // Delete related records first
-                                try (PreparedStatement deleteRentalsStmt = conn.prepareStatement(
-                                    "DELETE FROM rentals WHERE book_id = ?")) {
-                                    deleteRentalsStmt.setInt(1, Integer.parseInt(numericBookId));
-                                    deleteRentalsStmt.executeUpdate();
-                                }
-                                
-                                // Delete related reservations
-                                try (PreparedStatement deleteReservationsStmt = conn.prepareStatement(
-                                    "DELETE FROM reservations WHERE book_id = ?")) {
-                                    deleteReservationsStmt.setInt(1, Integer.parseInt(numericBookId));
-                                    deleteReservationsStmt.executeUpdate();
-                                }
-                                
-                                // Now delete the book
-                            try (PreparedStatement deleteStmt = conn.prepareStatement(
-                                 "DELETE FROM books WHERE book_id = ?")) {
-                                    deleteStmt.setInt(1, Integer.parseInt(numericBookId));
-                                    int rowsAffected = deleteStmt.executeUpdate();
-                                    
-                                    if (rowsAffected > 0) {
-                                        // Commit transaction
-                                        conn.commit();
-                            
-                                // Refresh book list
-                                loadBooks(bookModel);
-                            dialog.dispose();
-                            
-                                JOptionPane.showMessageDialog(this,
-                                "Book deleted successfully!",
-                                "Success",
-                                JOptionPane.INFORMATION_MESSAGE);
-                                    } else {
-                                        conn.rollback();
-                                        JOptionPane.showMessageDialog(this,
-                                            "Book not found or already deleted.",
-                                            "Delete Error",
-                                            JOptionPane.ERROR_MESSAGE);
-                                    }
-                                }
+                                result = BookRetirement.remove(conn, id);
+                                conn.commit();
                             } catch (SQLException ex) {
-                                // Rollback transaction on error
                                 conn.rollback();
                                 throw ex;
                             } finally {
-                                // Reset auto-commit
                                 conn.setAutoCommit(true);
                             }
-                        } catch (SQLException ex) {
-                            ex.printStackTrace();
-                            String errorMessage = "Error deleting book: ";
-                            if (ex.getMessage().contains("foreign key constraint")) {
-                                errorMessage += "This book has associated records in the system. Please delete related records first.";
-                            } else {
-                                errorMessage += ex.getMessage();
-                            }
-                            JOptionPane.showMessageDialog(this,
-                                errorMessage,
-                                "Error",
-                                JOptionPane.ERROR_MESSAGE);
                         }
+                        BookCatalog.getInstance().bookRemoved(id);
+                        
+                        // Refresh book list
+                        loadBooks();
+                        dialog.dispose();
+                        
+                        String message = result.deleted()
+                            ? "Book deleted successfully!"
+                            : "Book retired successfully. " + result.archivedRentals() +
+                              " past rental(s) were archived and " + result.cancelledReservations() +
+                              " reservation(s) cancelled.";
+                        JOptionPane.showMessageDialog(this,
+                            message,
+                            "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    } catch (SQLException ex) {
+                        LOG.error("Error deleting book", ex, "bookId", bookId);
+                        JOptionPane.showMessageDialog(this,
+                            "Error deleting book: " + ex.getMessage(),
+                            "Delete Error",
+                            JOptionPane.ERROR_MESSAGE);
                     }
-                });
-                
-                cancelButton.addActionListener(e -> dialog.dispose());
-                
-                JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-                buttonPanel.add(deleteButton);
-                buttonPanel.add(cancelButton);
-                buttonPanel.add(saveButton);
-                
-                dialog.add(formPanel, BorderLayout.CENTER);
-                dialog.add(buttonPanel, BorderLayout.SOUTH);
-                dialog.pack();
-                dialog.setLocationRelativeTo(this);
-                dialog.setVisible(true);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading book details: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    private void updateDashboardStats() {
-        System.out.println("\n=== Updating Dashboard Stats ===");
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            System.out.println("Database connection established");
-            
-            // Get total books
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM books")) {
-                if (rs.next()) {
-                    int totalBooks = rs.getInt("total");
-                    System.out.println("Total Books: " + totalBooks);
-                    updateStatCard(0, totalBooks);
                 }
-            }
-            
-            // Get unavailable books
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                     SELECT COUNT(*) as total FROM books 
-                     WHERE status != 'Available' OR copies = 0""")) {
-                if (rs.next()) {
-                    int unavailableBooks = rs.getInt("total");
-                    System.out.println("Unavailable Books: " + unavailableBooks);
-                    updateStatCard(1, unavailableBooks);
-                }
-            }
-            
-            // Get e-books count
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM books WHERE format = 'E-Book'")) {
-                if (rs.next()) {
-                    int ebooks = rs.getInt("total");
-                    System.out.println("E-Books: " + ebooks);
-                    updateStatCard(2, ebooks);
-                }
-            }
-            
-            // Get physical books count
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM books WHERE format = 'Physical'")) {
-                if (rs.next()) {
-                    int physicalBooks = rs.getInt("total");
-                    System.out.println("Physical Books: " + physicalBooks);
-                    updateStatCard(3, physicalBooks);
-                }
-            }
-            
-            // Get active rentals
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                    SELECT COUNT(*) as active_count FROM rentals 
-                    WHERE status = 'Active' 
-                    AND return_date IS NULL""")) {
-                if (rs.next()) {
-                    int activeRentals = rs.getInt("active_count");
-                    System.out.println("Active Rentals: " + activeRentals);
-                    updateStatCard(4, activeRentals);
-                }
-            }
+            });
             
-            // Get overdue books - with detailed debugging
-            System.out.println("\nChecking overdue books...");
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("""
-                    SELECT 
-                        COUNT(*) as overdue_count,
-                        GROUP_CONCAT(r.id || ':' || b.title || ':' || r.due_date) as overdue_details
-                    FROM rentals r
-                    JOIN books b ON r.book_id = b.book_id
-                    WHERE r.return_date IS NULL 
-                    AND r.due_date < datetime('now')
-                    AND r.status = 'Active'
-                 """)) {
-                if (rs.next()) {
-                    int overdueCount = rs.getInt("overdue_count");
-                    String overdueDetails = rs.getString("overdue_details");
-                    
-                    System.out.println("Found " + overdueCount + " overdue books");
-                    if (overdueDetails != null) {
-                        System.out.println("\nOverdue Books Details:");
-                        String[] details = overdueDetails.split(",");
-                        for (String detail : details) {
-                            String[] parts = detail.split(":");
-                            if (parts.length >= 3) {
-                                System.out.println("Rental ID: " + parts[0] + 
-                                                 ", Book: " + parts[1] + 
-                                                 ", Due Date: " + parts[2]);
-                            }
-                        }
-                    }
-                    
-                    // Let's also check the current date for comparison
-                    try (Statement dateStmt = conn.createStatement();
-                         ResultSet dateRs = dateStmt.executeQuery("SELECT datetime('now') as current_date")) {
-                        if (dateRs.next()) {
-                            System.out.println("\nCurrent Date: " + dateRs.getString("current_date"));
-                        }
-                    }
-                    
-                    updateStatCard(5, overdueCount);
-                } else {
-                    System.out.println("No overdue books found");
-                    updateStatCard(5, 0);
-                }
-            }
+            cancelButton.addActionListener(e -> dialog.dispose());
             
-            // Get total users
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as total FROM users")) {
-                if (rs.next()) {
-                    int totalUsers = rs.getInt("total");
-                    System.out.println("Total Users: " + totalUsers);
-                    totalUsersLabel.setText(String.format("%,d", totalUsers));
-                }
-            }
+            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+            buttonPanel.add(deleteButton);
+            buttonPanel.add(cancelButton);
+            buttonPanel.add(saveButton);
             
+            dialog.add(formPanel, BorderLayout.CENTER);
+            dialog.add(buttonPanel, BorderLayout.SOUTH);
+            dialog.pack();
+            dialog.setLocationRelativeTo(this);
+            dialog.setVisible(true);
+        }
+    }
+
+    private void updateDashboardStats() {
+        try {
+            applyDashboardStats(DashboardStats.load());
         } catch (SQLException e) {
-            System.out.println("ERROR: SQL Exception occurred");
-            System.out.println("Error message: " + e.getMessage());
-            System.out.println("SQL State: " + e.getSQLState());
-            System.out.println("Error Code: " + e.getErrorCode());
-            e.printStackTrace();
+            LOG.error("Error updating dashboard stats", e);
             
             JOptionPane.showMessageDialog(this,
                 "Error updating dashboard stats: " + e.getMessage(),
                 "Database Error",
                 JOptionPane.ERROR_MESSAGE);
         }
-        System.out.println("=== Dashboard Stats Update Complete ===\n");
     }
 
     private JPanel createUserManagementPanel() {
@@ -1676,14 +1535,26 @@ public class AdminDashboard extends JFrame {
         
         // Users table with custom styling
         String[] columns = {"ID", "Username", "Full Name", "Email", "Phone", "Role"};
-        usersModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make all columns non-editable
-            }
-        };
+        usersModel = new PagedTableModel(columns,
+            "id, username, full_name, email, phone, role",
+            "users", "id",
+            new String[]{"id", "username", "full_name", "email",
+                         "COALESCE(phone, '')", "COALESCE(role, '')"},
+            0, false, rs -> new Object[]{
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("full_name"),
+                rs.getString("email"),
+                rs.getString("phone"),
+                rs.getString("role")
+            });
+        usersModel.setOnError(e -> JOptionPane.showMessageDialog(this,
+            "Error loading users: " + e.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE));
         
         usersTable = new JTable(usersModel);
+        usersTable.setRowSorter(usersModel.createSorter());
         usersTable.setRowHeight(30);
         usersTable.setShowGrid(false);
         usersTable.setIntercellSpacing(new Dimension(0, 0));
@@ -1722,7 +1593,6 @@ public class AdminDashboard extends JFrame {
     }
 
     private JPanel createRentalManagementPanel() {
-        System.out.println("\n=== Creating Rental Management Panel ===");
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         panel.setBackground(new Color(245, 245, 245));
@@ -1822,9 +1692,7 @@ public class AdminDashboard extends JFrame {
         userFeesPanel.add(userFeesScrollPane, BorderLayout.CENTER);
         
         // Load user fees data
-        System.out.println("Loading user fees data...");
         loadUserFeesSummary(userFeesModel);
-        System.out.println("User fees data loaded");
         
         // Bottom panel for rental details
         JPanel rentalDetailsPanel = new JPanel(new BorderLayout(10, 10));
@@ -1853,6 +1721,23 @@ public class AdminDashboard extends JFrame {
         markAllPendingButton.setForeground(Color.WHITE);
         markAllPendingButton.setFocusPainted(false);
         markAllPendingButton.setBorderPainted(false);
+        
+        // Export buttons stream the full reports to a file
+        JButton exportRentalsButton = new JButton("Export Rentals");
+        exportRentalsButton.setBackground(new Color(52, 152, 219)); // Blue
+        exportRentalsButton.setForeground(Color.WHITE);
+        exportRentalsButton.setFocusPainted(false);
+        exportRentalsButton.setBorderPainted(false);
+        exportRentalsButton.addActionListener(e ->
+            ReportExporter.showExportDialog(this, ReportExporter.Report.RENTALS));
+        
+        JButton exportFeesButton = new JButton("Export Fees");
+        exportFeesButton.setBackground(new Color(52, 152, 219)); // Blue
+        exportFeesButton.setForeground(Color.WHITE);
+        exportFeesButton.setFocusPainted(false);
+        exportFeesButton.setBorderPainted(false);
+        exportFeesButton.addActionListener(e ->
+            ReportExporter.showExportDialog(this, ReportExporter.Report.USER_FEES));
 
         // Add action listeners for the buttons
         markAllPaidButton.addActionListener(e -> {
@@ -1885,17 +1770,26 @@ public class AdminDashboard extends JFrame {
         searchPanel.add(Box.createHorizontalStrut(20)); // Add some spacing
         searchPanel.add(markAllPaidButton);
         searchPanel.add(markAllPendingButton);
+        searchPanel.add(Box.createHorizontalStrut(20));
+        searchPanel.add(exportRentalsButton);
+        searchPanel.add(exportFeesButton);
         
         // Rentals table
         String[] columns = {"ID", "Book", "User", "Rental Date", "Due Date", "Return Date", "Status", "Payment Status", "Late Fee"};
-        rentalsModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 7; // Only payment status column is editable
-            }
-        };
+        rentalsModel = new PagedTableModel(columns, RENTAL_SELECT, RENTAL_FROM, "r.id",
+            new String[]{"r.id", "b.title", "u.username", "r.rental_date", "r.due_date",
+                         "COALESCE(r.return_date, '')", "r.return_date IS NOT NULL",
+                         "COALESCE(r.payment_status, '')", "COALESCE(r.late_fee, 0)"},
+            3, false, this::mapRentalRow);
+        rentalsModel.setEditableColumns(7); // Only payment status column is editable
+        rentalsModel.setOnError(e -> JOptionPane.showMessageDialog(this,
+            "Error loading rentals: " + e.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE));
         
         rentalsTable = new JTable(rentalsModel);
+        // Header clicks re-sort in SQL, so dates and fees sort by value rather than by display text
+        rentalsTable.setRowSorter(rentalsModel.createSorter());
         rentalsTable.setRowHeight(30);
         rentalsTable.setShowGrid(false);
         rentalsTable.setIntercellSpacing(new Dimension(0, 0));
@@ -1997,43 +1891,6 @@ public class AdminDashboard extends JFrame {
             }
         });
 
-        // Add sorting capability to rentalsTable
-        TableRowSorter<DefaultTableModel> rentalsSorter = new TableRowSorter<>(rentalsModel);
-        rentalsTable.setRowSorter(rentalsSorter);
-        
-        // Set up column comparators for proper sorting
-        rentalsSorter.setComparator(0, Comparator.naturalOrder()); // ID
-        rentalsSorter.setComparator(3, (String s1, String s2) -> {
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy hh:mm a");
-                return sdf.parse(s1).compareTo(sdf.parse(s2));
-            } catch (Exception e) {
-                return s1.compareTo(s2);
-            }
-        }); // Rental Date
-        rentalsSorter.setComparator(4, (String s1, String s2) -> {
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy hh:mm a");
-                return sdf.parse(s1).compareTo(sdf.parse(s2));
-            } catch (Exception e) {
-                return s1.compareTo(s2);
-            }
-        }); // Due Date
-        rentalsSorter.setComparator(5, (String s1, String s2) -> {
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("MMM dd, yyyy hh:mm a");
-                return sdf.parse(s1).compareTo(sdf.parse(s2));
-            } catch (Exception e) {
-                return s1.compareTo(s2);
-            }
-        }); // Return Date
-        rentalsSorter.setComparator(8, (String s1, String s2) -> {
-            // Remove ₱ symbol and parse as double for proper sorting
-            double d1 = Double.parseDouble(s1.replace("₱", ""));
-            double d2 = Double.parseDouble(s2.replace("₱", ""));
-            return Double.compare(d1, d2);
-        }); // Late Fee
-        
         // Add sorting capability to userFeesTable
         TableRowSorter<DefaultTableModel> userFeesSorter = new TableRowSorter<>(userFeesModel);
         userFeesTable.setRowSorter(userFeesSorter);
@@ -2054,12 +1911,8 @@ public class AdminDashboard extends JFrame {
     }
 
     private void updateAllPaymentStatus(String status) {
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "UPDATE rentals SET payment_status = ?")) {
-            
-            pstmt.setString(1, status);
-            int rowsAffected = pstmt.executeUpdate();
+        try {
+            int rowsAffected = RentalRepository.setAllPaymentStatus(status);
             
             // Refresh the rentals table
             loadRentals();
@@ -2070,7 +1923,7 @@ public class AdminDashboard extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
                 
         } catch (SQLException ex) {
-            ex.printStackTrace();
+            LOG.error("Error updating payment status", ex);
             JOptionPane.showMessageDialog(this,
                 "Error updating payment status: " + ex.getMessage(),
                 "Error",
@@ -2079,10 +1932,14 @@ public class AdminDashboard extends JFrame {
     }
 
     private void showPaymentStatusDialog(int row) {
-        int rentalId = (int) rentalsModel.getValueAt(row, 0);
-        String currentStatus = (String) rentalsModel.getValueAt(row, 7);
-        String bookTitle = (String) rentalsModel.getValueAt(row, 1);
-        String username = (String) rentalsModel.getValueAt(row, 2);
+        Object[] rental = rentalsModel.getRow(row);
+        if (rental == null) {
+            return; // Row is still loading
+        }
+        int rentalId = (int) rental[0];
+        String currentStatus = (String) rental[7];
+        String bookTitle = (String) rental[1];
+        String username = (String) rental[2];
         
         JDialog dialog = new JDialog(this, "Edit Payment Status", true);
         dialog.setLayout(new BorderLayout(10, 10));
@@ -2111,13 +1968,8 @@ public class AdminDashboard extends JFrame {
         
         saveButton.addActionListener(e -> {
             String newStatus = (String) statusCombo.getSelectedItem();
-            try (Connection conn = dbManager.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(
-                     "UPDATE rentals SET payment_status = ? WHERE id = ?")) {
-                
-                pstmt.setString(1, newStatus);
-                pstmt.setInt(2, rentalId);
-                pstmt.executeUpdate();
+            try {
+                RentalRepository.setPaymentStatus(rentalId, newStatus);
                 
                 // Update the table
                 rentalsModel.setValueAt(newStatus, row, 7);
@@ -2129,7 +1981,7 @@ public class AdminDashboard extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
                     
             } catch (SQLException ex) {
-                ex.printStackTrace();
+                LOG.error("Error updating payment status", ex);
                 JOptionPane.showMessageDialog(dialog,
                     "Error updating payment status: " + ex.getMessage(),
                     "Error",
@@ -2154,54 +2006,12 @@ public class AdminDashboard extends JFrame {
     }
 
     private void loadUserFeesSummary(DefaultTableModel model) {
-        System.out.println("\n=== Loading User Fees Summary ===");
         model.setRowCount(0);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            System.out.println("Database connection established");
-            
-            // Main query for user fees summary
-            String query = """
-                WITH user_rentals AS (
-                SELECT 
-                    u.id,
-                    u.username,
-                    u.full_name,
-                        COUNT(DISTINCT r.book_id) as total_books,
-                        GROUP_CONCAT(DISTINCT b.title) as book_titles,
-                        COALESCE(SUM(
-                            CASE 
-                                WHEN r.return_date IS NULL AND r.due_date < datetime('now') 
-                                THEN (julianday('now') - julianday(r.due_date) - 1) * ?
-                                WHEN r.return_date > r.due_date
-                                THEN (julianday(r.return_date) - julianday(r.due_date) - 1) * ?
-                                ELSE 0
-                            END
-                        ), 0) as total_late_fees,
-                        COUNT(CASE WHEN r.return_date IS NULL THEN 1 END) as active_rentals,
-                        COUNT(CASE WHEN r.return_date IS NULL AND r.due_date < datetime('now') THEN 1 END) as overdue_rentals
-                FROM users u
-                    LEFT JOIN rentals r ON u.id = r.user_id
-                    LEFT JOIN books b ON r.book_id = b.book_id
-                WHERE u.role = 'Member'
-                    GROUP BY u.id, u.username, u.full_name
-                )
-                SELECT * FROM user_rentals
-                ORDER BY total_late_fees DESC, active_rentals DESC, overdue_rentals DESC
-             """;
-            
-            System.out.println("Executing query with late fee rate: " + lateFeeRate);
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setDouble(1, lateFeeRate);
-                pstmt.setDouble(2, lateFeeRate);
-                
-                System.out.println("Query parameters set");
-                System.out.println("Executing query...");
-                
-                ResultSet rs = pstmt.executeQuery();
-                System.out.println("Query executed successfully");
-                
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            // Query timings are in QueryMetrics (JMX and librorent-metrics.txt)
+            try (PreparedStatement pstmt = conn.prepareStatement(USER_FEES_QUERY);
+                 ResultSet rs = pstmt.executeQuery()) {
                 int rowCount = 0;
                 while (rs.next()) {
                     rowCount++;
@@ -2214,16 +2024,6 @@ public class AdminDashboard extends JFrame {
                     int activeRentals = rs.getInt("active_rentals");
                     int overdueRentals = rs.getInt("overdue_rentals");
                     
-                    System.out.println("\nProcessing user record #" + rowCount + ":");
-                    System.out.println("User ID: " + userId);
-                    System.out.println("Username: " + username);
-                    System.out.println("Full Name: " + fullName);
-                    System.out.println("Total Books: " + totalBooks);
-                    System.out.println("Book Titles: " + bookTitles);
-                    System.out.println("Total Late Fees: " + totalLateFees);
-                    System.out.println("Active Rentals: " + activeRentals);
-                    System.out.println("Overdue Rentals: " + overdueRentals);
-                    
                     // Format book titles
                     String formattedTitles = "No books rented";
                     if (bookTitles != null && !bookTitles.isEmpty()) {
@@ -2236,8 +2036,6 @@ public class AdminDashboard extends JFrame {
                         }
                     }
                     
-                    System.out.println("Formatted Titles: " + formattedTitles);
-                    
                     Object[] row = {
                         userId,
                         username,
@@ -2249,454 +2047,123 @@ public class AdminDashboard extends JFrame {
                         overdueRentals
                     };
                     model.addRow(row);
-                    System.out.println("Row added to table model");
-                }
-                
-                System.out.println("\nTotal records processed: " + rowCount);
-                
-                if (rowCount == 0) {
-                    System.out.println("WARNING: No records found in the result set");
-                    // Let's check if there are any users at all
-                    try (Statement stmt = conn.createStatement();
-                         ResultSet userCount = stmt.executeQuery("SELECT COUNT(*) as count FROM users WHERE role = 'Member'")) {
-                        if (userCount.next()) {
-                            System.out.println("Total member users in database: " + userCount.getInt("count"));
-                        }
-                    }
                 }
+                LOG.debug("Loaded user fees summary", "users", rowCount);
             }
         } catch (SQLException e) {
-            System.out.println("ERROR: SQL Exception occurred");
-            System.out.println("Error message: " + e.getMessage());
-            System.out.println("SQL State: " + e.getSQLState());
-            System.out.println("Error Code: " + e.getErrorCode());
-            e.printStackTrace();
+            LOG.error("Error loading user fees summary", e, "sqlState", e.getSQLState(), "errorCode", e.getErrorCode());
             
             JOptionPane.showMessageDialog(this,
                 "Error loading user fees summary: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
         }
-        
-        System.out.println("=== User Fees Summary Loading Complete ===\n");
     }
 
     private void loadRentals() {
-        rentalsModel.setRowCount(0);
-        double totalLateFees = 0.0;
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("""
-                 SELECT r.*, b.title, u.username, 
-                        CASE 
-                            WHEN r.return_date IS NULL AND r.due_date < datetime('now') 
-                            THEN (julianday('now') - julianday(r.due_date) - 1) * ?
-                            WHEN r.return_date > r.due_date
-                            THEN (julianday(r.return_date) - julianday(r.due_date) - 1) * ?
-                            ELSE 0
-                        END as calculated_fee,
-                        CASE 
-                            WHEN r.return_date IS NOT NULL THEN 'Returned'
-                            ELSE 'Active'
-                        END as rental_status
-                 FROM rentals r 
-                 JOIN books b ON r.book_id = b.book_id 
-                 JOIN users u ON r.user_id = u.id
-                 ORDER BY r.rental_date DESC
-                 """)) {
-            
-            pstmt.setDouble(1, lateFeeRate);
-            pstmt.setDouble(2, lateFeeRate);
-            ResultSet rs = pstmt.executeQuery();
-            
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy hh:mm a");
-            SimpleDateFormat parseFormat = new SimpleDateFormat("yyyy-MM-dd");
-            
-            while (rs.next()) {
-                String rentalDateStr = rs.getString("rental_date");
-                String dueDateStr = rs.getString("due_date");
-                String returnDateStr = rs.getString("return_date");
-                double lateFee = rs.getDouble("calculated_fee");
-                String status = rs.getString("rental_status");
-                totalLateFees += lateFee;
-                
-                // Format dates with time
-                String formattedRentalDate = "";
-                String formattedDueDate = "";
-                String formattedReturnDate = "";
-                
-                try {
-                    if (rentalDateStr != null) {
-                        java.util.Date date = parseFormat.parse(rentalDateStr);
-                        formattedRentalDate = displayFormat.format(date);
-                    }
-                    if (dueDateStr != null) {
-                        java.util.Date date = parseFormat.parse(dueDateStr);
-                        formattedDueDate = displayFormat.format(date);
-                    }
-                    if (returnDateStr != null) {
-                        java.util.Date date = parseFormat.parse(returnDateStr);
-                        formattedReturnDate = displayFormat.format(date);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
+        filterRentals(null);
+    }
+
+    private void filterRentals(String where, Object... args) {
+        rentalsModel.setFilter(where, args);
+        
+        // The table only holds the visible pages, so the total comes from SQL
+        String sql = lateFeeTotalQuery(where);
+        rentalLoads.submit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    pstmt.setObject(i + 1, args[i]);
                 }
-                
-                Object[] row = {
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getString("username"),
-                    formattedRentalDate,
-                    formattedDueDate,
-                    formattedReturnDate,
-                    status,
-                    rs.getString("payment_status"),
-                    String.format("₱%.2f", lateFee)
-                };
-                rentalsModel.addRow(row);
-            }
-            
-            // Update total label
-            JPanel rentalPanel = (JPanel) contentPanel.getComponent(2); // Rental Management panel
-            Component[] components = rentalPanel.getComponents();
-            for (Component comp : components) {
-                if (comp instanceof JPanel) {
-                    JPanel panel = (JPanel) comp;
-                    if (panel.getComponentCount() > 0 && panel.getComponent(0) instanceof JLabel) {
-                        JLabel label = (JLabel) panel.getComponent(0);
-                        if (label.getText().startsWith("Total Late Fees:")) {
-                            label.setText(String.format("Total Late Fees: ₱%.2f", totalLateFees));
-                            break;
-                        }
-                    }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getDouble(1) : 0.0;
                 }
             }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
+        }, this::updateTotalLateFeesLabel, e -> JOptionPane.showMessageDialog(this,
                 "Error loading rentals: " + e.getMessage(),
                 "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
-
-    private void searchRentals(String query) {
-        System.out.println("\n=== Starting Rental Search ===");
-        System.out.println("Search Query: " + query);
+    
+    static String lateFeeTotalQuery(String where) {
+        return "SELECT COALESCE(SUM(calculated_fee), 0) FROM (SELECT " + RENTAL_SELECT + " FROM " + RENTAL_FROM
+            + (where == null ? "" : " WHERE " + where) + ")";
+    }
+    
+    // Runs on loader threads; DateTimeFormatter is immutable, so one instance serves every row
+    private Object[] mapRentalRow(ResultSet rs) throws SQLException {
+        String rentalDateStr = rs.getString("rental_date");
+        String dueDateStr = rs.getString("due_date");
+        String returnDateStr = rs.getString("return_date");
+        double lateFee = rs.getDouble("calculated_fee");
+        
+        // Format dates with time
+        String formattedRentalDate = "";
+        String formattedDueDate = "";
+        String formattedReturnDate = "";
         
-        try (Connection conn = dbManager.getConnection()) {
-            // Try to parse the query as a date
-            String datePattern = null;
-            try {
-                // First, check if the query is a month number or name
-                String processedQuery = query.trim().toLowerCase();
-                System.out.println("Processing query: " + processedQuery);
-                
-                // Map of month numbers and abbreviations to full names
-                Map<String, String> monthMap = new HashMap<>();
-                // Full names
-                monthMap.put("january", "January");
-                monthMap.put("february", "February");
-                monthMap.put("march", "March");
-                monthMap.put("april", "April");
-                monthMap.put("may", "May");
-                monthMap.put("june", "June");
-                monthMap.put("july", "July");
-                monthMap.put("august", "August");
-                monthMap.put("september", "September");
-                monthMap.put("october", "October");
-                monthMap.put("november", "November");
-                monthMap.put("december", "December");
-                
-                // Abbreviations
-                monthMap.put("jan", "January");
-                monthMap.put("feb", "February");
-                monthMap.put("mar", "March");
-                monthMap.put("apr", "April");
-                monthMap.put("jun", "June");
-                monthMap.put("jul", "July");
-                monthMap.put("aug", "August");
-                monthMap.put("sep", "September");
-                monthMap.put("sept", "September");
-                monthMap.put("oct", "October");
-                monthMap.put("nov", "November");
-                monthMap.put("dec", "December");
-                
-                // Numbers (both padded and unpadded)
-                monthMap.put("1", "January");
-                monthMap.put("01", "January");
-                monthMap.put("2", "February");
-                monthMap.put("02", "February");
-                monthMap.put("3", "March");
-                monthMap.put("03", "March");
-                monthMap.put("4", "April");
-                monthMap.put("04", "April");
-                monthMap.put("5", "May");
-                monthMap.put("05", "May");
-                monthMap.put("6", "June");
-                monthMap.put("06", "June");
-                monthMap.put("7", "July");
-                monthMap.put("07", "July");
-                monthMap.put("8", "August");
-                monthMap.put("08", "August");
-                monthMap.put("9", "September");
-                monthMap.put("09", "September");
-                monthMap.put("10", "October");
-                monthMap.put("11", "November");
-                monthMap.put("12", "December");
-                
-                String monthName = null;
-                String year = null;
-                
-                // Split the query into parts
-                String[] parts = processedQuery.split("\\s+");
-                
-                // Check if first part is a month identifier
-                if (monthMap.containsKey(parts[0])) {
-                    monthName = monthMap.get(parts[0]);
-                    System.out.println("Identified month: " + monthName);
-                    
-                    // Check if there's a year
-                    if (parts.length > 1) {
-                        year = parts[1];
-                        System.out.println("Identified year: " + year);
-                    }
-                }
-                
-                if (monthName != null) {
-                    // Create a Calendar instance
-                    Calendar cal = Calendar.getInstance();
-                    
-                    // Set the year (use current year if not specified)
-                    if (year != null) {
-                        cal.set(Calendar.YEAR, Integer.parseInt(year));
-                    }
-                    
-                    // Set the month (Calendar months are 0-based)
-                    String[] months = {"January", "February", "March", "April", "May", "June", 
-                                     "July", "August", "September", "October", "November", "December"};
-                    for (int i = 0; i < months.length; i++) {
-                        if (months[i].equals(monthName)) {
-                            cal.set(Calendar.MONTH, i);
-                            break;
-                        }
-                    }
-                    
-                    // Set to first day of month
-                    cal.set(Calendar.DAY_OF_MONTH, 1);
-                    String startDate = new SimpleDateFormat("yyyy-MM-dd").format(cal.getTime());
-                    
-                    // Set to last day of month
-                    cal.set(Calendar.DAY_OF_MONTH, cal.getActualMaximum(Calendar.DAY_OF_MONTH));
-                    String endDate = new SimpleDateFormat("yyyy-MM-dd").format(cal.getTime());
-                    
-                    datePattern = startDate + "|" + endDate;
-                    System.out.println("Created date range: " + datePattern);
-                } else {
-                    // If not a month, try other date formats
-                String[] dateFormats = {
-                    "MMMM d, yyyy",  // May 29, 2025
-                    "MMM d, yyyy",   // May 29, 2025
-                    "MMMM d yyyy",   // May 29 2025
-                    "MMM d yyyy",    // May 29 2025
-                    "yyyy-MM-dd"     // 2025-05-29
-                };
-                
-                    System.out.println("Attempting to parse as specific date...");
-                for (String format : dateFormats) {
-                    try {
-                            System.out.println("Trying format: " + format);
-                        SimpleDateFormat sdf = new SimpleDateFormat(format);
-                        sdf.setLenient(false);
-                            java.util.Date date = sdf.parse(processedQuery);
-                        datePattern = new SimpleDateFormat("yyyy-MM-dd").format(date);
-                            System.out.println("Successfully parsed as single date: " + datePattern);
-                        break;
-                    } catch (Exception e) {
-                            System.out.println("Failed to parse with format " + format + ": " + e.getMessage());
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                System.out.println("Date parsing failed: " + e.getMessage());
+        try {
+            if (rentalDateStr != null) {
+                formattedRentalDate = formatRentalDate(rentalDateStr);
             }
-            
-            System.out.println("Final date pattern: " + datePattern);
-            
-            // Now execute the main search query
-            try (PreparedStatement pstmt = conn.prepareStatement("""
-                SELECT r.*, b.title, u.username,
-                       CASE 
-                           WHEN r.return_date IS NULL AND r.due_date < datetime('now') 
-                           THEN (julianday('now') - julianday(r.due_date) - 1) * ?
-                           WHEN r.return_date > r.due_date
-                           THEN (julianday(r.return_date) - julianday(r.due_date) - 1) * ?
-                           ELSE 0
-                       END as calculated_fee,
-                       CASE 
-                           WHEN r.return_date IS NOT NULL THEN 'Returned'
-                           ELSE 'Active'
-                       END as rental_status
-                FROM rentals r 
-                JOIN books b ON r.book_id = b.book_id 
-                JOIN users u ON r.user_id = u.id
-                WHERE LOWER(b.title) LIKE LOWER(?)
-                   OR LOWER(u.username) LIKE LOWER(?)
-                   OR r.id LIKE ?
-                   OR LOWER(CASE 
-                           WHEN r.return_date IS NOT NULL THEN 'Returned'
-                           ELSE 'Active'
-                        END) LIKE LOWER(?)
-                   OR LOWER(r.payment_status) LIKE LOWER(?)
-                   OR CAST(calculated_fee AS TEXT) LIKE ?
-                   OR CAST(ROUND(calculated_fee, 2) AS TEXT) LIKE ?
-                   OR (? IS NOT NULL AND (
-                       strftime('%Y-%m', r.rental_date) = strftime('%Y-%m', ?)
-                       OR strftime('%Y-%m', r.due_date) = strftime('%Y-%m', ?)
-                       OR strftime('%Y-%m', r.return_date) = strftime('%Y-%m', ?)
-                   ))
-                ORDER BY r.rental_date DESC
-             """)) {
-            
-            String searchPattern = "%" + query + "%";
-                System.out.println("Search pattern: " + searchPattern);
-                
-                pstmt.setDouble(1, lateFeeRate);
-                pstmt.setDouble(2, lateFeeRate);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, searchPattern);
-                pstmt.setString(5, searchPattern);
-                pstmt.setString(6, searchPattern);
-                pstmt.setString(7, searchPattern);
-                pstmt.setString(8, searchPattern);
-                pstmt.setString(9, searchPattern);
-                pstmt.setString(10, datePattern);
-                
-                if (datePattern != null) {
-                    if (datePattern.contains("|")) {
-                        String[] dates = datePattern.split("\\|");
-                        System.out.println("Using date range: " + dates[0] + " to " + dates[1]);
-                        // Use the start date for month comparison
-                        pstmt.setString(11, dates[0]);
-                        pstmt.setString(12, dates[0]);
-                        pstmt.setString(13, dates[0]);
-                    } else {
-                        System.out.println("Using single date: " + datePattern);
-                        pstmt.setString(11, datePattern);
-                        pstmt.setString(12, datePattern);
-                        pstmt.setString(13, datePattern);
-                    }
-                } else {
-                    pstmt.setString(11, null);
-                    pstmt.setString(12, null);
-                    pstmt.setString(13, null);
-                }
-                
-                System.out.println("Executing SQL query...");
-            ResultSet rs = pstmt.executeQuery();
-            rentalsModel.setRowCount(0);
-            
-                int rowCount = 0;
-                SimpleDateFormat displayFormat = new SimpleDateFormat("MMM dd, yyyy hh:mm a");
-                SimpleDateFormat parseFormat = new SimpleDateFormat("yyyy-MM-dd");
-                
-            while (rs.next()) {
-                    rowCount++;
-                    String rentalDateStr = rs.getString("rental_date");
-                    String dueDateStr = rs.getString("due_date");
-                    String returnDateStr = rs.getString("return_date");
-                    double lateFee = rs.getDouble("calculated_fee");
-                    String status = rs.getString("rental_status");
-                    
-                    System.out.println("Found rental: ID=" + rs.getInt("id") + 
-                                     ", Date=" + rentalDateStr + 
-                                     ", Due=" + dueDateStr + 
-                                     ", Return=" + returnDateStr);
-                    
-                    // Format dates
-                    String formattedRentalDate = "";
-                    String formattedDueDate = "";
-                    String formattedReturnDate = "";
-                    
-                    try {
-                        if (rentalDateStr != null) {
-                            java.util.Date date = parseFormat.parse(rentalDateStr);
-                            formattedRentalDate = displayFormat.format(date);
-                        }
-                        if (dueDateStr != null) {
-                            java.util.Date date = parseFormat.parse(dueDateStr);
-                            formattedDueDate = displayFormat.format(date);
-                        }
-                        if (returnDateStr != null) {
-                            java.util.Date date = parseFormat.parse(returnDateStr);
-                            formattedReturnDate = displayFormat.format(date);
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Error formatting dates: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                    
-                Object[] row = {
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                        rs.getString("username"),
-                        formattedRentalDate,
-                        formattedDueDate,
-                        formattedReturnDate,
-                        status,
-                        rs.getString("payment_status"),
-                        String.format("₱%.2f", lateFee)
-                };
-                rentalsModel.addRow(row);
+            if (dueDateStr != null) {
+                formattedDueDate = formatRentalDate(dueDateStr);
             }
-                
-                System.out.println("Found " + rowCount + " matching records");
-                System.out.println("=== Search Complete ===\n");
-                
+            if (returnDateStr != null) {
+                formattedReturnDate = formatRentalDate(returnDateStr);
             }
-        } catch (SQLException e) {
-            System.out.println("SQL Error: " + e.getMessage());
-                e.printStackTrace();
-            JOptionPane.showMessageDialog(this, "Error searching rentals: " + e.getMessage());
+        } catch (Exception e) {
+            LOG.warn("Could not format rental dates", "rentalDate", rentalDateStr, "dueDate", dueDateStr,
+                "returnDate", returnDateStr, "error", e.getMessage());
         }
+        
+        return new Object[]{
+            rs.getInt("id"),
+            rs.getString("title"),
+            rs.getString("username"),
+            formattedRentalDate,
+            formattedDueDate,
+            formattedReturnDate,
+            rs.getString("rental_status"),
+            rs.getString("payment_status"),
+            String.format("₱%.2f", lateFee)
+        };
     }
-
-    private String calculateLateFee(String dueDate, String returnDate) {
-        if (returnDate == null) {
-            // If book is not returned yet, calculate based on current date
-            try {
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                java.util.Date due = sdf.parse(dueDate);
-                java.util.Date now = new java.util.Date();
-                
-                if (now.after(due)) {
-                    long diff = now.getTime() - due.getTime();
-                    int daysLate = (int) (diff / (24 * 60 * 60 * 1000));
-                    double fee = daysLate * lateFeeRate;
-                    return String.format("₱%.2f", fee);
+    
+    // Stored dates are "yyyy-MM-dd", sometimes followed by a time; only the day is read
+    private static String formatRentalDate(String stored) {
+        return LocalDate.parse(stored.substring(0, 10)).atStartOfDay().format(RENTAL_DATE_DISPLAY);
+    }
+    
+    private void updateTotalLateFeesLabel(double totalLateFees) {
+        // Update total label
+        JPanel rentalPanel = (JPanel) contentPanel.getComponent(2); // Rental Management panel
+        Component[] components = rentalPanel.getComponents();
+        for (Component comp : components) {
+            if (comp instanceof JPanel) {
+                JPanel panel = (JPanel) comp;
+                if (panel.getComponentCount() > 0 && panel.getComponent(0) instanceof JLabel) {
+                    JLabel label = (JLabel) panel.getComponent(0);
+                    if (label.getText().startsWith("Total Late Fees:")) {
+                        label.setText(String.format("Total Late Fees: ₱%.2f", totalLateFees));
+                        break;
+                    }
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
-            return "₱0.00";
         }
-        
+    }
+
+    private void searchRentals(String query) {
+        RentalQuery rentalQuery;
         try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-            java.util.Date due = sdf.parse(dueDate);
-            java.util.Date returned = sdf.parse(returnDate);
-            
-            if (returned.after(due)) {
-                long diff = returned.getTime() - due.getTime();
-                int daysLate = (int) (diff / (24 * 60 * 60 * 1000));
-                double fee = daysLate * lateFeeRate;
-                return String.format("₱%.2f", fee);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            rentalQuery = RentalQuery.parse(query);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this,
+                e.getMessage(),
+                "Invalid Search",
+                JOptionPane.WARNING_MESSAGE);
+            return;
         }
-        return "₱0.00";
+        filterRentals(rentalQuery.where(), rentalQuery.args());
     }
 
     private void handleLogout() {
@@ -2796,33 +2263,22 @@ public class AdminDashboard extends JFrame {
                 return;
             }
             
-            try (Connection conn = DatabaseManager.getInstance().getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(
-                     "INSERT INTO users (username, password, full_name, email, phone, role, status) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
-                
-                pstmt.setString(1, username);
-                pstmt.setString(2, password); // In production, this should be hashed
-                pstmt.setString(3, fullName);
-                pstmt.setString(4, email);
-                pstmt.setString(5, phone);
-                pstmt.setString(6, role);
-                pstmt.setString(7, "Active");
-                
-                pstmt.executeUpdate();
-                dialog.dispose();
-                loadData(); // Refresh the table
-                
-                JOptionPane.showMessageDialog(this,
-                    "User added successfully!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                    
+            try {
+                UserRepository.create(username, password, fullName, email, phone, role);
             } catch (SQLException ex) {
                 JOptionPane.showMessageDialog(dialog,
                     "Error adding user: " + ex.getMessage(),
                     "Database Error",
                     JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            dialog.dispose();
+            loadData(); // Refresh the table
+            
+            JOptionPane.showMessageDialog(this,
+                "User added successfully!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
         });
         
         cancelButton.addActionListener(e -> dialog.dispose());
@@ -0,0 +1,250 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Runs database work on a small bounded thread pool so the Swing event
+ * dispatch thread never waits on SQLite.
+ *
+ * Each panel owns one {@link Channel} per kind of load. Starting a load on a
+ * channel cancels the one still in flight, so only the results of the newest
+ * filter ever reach the table. Table loads stream rows to the model in
+ * batches through {@code SwingUtilities.invokeLater}; the old rows stay
+ * visible until the first batch of the new result arrives.
+ */
+public final class AsyncLoader {
+    private static final Log LOG = Log.get(AsyncLoader.class);
+    private static final int THREADS = Integer.getInteger("librorent.async.threads", 4);
+    private static final int QUEUE_SIZE = Integer.getInteger("librorent.async.queueSize", 64);
+    private static final int BATCH_SIZE = 200;
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    /** Turns the current row of a result set into a table row. */
+    @FunctionalInterface
+    public interface RowMapper {
+        Object[] map(ResultSet rs) throws SQLException;
+    }
+
+    /** Sets the parameters of a prepared statement. */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /** Arbitrary read work done on a pooled read connection. */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private AsyncLoader() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+                Thread t = new Thread(r, "librorent-loader-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static Channel channel() {
+        return new Channel();
+    }
+
+    /**
+     * A sequence of loads where only the latest one matters. Methods are
+     * meant to be called from the event dispatch thread.
+     */
+    public static final class Channel {
+        private Task current;
+
+        private Channel() {
+        }
+
+        /** Cancels the load in flight, if any. */
+        public synchronized void cancel() {
+            if (current != null) {
+                current.cancel();
+                current = null;
+            }
+        }
+
+        /**
+         * Runs {@code sql} off the EDT and replaces the rows of {@code model}
+         * with the mapped result. {@code onDone} runs on the EDT once every
+         * row has been added.
+         */
+        public void loadTable(DefaultTableModel model, String sql, Binder binder, RowMapper mapper,
+                              Runnable onDone, Consumer<SQLException> onError) {
+            Task task = start();
+            task.submit(() -> {
+                try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    task.statement = pstmt;
+                    if (binder != null) {
+                        binder.bind(pstmt);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        List<Object[]> batch = new ArrayList<>();
+                        boolean first = true;
+                        while (rs.next()) {
+                            if (task.isCancelled()) {
+                                return;
+                            }
+                            batch.add(mapper.map(rs));
+                            if (batch.size() == BATCH_SIZE) {
+                                publish(task, model, batch, first);
+                                first = false;
+                                batch = new ArrayList<>();
+                            }
+                        }
+                        publish(task, model, batch, first);
+                    }
+                    task.onEdt(onDone);
+                } catch (SQLException e) {
+                    task.fail(e, onError);
+                }
+            }, onError);
+        }
+
+        /**
+         * Runs {@code work} off the EDT and replaces the rows of {@code model}
+         * with its result, one table row per record. For short lists such as
+         * a member's rentals; large results should stream through the SQL form.
+         */
+        public <T> void loadTable(DefaultTableModel model, Work<List<T>> work, Function<T, Object[]> toRow,
+                                  Runnable onDone, Consumer<SQLException> onError) {
+            submit(work, records -> {
+                model.setRowCount(0);
+                for (T record : records) {
+                    model.addRow(toRow.apply(record));
+                }
+                if (onDone != null) {
+                    onDone.run();
+                }
+            }, onError);
+        }
+
+        /** Runs {@code work} off the EDT and hands its result to {@code onSuccess} on the EDT. */
+        public <T> void submit(Work<T> work, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+            run(start(), work, onSuccess, onError);
+        }
+
+        private synchronized Task start() {
+            if (current != null) {
+                current.cancel();
+            }
+            current = new Task();
+            return current;
+        }
+    }
+
+    /**
+     * Runs {@code work} off the EDT without cancelling anything else, for
+     * independent loads such as the pages of a {@link PagedTableModel}.
+     */
+    public static <T> void submit(Work<T> work, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+        run(new Task(), work, onSuccess, onError);
+    }
+
+    private static <T> void run(Task task, Work<T> work, Consumer<T> onSuccess, Consumer<SQLException> onError) {
+        task.submit(() -> {
+            try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+                T result = work.run(conn);
+                task.onEdt(() -> onSuccess.accept(result));
+            } catch (SQLException e) {
+                task.fail(e, onError);
+            }
+        }, onError);
+    }
+
+    private static void publish(Task task, DefaultTableModel model, List<Object[]> rows, boolean clear) {
+        if (!clear && rows.isEmpty()) {
+            return;
+        }
+        task.onEdt(() -> {
+            if (clear) {
+                model.setRowCount(0);
+            }
+            for (Object[] row : rows) {
+                model.addRow(row);
+            }
+        });
+    }
+
+    /** One submitted load and its cancellation state. */
+    private static final class Task {
+        private volatile boolean cancelled = false;
+        private volatile Statement statement;
+        private volatile Future<?> future;
+
+        void submit(Runnable body, Consumer<SQLException> onError) {
+            try {
+                future = EXECUTOR.submit(() -> {
+                    if (!cancelled) {
+                        body.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                fail(new SQLException("Too many database loads are queued, please try again"), onError);
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            // Stop a query that is still stepping through rows
+            Statement stmt = statement;
+            if (stmt != null) {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                    // The statement may already be closed
+                }
+            }
+        }
+
+        void onEdt(Runnable action) {
+            SwingUtilities.invokeLater(() -> {
+                if (!cancelled && action != null) {
+                    action.run();
+                }
+            });
+        }
+
+        void fail(SQLException e, Consumer<SQLException> onError) {
+            if (cancelled) {
+                return;
+            }
+            LOG.error("Background load failed", e);
+            if (onError != null) {
+                onEdt(() -> onError.accept(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import javax.swing.SwingUtilities;
+
+/**
+ * Shared in-memory copy of the books table.
+ *
+ * The catalog is loaded once on first use and then kept current row by row:
+ * code that inserts, updates or deletes a book calls {@link #bookChanged}
+ * or {@link #bookRemoved} after committing, and every registered listener
+ * is told on the EDT so its panel can re-filter without touching the
+ * database. Panels filter and sort the snapshot returned by {@link #query}.
+ * Retired books are not part of the catalog.
+ */
+public class BookCatalog {
+    private static final Log LOG = Log.get(BookCatalog.class);
+    private static BookCatalog instance;
+
+    /** Immutable copy of one books row. */
+    public record Book(int bookId, String title, String author, String isbn, String genre, String format,
+                       String status, int copies, double fee, double lateReturnFee, String lastUpdated) {
+    }
+
+    public static final Comparator<Book> BY_TITLE =
+        Comparator.comparing(Book::title, Comparator.nullsFirst(Comparator.naturalOrder()));
+    public static final Comparator<Book> NEWEST_FIRST =
+        Comparator.comparingInt(Book::bookId).reversed();
+
+    private final Map<Integer, Book> books = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded = false;
+
+    private BookCatalog() {
+    }
+
+    public static synchronized BookCatalog getInstance() {
+        if (instance == null) {
+            instance = new BookCatalog();
+        }
+        return instance;
+    }
+
+    /** Returns the matching books in the given order, loading the catalog first if needed. */
+    public List<Book> query(Predicate<Book> filter, Comparator<Book> order) throws SQLException {
+        ensureLoaded();
+        List<Book> result = new ArrayList<>();
+        for (Book book : books.values()) {
+            if (filter == null || filter.test(book)) {
+                result.add(book);
+            }
+        }
+        if (order != null) {
+            result.sort(order);
+        }
+        return result;
+    }
+
+    public Book get(int bookId) throws SQLException {
+        ensureLoaded();
+        return books.get(bookId);
+    }
+
+    /** Registers a callback run on the EDT whenever the catalog changes. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /** Re-reads the given books after they were inserted or updated. Call after the change is committed. */
+    public void bookChanged(int... bookIds) {
+        if (!loaded) {
+            return;
+        }
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            for (int bookId : bookIds) {
+                Book book = BookRepository.findById(conn, bookId);
+                if (book != null) {
+                    books.put(bookId, book);
+                } else {
+                    books.remove(bookId);
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Error refreshing book catalog", e);
+            invalidate();
+            return;
+        }
+        fireChanged();
+    }
+
+    public void bookRemoved(int bookId) {
+        books.remove(bookId);
+        fireChanged();
+    }
+
+    /** Drops the cache so the next query reloads every book, e.g. after a bulk change. */
+    public void invalidate() {
+        loaded = false;
+        fireChanged();
+    }
+
+    private synchronized void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        Map<Integer, Book> fresh = new ConcurrentHashMap<>();
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            for (Book book : BookRepository.findAll(conn)) {
+                fresh.put(book.bookId(), book);
+            }
+        }
+        books.clear();
+        books.putAll(fresh);
+        loaded = true;
+    }
+
+    private void fireChanged() {
+        SwingUtilities.invokeLater(() -> {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        });
+    }
+
+    /** Case-insensitive substring test matching SQL's LIKE '%term%' on ASCII text. */
+    public static boolean contains(String value, String term) {
+        return term.isEmpty() || (value != null && value.toLowerCase().contains(term.toLowerCase()));
+    }
+}
@@ -68,6 +68,7 @@ public class BookCatalogPanel extends BasePanel {
         
         // Load initial data
         loadData();
+        BookCatalog.getInstance().addListener(this::loadData);
     }
 
     private void initializeComponents() {
@@ -159,7 +160,7 @@ public class BookCatalogPanel extends BasePanel {
         refreshButton.setContentAreaFilled(false);
         refreshButton.setPreferredSize(new Dimension(100, 30));
         refreshButton.setOpaque(true);
-        refreshButton.addActionListener(e -> loadData());
+        refreshButton.addActionListener(e -> BookCatalog.getInstance().invalidate());
         
         // Add components to filter panel
         filterPanel.add(formatLabel);
@@ -177,48 +178,32 @@ public class BookCatalogPanel extends BasePanel {
     }
     
     private void loadData() {
+        String format = (String) formatComboBox.getSelectedItem();
+        String genre = (String) genreComboBox.getSelectedItem();
+        String status = (String) statusComboBox.getSelectedItem();
+        
         // Clear existing data
         tableModel.setRowCount(0);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Build query with filters
-            StringBuilder query = new StringBuilder("SELECT * FROM books WHERE 1=1");
-            
-            String format = (String) formatComboBox.getSelectedItem();
-            if (!"All".equals(format)) {
-                query.append(" AND format = '").append(format).append("'");
-            }
-            
-            String genre = (String) genreComboBox.getSelectedItem();
-            if (!"All".equals(genre)) {
-                query.append(" AND genre = '").append(genre).append("'");
+        try {
+            // Filter the shared catalog in memory
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(book ->
+                    ("All".equals(format) || format.equals(book.format())) &&
+                    ("All".equals(genre) || genre.equals(book.genre())) &&
+                    ("All".equals(status) || status.equals(book.status())),
+                    BookCatalog.BY_TITLE)) {
+                Object[] row = {
+                    "B" + book.bookId(),
+                    book.title(),
+                    book.author(),
+                    book.isbn(),
+                    book.format(),
+                    book.genre(),
+                    book.copies(),
+                    book.status()
+                };
+                tableModel.addRow(row);
             }
-            
-            String status = (String) statusComboBox.getSelectedItem();
-            if (!"All".equals(status)) {
-                query.append(" AND status = '").append(status).append("'");
-            }
-            
-            query.append(" ORDER BY title");
-            
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query.toString())) {
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        "B" + rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("isbn"),
-                        rs.getString("format"),
-                        rs.getString("genre"),
-                        rs.getInt("copies"),
-                        rs.getString("status")
-                    };
-                    tableModel.addRow(row);
-                }
-            }
-            
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error loading book data: " + e.getMessage(),
@@ -233,6 +218,6 @@ public class BookCatalogPanel extends BasePanel {
     }
     
     public void refreshData() {
-        loadData();
+        BookCatalog.getInstance().invalidate();
     }
 } 
\ No newline at end of file
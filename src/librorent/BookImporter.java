@@ -0,0 +1,766 @@
+package librorent;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import of books from a CSV or JSON file.
+ *
+ * The file is streamed through a small hand-written parser that never holds
+ * more than one record in memory and caps the length of every field, so a
+ * malformed or hostile file cannot exhaust the heap. Each record is
+ * validated and good rows are inserted {@link #BATCH_SIZE} at a time, one
+ * transaction per batch, through a single prepared INSERT. Books whose ISBN
+ * is already in the catalog (or earlier in the file) are skipped.
+ *
+ * Maintaining the full-text index row by row is what makes plain inserts
+ * slow, so each batch transaction drops the books_fts insert trigger,
+ * inserts the batch, indexes the new rows with one INSERT ... SELECT and
+ * recreates the trigger before committing. Other connections never see the
+ * trigger missing.
+ *
+ * CSV files need a header row; columns are matched by name (title, author,
+ * isbn, genre, format, copies, fee, late_return_fee) and title and author
+ * are required. JSON files hold either an array of flat objects with the
+ * same keys or one object per line.
+ */
+public class BookImporter {
+    public static final int BATCH_SIZE = Integer.getInteger("librorent.import.batchSize", 10_000);
+    private static final int MAX_FIELD_LENGTH = 4096;
+    private static final int MAX_FIELDS = 64;
+    /** Only the first rejections are kept for the report; the rest are just counted. */
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private static final String INSERT = """
+        INSERT INTO books (title, author, isbn, genre, format, copies, fee, late_return_fee, status)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(isbn) DO NOTHING
+        """;
+    private static final String FTS_TRIGGER = "books_fts_insert";
+    private static final Pattern ISBN = Pattern.compile("\\d{9}[\\dXx]|\\d{13}");
+    private static final Pattern JSON_LITERAL = Pattern.compile("true|false|null|-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    public enum Format {
+        CSV, JSON;
+
+        /** Picks the format from the file extension; .json, .jsonl and .ndjson are JSON, anything else CSV. */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson") ? JSON : CSV;
+        }
+    }
+
+    /** A record that was not imported, with the line it started on. */
+    public record Rejection(long line, String reason) {
+    }
+
+    public record Progress(long rowsRead, long imported, long rejected, long bytesRead, long totalBytes) {
+    }
+
+    public record Result(long imported, long rejected, List<Rejection> rejections, long elapsedMillis) {
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /** Called on the importing thread after every committed batch. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(Progress progress);
+    }
+
+    private record Book(long line, String title, String author, String isbn, String genre, String format,
+                        int copies, double fee, double lateReturnFee) {
+    }
+
+    private final List<Rejection> rejections = new ArrayList<>();
+    private long rowsRead = 0;
+    private long imported = 0;
+    private long rejected = 0;
+
+    public static Result importFile(Path file, ProgressListener listener) throws IOException, SQLException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return new BookImporter().run(in, Files.size(file), Format.of(file), listener);
+        }
+    }
+
+    public static Result importStream(InputStream in, long totalBytes, Format format, ProgressListener listener)
+            throws IOException, SQLException {
+        return new BookImporter().run(in, totalBytes, format, listener);
+    }
+
+    private Result run(InputStream in, long totalBytes, Format format, ProgressListener listener)
+            throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        CountingInputStream counter = new CountingInputStream(in);
+        Reader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16);
+        RecordSource source = format == Format.JSON ? new JsonSource(reader) : new CsvSource(reader);
+
+        List<Book> batch = new ArrayList<>(Math.min(BATCH_SIZE, 1 << 16));
+        try {
+            RawRecord record;
+            while ((record = source.next()) != null) {
+                rowsRead++;
+                Book book = validate(record);
+                if (book != null) {
+                    batch.add(book);
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    insert(batch);
+                    batch.clear();
+                    report(listener, counter.count, totalBytes);
+                }
+            }
+            if (!batch.isEmpty()) {
+                insert(batch);
+            }
+            report(listener, counter.count, totalBytes);
+        } finally {
+            if (imported > 0) {
+                BookCatalog.getInstance().invalidate();
+            }
+        }
+        return new Result(imported, rejected, rejections, System.currentTimeMillis() - start);
+    }
+
+    private void report(ProgressListener listener, long bytesRead, long totalBytes) {
+        if (listener != null) {
+            listener.progress(new Progress(rowsRead, imported, rejected, bytesRead, totalBytes));
+        }
+    }
+
+    private void reject(long line, String reason) {
+        rejected++;
+        if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+            rejections.add(new Rejection(line, reason));
+        }
+    }
+
+    private Book validate(RawRecord record) {
+        if (record.error() != null) {
+            reject(record.line(), record.error());
+            return null;
+        }
+        Map<String, String> values = record.values();
+        String title = text(values, "title");
+        String author = text(values, "author");
+        if (title == null) {
+            reject(record.line(), "Missing title");
+            return null;
+        }
+        if (author == null) {
+            reject(record.line(), "Missing author");
+            return null;
+        }
+
+        String isbn = text(values, "isbn");
+        if (isbn != null) {
+            String digits = isbn.replace("-", "").replace(" ", "");
+            if (!ISBN.matcher(digits).matches()) {
+                reject(record.line(), "Invalid ISBN: " + isbn);
+                return null;
+            }
+            // Store one spelling per ISBN so the unique index catches "0-306-40615-x" vs "030640615X"
+            isbn = digits.toUpperCase(Locale.ROOT);
+        }
+
+        String format = text(values, "format");
+        if (format == null) {
+            format = "Physical";
+        } else {
+            String normalized = format.toLowerCase(Locale.ROOT).replace("-", "").replace(" ", "");
+            if (normalized.equals("physical")) {
+                format = "Physical";
+            } else if (normalized.equals("ebook")) {
+                format = "E-Book";
+            } else {
+                reject(record.line(), "Unknown format: " + format);
+                return null;
+            }
+        }
+
+        try {
+            double copies = number(values, "copies", 1);
+            double fee = number(values, "fee", 10.0);
+            double lateReturnFee = number(values, "late_return_fee", 5.0);
+            if (copies < 0 || copies > Integer.MAX_VALUE || copies != Math.rint(copies)) {
+                reject(record.line(), "Copies must be a whole number of at least 0");
+                return null;
+            }
+            if (fee < 0 || lateReturnFee < 0) {
+                reject(record.line(), "Fees cannot be negative");
+                return null;
+            }
+            return new Book(record.line(), title, author, isbn, text(values, "genre"), format,
+                (int) copies, fee, lateReturnFee);
+        } catch (NumberFormatException e) {
+            reject(record.line(), "Invalid number: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String text(Map<String, String> values, String key) {
+        String value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static double number(Map<String, String> values, String key, double defaultValue) {
+        String value = text(values, key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    // One transaction per batch so other writers get the database between batches
+    private void insert(List<Book> batch) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                imported += insertBatch(conn, batch);
+                conn.commit();
+                return;
+            } catch (BatchUpdateException e) {
+                // Some row broke a constraint; find it by inserting the rows one at a time
+                conn.rollback();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                imported += insertEach(conn, batch);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private int insertBatch(Connection conn, List<Book> batch) throws SQLException {
+        return withBulkIndexing(conn, () -> {
+            int count = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT)) {
+                for (Book book : batch) {
+                    bind(pstmt, book);
+                    pstmt.addBatch();
+                }
+                int[] results = pstmt.executeBatch();
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i] == 0) {
+                        reject(batch.get(i).line(), "Duplicate ISBN: " + batch.get(i).isbn());
+                    } else {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        });
+    }
+
+    private int insertEach(Connection conn, List<Book> batch) throws SQLException {
+        return withBulkIndexing(conn, () -> {
+            int count = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT)) {
+                for (Book book : batch) {
+                    bind(pstmt, book);
+                    try {
+                        if (pstmt.executeUpdate() == 0) {
+                            reject(book.line(), "Duplicate ISBN: " + book.isbn());
+                        } else {
+                            count++;
+                        }
+                    } catch (SQLException e) {
+                        reject(book.line(), e.getMessage());
+                    }
+                }
+            }
+            return count;
+        });
+    }
+
+    private interface BatchWork {
+        int run() throws SQLException;
+    }
+
+    // Swap the per-row full-text trigger for one INSERT ... SELECT over the new rows
+    private static int withBulkIndexing(Connection conn, BatchWork work) throws SQLException {
+        String trigger = null;
+        long lastId = 0;
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = '" + FTS_TRIGGER + "'")) {
+                if (rs.next()) {
+                    trigger = rs.getString(1);
+                }
+            }
+            if (trigger != null) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(book_id), 0) FROM books")) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                }
+                stmt.execute("DROP TRIGGER " + FTS_TRIGGER);
+            }
+        }
+
+        int count = work.run();
+
+        if (trigger != null) {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO books_fts (rowid, title, author, isbn, genre) " +
+                    "SELECT book_id, title, author, isbn, genre FROM books WHERE book_id > ?")) {
+                pstmt.setLong(1, lastId);
+                pstmt.executeUpdate();
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(trigger);
+            }
+        }
+        return count;
+    }
+
+    private static void bind(PreparedStatement pstmt, Book book) throws SQLException {
+        pstmt.setString(1, book.title());
+        pstmt.setString(2, book.author());
+        pstmt.setString(3, book.isbn());
+        pstmt.setString(4, book.genre());
+        pstmt.setString(5, book.format());
+        pstmt.setInt(6, book.copies());
+        pstmt.setDouble(7, book.fee());
+        pstmt.setDouble(8, book.lateReturnFee());
+        pstmt.setString(9, book.copies() > 0 ? "Available" : "Unavailable");
+    }
+
+    /** One parsed record, or the reason it could not be parsed. */
+    record RawRecord(long line, Map<String, String> values, String error) {
+    }
+
+    interface RecordSource {
+        /** Returns the next record, or null at the end of the file. */
+        RawRecord next() throws IOException;
+    }
+
+    /** RFC 4180 CSV: quoted fields may hold commas, doubled quotes and line breaks. */
+    static final class CsvSource implements RecordSource {
+        private final Reader reader;
+        private String[] header;
+        private long line = 1;
+        private int peeked = -2;
+
+        CsvSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public RawRecord next() throws IOException {
+            if (header == null) {
+                skipByteOrderMark();
+                List<String> names = new ArrayList<>();
+                if (readRecord(names) == null) {
+                    return null;
+                }
+                header = new String[names.size()];
+                for (int i = 0; i < names.size(); i++) {
+                    header[i] = names.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+                }
+                if (!List.of(header).contains("title") || !List.of(header).contains("author")) {
+                    throw new IOException("The CSV header needs at least a title and an author column");
+                }
+            }
+
+            List<String> fields = new ArrayList<>();
+            while (true) {
+                long start = line;
+                String error = readRecord(fields);
+                if (error == null) {
+                    return null;
+                }
+                if (fields.size() == 1 && fields.get(0).isEmpty() && error.isEmpty()) {
+                    continue; // blank line
+                }
+                if (!error.isEmpty()) {
+                    return new RawRecord(start, Map.of(), error);
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < Math.min(fields.size(), header.length); i++) {
+                    values.put(header[i], fields.get(i));
+                }
+                return new RawRecord(start, values, null);
+            }
+        }
+
+        /**
+         * Reads one record into {@code fields}. Returns null at the end of
+         * the file, "" for a good record, or the reason the record is bad.
+         */
+        private String readRecord(List<String> fields) throws IOException {
+            fields.clear();
+            StringBuilder field = new StringBuilder();
+            String error = "";
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        if (peek() == '"') {
+                            read();
+                            error = append(field, '"', error);
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        error = append(field, (char) c, error);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    error = addField(fields, field, error);
+                } else if (c == '\r' || c == '\n') {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    line++;
+                    return addField(fields, field, error);
+                } else {
+                    error = append(field, (char) c, error);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            if (quoted) {
+                error = "Unterminated quoted field";
+            }
+            return addField(fields, field, error);
+        }
+
+        private String addField(List<String> fields, StringBuilder field, String error) {
+            if (fields.size() >= MAX_FIELDS) {
+                field.setLength(0);
+                return error.isEmpty() ? "More than " + MAX_FIELDS + " fields" : error;
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            return error;
+        }
+
+        private static String append(StringBuilder field, char c, String error) {
+            if (field.length() >= MAX_FIELD_LENGTH) {
+                return error.isEmpty() ? "Field longer than " + MAX_FIELD_LENGTH + " characters" : error;
+            }
+            field.append(c);
+            return error;
+        }
+
+        private void skipByteOrderMark() throws IOException {
+            if (peek() == '\uFEFF') {
+                read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+
+    /**
+     * Flat JSON objects, either inside one top-level array or one after the
+     * other (JSON Lines). Nested objects and arrays are skipped and make the
+     * record invalid; a syntax error stops the import, since there is no
+     * reliable place to resume.
+     */
+    static final class JsonSource implements RecordSource {
+        private final Reader reader;
+        private long line = 1;
+        private int peeked = -2;
+        private boolean started = false;
+        private boolean inArray = false;
+        private boolean done = false;
+
+        JsonSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public RawRecord next() throws IOException {
+            if (done) {
+                return null;
+            }
+            int c = skipWhitespace();
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF') {
+                    read();
+                    c = skipWhitespace();
+                }
+                if (c == '[') {
+                    read();
+                    inArray = true;
+                    c = skipWhitespace();
+                    if (c == ']') {
+                        read();
+                        done = true;
+                        return null;
+                    }
+                }
+            } else if (inArray) {
+                if (c == ']') {
+                    read();
+                    done = true;
+                    return null;
+                }
+                expect(',');
+                c = skipWhitespace();
+            }
+            if (c == -1) {
+                if (inArray) {
+                    throw syntaxError("Unexpected end of file");
+                }
+                done = true;
+                return null;
+            }
+            return readObject();
+        }
+
+        private RawRecord readObject() throws IOException {
+            long start = line;
+            expect('{');
+            Map<String, String> values = new HashMap<>();
+            String error = null;
+            int c = skipWhitespace();
+            if (c == '}') {
+                read();
+                return new RawRecord(start, values, null);
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString().toLowerCase(Locale.ROOT);
+                skipWhitespace();
+                expect(':');
+                c = skipWhitespace();
+                if (c == '{' || c == '[') {
+                    skipNested();
+                    if (error == null) {
+                        error = "Nested value for \"" + key + "\"";
+                    }
+                } else if (c == '"') {
+                    String value = readString();
+                    if (value.length() > MAX_FIELD_LENGTH && error == null) {
+                        error = "Field longer than " + MAX_FIELD_LENGTH + " characters";
+                    }
+                    putValue(values, key, value);
+                } else {
+                    String literal = readLiteral();
+                    if (!literal.equals("null")) {
+                        putValue(values, key, literal);
+                    }
+                }
+                if (values.size() > MAX_FIELDS && error == null) {
+                    error = "More than " + MAX_FIELDS + " fields";
+                }
+                c = skipWhitespace();
+                read();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or '}'");
+                }
+            }
+            return new RawRecord(start, error == null ? values : Map.of(), error);
+        }
+
+        private static void putValue(Map<String, String> values, String key, String value) {
+            // Oversized records are rejected anyway; do not keep growing the map
+            if (values.size() <= MAX_FIELDS) {
+                values.put(key, value);
+            }
+        }
+
+        // Reads a string, keeping at most one character past the limit so its length can be checked
+        private String readString() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                int c = read();
+                if (c == -1 || c == '\n') {
+                    throw syntaxError("Unterminated string");
+                }
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    int e = read();
+                    switch (e) {
+                        case '"', '\\', '/' -> c = e;
+                        case 'b' -> c = '\b';
+                        case 'f' -> c = '\f';
+                        case 'n' -> c = '\n';
+                        case 'r' -> c = '\r';
+                        case 't' -> c = '\t';
+                        case 'u' -> {
+                            char[] hex = new char[4];
+                            for (int i = 0; i < 4; i++) {
+                                int h = read();
+                                if (h == -1) {
+                                    throw syntaxError("Unterminated string");
+                                }
+                                hex[i] = (char) h;
+                            }
+                            try {
+                                c = Integer.parseInt(new String(hex), 16);
+                            } catch (NumberFormatException ex) {
+                                throw syntaxError("Invalid \\u escape");
+                            }
+                        }
+                        default -> throw syntaxError("Invalid escape");
+                    }
+                }
+                if (sb.length() <= MAX_FIELD_LENGTH) {
+                    sb.append((char) c);
+                }
+            }
+        }
+
+        private String readLiteral() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = peek()) != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+                if (sb.length() > 64) {
+                    throw syntaxError("Value too long");
+                }
+                sb.append((char) read());
+            }
+            String literal = sb.toString();
+            if (!JSON_LITERAL.matcher(literal).matches()) {
+                throw syntaxError("Invalid value: " + literal);
+            }
+            return literal;
+        }
+
+        private void skipNested() throws IOException {
+            int depth = 0;
+            do {
+                int c = peek();
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of file");
+                }
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                read();
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else if (c == '\n') {
+                    line++;
+                }
+            } while (depth > 0);
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+                read();
+                if (c == '\n') {
+                    line++;
+                }
+            }
+            return c;
+        }
+
+        private void expect(char expected) throws IOException {
+            int c = read();
+            if (c != expected) {
+                throw syntaxError("Expected '" + expected + "'");
+            }
+        }
+
+        private IOException syntaxError(String message) {
+            return new IOException(message + " on line " + line);
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+
+    /** Counts the bytes read so progress can be shown against the file size. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count = 0;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
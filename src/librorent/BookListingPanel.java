@@ -4,8 +4,11 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.List;
+import java.util.function.Predicate;
 
 public class BookListingPanel extends BasePanel {
+    private static final Log LOG = Log.get(BookListingPanel.class);
     private JTable bookTable;
     private DefaultTableModel tableModel;
     private JTextField searchField;
@@ -16,11 +19,13 @@ public class BookListingPanel extends BasePanel {
     private JButton resetButton;
     private JLabel totalBooksLabel;
     private int currentUserId;
+    private Predicate<BookCatalog.Book> currentFilter;
 
     public BookListingPanel() {
         initializeComponents();
         createLayout();
         loadData();
+        BookCatalog.getInstance().addListener(() -> showBooks(currentFilter));
     }
 
     private void initializeComponents() {
@@ -202,36 +207,7 @@ public class BookListingPanel extends BasePanel {
     }
 
     private void loadData() {
-        tableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT * FROM books ORDER BY title")) {
-            
-            ResultSet rs = pstmt.executeQuery();
-            int totalBooks = 0;
-            while (rs.next()) {
-                Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("isbn"),
-                    rs.getString("format"),
-                    rs.getString("genre"),
-                    rs.getInt("copies"),
-                    rs.getString("status"),
-                    rs.getString("last_updated")
-                };
-                tableModel.addRow(row);
-                totalBooks++;
-            }
-            totalBooksLabel.setText("Total Books: " + totalBooks);
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading books: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        showBooks(null);
     }
 
     private void applyFilters() {
@@ -240,47 +216,38 @@ public class BookListingPanel extends BasePanel {
         String selectedFormat = (String) formatFilter.getSelectedItem();
         String selectedStatus = (String) statusFilter.getSelectedItem();
 
-        tableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT * FROM books WHERE " +
-                 "(? = 'All Genres' OR genre = ?) AND " +
-                 "(? = 'All Formats' OR format = ?) AND " +
-                 "(? = 'All Status' OR status = ?) AND " +
-                 "(title LIKE ? OR author LIKE ?) " +
-                 "ORDER BY title")) {
-            
-            pstmt.setString(1, selectedGenre);
-            pstmt.setString(2, selectedGenre);
-            pstmt.setString(3, selectedFormat);
-            pstmt.setString(4, selectedFormat);
-            pstmt.setString(5, selectedStatus);
-            pstmt.setString(6, selectedStatus);
-            pstmt.setString(7, "%" + searchText + "%");
-            pstmt.setString(8, "%" + searchText + "%");
+        showBooks(book ->
+            ("All Genres".equals(selectedGenre) || selectedGenre.equals(book.genre())) &&
+            ("All Formats".equals(selectedFormat) || selectedFormat.equals(book.format())) &&
+            ("All Status".equals(selectedStatus) || selectedStatus.equals(book.status())) &&
+            (BookCatalog.contains(book.title(), searchText) || BookCatalog.contains(book.author(), searchText)));
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            int totalBooks = 0;
-            while (rs.next()) {
+    // Fill the table from the shared catalog; the filter is kept so catalog changes re-apply it
+    private void showBooks(Predicate<BookCatalog.Book> filter) {
+        currentFilter = filter;
+        tableModel.setRowCount(0);
+        try {
+            List<BookCatalog.Book> books = BookCatalog.getInstance().query(filter, BookCatalog.BY_TITLE);
+            for (BookCatalog.Book book : books) {
                 Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("isbn"),
-                    rs.getString("format"),
-                    rs.getString("genre"),
-                    rs.getInt("copies"),
-                    rs.getString("status"),
-                    rs.getString("last_updated")
+                    "B" + book.bookId(),
+                    book.title(),
+                    book.author(),
+                    book.isbn(),
+                    book.format(),
+                    book.genre(),
+                    book.copies(),
+                    book.status(),
+                    book.lastUpdated()
                 };
                 tableModel.addRow(row);
-                totalBooks++;
             }
-            totalBooksLabel.setText("Total Books: " + totalBooks);
+            totalBooksLabel.setText("Total Books: " + books.size());
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error loading books", e);
             JOptionPane.showMessageDialog(this,
-                "Error applying filters: " + e.getMessage(),
+                "Error loading books: " + e.getMessage(),
                 "Database Error",
                 JOptionPane.ERROR_MESSAGE);
         }
@@ -0,0 +1,121 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads books straight from the database. Screens that only list or filter
+ * books use the cached {@link BookCatalog}, which loads through here; read
+ * a book here when the decision needs its current stock, e.g. just before
+ * renting or reserving it. Retired books are never returned.
+ *
+ * Adding and editing books also goes through here, so the catalog is
+ * refreshed after every write. Retiring a book is {@link BookRetirement}'s job.
+ */
+public final class BookRepository {
+    private static final String COLUMNS =
+        "SELECT book_id, title, author, isbn, genre, format, status, copies, fee, late_return_fee, last_updated FROM books ";
+
+    private BookRepository() {
+    }
+
+    /** Every book that is not retired. */
+    public static List<BookCatalog.Book> findAll(Connection conn) throws SQLException {
+        List<BookCatalog.Book> books = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE retired_at IS NULL");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                books.add(map(rs));
+            }
+        }
+        return books;
+    }
+
+    /** The book, or null if it does not exist or is retired. */
+    public static BookCatalog.Book findById(Connection conn, int bookId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE book_id = ? AND retired_at IS NULL")) {
+            pstmt.setInt(1, bookId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Adds a book with all of its copies on the shelf.
+     *
+     * @return the new book's id
+     */
+    public static int insert(String title, String author, String isbn, String genre, String format,
+                             int copies, double fee, double lateReturnFee) throws SQLException {
+        int bookId;
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("""
+                 INSERT INTO books (title, author, isbn, genre, format, copies, fee, late_return_fee, status)
+                 VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'Available')
+                 RETURNING book_id
+                 """)) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, author);
+            pstmt.setString(3, isbn);
+            pstmt.setString(4, genre);
+            pstmt.setString(5, format);
+            pstmt.setInt(6, copies);
+            pstmt.setDouble(7, fee);
+            pstmt.setDouble(8, lateReturnFee);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                bookId = rs.getInt(1);
+            }
+        }
+        BookCatalog.getInstance().bookChanged(bookId);
+        return bookId;
+    }
+
+    /**
+     * Overwrites a book's details. {@code copies} is the number on the shelf;
+     * the availability triggers carry the change into the inventory totals.
+     *
+     * @return false if there is no such book
+     */
+    public static boolean update(int bookId, String title, String author, String isbn, String genre, String format,
+                                 int copies, double fee, double lateReturnFee, String status) throws SQLException {
+        boolean updated;
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "UPDATE books SET title = ?, author = ?, isbn = ?, genre = ?, format = ?, copies = ?, fee = ?, " +
+                 "late_return_fee = ?, status = ?, last_updated = datetime('now') WHERE book_id = ?")) {
+            pstmt.setString(1, title);
+            pstmt.setString(2, author);
+            pstmt.setString(3, isbn);
+            pstmt.setString(4, genre);
+            pstmt.setString(5, format);
+            pstmt.setInt(6, copies);
+            pstmt.setDouble(7, fee);
+            pstmt.setDouble(8, lateReturnFee);
+            pstmt.setString(9, status);
+            pstmt.setInt(10, bookId);
+            updated = pstmt.executeUpdate() > 0;
+        }
+        if (updated) {
+            BookCatalog.getInstance().bookChanged(bookId);
+        }
+        return updated;
+    }
+
+    private static BookCatalog.Book map(ResultSet rs) throws SQLException {
+        return new BookCatalog.Book(
+            rs.getInt("book_id"),
+            rs.getString("title"),
+            rs.getString("author"),
+            rs.getString("isbn"),
+            rs.getString("genre"),
+            rs.getString("format"),
+            rs.getString("status"),
+            rs.getInt("copies"),
+            rs.getDouble("fee"),
+            rs.getDouble("late_return_fee"),
+            rs.getString("last_updated"));
+    }
+}
@@ -0,0 +1,98 @@
+package librorent;
+
+import java.sql.*;
+
+/**
+ * Takes a book out of the catalogue.
+ *
+ * A book that was never rented is simply deleted; the foreign keys on
+ * rentals and reservations are ON DELETE CASCADE, so its reservations go
+ * with it in the same statement. A book with rental history is retired
+ * instead: retired_at is set so every catalogue query skips it, its active
+ * reservations are cancelled, and its settled rentals (returned, and paid
+ * or without a late fee) are moved to rentals_archive with one
+ * INSERT ... SELECT and one DELETE, both served by the per-book indexes.
+ * Rentals with a fee still owed stay in rentals, where the admin fee views
+ * read them and payments update them. The history stays visible through
+ * the rental_history view. The caller owns the transaction.
+ */
+public final class BookRetirement {
+    // Returned, and nothing left to pay
+    private static final String SETTLED =
+        "return_date IS NOT NULL AND (LOWER(payment_status) = 'paid' OR COALESCE(late_fee, 0) = 0)";
+
+    /** What happened to the book. */
+    public record Result(boolean deleted, int archivedRentals, int cancelledReservations) {
+    }
+
+    private BookRetirement() {
+    }
+
+    /** Deletes or retires the book; refuses while any of its copies are still out on rental. */
+    public static Result remove(Connection conn, int bookId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM rentals WHERE book_id = ? AND return_date IS NULL")) {
+            pstmt.setInt(1, bookId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next() && rs.getInt(1) > 0) {
+                throw new SQLException("The book has active rentals. Please ensure all copies are returned first.");
+            }
+        }
+
+        boolean hasHistory;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT EXISTS (SELECT 1 FROM rentals WHERE book_id = ?) " +
+                "OR EXISTS (SELECT 1 FROM rentals_archive WHERE book_id = ?)")) {
+            pstmt.setInt(1, bookId);
+            pstmt.setInt(2, bookId);
+            ResultSet rs = pstmt.executeQuery();
+            hasHistory = rs.next() && rs.getBoolean(1);
+        }
+
+        if (!hasHistory) {
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM books WHERE book_id = ?")) {
+                pstmt.setInt(1, bookId);
+                if (pstmt.executeUpdate() == 0) {
+                    throw new SQLException("Book not found or already deleted.");
+                }
+            }
+            return new Result(true, 0, 0);
+        }
+
+        int cancelled;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE reservations SET status = 'Cancelled' WHERE book_id = ? AND status = 'Active'")) {
+            pstmt.setInt(1, bookId);
+            cancelled = pstmt.executeUpdate();
+        }
+
+        int archived;
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                INSERT INTO rentals_archive (id, user_id, book_id, rental_date, due_date, return_date,
+                                             late_fee, status, payment_status, archived_at)
+                SELECT id, user_id, book_id, rental_date, due_date, return_date,
+                       late_fee, status, payment_status, datetime('now')
+                FROM rentals
+                WHERE book_id = ? AND
+                """ + SETTLED)) {
+            pstmt.setInt(1, bookId);
+            archived = pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "DELETE FROM rentals WHERE book_id = ? AND " + SETTLED)) {
+            pstmt.setInt(1, bookId);
+            pstmt.executeUpdate();
+        }
+
+        // The status CHECK on older databases has no 'Retired'; retired_at is what catalogue queries test
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE books SET retired_at = datetime('now'), status = 'Unavailable', copies = 0, " +
+                "last_updated = datetime('now') WHERE book_id = ? AND retired_at IS NULL")) {
+            pstmt.setInt(1, bookId);
+            if (pstmt.executeUpdate() == 0) {
+                throw new SQLException("Book not found or already deleted.");
+            }
+        }
+        return new Result(false, archived, cancelled);
+    }
+}
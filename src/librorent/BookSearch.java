@@ -0,0 +1,143 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalog search backed by the books_fts full-text index.
+ *
+ * Input is split into words and every word is matched as a prefix, so
+ * "harr pot" finds "Harry Potter". Results are ranked with bm25, weighting
+ * title matches above author, ISBN and genre, and are capped at a limit.
+ * If the SQLite build has no FTS5 module the index does not exist, and the
+ * search falls back to the old LIKE scan. Retired books stay in the index
+ * but are never returned.
+ */
+public final class BookSearch {
+    public static final int DEFAULT_LIMIT = 200;
+
+    /** Column weights for bm25, in books_fts column order: title, author, isbn, genre. */
+    private static final String RANK = "bm25(books_fts, 10.0, 5.0, 2.0, 1.0)";
+
+    private static volatile Boolean ftsAvailable;
+
+    /** Which column a search is restricted to. */
+    public enum Field {
+        ALL(null),
+        TITLE("title"),
+        AUTHOR("author"),
+        ISBN("isbn"),
+        GENRE("genre");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        /** Maps a search-type combo box label such as "Title" to a field. */
+        public static Field fromLabel(String label) {
+            for (Field field : values()) {
+                if (field.name().equalsIgnoreCase(label)) {
+                    return field;
+                }
+            }
+            return ALL;
+        }
+    }
+
+    private BookSearch() {
+    }
+
+    /** Returns matching book ids, best match first. */
+    public static List<Integer> search(Connection conn, String text, Field field, int limit) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String match = matchExpression(text, field);
+        if (match == null) {
+            return ids;
+        }
+
+        boolean fts = isFtsAvailable(conn);
+        String sql = fts
+            ? "SELECT books_fts.rowid FROM books_fts JOIN books ON books.book_id = books_fts.rowid " +
+              "WHERE books_fts MATCH ? AND books.retired_at IS NULL ORDER BY " + RANK + " LIMIT ?"
+            : likeQuery(field);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (fts) {
+                pstmt.setString(1, match);
+                pstmt.setInt(2, limit);
+            } else {
+                String pattern = "%" + text.trim().toLowerCase() + "%";
+                int columns = field == Field.ALL ? 4 : 1;
+                for (int i = 1; i <= columns; i++) {
+                    pstmt.setString(i, pattern);
+                }
+                pstmt.setInt(columns + 1, limit);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /** Orders books by their position in a ranked id list. */
+    public static Comparator<BookCatalog.Book> rankOrder(List<Integer> rankedIds) {
+        Map<Integer, Integer> position = new HashMap<>();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            position.put(rankedIds.get(i), i);
+        }
+        return Comparator.comparingInt(book -> position.getOrDefault(book.bookId(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Builds an FTS5 MATCH expression in which every word must match as a
+     * prefix, or returns null if the text has no searchable words. Words are
+     * quoted so FTS5 operators typed by the user are taken literally.
+     */
+    static String matchExpression(String text, Field field) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder terms = new StringBuilder();
+        for (String word : text.trim().split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (terms.length() > 0) {
+                terms.append(' ');
+            }
+            terms.append('"').append(word.replace("\"", "\"\"")).append("\"*");
+        }
+        if (terms.length() == 0) {
+            return null;
+        }
+        return field.column == null ? terms.toString() : "{" + field.column + "} : (" + terms + ")";
+    }
+
+    private static String likeQuery(Field field) {
+        String where = field == Field.ALL
+            ? "LOWER(title) LIKE ? OR LOWER(author) LIKE ? OR LOWER(isbn) LIKE ? OR LOWER(genre) LIKE ?"
+            : "LOWER(" + field.column + ") LIKE ?";
+        return "SELECT book_id FROM books WHERE retired_at IS NULL AND (" + where + ") ORDER BY title LIMIT ?";
+    }
+
+    private static boolean isFtsAvailable(Connection conn) throws SQLException {
+        Boolean available = ftsAvailable;
+        if (available == null) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'books_fts'")) {
+                available = rs.next();
+            }
+            ftsAvailable = available;
+        }
+        return available;
+    }
+}
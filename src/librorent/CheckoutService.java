@@ -0,0 +1,152 @@
+package librorent;
+
+import java.sql.*;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Checks out rental copies for the counter screens.
+ *
+ * A checkout is one short write transaction that starts only after the
+ * desk has confirmed: a conditional UPDATE that matches the book only if
+ * it still has enough copies on the shelf, then the rental rows. Because
+ * the UPDATE is the first statement it takes the write lock without a
+ * stale read in front of it, so two desks cannot both get the last copy;
+ * the one that comes second finds no matching row. The book_availability
+ * triggers take the copies off the shelf when the rentals are inserted.
+ *
+ * SQLite waits {@code librorent.db.busyTimeoutMs} for the lock on its own.
+ * If another process still holds it after that, the checkout is retried
+ * with jittered exponential backoff, up to {@code librorent.checkout.maxAttempts}
+ * attempts.
+ */
+public final class CheckoutService {
+    private static final int MAX_ATTEMPTS = Integer.getInteger("librorent.checkout.maxAttempts", 5);
+    private static final long BASE_BACKOFF_MS = Long.getLong("librorent.checkout.backoffMs", 25);
+    private static final long MAX_BACKOFF_MS = 1000;
+
+    // SQLITE_BUSY and SQLITE_LOCKED; extended codes keep the primary code in the low byte
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    /** The rentals created by a checkout. */
+    public record Checkout(int bookId, String title, double feePerDay, List<Integer> rentalIds) {
+    }
+
+    /** The book no longer has the requested copies; retrying will not help. */
+    public static class UnavailableException extends SQLException {
+        public UnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private CheckoutService() {
+    }
+
+    /**
+     * Rents {@code copies} copies of a book to a user.
+     *
+     * @throws UnavailableException if the book is missing, retired, not Available or has fewer copies left
+     */
+    public static Checkout checkout(int userId, int bookId, int copies, String rentalDate, String dueDate,
+                                    String status) throws SQLException {
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies must be positive: " + copies);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Checkout checkout = attempt(userId, bookId, copies, rentalDate, dueDate, status);
+                BookCatalog.getInstance().bookChanged(bookId);
+                return checkout;
+            } catch (SQLException e) {
+                if (!isBusy(e) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /** True for errors that mean another connection held the lock, so the work can be retried. */
+    public static boolean isBusy(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql) {
+                int code = sql.getErrorCode() & 0xFF;
+                if (code == SQLITE_BUSY || code == SQLITE_LOCKED) {
+                    return true;
+                }
+            }
+            String message = t.getMessage();
+            if (message != null && (message.contains("SQLITE_BUSY") || message.contains("SQLITE_LOCKED"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Checkout attempt(int userId, int bookId, int copies, String rentalDate, String dueDate,
+                                    String status) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                String title;
+                double fee;
+                // Claims the write lock and checks the stock in one statement
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE books SET last_updated = datetime('now') " +
+                        "WHERE book_id = ? AND retired_at IS NULL AND status = 'Available' AND copies >= ? " +
+                        "RETURNING title, fee")) {
+                    pstmt.setInt(1, bookId);
+                    pstmt.setInt(2, copies);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw unavailable(conn, bookId, copies);
+                        }
+                        title = rs.getString("title");
+                        fee = rs.getDouble("fee");
+                    }
+                }
+
+                List<Integer> rentalIds = RentalBatch.insertCopies(conn, userId, bookId, rentalDate, dueDate, status, copies);
+                conn.commit();
+                return new Checkout(bookId, title, fee, rentalIds);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Explains why the conditional update matched nothing
+    private static UnavailableException unavailable(Connection conn, int bookId, int copies) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT copies, status, retired_at FROM books WHERE book_id = ?")) {
+            pstmt.setInt(1, bookId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getString("retired_at") != null) {
+                    return new UnavailableException("Book not found");
+                }
+                int left = rs.getInt("copies");
+                if (left <= 0) {
+                    return new UnavailableException("No copies available for this book");
+                }
+                if (!"Available".equals(rs.getString("status"))) {
+                    return new UnavailableException("Book is not available for rental");
+                }
+                return new UnavailableException("Only " + left + " of the " + copies + " requested copies are left");
+            }
+        }
+    }
+
+    private static void backoff(int attempt) throws SQLException {
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap / 2, cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry the checkout", e);
+        }
+    }
+}
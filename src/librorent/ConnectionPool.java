@@ -0,0 +1,518 @@
+package librorent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small bounded pool of pre-configured JDBC connections.
+ *
+ * Physical connections are opened lazily up to {@code maxSize}, have their
+ * setup statements (PRAGMAs) applied exactly once, are validated when they
+ * are borrowed and are closed again after sitting idle for longer than
+ * {@code idleTimeoutMillis}. Callers receive a handle whose {@code close()}
+ * hands the physical connection back to the pool, so the usual
+ * try-with-resources blocks keep working unchanged.
+ *
+ * A reentrant pool hands a thread that already holds a connection a nested
+ * handle on that same connection instead of a second one. This lets a
+ * single-connection writer pool be used from code that opens a connection
+ * while another one is still open further up the call stack. A nested handle
+ * opened inside a transaction joins it: its commit and autocommit changes
+ * are left to the outermost handle.
+ *
+ * Every borrow reports its wait to {@link QueryMetrics} under the pool's
+ * name, and the statements a handle creates are wrapped so their queries
+ * are timed there too.
+ *
+ * Each physical connection keeps its last {@code statementCacheSize}
+ * prepared statements, keyed by SQL text. {@code prepareStatement} on a
+ * handle reuses a cached statement that is not in use, so SQLite compiles
+ * a hot query once per connection instead of on every call, and closing
+ * the statement closes its result set, clears its parameters and puts it
+ * back. A statement whose SQL is already in use on the connection (a
+ * nested handle preparing the same query) is prepared and closed as usual.
+ */
+public class ConnectionPool {
+    private static final Log LOG = Log.get(ConnectionPool.class);
+    private final String name;
+    private final String url;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final List<String> setupStatements;
+    private final boolean reentrant;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final ThreadLocal<PooledConnection> held = new ThreadLocal<>();
+    private final QueryMetrics.PoolStats stats;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String name, String url, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, int statementCacheSize, List<String> setupStatements) {
+        this(name, url, maxSize, idleTimeoutMillis, borrowTimeoutMillis, validationTimeoutSeconds, statementCacheSize,
+            setupStatements, false);
+    }
+    
+    public ConnectionPool(String name, String url, int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, int statementCacheSize, List<String> setupStatements,
+                          boolean reentrant) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.name = name;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.setupStatements = List.copyOf(setupStatements);
+        this.reentrant = reentrant;
+        this.permits = new Semaphore(maxSize, true);
+        this.stats = QueryMetrics.getInstance().pool(name, this);
+
+        // Evict idle connections in the background
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "librorent-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to
+     * become free. The returned handle must be closed to give it back.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        if (reentrant) {
+            PooledConnection current = held.get();
+            if (current != null) {
+                return current.newHandle(true);
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            // A zero timeout still honours the queue of a fair semaphore
+            boolean free = permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+            if (!free && !permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                stats.timedOut();
+                throw new SQLException("Timed out waiting for a database connection (" + name
+                    + " pool size " + maxSize + ")");
+            }
+            stats.borrowed(System.nanoTime() - start, !free);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    return checkOut(pooled);
+                }
+                destroy(pooled);
+            }
+            return checkOut(open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getOpenCount() {
+        return openCount.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /** Connections currently borrowed (a nested handle does not count twice). */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /** Threads currently waiting for a connection. */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /** Closes every idle connection and refuses further borrows. */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url);
+        try (Statement stmt = physical.createStatement()) {
+            for (String sql : setupStatements) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        openCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private Connection checkOut(PooledConnection pooled) throws SQLException {
+        if (reentrant) {
+            held.set(pooled);
+        }
+        return pooled.newHandle(false);
+    }
+    
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        if (reentrant) {
+            held.remove();
+        }
+        boolean reusable = pooled.reset();
+        if (reusable && !closed) {
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        pooled.closeStatements();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOG.warn("Error closing pooled connection", "pool", name, "error", e.getMessage());
+        }
+        openCount.decrementAndGet();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection pooled = it.next();
+            // Keep one warm connection around for the next refresh
+            if (idle.size() <= 1) {
+                break;
+            }
+            if (pooled.lastUsed < cutoff && idle.removeFirstOccurrence(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    /** A physical connection plus the bookkeeping needed to recycle it. */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed = System.currentTimeMillis();
+        // Only the thread holding the connection touches the cache, so it needs no lock
+        private final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                // A statement in use is closed for real when it is given back
+                eldest.getValue().evicted = true;
+                if (!eldest.getValue().inUse) {
+                    eldest.getValue().closePhysical();
+                }
+                return true;
+            }
+        };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle(boolean nested) throws SQLException {
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle(this, nested));
+        }
+
+        /**
+         * A cached statement for {@code sql} if one is free, otherwise a new
+         * one that is cached if nothing else holds that SQL.
+         */
+        PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            if (statementCacheSize <= 0) {
+                return prepareNew(sql, autoGeneratedKeys);
+            }
+            String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000keys" : sql;
+            CachedStatement cached = statements.get(key);
+            if (cached != null && cached.inUse) {
+                return prepareNew(sql, autoGeneratedKeys);
+            }
+            if (cached == null || cached.statement.isClosed()) {
+                cached = new CachedStatement(prepareNew(sql, autoGeneratedKeys));
+                statements.put(key, cached);
+            }
+            cached.inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedHandle(cached));
+        }
+
+        private PreparedStatement prepareNew(String sql, int autoGeneratedKeys) throws SQLException {
+            return autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        void closeStatements() {
+            for (CachedStatement cached : statements.values()) {
+                cached.closePhysical();
+            }
+            statements.clear();
+        }
+
+        /** Restores the connection to a clean state; returns false if it should be discarded. */
+        boolean reset() {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                LOG.warn("Discarding pooled connection", "pool", name, "error", e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /** Invocation handler behind every borrowed connection handle. */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final boolean nested;
+        private final boolean joinedTransaction;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private boolean released = false;
+
+        Handle(PooledConnection pooled, boolean nested) throws SQLException {
+            this.pooled = pooled;
+            this.nested = nested;
+            this.joinedTransaction = nested && !pooled.physical.getAutoCommit();
+        }
+        
+        private void closeHandle() throws SQLException {
+            try {
+                // One statement failing to close must not keep the rest open or the connection out of the pool
+                for (Statement stmt : openStatements) {
+                    try {
+                        stmt.close();
+                    } catch (SQLException e) {
+                        LOG.warn("Error closing statement", "pool", name, "error", e.getMessage());
+                    }
+                }
+                openStatements.clear();
+            } finally {
+                if (!nested) {
+                    release(pooled);
+                }
+            }
+            if (nested && !joinedTransaction && !pooled.physical.getAutoCommit()) {
+                // A nested handle left its own transaction open; undo it
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        closeHandle();
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (joinedTransaction && ("commit".equals(method.getName()) || "setAutoCommit".equals(method.getName()))) {
+                // The outermost handle owns the transaction
+                return null;
+            }
+
+            try {
+                Object result;
+                if (isCacheable(method, args)) {
+                    result = pooled.prepare((String) args[0],
+                        args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS);
+                } else {
+                    result = method.invoke(pooled.physical, args);
+                }
+                // Track statements so they are closed when the handle is returned
+                if (result instanceof Statement) {
+                    Statement stmt = QueryMetrics.getInstance().instrument((Statement) result, method, args);
+                    openStatements.add(stmt);
+                    return stmt;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the statement cache
+    private static boolean isCacheable(Method method, Object[] args) {
+        if (!"prepareStatement".equals(method.getName()) || args == null || !(args[0] instanceof String)) {
+            return false;
+        }
+        return args.length == 1 || args.length == 2 && args[1] instanceof Integer;
+    }
+
+    /** A prepared statement kept open on its physical connection between uses. */
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private ResultSet lastResult;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        // Closing the result set resets the statement so it holds no read snapshot while cached
+        void giveBack() throws SQLException {
+            if (lastResult != null) {
+                lastResult.close();
+                lastResult = null;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            inUse = false;
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing cached statement", "error", e.getMessage());
+            }
+        }
+    }
+
+    /** Invocation handler behind a statement borrowed from the cache; close() gives it back. */
+    private final class CachedHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean closed = false;
+
+        CachedHandle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getStatement":
+                    return proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                Object result = method.invoke(cached.statement, args);
+                if (result instanceof ResultSet rs) {
+                    cached.lastResult = rs;
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void giveBack() {
+            try {
+                cached.giveBack();
+                if (!cached.evicted) {
+                    return;
+                }
+            } catch (SQLException e) {
+                LOG.warn("Discarding cached statement", "error", e.getMessage());
+            }
+            cached.inUse = false;
+            cached.closePhysical();
+        }
+    }
+}
@@ -1,18 +1,11 @@
 package librorent;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DBConnection {
-    private static final String DB_URL = "jdbc:sqlite:librorent.db";
-    
+    // Delegates to the shared connection pool in DatabaseManager
     public static Connection getConnection() throws SQLException {
-        try {
-            Class.forName("org.sqlite.JDBC");
-            return DriverManager.getConnection(DB_URL);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("SQLite JDBC Driver not found.", e);
-        }
+        return DatabaseManager.getInstance().getConnection();
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,68 @@
+package librorent;
+
+import java.sql.*;
+
+/**
+ * Computes the admin dashboard counters in a single statement: one aggregate
+ * pass over books and their book_availability counters, one over the active rentals (served by the
+ * rentals(status, due_date) index, so returned history is never read) and
+ * the users count.
+ */
+public final class DashboardStats {
+
+    /** Immutable set of counters shown on the admin dashboard. */
+    public record Snapshot(int totalBooks, int totalCopies, int availableCopies, int unavailableBooks,
+                           int eBooks, int physicalBooks, int activeRentals, int overdueRentals,
+                           int totalUsers) {
+    }
+
+    private static final String STATS_QUERY = """
+        SELECT b.total_books, b.total_copies, b.available_copies, b.unavailable_books,
+               b.ebooks, b.physical_books, r.active_rentals, r.overdue_rentals,
+               (SELECT COUNT(*) FROM users) AS total_users
+        FROM (
+            SELECT COUNT(*) AS total_books,
+                   COALESCE(SUM(a.total_copies), 0) AS total_copies,
+                   COALESCE(SUM(CASE WHEN status = 'Available' THEN copies ELSE 0 END), 0) AS available_copies,
+                   COALESCE(SUM(CASE WHEN status != 'Available' OR copies = 0 THEN 1 ELSE 0 END), 0) AS unavailable_books,
+                   COALESCE(SUM(CASE WHEN format = 'E-Book' THEN 1 ELSE 0 END), 0) AS ebooks,
+                   COALESCE(SUM(CASE WHEN format = 'Physical' THEN 1 ELSE 0 END), 0) AS physical_books
+            FROM books
+            JOIN book_availability a USING (book_id)
+            WHERE retired_at IS NULL
+        ) b, (
+            SELECT COUNT(*) AS active_rentals,
+                   COALESCE(SUM(CASE WHEN due_date < datetime('now') THEN 1 ELSE 0 END), 0) AS overdue_rentals
+            FROM rentals
+            WHERE status = 'Active' AND return_date IS NULL
+        ) r
+        """;
+
+    private DashboardStats() {
+    }
+
+    public static Snapshot load() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            return load(conn);
+        }
+    }
+
+    public static Snapshot load(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(STATS_QUERY)) {
+            if (!rs.next()) {
+                return new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0);
+            }
+            return new Snapshot(
+                rs.getInt("total_books"),
+                rs.getInt("total_copies"),
+                rs.getInt("available_copies"),
+                rs.getInt("unavailable_books"),
+                rs.getInt("ebooks"),
+                rs.getInt("physical_books"),
+                rs.getInt("active_rentals"),
+                rs.getInt("overdue_rentals"),
+                rs.getInt("total_users"));
+        }
+    }
+}
@@ -5,23 +5,63 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JOptionPane;
 
 public class DatabaseManager {
+    private static final Log LOG = Log.get(DatabaseManager.class);
+    /**
+     * How the database file is journaled. ROLLBACK keeps SQLite's default
+     * rollback journal with one shared pool. WAL enables write-ahead logging,
+     * sends all writes through a single writer connection and serves reads
+     * from a pool of read-only connections that never block on the writer.
+     */
+    public enum StorageMode {
+        ROLLBACK,
+        WAL
+    }
+    
     private static DatabaseManager instance;
-    private static final String DB_URL = "jdbc:sqlite:librorent.db";
+    // -Dlibrorent.db.file points the application (or the benchmarks) at another database
+    private static final String DB_FILE = System.getProperty("librorent.db.file", "librorent.db");
+    private static final String DB_URL = "jdbc:sqlite:" + DB_FILE;
     private static final String DRIVER = "org.sqlite.JDBC";
     private boolean initialized = false;
     private boolean tablesCreated = false;
+    private ConnectionPool pool;
+    private ConnectionPool readPool;
+    private ScheduledExecutorService checkpointScheduler;
+    private Connection checkpointConnection;
+    private final StorageMode storageMode;
+    
+    // Pool settings, overridable with -Dlibrorent.db.pool.* system properties
+    private static final int POOL_MAX_SIZE = Integer.getInteger("librorent.db.pool.maxSize", 4);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("librorent.db.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("librorent.db.pool.borrowTimeoutMs", 10_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("librorent.db.pool.validationTimeoutSec", 2);
+    private static final int POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("librorent.db.pool.statementCacheSize", 64);
+    
+    // Storage settings, overridable with -Dlibrorent.db.* system properties
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("librorent.db.busyTimeoutMs", 5000);
+    private static final long MMAP_SIZE_BYTES = Long.getLong("librorent.db.mmapSize", 64L * 1024 * 1024);
+    private static final int CACHE_SIZE_KB = Integer.getInteger("librorent.db.cacheSizeKb", 8192);
+    private static final long CHECKPOINT_INTERVAL_S = Long.getLong("librorent.db.checkpointIntervalSec", 60L);
+    private static final long WAL_MAX_BYTES = Long.getLong("librorent.db.walMaxBytes", 16L * 1024 * 1024);
     
     private DatabaseManager() {
+        storageMode = readStorageMode();
         try {
             Class.forName(DRIVER);
-            System.out.println("SQLite JDBC Driver loaded successfully");
+            LOG.debug("SQLite JDBC driver loaded");
             // Initialize database on first instance creation
             initializeDatabase();
         } catch (ClassNotFoundException e) {
-            System.err.println("Error loading SQLite JDBC Driver: " + e.getMessage());
+            LOG.error("Error loading SQLite JDBC driver", e);
             throw new RuntimeException("Failed to load SQLite JDBC Driver", e);
         }
     }
@@ -33,59 +73,60 @@ public class DatabaseManager {
         return instance;
     }
     
+    private static StorageMode readStorageMode() {
+        String mode = System.getProperty("librorent.db.storageMode", StorageMode.WAL.name());
+        try {
+            return StorageMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Unknown storage mode, using WAL", "mode", mode);
+            return StorageMode.WAL;
+        }
+    }
+    
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+    
     private synchronized void initializeDatabase() {
         try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            // Enable foreign keys
+            // Enable foreign keys and switch the journal mode; the journal mode is stored in the file
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute("PRAGMA foreign_keys = ON");
+                stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+                stmt.execute(storageMode == StorageMode.WAL
+                    ? "PRAGMA journal_mode = WAL"
+                    : "PRAGMA journal_mode = DELETE");
             }
             
             // Create tables if they don't exist
             createTables(conn);
             
             initialized = true;
-            System.out.println("Database initialization completed successfully");
+            LOG.info("Database initialized", "file", DB_FILE, "storageMode", storageMode);
         } catch (SQLException e) {
-            System.err.println("Failed to initialize database: " + e.getMessage());
+            LOG.error("Failed to initialize database", e, "file", DB_FILE);
             throw new RuntimeException("Failed to initialize database: " + e.getMessage(), e);
         }
     }
     
     private synchronized void createTables(Connection conn) {
-        try (Statement stmt = conn.createStatement()) {
-            // Create users table with all required columns
-            stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "username TEXT UNIQUE NOT NULL," +
-                "password TEXT NOT NULL," +
-                "full_name TEXT NOT NULL," +
-                "email TEXT NOT NULL," +
-                "phone TEXT," +
-                "admin_id INTEGER," +
-                "role TEXT DEFAULT 'Member'," +
-                "FOREIGN KEY (admin_id) REFERENCES users(id)" +
-                ")");
-            
-            // Check if we need to migrate the table
-            boolean needsMigration = false;
-            try {
-                stmt.execute("SELECT phone, admin_id, role FROM users LIMIT 1");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("no such column")) {
-                    needsMigration = true;
-                }
+        try {
+            int from = buildMigrator().migrate(conn);
+            if (from < SchemaMigrator.getCurrentVersion(conn)) {
+                LOG.info("Database schema upgraded", "fromVersion", from);
             }
-            
-            if (needsMigration) {
-                // Clean up any existing temporary table
-                try {
-                    stmt.execute("DROP TABLE IF EXISTS users_temp");
-                } catch (SQLException e) {
-                    // Ignore any errors during cleanup
-                }
-                
-                // Create temporary table with new schema
-                stmt.execute("CREATE TABLE users_temp (" +
+            tablesCreated = true;
+        } catch (SQLException e) {
+            LOG.error("Failed to create database tables", e);
+            throw new RuntimeException("Failed to create database tables: " + e.getMessage(), e);
+        }
+    }
+    
+    // Schema history; append new steps at the end and never edit an applied one
+    private static SchemaMigrator buildMigrator() {
+        return new SchemaMigrator()
+            .add(1, "Baseline tables", (conn, stmt) -> {
+                stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
                     "id INTEGER PRIMARY KEY AUTOINCREMENT," +
                     "username TEXT UNIQUE NOT NULL," +
                     "password TEXT NOT NULL," +
@@ -97,124 +138,484 @@ public class DatabaseManager {
                     "FOREIGN KEY (admin_id) REFERENCES users(id)" +
                     ")");
                 
-                // Copy data from old table to new table
-                stmt.execute("INSERT INTO users_temp (id, username, password, full_name, email) " +
-                    "SELECT id, username, password, full_name, email FROM users");
+                stmt.execute("CREATE TABLE IF NOT EXISTS books (" +
+                    "book_id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "title TEXT NOT NULL," +
+                    "author TEXT NOT NULL," +
+                    "isbn TEXT UNIQUE," +
+                    "genre TEXT," +
+                    "format TEXT," +
+                    "status TEXT DEFAULT 'Available'," +
+                    "last_updated TEXT DEFAULT (datetime('now'))," +
+                    "copies INTEGER DEFAULT 1," +
+                    "fee REAL DEFAULT 10.0," +
+                    "late_return_fee REAL DEFAULT 5.0" +
+                    ")");
+                
+                stmt.execute("CREATE TABLE IF NOT EXISTS rentals (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "user_id INTEGER NOT NULL," +
+                    "book_id INTEGER NOT NULL," +
+                    "staff_id INTEGER," +
+                    "rental_date TEXT NOT NULL," +
+                    "due_date TEXT NOT NULL," +
+                    "return_date TEXT," +
+                    "late_fee REAL DEFAULT 0.0," +
+                    "status TEXT DEFAULT 'Active'," +
+                    "payment_status TEXT DEFAULT 'pending'," +
+                    "FOREIGN KEY (user_id) REFERENCES users(id)," +
+                    "FOREIGN KEY (book_id) REFERENCES books(book_id)," +
+                    "FOREIGN KEY (staff_id) REFERENCES users(id)" +
+                    ")");
                 
-                // Drop old table
-                stmt.execute("DROP TABLE users");
+                stmt.execute("CREATE TABLE IF NOT EXISTS reservations (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "user_id INTEGER NOT NULL," +
+                    "book_id INTEGER NOT NULL," +
+                    "reservation_date TEXT NOT NULL," +
+                    "expiration_date TEXT NOT NULL," +
+                    "status TEXT DEFAULT 'Active'," +
+                    "copies INTEGER DEFAULT 1," +
+                    "FOREIGN KEY (user_id) REFERENCES users(id)," +
+                    "FOREIGN KEY (book_id) REFERENCES books(book_id)" +
+                    ")");
                 
-                // Rename new table to original name
-                stmt.execute("ALTER TABLE users_temp RENAME TO users");
-            }
-            
-            // Create books table
-            stmt.execute("CREATE TABLE IF NOT EXISTS books (" +
-                "book_id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "title TEXT NOT NULL," +
-                "author TEXT NOT NULL," +
-                "genre TEXT," +
-                "format TEXT," +
-                "status TEXT DEFAULT 'Available'," +
-                "copies INTEGER DEFAULT 1," +
-                "fee REAL DEFAULT 10.0," +
-                "late_return_fee REAL DEFAULT 5.0" +
-                ")");
-            
-            // Check if fee column exists in books table
-            try {
-                stmt.execute("SELECT fee FROM books LIMIT 1");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("no such column")) {
-                    // Add fee column if it doesn't exist
+                stmt.execute("CREATE TABLE IF NOT EXISTS settings (" +
+                    "key TEXT PRIMARY KEY," +
+                    "value TEXT NOT NULL," +
+                    "last_updated TEXT NOT NULL" +
+                    ")");
+            })
+            .add(2, "Add columns missing from older databases", (conn, stmt) -> {
+                // Rebuild users if it predates the phone/admin_id/role columns
+                if (!SchemaMigrator.getColumns(conn, "users").containsAll(List.of("phone", "admin_id", "role"))) {
+                    stmt.execute("DROP TABLE IF EXISTS users_temp");
+                    stmt.execute("CREATE TABLE users_temp (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                        "username TEXT UNIQUE NOT NULL," +
+                        "password TEXT NOT NULL," +
+                        "full_name TEXT NOT NULL," +
+                        "email TEXT NOT NULL," +
+                        "phone TEXT," +
+                        "admin_id INTEGER," +
+                        "role TEXT DEFAULT 'Member'," +
+                        "FOREIGN KEY (admin_id) REFERENCES users(id)" +
+                        ")");
+                    stmt.execute("INSERT INTO users_temp (id, username, password, full_name, email) " +
+                        "SELECT id, username, password, full_name, email FROM users");
+                    stmt.execute("DROP TABLE users");
+                    stmt.execute("ALTER TABLE users_temp RENAME TO users");
+                }
+                
+                Set<String> books = SchemaMigrator.getColumns(conn, "books");
+                if (!books.contains("isbn")) {
+                    stmt.execute("ALTER TABLE books ADD COLUMN isbn TEXT");
+                    stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_books_isbn ON books(isbn)");
+                }
+                if (!books.contains("last_updated")) {
+                    // ALTER TABLE cannot add a column with a non-constant default
+                    stmt.execute("ALTER TABLE books ADD COLUMN last_updated TEXT");
+                    stmt.execute("UPDATE books SET last_updated = datetime('now')");
+                }
+                if (!books.contains("fee")) {
                     stmt.execute("ALTER TABLE books ADD COLUMN fee REAL DEFAULT 10.0");
                 }
-            }
-            
-            // Check if late_return_fee column exists in books table
-            try {
-                stmt.execute("SELECT late_return_fee FROM books LIMIT 1");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("no such column")) {
-                    // Add late_return_fee column if it doesn't exist
+                if (!books.contains("late_return_fee")) {
                     stmt.execute("ALTER TABLE books ADD COLUMN late_return_fee REAL DEFAULT 5.0");
                 }
-            }
-            
-            // Create rentals table
-            stmt.execute("CREATE TABLE IF NOT EXISTS rentals (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "user_id INTEGER NOT NULL," +
-                "book_id INTEGER NOT NULL," +
-                "staff_id INTEGER," +
-                "rental_date TEXT NOT NULL," +
-                "due_date TEXT NOT NULL," +
-                "return_date TEXT," +
-                "late_fee REAL DEFAULT 0.0," +
-                "status TEXT DEFAULT 'Active'," +
-                "payment_status TEXT DEFAULT 'pending'," +
-                "FOREIGN KEY (user_id) REFERENCES users(id)," +
-                "FOREIGN KEY (book_id) REFERENCES books(book_id)," +
-                "FOREIGN KEY (staff_id) REFERENCES users(id)" +
-                ")");
-            
-            // Check if payment_status column exists in rentals table
-            try {
-                stmt.execute("SELECT payment_status FROM rentals LIMIT 1");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("no such column")) {
-                    // Add payment_status column if it doesn't exist
+                if (!SchemaMigrator.getColumns(conn, "rentals").contains("payment_status")) {
                     stmt.execute("ALTER TABLE rentals ADD COLUMN payment_status TEXT DEFAULT 'pending'");
                 }
-            }
-            
-            // Create reservations table
-            stmt.execute("CREATE TABLE IF NOT EXISTS reservations (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "user_id INTEGER NOT NULL," +
-                "book_id INTEGER NOT NULL," +
-                "reservation_date TEXT NOT NULL," +
-                "expiration_date TEXT NOT NULL," +
-                "status TEXT DEFAULT 'Active'," +
-                "copies INTEGER DEFAULT 1," +
-                "FOREIGN KEY (user_id) REFERENCES users(id)," +
-                "FOREIGN KEY (book_id) REFERENCES books(book_id)" +
-                ")");
-            
-            // Check if copies column exists in reservations table
-            try {
-                stmt.execute("SELECT copies FROM reservations LIMIT 1");
-            } catch (SQLException e) {
-                if (e.getMessage().contains("no such column")) {
-                    // Add copies column if it doesn't exist
+                if (!SchemaMigrator.getColumns(conn, "reservations").contains("copies")) {
                     stmt.execute("ALTER TABLE reservations ADD COLUMN copies INTEGER DEFAULT 1");
                 }
+                
+                // Create admin user if not exists, and fix its role if it is wrong
+                stmt.execute("INSERT OR IGNORE INTO users (username, password, full_name, email, phone, role) " +
+                    "VALUES ('admin', 'admin123', 'System Administrator', 'admin@librorent.com', '123-456-7890', 'Admin')");
+                stmt.execute("UPDATE users SET role = 'Admin' WHERE username = 'admin' AND role != 'Admin'");
+            })
+            .add(3, "Secondary indexes for rental and reservation lookups", (conn, stmt) -> {
+                // Per-user rental lists and history
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_user_return ON rentals(user_id, return_date)");
+                // Copies currently out for a book
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_open_book ON rentals(book_id) WHERE return_date IS NULL");
+                // Active and overdue rental counts
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_status_due ON rentals(status, due_date)");
+                // Expiry sweep over active reservations
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_reservations_status_expiration ON reservations(status, expiration_date)");
+                // Per-user reservation lists and cancellation
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_reservations_user_book ON reservations(user_id, book_id, status)");
+                stmt.execute("ANALYZE");
+            })
+            .add(4, "Full-text search index over books", (conn, stmt) -> {
+                try {
+                    stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS books_fts USING fts5(" +
+                        "title, author, isbn, genre, " +
+                        "content='books', content_rowid='book_id', " +
+                        "tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+                } catch (SQLException e) {
+                    // BookSearch falls back to LIKE when the driver is built without FTS5
+                    if (e.getMessage() != null && e.getMessage().contains("no such module")) {
+                        LOG.warn("FTS5 is not available, catalog search will scan the books table");
+                        return;
+                    }
+                    throw e;
+                }
+                
+                // Keep the index in step with books; copy and status changes do not touch it
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS books_fts_insert AFTER INSERT ON books BEGIN " +
+                    "INSERT INTO books_fts (rowid, title, author, isbn, genre) " +
+                    "VALUES (new.book_id, new.title, new.author, new.isbn, new.genre); " +
+                    "END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS books_fts_delete AFTER DELETE ON books BEGIN " +
+                    "INSERT INTO books_fts (books_fts, rowid, title, author, isbn, genre) " +
+                    "VALUES ('delete', old.book_id, old.title, old.author, old.isbn, old.genre); " +
+                    "END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS books_fts_update " +
+                    "AFTER UPDATE OF title, author, isbn, genre ON books BEGIN " +
+                    "INSERT INTO books_fts (books_fts, rowid, title, author, isbn, genre) " +
+                    "VALUES ('delete', old.book_id, old.title, old.author, old.isbn, old.genre); " +
+                    "INSERT INTO books_fts (rowid, title, author, isbn, genre) " +
+                    "VALUES (new.book_id, new.title, new.author, new.isbn, new.genre); " +
+                    "END");
+                stmt.execute("INSERT INTO books_fts (books_fts) VALUES ('rebuild')");
+            })
+            .add(5, "Stored late fees and daily fee snapshots", (conn, stmt) -> {
+                // One row per day the late fee engine has run
+                stmt.execute("CREATE TABLE IF NOT EXISTS late_fee_snapshots (" +
+                    "snapshot_date TEXT PRIMARY KEY," +
+                    "overdue_rentals INTEGER NOT NULL," +
+                    "outstanding_fees REAL NOT NULL," +
+                    "computed_at TEXT NOT NULL" +
+                    ")");
+                
+                // Returned rentals never had their fee stored; settle them once with the engine's rule
+                stmt.execute("UPDATE rentals SET late_fee = " +
+                    "MAX(0, CAST(julianday(date(return_date)) - julianday(date(due_date)) AS INTEGER)) * " +
+                    "COALESCE((SELECT b.late_return_fee FROM books b WHERE b.book_id = rentals.book_id), " +
+                    "(SELECT CAST(value AS REAL) FROM settings WHERE key = 'late_fee_rate'), 10.0) " +
+                    "WHERE return_date IS NOT NULL AND COALESCE(late_fee, 0) = 0");
+            })
+            .add(6, "Retired books, rental archive and cascading book deletes", (conn, stmt) -> {
+                // A retired book stays in books for its history but leaves the catalogue
+                if (!SchemaMigrator.getColumns(conn, "books").contains("retired_at")) {
+                    stmt.execute("ALTER TABLE books ADD COLUMN retired_at TEXT");
+                }
+
+                // Deleting a book now takes its rentals and reservations with it
+                SchemaMigrator.rebuildTable(conn, "rentals",
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "user_id INTEGER NOT NULL," +
+                    "book_id INTEGER NOT NULL," +
+                    "staff_id INTEGER," +
+                    "rental_date TEXT NOT NULL," +
+                    "due_date TEXT NOT NULL," +
+                    "return_date TEXT," +
+                    "late_fee REAL DEFAULT 0.0," +
+                    "status TEXT DEFAULT 'Active'," +
+                    "payment_status TEXT DEFAULT 'pending'," +
+                    "FOREIGN KEY (user_id) REFERENCES users(id)," +
+                    "FOREIGN KEY (book_id) REFERENCES books(book_id) ON DELETE CASCADE," +
+                    "FOREIGN KEY (staff_id) REFERENCES users(id)");
+                SchemaMigrator.rebuildTable(conn, "reservations",
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "user_id INTEGER NOT NULL," +
+                    "book_id INTEGER NOT NULL," +
+                    "reservation_date TEXT NOT NULL," +
+                    "expiration_date TEXT NOT NULL," +
+                    "status TEXT DEFAULT 'Active'," +
+                    "copies INTEGER DEFAULT 1," +
+                    "FOREIGN KEY (user_id) REFERENCES users(id)," +
+                    "FOREIGN KEY (book_id) REFERENCES books(book_id) ON DELETE CASCADE");
+
+                // The rebuild dropped the indexes from migration 3
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_user_return ON rentals(user_id, return_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_open_book ON rentals(book_id) WHERE return_date IS NULL");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_status_due ON rentals(status, due_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_reservations_status_expiration ON reservations(status, expiration_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_reservations_user_book ON reservations(user_id, book_id, status)");
+                // Per-book lookups for archiving and for the cascades
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_book ON rentals(book_id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_reservations_book ON reservations(book_id)");
+
+                // Returned rentals of retired books; no foreign keys so the history outlives the book
+                stmt.execute("CREATE TABLE IF NOT EXISTS rentals_archive (" +
+                    "id INTEGER PRIMARY KEY," +
+                    "user_id INTEGER NOT NULL," +
+                    "book_id INTEGER NOT NULL," +
+                    "rental_date TEXT NOT NULL," +
+                    "due_date TEXT NOT NULL," +
+                    "return_date TEXT," +
+                    "late_fee REAL," +
+                    "status TEXT," +
+                    "payment_status TEXT," +
+                    "archived_at TEXT NOT NULL" +
+                    ")");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_archive_user_return ON rentals_archive(user_id, return_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_archive_book ON rentals_archive(book_id)");
+
+                // Live and archived rentals together, for history screens
+                stmt.execute("CREATE VIEW IF NOT EXISTS rental_history AS " +
+                    "SELECT id, user_id, book_id, rental_date, due_date, return_date, late_fee, status, payment_status " +
+                    "FROM rentals " +
+                    "UNION ALL " +
+                    "SELECT id, user_id, book_id, rental_date, due_date, return_date, late_fee, status, payment_status " +
+                    "FROM rentals_archive");
+                stmt.execute("ANALYZE");
+            })
+            .add(7, "Date indexes for rental search", (conn, stmt) -> {
+                // RentalQuery turns dates into ranges on these columns; a date matched
+                // against all three becomes an OR that SQLite answers with three index scans
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_rental_date ON rentals(rental_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_due_date ON rentals(due_date)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_return_date ON rentals(return_date)");
+                stmt.execute("ANALYZE");
+            })
+            .add(8, "Per-book availability counters", (conn, stmt) -> {
+                // available_copies mirrors books.copies, the copies on the shelf;
+                // total_copies is what the library owns: shelf + rented + reserved
+                stmt.execute("CREATE TABLE IF NOT EXISTS book_availability (" +
+                    "book_id INTEGER PRIMARY KEY REFERENCES books(book_id) ON DELETE CASCADE," +
+                    "total_copies INTEGER NOT NULL DEFAULT 0," +
+                    "rented_copies INTEGER NOT NULL DEFAULT 0," +
+                    "reserved_copies INTEGER NOT NULL DEFAULT 0," +
+                    "available_copies INTEGER NOT NULL DEFAULT 0" +
+                    ")");
+                stmt.execute("DELETE FROM book_availability");
+                stmt.execute("""
+                    INSERT INTO book_availability (book_id, total_copies, rented_copies, reserved_copies, available_copies)
+                    SELECT b.book_id,
+                           COALESCE(b.copies, 0) + COALESCE(r.n, 0) + COALESCE(v.n, 0),
+                           COALESCE(r.n, 0), COALESCE(v.n, 0), COALESCE(b.copies, 0)
+                    FROM books b
+                    LEFT JOIN (SELECT book_id, COUNT(*) AS n FROM rentals
+                               WHERE return_date IS NULL GROUP BY book_id) r ON r.book_id = b.book_id
+                    LEFT JOIN (SELECT book_id, SUM(COALESCE(copies, 1)) AS n FROM reservations
+                               WHERE status = 'Active' GROUP BY book_id) v ON v.book_id = b.book_id
+                    """);
+
+                // Shelf stock: a new book starts with all copies on the shelf, and an
+                // edit to books.copies (by an admin or by the triggers below) moves the total
+                stmt.execute("""
+                    CREATE TRIGGER IF NOT EXISTS book_availability_insert AFTER INSERT ON books BEGIN
+                        INSERT OR REPLACE INTO book_availability
+                            (book_id, total_copies, rented_copies, reserved_copies, available_copies)
+                        VALUES (NEW.book_id, COALESCE(NEW.copies, 0), 0, 0, COALESCE(NEW.copies, 0));
+                    END
+                    """);
+                stmt.execute("""
+                    CREATE TRIGGER IF NOT EXISTS book_availability_copies AFTER UPDATE OF copies ON books
+                    WHEN NEW.copies IS NOT OLD.copies BEGIN
+                        UPDATE book_availability
+                        SET available_copies = COALESCE(NEW.copies, 0),
+                            total_copies = rented_copies + reserved_copies + COALESCE(NEW.copies, 0)
+                        WHERE book_id = NEW.book_id;
+                    END
+                    """);
+
+                // Rentals and reservations take copies off the shelf and give them back.
+                // These triggers are the only code that moves books.copies for them, so the
+                // counters change in the same statement as the rental or reservation row.
+                // A future rebuild of rentals or reservations must recreate them.
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_rent AFTER INSERT ON rentals " +
+                    "WHEN NEW.return_date IS NULL BEGIN " +
+                    availabilityChange("NEW.book_id", "rented_copies", "1") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_return AFTER UPDATE OF return_date ON rentals " +
+                    "WHEN OLD.return_date IS NULL AND NEW.return_date IS NOT NULL BEGIN " +
+                    availabilityChange("NEW.book_id", "rented_copies", "-1") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_unreturn AFTER UPDATE OF return_date ON rentals " +
+                    "WHEN OLD.return_date IS NOT NULL AND NEW.return_date IS NULL BEGIN " +
+                    availabilityChange("NEW.book_id", "rented_copies", "1") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_rental_delete AFTER DELETE ON rentals " +
+                    "WHEN OLD.return_date IS NULL BEGIN " +
+                    availabilityChange("OLD.book_id", "rented_copies", "-1") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_reserve AFTER INSERT ON reservations " +
+                    "WHEN NEW.status = 'Active' BEGIN " +
+                    availabilityChange("NEW.book_id", "reserved_copies", "COALESCE(NEW.copies, 1)") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_release AFTER UPDATE OF status ON reservations " +
+                    "WHEN OLD.status = 'Active' AND NEW.status IS NOT 'Active' BEGIN " +
+                    availabilityChange("OLD.book_id", "reserved_copies", "-COALESCE(OLD.copies, 1)") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_reactivate AFTER UPDATE OF status ON reservations " +
+                    "WHEN OLD.status IS NOT 'Active' AND NEW.status = 'Active' BEGIN " +
+                    availabilityChange("NEW.book_id", "reserved_copies", "COALESCE(NEW.copies, 1)") + " END");
+                stmt.execute("CREATE TRIGGER IF NOT EXISTS book_availability_reservation_delete AFTER DELETE ON reservations " +
+                    "WHEN OLD.status = 'Active' BEGIN " +
+                    availabilityChange("OLD.book_id", "reserved_copies", "-COALESCE(OLD.copies, 1)") + " END");
+            })
+            .add(9, "Sort indexes for paged tables", (conn, stmt) -> {
+                // PagedTableModel pages with WHERE (sort, id) > (?, ?) ORDER BY sort, id;
+                // an index on exactly (sort, id) turns every page into one index seek.
+                // The rental date ones replace the single-column indexes from migration 7,
+                // which RentalQuery's date ranges can use just as well
+                stmt.execute("DROP INDEX IF EXISTS idx_rentals_rental_date");
+                stmt.execute("DROP INDEX IF EXISTS idx_rentals_due_date");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_rental_date_id ON rentals(rental_date, id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_due_date_id ON rentals(due_date, id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_return_sort ON rentals(COALESCE(return_date, ''), id)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_rentals_fee_sort ON rentals(COALESCE(late_fee, 0), id)");
+                // The book tables only ever list books that are not retired
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_books_title_sort ON books(title, book_id) WHERE retired_at IS NULL");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_books_author_sort ON books(author, book_id) WHERE retired_at IS NULL");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_full_name_sort ON users(full_name, id)");
+                stmt.execute("ANALYZE");
+            });
+    }
+
+    /**
+     * Trigger body that moves {@code delta} copies into the given counter and off
+     * the shelf. The shelf update fires book_availability_copies, which sets
+     * available_copies and leaves total_copies unchanged. A book that runs out is
+     * marked Unavailable and one that gets copies back is Available again;
+     * retired books keep their status.
+     */
+    private static String availabilityChange(String bookId, String counter, String delta) {
+        return "UPDATE book_availability SET " + counter + " = " + counter + " + (" + delta + ") " +
+               "WHERE book_id = " + bookId + "; " +
+               "UPDATE books SET copies = copies - (" + delta + "), " +
+               "status = CASE " +
+               "WHEN retired_at IS NOT NULL THEN status " +
+               "WHEN copies - (" + delta + ") <= 0 THEN 'Unavailable' " +
+               "WHEN status IN ('Unavailable', 'Rented', 'Reserved') THEN 'Available' " +
+               "ELSE status END, " +
+               "last_updated = datetime('now') " +
+               "WHERE book_id = " + bookId + ";";
+    }
+    
+    /**
+     * Returns a pooled connection with foreign keys enabled. Closing it hands
+     * the underlying connection back to the pool instead of closing the file.
+     * In WAL mode this is the single writer connection; a thread that already
+     * holds it gets a nested handle on the same connection.
+     */
+    public Connection getConnection() throws SQLException {
+        return getPool().borrow();
+    }
+    
+    /**
+     * Returns a connection for queries that only read. In WAL mode it comes
+     * from a separate pool of query_only connections that keep reading while
+     * the writer is busy; otherwise it is the same as getConnection().
+     */
+    public Connection getReadConnection() throws SQLException {
+        getPool();
+        synchronized (this) {
+            if (readPool != null) {
+                return readPool.borrow();
             }
-            
-            // Create admin user if not exists
-            stmt.execute("INSERT OR IGNORE INTO users (username, password, full_name, email, phone, role) " +
-                "VALUES ('admin', 'admin123', 'System Administrator', 'admin@librorent.com', '123-456-7890', 'Admin')");
-            
-            // Update admin role if it exists but has wrong role
-            stmt.execute("UPDATE users SET role = 'Admin' WHERE username = 'admin' AND role != 'Admin'");
-            
-            tablesCreated = true;
-        } catch (SQLException e) {
-            System.err.println("Failed to create database tables: " + e.getMessage());
-            throw new RuntimeException("Failed to create database tables: " + e.getMessage(), e);
         }
+        return getConnection();
     }
     
-    public synchronized Connection getConnection() throws SQLException {
+    private synchronized ConnectionPool getPool() {
         if (!initialized) {
             initializeDatabase();
         }
-        
-        Connection conn = DriverManager.getConnection(DB_URL);
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute("PRAGMA foreign_keys = ON");
+        if (pool == null) {
+            if (storageMode == StorageMode.WAL) {
+                pool = new ConnectionPool("writer", DB_URL, 1, POOL_IDLE_TIMEOUT_MS,
+                    POOL_BORROW_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S, POOL_STATEMENT_CACHE_SIZE,
+                    connectionPragmas(false), true);
+                readPool = new ConnectionPool("reader", DB_URL, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS,
+                    POOL_BORROW_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S, POOL_STATEMENT_CACHE_SIZE,
+                    connectionPragmas(true));
+                startCheckpointScheduler();
+                LOG.info("WAL mode connection pools", "writers", 1, "maxReaders", POOL_MAX_SIZE);
+            } else {
+                pool = new ConnectionPool("main", DB_URL, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS,
+                    POOL_BORROW_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S, POOL_STATEMENT_CACHE_SIZE,
+                    connectionPragmas(false));
+                LOG.info("Connection pool created", "maxConnections", POOL_MAX_SIZE);
+            }
+        }
+        return pool;
+    }
+    
+    // PRAGMAs applied once to every new pooled connection
+    private List<String> connectionPragmas(boolean readOnly) {
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA foreign_keys = ON");
+        pragmas.add("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+        pragmas.add("PRAGMA cache_size = -" + CACHE_SIZE_KB);
+        pragmas.add("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+        if (storageMode == StorageMode.WAL) {
+            // NORMAL is durable across application crashes in WAL mode and avoids an fsync per commit
+            pragmas.add("PRAGMA synchronous = NORMAL");
+            pragmas.add("PRAGMA journal_size_limit = " + WAL_MAX_BYTES);
+        } else {
+            pragmas.add("PRAGMA synchronous = FULL");
+        }
+        if (readOnly) {
+            pragmas.add("PRAGMA query_only = ON");
+        }
+        return pragmas;
+    }
+    
+    // Periodically checkpoint the WAL so it does not grow without bound
+    private void startCheckpointScheduler() {
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "librorent-wal-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        checkpointScheduler.scheduleWithFixedDelay(this::checkpoint,
+            CHECKPOINT_INTERVAL_S, CHECKPOINT_INTERVAL_S, TimeUnit.SECONDS);
+    }
+    
+    private void checkpoint() {
+        File walFile = new File(DB_FILE + "-wal");
+        if (!walFile.exists() || walFile.length() == 0) {
+            return;
+        }
+        // PASSIVE never waits on readers or the writer; TRUNCATE waits and resets the file
+        String mode = walFile.length() > WAL_MAX_BYTES ? "TRUNCATE" : "PASSIVE";
+        try {
+            if (checkpointConnection == null || checkpointConnection.isClosed()) {
+                checkpointConnection = DriverManager.getConnection(DB_URL);
+                try (Statement stmt = checkpointConnection.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+                }
+            }
+            try (Statement stmt = checkpointConnection.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+                if (rs.next() && rs.getInt(1) != 0) {
+                    LOG.warn("WAL checkpoint could not complete, will retry", "mode", mode);
+                }
+            }
+        } catch (SQLException e) {
+            LOG.warn("WAL checkpoint failed", "error", e.getMessage());
+        }
+    }
+    
+    // Close all pooled connections, called when the application shuts down
+    public synchronized void shutdown() {
+        if (checkpointScheduler != null) {
+            checkpointScheduler.shutdownNow();
+            try {
+                checkpointScheduler.awaitTermination(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkpointScheduler = null;
+        }
+        if (checkpointConnection != null) {
+            try {
+                checkpointConnection.close();
+            } catch (SQLException e) {
+                LOG.warn("Error closing checkpoint connection", "error", e.getMessage());
+            }
+            checkpointConnection = null;
+        }
+        if (readPool != null) {
+            readPool.close();
+            readPool = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            LOG.info("Connection pool closed");
         }
-        return conn;
+        QueryMetrics.getInstance().writeSnapshot();
     }
     
     // Add a method to check if the native library is properly loaded
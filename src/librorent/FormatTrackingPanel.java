@@ -9,6 +9,7 @@ public class FormatTrackingPanel extends BasePanel {
     private JTable formatTable;
     private DefaultTableModel tableModel;
     private JComboBox<String> formatFilter;
+    private String currentFormat = "All";
     
     public FormatTrackingPanel() {
         // Initialize components
@@ -27,8 +28,9 @@ public class FormatTrackingPanel extends BasePanel {
         
         contentArea.add(mainPanel, BorderLayout.CENTER);
         
-        // Load data from database
+        // Load data from the shared catalog and follow its changes
         loadData();
+        BookCatalog.getInstance().addListener(() -> showFormat(currentFormat));
     }
     
     private void initializeComponents() {
@@ -71,64 +73,48 @@ public class FormatTrackingPanel extends BasePanel {
         
         // Add refresh button
         JButton refreshButton = new JButton("Refresh");
-        refreshButton.addActionListener(e -> loadData());
+        refreshButton.addActionListener(e -> refresh());
         panel.add(refreshButton);
         
         return panel;
     }
     
     private void loadData() {
-        // Clear existing data
-        tableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books ORDER BY book_id DESC")) {
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getString("last_updated") != null ? rs.getString("last_updated") : "N/A"
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading books: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        showFormat("All");
     }
     
     private void applyFilter() {
-        String selectedFormat = (String) formatFilter.getSelectedItem();
+        showFormat((String) formatFilter.getSelectedItem());
+    }
+    
+    // Reload the catalog from the database and show every format
+    private void refresh() {
+        currentFormat = "All";
+        BookCatalog.getInstance().invalidate();
+    }
+    
+    private void showFormat(String format) {
+        currentFormat = format;
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT * FROM books WHERE ? = 'All' OR format = ? ORDER BY book_id DESC")) {
-            
-            pstmt.setString(1, selectedFormat);
-            pstmt.setString(2, selectedFormat);
-            
-            ResultSet rs = pstmt.executeQuery();
-            tableModel.setRowCount(0);
-            
-            while (rs.next()) {
+        // Clear existing data
+        tableModel.setRowCount(0);
+        
+        try {
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(
+                    book -> "All".equals(format) || format.equals(book.format()),
+                    BookCatalog.NEWEST_FIRST)) {
                 Object[] row = {
-                    rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getString("last_updated")
+                    book.bookId(),
+                    book.title(),
+                    book.format(),
+                    book.status(),
+                    book.lastUpdated() != null ? book.lastUpdated() : "N/A"
                 };
                 tableModel.addRow(row);
             }
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
-                "Error applying filter: " + e.getMessage(),
+                "Error loading books: " + e.getMessage(),
                 "Database Error",
                 JOptionPane.ERROR_MESSAGE);
         }
@@ -0,0 +1,208 @@
+package librorent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Invocation handler behind the statements of a pooled connection.
+ *
+ * Each execute is timed and reported to {@link QueryMetrics} under the
+ * template of its SQL. A query's time is the execute plus every
+ * {@code next()} on its result set, because SQLite does most of the work
+ * while the rows are stepped through, and it is recorded together with the
+ * row count when the result set is closed, the statement is closed or runs
+ * again. Updates record their update count as the rows.
+ */
+final class InstrumentedStatement implements InvocationHandler {
+    private final Statement target;
+    private final QueryMetrics.QueryStats prepared;
+    private QueryMetrics.QueryStats batch;
+    private Execution current;
+    private Statement self;
+
+    InstrumentedStatement(Statement target, QueryMetrics.QueryStats prepared) {
+        this.target = target;
+        this.prepared = prepared;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        self = (Statement) proxy;
+        String name = method.getName();
+        switch (name) {
+            case "close":
+                finish();
+                break;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "InstrumentedStatement[" + target + "]";
+            case "addBatch":
+                if (args != null && args.length == 1 && args[0] instanceof String sql) {
+                    batch = QueryMetrics.getInstance().query(sql);
+                }
+                break;
+            case "clearBatch":
+                batch = null;
+                break;
+            case "getResultSet":
+                ResultSet rs = (ResultSet) call(method, args);
+                return rs == null || current == null ? rs : current.wrap(rs);
+            default:
+                if (name.startsWith("execute")) {
+                    return execute(method, args);
+                }
+                break;
+        }
+        return call(method, args);
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+        finish();
+        QueryMetrics.QueryStats stats;
+        if (args != null && args.length > 0 && args[0] instanceof String sql) {
+            stats = QueryMetrics.getInstance().query(sql);
+        } else if (method.getName().startsWith("executeBatch") || method.getName().startsWith("executeLargeBatch")) {
+            stats = prepared != null ? prepared : batch;
+        } else {
+            stats = prepared;
+        }
+        if (stats == null) {
+            return call(method, args);
+        }
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call(method, args);
+        } catch (Throwable t) {
+            stats.failed();
+            throw t;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (result instanceof ResultSet rs) {
+            current = new Execution(stats, elapsed);
+            return current.wrap(rs);
+        }
+        if (result instanceof Boolean hasResultSet) {
+            if (hasResultSet) {
+                // The rows come through getResultSet()
+                current = new Execution(stats, elapsed);
+            } else {
+                stats.record(elapsed, Math.max(0, target.getUpdateCount()));
+            }
+        } else if (result instanceof Number count) {
+            stats.record(elapsed, Math.max(0, count.longValue()));
+        } else if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) {
+                rows += Math.max(0, count);
+            }
+            stats.record(elapsed, rows);
+        } else if (result instanceof long[] counts) {
+            long rows = 0;
+            for (long count : counts) {
+                rows += Math.max(0, count);
+            }
+            stats.record(elapsed, rows);
+        } else {
+            stats.record(elapsed, 0);
+        }
+        return result;
+    }
+
+    private void finish() {
+        if (current != null) {
+            current.finish();
+            current = null;
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** The time and rows of one query, accumulated until its result set is done. */
+    private final class Execution {
+        private final QueryMetrics.QueryStats stats;
+        private long nanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(QueryMetrics.QueryStats stats, long nanos) {
+            this.stats = stats;
+            this.nanos = nanos;
+        }
+
+        ResultSet wrap(ResultSet rs) {
+            return (ResultSet) Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new Rows(this, rs));
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                stats.record(nanos, rows);
+            }
+        }
+    }
+
+    /** Invocation handler behind a measured result set. */
+    private final class Rows implements InvocationHandler {
+        private final Execution execution;
+        private final ResultSet target;
+
+        Rows(Execution execution, ResultSet target) {
+            this.execution = execution;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long start = System.nanoTime();
+                    try {
+                        boolean hasRow = target.next();
+                        if (hasRow) {
+                            execution.rows++;
+                        }
+                        return hasRow;
+                    } finally {
+                        execution.nanos += System.nanoTime() - start;
+                    }
+                case "close":
+                    execution.finish();
+                    break;
+                case "getStatement":
+                    return self;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "InstrumentedResultSet[" + target + "]";
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
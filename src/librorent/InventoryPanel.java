@@ -9,11 +9,22 @@ import java.sql.*;
 
 public class InventoryPanel extends BasePanel {
     private JTable inventoryTable;
-    private DefaultTableModel tableModel;
+    private PagedTableModel tableModel;
     private JLabel totalBooksLabel;
     private JLabel totalCopiesLabel;
     private JLabel availableCopiesLabel;
     private JLabel rentedCopiesLabel;
+    private final AsyncLoader.Channel inventoryLoads = AsyncLoader.channel();
+    
+    // Counters kept by the book_availability triggers, one primary-key lookup per book
+    static final String INVENTORY_SELECT = """
+        b.book_id, b.title, b.author, b.format, b.genre,
+        a.total_copies, a.available_copies, a.rented_copies
+        """;
+    static final String INVENTORY_FROM = "books b JOIN book_availability a ON a.book_id = b.book_id";
+    static final String INVENTORY_TOTALS = 
+        "SELECT COUNT(*), COALESCE(SUM(a.total_copies), 0), COALESCE(SUM(MAX(0, a.available_copies)), 0), "
+        + "COALESCE(SUM(a.rented_copies), 0) FROM " + INVENTORY_FROM + " WHERE b.retired_at IS NULL";
     
     public InventoryPanel() {
         initializeComponents();
@@ -24,15 +35,38 @@ public class InventoryPanel extends BasePanel {
     private void initializeComponents() {
         // Create table model
         String[] columns = {"Book ID", "Title", "Author", "Format", "Genre", "Total Copies", "Available", "Rented", "Status"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PagedTableModel(columns, INVENTORY_SELECT, INVENTORY_FROM, "b.book_id",
+            new String[]{"b.book_id", "b.title", "b.author", "COALESCE(b.format, '')",
+                         "COALESCE(b.genre, '')", "a.total_copies", "a.available_copies", "a.rented_copies",
+                         "a.available_copies <= 0"},
+            1, true, rs -> {
+                int bookId = rs.getInt("book_id");
+                int copies = rs.getInt("total_copies");
+                int rentedCopies = rs.getInt("rented_copies");
+                int availableCopies = Math.max(0, rs.getInt("available_copies")); // Ensure non-negative value
+                String status = availableCopies > 0 ? "Available" : "Unavailable";
+                
+                return new Object[]{
+                    "B" + bookId,
+                    rs.getString("title"),
+                    rs.getString("author"),
+                    rs.getString("format"),
+                    rs.getString("genre"),
+                    copies,
+                    availableCopies,
+                    rentedCopies,
+                    status
+                };
+            });
+        tableModel.setOnReload(this::updateTotals);
+        tableModel.setOnError(e -> JOptionPane.showMessageDialog(this,
+            "Error loading inventory data: " + e.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE));
         
         // Create table with custom styling
         inventoryTable = new JTable(tableModel);
+        inventoryTable.setRowSorter(tableModel.createSorter());
         inventoryTable.setFillsViewportHeight(true);
         inventoryTable.setRowHeight(30);
         inventoryTable.setShowGrid(false);
@@ -129,8 +163,33 @@ public class InventoryPanel extends BasePanel {
         refreshButton.setOpaque(true);
         refreshButton.addActionListener(e -> loadData());
         
+        // Add export button
+        JButton exportButton = new JButton("Export") {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                int w = getWidth();
+                int h = getHeight();
+                Color color1 = new Color(46, 204, 113);   // Green
+                Color color2 = new Color(39, 174, 96);    // Darker Green
+                GradientPaint gp = new GradientPaint(0, 0, color1, w, h, color2);
+                g2d.setPaint(gp);
+                g2d.fillRect(0, 0, w, h);
+                super.paintComponent(g);
+            }
+        };
+        exportButton.setForeground(Color.BLACK);
+        exportButton.setFont(new Font("Arial", Font.BOLD, 14));
+        exportButton.setFocusPainted(false);
+        exportButton.setBorderPainted(false);
+        exportButton.setContentAreaFilled(false);
+        exportButton.setOpaque(true);
+        exportButton.addActionListener(e -> ReportExporter.showExportDialog(this, ReportExporter.Report.INVENTORY));
+        
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonPanel.setOpaque(false);
+        buttonPanel.add(exportButton);
         buttonPanel.add(refreshButton);
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
@@ -215,66 +274,28 @@ public class InventoryPanel extends BasePanel {
     }
     
     private void loadData() {
-        tableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Load inventory data
-            String query = """
-                SELECT b.*, 
-                       (SELECT COUNT(*) FROM rentals r 
-                        WHERE r.book_id = b.book_id 
-                        AND r.return_date IS NULL) as rented_copies
-                FROM books b
-                ORDER BY b.title
-                """;
-            
+        // Rows are fetched a page at a time as they scroll into view; retired books are not stock
+        tableModel.setFilter("b.retired_at IS NULL");
+    }
+    
+    private void updateTotals() {
+        // Only the visible pages are in memory, so the totals are summed in SQL
+        inventoryLoads.submit(conn -> {
             try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-                
-                int totalBooks = 0;
-                int totalCopies = 0;
-                int totalAvailable = 0;
-                int totalRented = 0;
-                
-                while (rs.next()) {
-                    int bookId = rs.getInt("book_id");
-                    int copies = rs.getInt("copies");
-                    int rentedCopies = rs.getInt("rented_copies");
-                    int availableCopies = Math.max(0, copies - rentedCopies); // Ensure non-negative value
-                    String status = availableCopies > 0 ? "Available" : "Unavailable";
-                    
-                    Object[] row = {
-                        "B" + bookId,
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("format"),
-                        rs.getString("genre"),
-                        copies,
-                        availableCopies,
-                        rentedCopies,
-                        status
-                    };
-                    tableModel.addRow(row);
-                    
-                    totalBooks++;
-                    totalCopies += copies;
-                    totalAvailable += availableCopies;
-                    totalRented += rentedCopies;
-                }
-                
-                // Update statistics labels
-                totalBooksLabel.setText("Total Books: " + totalBooks);
-                totalCopiesLabel.setText("Total Copies: " + totalCopies);
-                availableCopiesLabel.setText("Available Copies: " + totalAvailable);
-                rentedCopiesLabel.setText("Rented Copies: " + totalRented);
+                 ResultSet rs = stmt.executeQuery(INVENTORY_TOTALS)) {
+                rs.next();
+                return new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)};
             }
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
+        }, totals -> {
+            // Update statistics labels
+            totalBooksLabel.setText("Total Books: " + totals[0]);
+            totalCopiesLabel.setText("Total Copies: " + totals[1]);
+            availableCopiesLabel.setText("Available Copies: " + totals[2]);
+            rentedCopiesLabel.setText("Rented Copies: " + totals[3]);
+        }, e -> JOptionPane.showMessageDialog(this,
                 "Error loading inventory data: " + e.getMessage(),
                 "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
     
     @Override
@@ -0,0 +1,201 @@
+package librorent;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one place late fees are worked out.
+ *
+ * A rental's late fee is one daily rate for every calendar day between the
+ * due date and the day it is returned (or today, while it is still out).
+ * The daily rate is the book's late_return_fee, or the late_fee_rate
+ * setting for books that have none.
+ *
+ * The fee is stored in rentals.late_fee instead of being recomputed by each
+ * screen. Once a day the engine brings the fee of every overdue open rental
+ * up to date with a single UPDATE and records a row in late_fee_snapshots;
+ * a returned rental gets its final fee in the return transaction through
+ * {@link #settle} and is never touched again. The snapshot row also marks
+ * the day as done, so restarting the application does not accrue twice.
+ */
+public class LateFeeEngine {
+    private static final Log LOG = Log.get(LateFeeEngine.class);
+    private static LateFeeEngine instance;
+
+    public static final double DEFAULT_RATE = 10.0;
+
+    /** Daily rate for the rental row being updated. */
+    private static final String RATE_SQL = """
+        COALESCE((SELECT b.late_return_fee FROM books b WHERE b.book_id = rentals.book_id),
+                 (SELECT CAST(value AS REAL) FROM settings WHERE key = 'late_fee_rate'),
+                 10.0)
+        """;
+
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private ScheduledExecutorService scheduler;
+
+    private LateFeeEngine() {
+        // Open rentals carry a stored fee; bring it in line when the rate changes
+        Settings.getInstance().addListener(keys -> {
+            if (keys.contains(Settings.LATE_FEE_RATE)) {
+                accrueNow();
+            }
+        });
+    }
+
+    public static synchronized LateFeeEngine getInstance() {
+        if (instance == null) {
+            instance = new LateFeeEngine();
+        }
+        return instance;
+    }
+
+    /** Accrues today's fees if that has not happened yet, then again after every midnight. */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "librorent-late-fees");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.execute(() -> runSafely(false));
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /** Re-accrues open rentals now, e.g. after the late fee rate changed. */
+    public synchronized void accrueNow() {
+        if (scheduler != null) {
+            scheduler.execute(() -> runSafely(true));
+        }
+    }
+
+    private void runSafely(boolean force) {
+        try {
+            accrue(LocalDate.now(), force);
+        } catch (SQLException e) {
+            LOG.error("Error accruing late fees", e);
+        } finally {
+            if (!force) {
+                scheduleNextDay();
+            }
+        }
+    }
+
+    private synchronized void scheduleNextDay() {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        // A minute past midnight so the new date has settled everywhere
+        LocalDateTime next = now.toLocalDate().plusDays(1).atStartOfDay().plusMinutes(1);
+        scheduler.schedule(() -> runSafely(false), Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Brings the late fee of every overdue open rental up to {@code today}
+     * and records the day's snapshot. Skips the work if the day already has
+     * a snapshot, unless {@code force} is set.
+     *
+     * @return the number of rentals whose fee was updated
+     */
+    public int accrue(LocalDate today, boolean force) throws SQLException {
+        String day = today.toString();
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!force) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "SELECT 1 FROM late_fee_snapshots WHERE snapshot_date = ?")) {
+                        pstmt.setString(1, day);
+                        if (pstmt.executeQuery().next()) {
+                            conn.rollback();
+                            return 0;
+                        }
+                    }
+                }
+
+                int updated;
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE rentals SET late_fee = " + feeSql("?") +
+                        " WHERE return_date IS NULL AND due_date < ?")) {
+                    pstmt.setString(1, day);
+                    pstmt.setString(2, day);
+                    updated = pstmt.executeUpdate();
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement("""
+                        INSERT INTO late_fee_snapshots (snapshot_date, overdue_rentals, outstanding_fees, computed_at)
+                        SELECT ?, COUNT(*), COALESCE(SUM(late_fee), 0), ?
+                        FROM rentals
+                        WHERE return_date IS NULL AND due_date < ?
+                        ON CONFLICT(snapshot_date) DO UPDATE SET
+                            overdue_rentals = excluded.overdue_rentals,
+                            outstanding_fees = excluded.outstanding_fees,
+                            computed_at = excluded.computed_at
+                        """)) {
+                    pstmt.setString(1, day);
+                    pstmt.setString(2, LocalDateTime.now().format(SQL_DATE_TIME));
+                    pstmt.setString(3, day);
+                    pstmt.executeUpdate();
+                }
+
+                conn.commit();
+                LOG.info("Accrued late fees", "rentals", updated, "day", day);
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stores the final late fee of a rental whose return_date has just been
+     * set. Runs on the caller's connection, inside its return transaction.
+     */
+    public static void settle(Connection conn, int rentalId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE rentals SET late_fee = " + feeSql("return_date") + " WHERE id = ?")) {
+            pstmt.setInt(1, rentalId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /** Fee for a rental due on {@code dueDate} and returned on {@code end}, the same rule the SQL applies. */
+    public static double calculate(String dueDate, LocalDate end, double dailyRate) {
+        long daysLate = ChronoUnit.DAYS.between(LocalDate.parse(dueDate.substring(0, 10)), end);
+        return Math.max(0, daysLate) * dailyRate;
+    }
+
+    /** The late_fee_rate setting, used for books without their own late return fee. */
+    public static double getDefaultRate() {
+        return Settings.getInstance().getLateFeeRate();
+    }
+
+    // Whole calendar days from the due date to the end date, times the daily rate
+    private static String feeSql(String endDate) {
+        return "MAX(0, CAST(julianday(date(" + endDate + ")) - julianday(date(due_date)) AS INTEGER)) * " + RATE_SQL;
+    }
+}
@@ -13,11 +13,6 @@ public class LateFeePanel extends BasePanel {
     private DefaultTableModel tableModel;
     private int currentUserId;
     
-    private double getLateFeeRate() {
-        // Default rate if settings table doesn't exist or rate not found
-        return 10.0;
-    }
-    
     public LateFeePanel() {
         // Initialize components
         initializeComponents();
@@ -170,7 +165,7 @@ public class LateFeePanel extends BasePanel {
         // Clear existing data
         tableModel.setRowCount(0);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
             // Load all returned books with late fees
             String query = "SELECT r.id, r.book_id, b.title, b.author, r.due_date, r.return_date, r.late_fee " +
                           "FROM rentals r " +
@@ -185,50 +180,9 @@ public class LateFeePanel extends BasePanel {
                 while (rs.next()) {
                     String dueDateStr = rs.getString("due_date");
                     String returnDateStr = rs.getString("return_date");
+                    // Stored by LateFeeEngine when the rental was returned
                     double lateFee = rs.getDouble("late_fee");
                     
-                    // If late fee is not set in database, calculate it
-                    if (lateFee == 0) {
-                        LocalDateTime dueDate;
-                        LocalDateTime returnDate;
-                        
-                        // Parse due date
-                        try {
-                            dueDate = LocalDateTime.parse(dueDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        } catch (Exception e) {
-                            try {
-                                dueDate = LocalDate.parse(dueDateStr).atTime(23, 59, 59);
-                            } catch (Exception ex) {
-                                System.err.println("Error parsing due date: " + dueDateStr);
-                                continue;
-                            }
-                        }
-                        
-                        // Parse return date
-                        try {
-                            returnDate = LocalDateTime.parse(returnDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        } catch (Exception e) {
-                            try {
-                                returnDate = LocalDate.parse(returnDateStr).atTime(23, 59, 59);
-                            } catch (Exception ex) {
-                                System.err.println("Error parsing return date: " + returnDateStr);
-                                continue;
-                            }
-                        }
-                        
-                        if (returnDate.isAfter(dueDate)) {
-                            // Calculate days late, starting from the day after due date
-                            long daysLate = java.time.Duration.between(dueDate, returnDate).toDays();
-                            if (daysLate > 0) {
-                                daysLate--; // Subtract one day to start counting from the day after due date
-                            }
-                            double dailyFee = getLateFeeRate();
-                            lateFee = daysLate * dailyFee;
-                        } else {
-                            lateFee = 0.0;
-                        }
-                    }
-                    
                     // Format dates for display
                     String formattedDueDate = formatDate(dueDateStr);
                     String formattedReturnDate = formatDate(returnDateStr);
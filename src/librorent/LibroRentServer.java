@@ -0,0 +1,420 @@
+package librorent;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless LibroRent: one process that owns the database and serves the
+ * branch desks over HTTP/JSON.
+ *
+ * Start it with {@code --server}. Every request runs on its own virtual
+ * thread and goes through the same repositories, {@link CheckoutService}
+ * and engines as the Swing screens, so the pools, the statement cache,
+ * the busy retry and {@link QueryMetrics} all apply unchanged. Blocking on
+ * a pool permit or on SQLite parks only the virtual thread.
+ *
+ * <pre>
+ * GET    /api/health
+ * GET    /api/books?q=text             catalog, or ranked full-text matches
+ * GET    /api/books/{id}               current stock, read from the database
+ * GET    /api/users/{id}
+ * GET    /api/users/{id}/rentals       open rentals
+ * GET    /api/users/{id}/history       returned rentals
+ * GET    /api/users/{id}/reservations
+ * GET    /api/users/{id}/fees          late fees accruing and unpaid
+ * POST   /api/rentals                  {"userId", "bookId", "copies", "days"}
+ * POST   /api/returns                  {"rentalIds": [...]} or {"userId", "bookId"}
+ * PUT    /api/rentals/{id}/payment     {"paymentStatus"}
+ * POST   /api/reservations             {"userId", "bookId", "copies"}
+ * DELETE /api/reservations?userId=&amp;bookId=
+ * </pre>
+ *
+ * Settings, as system properties:
+ * <ul>
+ * <li>{@code librorent.server.bind}: address to listen on (default 127.0.0.1)</li>
+ * <li>{@code librorent.server.port}: port (default 8470)</li>
+ * <li>{@code librorent.server.token}: if set, every request must send
+ *     {@code Authorization: Bearer <token>}; set it before binding to a
+ *     network address</li>
+ * </ul>
+ */
+public final class LibroRentServer {
+    private static final Log LOG = Log.get(LibroRentServer.class);
+
+    private static final String BIND = System.getProperty("librorent.server.bind", "127.0.0.1");
+    private static final int PORT = Integer.getInteger("librorent.server.port", 8470);
+    private static final String TOKEN = System.getProperty("librorent.server.token", "");
+    private static final int BACKLOG = 128;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int STOP_GRACE_SECONDS = 5;
+    private static final int DEFAULT_RENTAL_DAYS = 14;
+    private static final DateTimeFormatter SQL_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /** A late fee a member owes or is accruing on one rental. */
+    public record Fee(int rentalId, int bookId, String title, String dueDate, String returnDate,
+                      double amount, String paymentStatus) {
+    }
+
+    /** A member's late fees: still accruing on open rentals, and settled but not paid. */
+    public record Fees(int userId, double accruing, double unpaid, List<Fee> rentals) {
+    }
+
+    /** A result that created something; sent with 201 instead of 200. */
+    private record Created(Object body) {
+    }
+
+    /** Ends a request with an HTTP error status and a message for the client. */
+    private static final class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private LibroRentServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /** Opens the database, starts the engines and serves until the JVM exits. */
+    public static LibroRentServer start() throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        DatabaseManager.getInstance();
+        ReservationExpiryEngine.getInstance().start();
+        LateFeeEngine.getInstance().start();
+
+        HttpServer http = HttpServer.create(new InetSocketAddress(BIND, PORT), BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        LibroRentServer server = new LibroRentServer(http, executor);
+        http.createContext("/api/", server::handle);
+        http.setExecutor(executor);
+        http.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "librorent-server-stop"));
+
+        if (TOKEN.isEmpty() && !http.getAddress().getAddress().isLoopbackAddress()) {
+            LOG.warn("Serving on a network address without librorent.server.token", "address", BIND);
+        }
+        LOG.info("LibroRent server started", "address", BIND, "port", http.getAddress().getPort());
+        return server;
+    }
+
+    /** Stops accepting requests, lets running ones finish, then closes the database. */
+    public synchronized void stop() {
+        server.stop(STOP_GRACE_SECONDS);
+        executor.shutdown();
+        ReservationExpiryEngine.getInstance().stop();
+        LateFeeEngine.getInstance().stop();
+        DatabaseManager.getInstance().shutdown();
+        LOG.info("LibroRent server stopped");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        int status;
+        Object body;
+        try {
+            authorize(exchange);
+            Object result = route(exchange, method, path.substring("/api/".length()).split("/"));
+            if (result instanceof Created created) {
+                status = 201;
+                body = created.body();
+            } else {
+                status = 200;
+                body = result;
+            }
+        } catch (HttpError e) {
+            status = e.status;
+            body = Map.of("error", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = Map.of("error", e.getMessage());
+        } catch (CheckoutService.UnavailableException e) {
+            status = 409;
+            body = Map.of("error", e.getMessage());
+        } catch (SQLException e) {
+            status = CheckoutService.isBusy(e) ? 503 : 500;
+            body = Map.of("error", status == 503 ? "Database is busy, try again" : "Database error");
+            LOG.error("Request failed", e, "method", method, "path", path);
+        } catch (RuntimeException e) {
+            status = 500;
+            body = Map.of("error", "Internal error");
+            LOG.error("Request failed", e, "method", method, "path", path);
+        }
+        respond(exchange, status, body);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Handled request", "method", method, "path", path, "status", status,
+                "micros", (System.nanoTime() - start) / 1000);
+        }
+    }
+
+    private Object route(HttpExchange exchange, String method, String[] parts) throws SQLException, IOException {
+        String resource = parts[0];
+        switch (resource) {
+            case "health" -> {
+                requireMethod(method, "GET");
+                return Map.of("status", "ok");
+            }
+            case "books" -> {
+                requireMethod(method, "GET");
+                if (parts.length == 1) {
+                    return books(query(exchange).getOrDefault("q", ""));
+                }
+                int bookId = id(parts[1]);
+                try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+                    return found(BookRepository.findById(conn, bookId), "Book");
+                }
+            }
+            case "users" -> {
+                requireMethod(method, "GET");
+                if (parts.length < 2) {
+                    throw new HttpError(404, "Not found");
+                }
+                int userId = id(parts[1]);
+                try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+                    if (parts.length == 2) {
+                        return found(UserRepository.findById(conn, userId), "User");
+                    }
+                    return switch (parts[2]) {
+                        case "rentals" -> RentalRepository.openRentals(conn, userId);
+                        case "history" -> RentalRepository.history(conn, userId);
+                        case "reservations" -> ReservationRepository.forUser(conn, userId);
+                        case "fees" -> fees(conn, userId);
+                        default -> throw new HttpError(404, "Not found");
+                    };
+                }
+            }
+            case "rentals" -> {
+                if (parts.length == 1) {
+                    requireMethod(method, "POST");
+                    return new Created(checkout(body(exchange)));
+                }
+                if (parts.length == 3 && "payment".equals(parts[2])) {
+                    requireMethod(method, "PUT");
+                    int rentalId = id(parts[1]);
+                    String paymentStatus = string(body(exchange), "paymentStatus");
+                    if (!RentalRepository.setPaymentStatus(rentalId, paymentStatus)) {
+                        throw new HttpError(404, "Rental not found");
+                    }
+                    return Map.of("rentalId", rentalId, "paymentStatus", paymentStatus);
+                }
+                throw new HttpError(404, "Not found");
+            }
+            case "returns" -> {
+                requireMethod(method, "POST");
+                return returns(body(exchange));
+            }
+            case "reservations" -> {
+                if ("POST".equals(method)) {
+                    Map<String, Object> request = body(exchange);
+                    int reservationId = ReservationRepository.reserve(
+                        integer(request, "userId"), integer(request, "bookId"), copies(request));
+                    return new Created(Map.of("reservationId", reservationId));
+                }
+                requireMethod(method, "DELETE");
+                Map<String, String> params = query(exchange);
+                int cancelled = ReservationRepository.cancel(id(params.get("userId")), id(params.get("bookId")));
+                if (cancelled == 0) {
+                    throw new HttpError(404, "No active reservation found for this book");
+                }
+                return Map.of("cancelled", cancelled);
+            }
+            default -> throw new HttpError(404, "Not found");
+        }
+    }
+
+    // The whole catalog by title, or the full-text matches in rank order
+    private static List<BookCatalog.Book> books(String text) throws SQLException {
+        if (text.isBlank()) {
+            return BookCatalog.getInstance().query(null, BookCatalog.BY_TITLE);
+        }
+        List<Integer> bookIds;
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            bookIds = BookSearch.search(conn, text, BookSearch.Field.ALL, BookSearch.DEFAULT_LIMIT);
+        }
+        Set<Integer> matches = new HashSet<>(bookIds);
+        return BookCatalog.getInstance().query(book -> matches.contains(book.bookId()), BookSearch.rankOrder(bookIds));
+    }
+
+    private static Fees fees(Connection conn, int userId) throws SQLException {
+        LocalDate today = LocalDate.now();
+        List<Fee> lines = new ArrayList<>();
+        double accruing = 0;
+        double unpaid = 0;
+        for (RentalRepository.Rental rental : RentalRepository.openRentals(conn, userId)) {
+            double amount = rental.lateFeeOn(today);
+            if (amount > 0) {
+                accruing += amount;
+                lines.add(fee(rental, amount));
+            }
+        }
+        for (RentalRepository.Rental rental : RentalRepository.history(conn, userId)) {
+            if (rental.lateFee() > 0 && !"Paid".equalsIgnoreCase(rental.paymentStatus())) {
+                unpaid += rental.lateFee();
+                lines.add(fee(rental, rental.lateFee()));
+            }
+        }
+        return new Fees(userId, accruing, unpaid, lines);
+    }
+
+    private static Fee fee(RentalRepository.Rental rental, double amount) {
+        return new Fee(rental.id(), rental.bookId(), rental.title(), rental.dueDate(), rental.returnDate(),
+            amount, rental.paymentStatus());
+    }
+
+    private static CheckoutService.Checkout checkout(Map<String, Object> request) throws SQLException {
+        int days = integer(request, "days", DEFAULT_RENTAL_DAYS);
+        if (days <= 0) {
+            throw new IllegalArgumentException("days must be positive");
+        }
+        LocalDate today = LocalDate.now();
+        return CheckoutService.checkout(integer(request, "userId"), integer(request, "bookId"),
+            copies(request), today.format(SQL_DATE), today.plusDays(days).format(SQL_DATE), "Active");
+    }
+
+    private static Map<String, Object> returns(Map<String, Object> request) throws SQLException {
+        int returned;
+        if (request.get("rentalIds") instanceof List<?> ids) {
+            List<Integer> rentalIds = new ArrayList<>();
+            for (Object id : ids) {
+                if (!(id instanceof Long value) || value != value.intValue()) {
+                    throw new IllegalArgumentException("rentalIds must be integers");
+                }
+                rentalIds.add(value.intValue());
+            }
+            returned = RentalRepository.returnRentals(rentalIds);
+        } else {
+            returned = RentalRepository.returnBook(integer(request, "userId"), integer(request, "bookId"));
+        }
+        if (returned == 0) {
+            throw new HttpError(404, "No active rental found");
+        }
+        return Map.of("returned", returned);
+    }
+
+    // Constant-time comparison, so response timing does not reveal how much of the token matched
+    private static void authorize(HttpExchange exchange) {
+        if (TOKEN.isEmpty()) {
+            return;
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        byte[] expected = ("Bearer " + TOKEN).getBytes(StandardCharsets.UTF_8);
+        byte[] actual = header == null ? new byte[0] : header.getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new HttpError(401, "Unauthorized");
+        }
+    }
+
+    private static void requireMethod(String method, String allowed) {
+        if (!allowed.equals(method)) {
+            throw new HttpError(405, "Method not allowed");
+        }
+    }
+
+    private static Object found(Object value, String what) {
+        if (value == null) {
+            throw new HttpError(404, what + " not found");
+        }
+        return value;
+    }
+
+    private static int id(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Missing id");
+        }
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad id '" + text + "'");
+        }
+    }
+
+    private static int integer(Map<String, Object> request, String field) {
+        if (!(request.get(field) instanceof Long value) || value != value.intValue()) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return value.intValue();
+    }
+
+    private static int integer(Map<String, Object> request, String field, int fallback) {
+        return request.containsKey(field) ? integer(request, field) : fallback;
+    }
+
+    private static int copies(Map<String, Object> request) {
+        int copies = integer(request, "copies", 1);
+        if (copies < 1) {
+            throw new IllegalArgumentException("copies must be at least 1");
+        }
+        return copies;
+    }
+
+    private static String string(Map<String, Object> request, String field) {
+        if (!(request.get(field) instanceof String value) || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request body too large");
+        }
+        if (!(Json.parse(new String(bytes, StandardCharsets.UTF_8)) instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        return (Map<String, Object>) map;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package librorent;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous structured logging.
+ *
+ * A call such as {@code LOG.info("Created rentals", "bookId", bookId)} only
+ * checks the level and puts the raw message, key/value fields and thread
+ * name into a lock-free ring buffer; the text is built and written by the
+ * {@code librorent-log} thread. The caller, usually the EDT or a database
+ * transaction, never waits on a console lock. Field values are formatted
+ * later on that thread, so pass values that are not changed afterwards.
+ * When the buffer is full the event is dropped and counted instead of
+ * blocking, and the drop count is logged once the appender catches up.
+ *
+ * Settings, as system properties:
+ * <ul>
+ * <li>{@code librorent.log.level}: DEBUG, INFO (default), WARN or ERROR</li>
+ * <li>{@code librorent.log.level.<Class>}: the level for one class, e.g.
+ *     {@code -Dlibrorent.log.level.RentalReturnPanel=DEBUG}</li>
+ * <li>{@code librorent.log.file}: append to this file instead of the console</li>
+ * <li>{@code librorent.log.bufferSize}: ring buffer slots (default 8192)</li>
+ * </ul>
+ */
+public final class Log {
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    private static final Level DEFAULT_LEVEL = parseLevel(System.getProperty("librorent.log.level"), Level.INFO);
+    private static final int BUFFER_SIZE = Integer.highestOneBit(
+        Math.max(64, Integer.getInteger("librorent.log.bufferSize", 8192)));
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FLUSH_TIMEOUT_MS = 2000;
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final Ring RING = new Ring(BUFFER_SIZE);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final PrintStream FILE = openFile(System.getProperty("librorent.log.file"));
+    private static final Thread APPENDER = startAppender();
+    private static volatile boolean appenderIdle = false;
+
+    private final String name;
+    private final Level level;
+
+    private Log(String name, Level level) {
+        this.name = name;
+        this.level = level;
+    }
+
+    /** The logger for a class, named after it and at its configured level. */
+    public static Log get(Class<?> type) {
+        String name = type.getSimpleName();
+        return new Log(name, parseLevel(System.getProperty("librorent.log.level." + name), DEFAULT_LEVEL));
+    }
+
+    public boolean isEnabled(Level at) {
+        return at.compareTo(level) >= 0;
+    }
+
+    /** Guard for debug output whose arguments are costly to compute. */
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /** {@code fields} are alternating keys and values. */
+    public void debug(String message, Object... fields) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message, null, fields);
+        }
+    }
+
+    public void info(String message, Object... fields) {
+        if (isEnabled(Level.INFO)) {
+            log(Level.INFO, message, null, fields);
+        }
+    }
+
+    public void warn(String message, Object... fields) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, message, null, fields);
+        }
+    }
+
+    public void warn(String message, Throwable error, Object... fields) {
+        if (isEnabled(Level.WARN)) {
+            log(Level.WARN, message, error, fields);
+        }
+    }
+
+    public void error(String message, Object... fields) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, null, fields);
+        }
+    }
+
+    /** Logs {@code error} with its stack trace. */
+    public void error(String message, Throwable error, Object... fields) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, error, fields);
+        }
+    }
+
+    private void log(Level at, String message, Throwable error, Object[] fields) {
+        Event event = new Event(System.currentTimeMillis(), at, name, Thread.currentThread().getName(),
+            message, fields, error);
+        if (!RING.offer(event)) {
+            DROPPED.incrementAndGet();
+            return;
+        }
+        if (appenderIdle) {
+            LockSupport.unpark(APPENDER);
+        }
+    }
+
+    /**
+     * Waits up to two seconds for the appender to write what is buffered.
+     * Runs at JVM shutdown; call it before exiting any other way.
+     */
+    public static void flush() {
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MS;
+        while (!(RING.isEmpty() && DROPPED.get() == 0 && appenderIdle) && System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(APPENDER);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        System.out.flush();
+        System.err.flush();
+        if (FILE != null) {
+            FILE.flush();
+        }
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + value + "', using " + fallback);
+            return fallback;
+        }
+    }
+
+    private static PrintStream openFile(String file) {
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        try {
+            return new PrintStream(new FileOutputStream(file, true), false, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not open log file " + file + ", logging to the console: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Thread startAppender() {
+        Thread thread = new Thread(Log::drain, "librorent-log");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "librorent-log-flush"));
+        return thread;
+    }
+
+    private static void drain() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            Event event = RING.poll();
+            if (event != null) {
+                write(event, line);
+                continue;
+            }
+            long dropped = DROPPED.getAndSet(0);
+            if (dropped > 0) {
+                write(new Event(System.currentTimeMillis(), Level.WARN, "Log", Thread.currentThread().getName(),
+                    "Log buffer full, events dropped", new Object[]{"count", dropped}, null), line);
+            }
+            if (FILE != null) {
+                FILE.flush();
+            } else {
+                System.out.flush();
+                System.err.flush();
+            }
+            // Producers unpark this thread when they see the flag, so a new event is never missed
+            appenderIdle = true;
+            if (RING.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            appenderIdle = false;
+        }
+    }
+
+    private static void write(Event event, StringBuilder line) {
+        line.setLength(0);
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(event.time), line);
+        line.append(' ').append(event.level);
+        if (event.level.name().length() < 5) {
+            line.append(' ');
+        }
+        line.append(" [").append(event.thread).append("] ").append(event.logger).append(" - ").append(event.message);
+        Object[] fields = event.fields;
+        if (fields != null) {
+            for (int i = 0; i < fields.length; i += 2) {
+                line.append(' ').append(fields[i]).append('=');
+                appendValue(line, i + 1 < fields.length ? fields[i + 1] : null);
+            }
+        }
+        PrintStream out = FILE != null ? FILE : event.level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        out.println(line);
+        if (event.error != null) {
+            event.error.printStackTrace(out);
+        }
+    }
+
+    // Quotes values with spaces so a line splits cleanly into key=value pairs
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        if (text.isEmpty() || text.indexOf(' ') >= 0 || text.indexOf('"') >= 0 || text.indexOf('=') >= 0) {
+            line.append('"').append(text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        } else {
+            line.append(text);
+        }
+    }
+
+    private record Event(long time, Level level, String logger, String thread, String message,
+                         Object[] fields, Throwable error) {
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. Producers claim a slot
+     * by advancing the tail with a CAS and then publish the event into it;
+     * the appender takes events in order, clears the slot and advances the
+     * head. A slot that is claimed but not yet published reads as null, so
+     * the appender simply waits for it.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        Ring(int size) {
+            slots = new AtomicReferenceArray<>(size);
+            mask = size - 1;
+        }
+
+        boolean offer(Event event) {
+            while (true) {
+                long claim = tail.get();
+                if (claim - head >= slots.length()) {
+                    return false;
+                }
+                if (tail.compareAndSet(claim, claim + 1)) {
+                    slots.set((int) claim & mask, event);
+                    return true;
+                }
+            }
+        }
+
+        Event poll() {
+            int index = (int) head & mask;
+            Event event = slots.get(index);
+            if (event != null) {
+                slots.lazySet(index, null);
+                head = head + 1;
+            }
+            return event;
+        }
+
+        boolean isEmpty() {
+            return head == tail.get();
+        }
+    }
+}
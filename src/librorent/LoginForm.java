@@ -6,6 +6,7 @@ import java.awt.event.*;
 import java.sql.*;
 
 public class LoginForm extends JDialog {
+    private static final Log LOG = Log.get(LoginForm.class);
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JCheckBox showPasswordCheck;
@@ -387,11 +388,10 @@ public class LoginForm extends JDialog {
             return;
         }
         
-        try {
-            // First verify database connection
-            Connection conn = DatabaseManager.getInstance().getConnection();
+        // First verify database connection
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
             if (conn == null) {
-                System.err.println("Database connection is null");
+                LOG.error("Database connection is null");
                 JOptionPane.showMessageDialog(this,
                     "Database connection error",
                     "Error",
@@ -410,7 +410,7 @@ public class LoginForm extends JDialog {
                     }
                 }
                 if (!hasRoleColumn) {
-                    System.err.println("Users table missing role column");
+                    LOG.error("Users table missing role column");
                     JOptionPane.showMessageDialog(this,
                         "Database schema error: missing role column",
                         "Error",
@@ -420,49 +420,38 @@ public class LoginForm extends JDialog {
             }
             
             // Then attempt login
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT id, username, role FROM users WHERE username = ? AND password = ?")) {
+            UserRepository.User user = UserRepository.authenticate(conn, username, password);
+            
+            if (user != null) {
+                int userId = user.id();
+                String role = user.role();
+                LOG.info("Login successful", "username", username, "userId", userId, "role", role);
                 
-                pstmt.setString(1, username);
-                pstmt.setString(2, password);
+                // Initialize session
+                SessionManager.getInstance().login(userId);
                 
-                System.out.println("Attempting login for username: " + username);
-                ResultSet rs = pstmt.executeQuery();
+                dispose(); // Close login form
                 
-                if (rs.next()) {
-                    int userId = rs.getInt("id");
-                    String role = rs.getString("role");
-                    System.out.println("Login successful - User ID: " + userId + ", Role: " + role);
-                    
-                    // Initialize session
-                    SessionManager.getInstance().login(userId);
-                    
-                    dispose(); // Close login form
-                    
-                    if (role != null && role.equalsIgnoreCase("Admin")) {
-                        System.out.println("Opening Admin Dashboard for user: " + username);
-                        SwingUtilities.invokeLater(() -> {
-                            AdminDashboard adminDashboard = new AdminDashboard(username);
-                            adminDashboard.setVisible(true);
-                        });
-                    } else {
-                        System.out.println("Opening User Dashboard for user ID: " + userId);
-                        SwingUtilities.invokeLater(() -> {
-                            MainApplication userDashboard = new MainApplication(userId);
-                            userDashboard.setVisible(true);
-                        });
-                    }
+                if (role != null && role.equalsIgnoreCase("Admin")) {
+                    SwingUtilities.invokeLater(() -> {
+                        AdminDashboard adminDashboard = new AdminDashboard(username);
+                        adminDashboard.setVisible(true);
+                    });
                 } else {
-                    System.out.println("Login failed - Invalid credentials for username: " + username);
-                    JOptionPane.showMessageDialog(this,
-                        "Invalid username or password",
-                        "Login Error",
-                        JOptionPane.ERROR_MESSAGE);
+                    SwingUtilities.invokeLater(() -> {
+                        MainApplication userDashboard = new MainApplication(userId);
+                        userDashboard.setVisible(true);
+                    });
                 }
+            } else {
+                LOG.warn("Login failed, invalid credentials", "username", username);
+                JOptionPane.showMessageDialog(this,
+                    "Invalid username or password",
+                    "Login Error",
+                    JOptionPane.ERROR_MESSAGE);
             }
         } catch (SQLException e) {
-            System.err.println("Database error during login: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Database error during login", e, "username", username);
             JOptionPane.showMessageDialog(this,
                 "Error during login: " + e.getMessage(),
                 "Database Error",
@@ -4,8 +4,11 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.border.*;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class MainApplication extends JFrame {
+    private static final Log LOG = Log.get(MainApplication.class);
     private JPanel sidebar;
     private JPanel contentPanel;
     private CardLayout cardLayout;
@@ -22,6 +25,8 @@ public class MainApplication extends JFrame {
         
         // Initialize database
         dbManager = DatabaseManager.getInstance();
+        ReservationExpiryEngine.getInstance().start();
+        LateFeeEngine.getInstance().start();
         
         setTitle("LibroRent - Book Rental System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -70,12 +75,13 @@ public class MainApplication extends JFrame {
                 try {
                     // Close any open connections in the connection pool
                     if (dbManager != null) {
-                        // No need to explicitly close connection as we're using try-with-resources
-                        // and connection-per-request model
-                        System.out.println("Application closing - cleaning up resources");
+                        LOG.info("Application closing, cleaning up resources");
+                        ReservationExpiryEngine.getInstance().stop();
+                        LateFeeEngine.getInstance().stop();
+                        dbManager.shutdown();
                     }
                 } catch (Exception ex) {
-                    System.err.println("Error during cleanup: " + ex.getMessage());
+                    LOG.error("Error during cleanup", ex);
                 }
             }
         });
@@ -275,6 +281,18 @@ public class MainApplication extends JFrame {
     }
     
     public static void main(String[] args) {
+        // Headless mode: this process owns the database and serves the desks over HTTP
+        if (Arrays.asList(args).contains("--server")) {
+            try {
+                LibroRentServer.start();
+            } catch (IOException e) {
+                LOG.error("Could not start the LibroRent server", e);
+                Log.flush();
+                System.exit(1);
+            }
+            return;
+        }
+        
         SwingUtilities.invokeLater(() -> {
             // Show login form first
             LoginForm loginForm = new LoginForm(null);
@@ -0,0 +1,397 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model that reads its rows from SQL one page at a time instead of
+ * holding the whole result in memory.
+ *
+ * Only the row count is loaded up front. A page is fetched off the EDT the
+ * first time the table asks for one of its cells, plus the neighbouring page
+ * once the visible rows get close to it, and at most
+ * {@code librorent.paging.cachedPages} pages are kept. Pages are located
+ * with keyset pagination: the sort key of the last row of every page seen
+ * so far is remembered, and the next page is read with
+ * {@code WHERE (sort, key) > (?, ?)}, so scrolling never makes SQLite skip
+ * over rows it has already returned. Only a jump past every known page
+ * falls back to an OFFSET from the nearest remembered key.
+ *
+ * Sorting is done by SQL too; install {@link #createSorter()} as the
+ * table's row sorter so clicking a header re-queries in the new order.
+ * Sort expressions are written over the tables of the FROM clause, not the
+ * select list's aliases, so the keyset predicate and the ORDER BY can walk
+ * an index on (sort, key); they must never be NULL, otherwise the
+ * row-value comparison drops rows.
+ * All methods must be called on the event dispatch thread.
+ */
+public class PagedTableModel extends AbstractTableModel {
+    public static final int PAGE_SIZE = Integer.getInteger("librorent.paging.pageSize", 100);
+    private static final int CACHED_PAGES = Integer.getInteger("librorent.paging.cachedPages", 8);
+    /** How close to the edge of a page the visible rows get before the next page is prefetched. */
+    private static final int PREFETCH_ROWS = PAGE_SIZE / 4;
+
+    private final String[] columnNames;
+    private final String select;
+    private final String from;
+    private final String keyColumn;
+    private final String[] sortExpressions;
+    private final AsyncLoader.RowMapper mapper;
+    private final AsyncLoader.Channel countLoads = AsyncLoader.channel();
+    private final Set<Integer> editableColumns = new HashSet<>();
+
+    private String where;
+    private Object[] args = new Object[0];
+    private int sortColumn;
+    private boolean ascending;
+
+    private int rowCount = 0;
+    private int generation = 0;
+    private final Map<Integer, List<Object[]>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    /** Sort key of the last row before each page whose start is known; page 0 starts at the beginning. */
+    private final TreeMap<Integer, Object[]> anchors = new TreeMap<>();
+    private final Set<Integer> pending = new HashSet<>();
+
+    private Runnable onReload;
+    private Consumer<SQLException> onError;
+
+    /**
+     * @param select          select list, without the SELECT keyword
+     * @param from            FROM clause including joins, without the FROM keyword
+     * @param keyColumn       unique column used to break ties, e.g. {@code r.id}
+     * @param sortExpressions per table column, the SQL expression it is sorted by
+     *                        (over the FROM clause's columns), or null if the
+     *                        column cannot be sorted
+     */
+    public PagedTableModel(String[] columnNames, String select, String from, String keyColumn,
+                           String[] sortExpressions, int sortColumn, boolean ascending,
+                           AsyncLoader.RowMapper mapper) {
+        this.columnNames = columnNames;
+        this.select = select;
+        this.from = from;
+        this.keyColumn = keyColumn;
+        this.sortExpressions = sortExpressions;
+        this.sortColumn = sortColumn;
+        this.ascending = ascending;
+        this.mapper = mapper;
+    }
+
+    public void setEditableColumns(int... columns) {
+        editableColumns.clear();
+        for (int column : columns) {
+            editableColumns.add(column);
+        }
+    }
+
+    /** Runs on the EDT after every reload, once the new row count is known. */
+    public void setOnReload(Runnable onReload) {
+        this.onReload = onReload;
+    }
+
+    public void setOnError(Consumer<SQLException> onError) {
+        this.onError = onError;
+    }
+
+    /**
+     * Sets the WHERE condition, or null for every row, and reloads. The
+     * arguments bind every {@code ?} in the select list followed by every
+     * {@code ?} in the condition.
+     */
+    public void setFilter(String where, Object... args) {
+        this.where = where;
+        this.args = args;
+        reload();
+    }
+
+    public void setSort(int column, boolean ascending) {
+        if (sortExpressions[column] == null) {
+            return;
+        }
+        this.sortColumn = column;
+        this.ascending = ascending;
+        reload();
+    }
+
+    /** Drops every cached page and re-counts the rows, e.g. after the underlying tables changed. */
+    public void reload() {
+        int gen = ++generation;
+        String sql = countQuery(select, from, keyColumn, where);
+        Object[] bound = args;
+        countLoads.submit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                bind(pstmt, bound, 1);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        }, count -> {
+            if (gen != generation) {
+                return;
+            }
+            // Pages requested since the reload started already belong to this generation; keep them
+            rowCount = count;
+            fireTableDataChanged();
+            if (onReload != null) {
+                onReload.run();
+            }
+        }, this::fail);
+        pages.clear();
+        anchors.clear();
+        anchors.put(0, null);
+        pending.clear();
+        requestPage(0);
+    }
+
+    /** Returns the row if its page is loaded, or null while it is still being fetched. */
+    public Object[] getRow(int row) {
+        List<Object[]> page = pages.get(row / PAGE_SIZE);
+        int index = row % PAGE_SIZE;
+        return page != null && index < page.size() ? page.get(index) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return editableColumns.contains(column) && getRow(row) != null;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / PAGE_SIZE;
+        int index = row % PAGE_SIZE;
+        List<Object[]> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return "";
+        }
+        if (index >= PAGE_SIZE - PREFETCH_ROWS) {
+            requestPage(page + 1);
+        } else if (index < PREFETCH_ROWS && page > 0) {
+            requestPage(page - 1);
+        }
+        return index < rows.size() ? rows.get(index)[column] : "";
+    }
+
+    /** Updates the cached copy of a cell; the caller is responsible for writing it to the database. */
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        Object[] cached = getRow(row);
+        if (cached != null) {
+            cached[column] = value;
+            fireTableCellUpdated(row, column);
+        }
+    }
+
+    private void requestPage(int page) {
+        if (page * PAGE_SIZE >= Math.max(rowCount, PAGE_SIZE) || pages.containsKey(page) || !pending.add(page)) {
+            return;
+        }
+        // Start from the closest page boundary we know, skipping whole pages only when we have to
+        Map.Entry<Integer, Object[]> anchor = anchors.floorEntry(page);
+        Object[] after = anchor.getValue();
+        int skip = (page - anchor.getKey()) * PAGE_SIZE;
+        String sql = pageQuery(after != null);
+        Object[] bound = args;
+        int gen = generation;
+
+        AsyncLoader.submit(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int index = bind(pstmt, bound, 1);
+                if (after != null) {
+                    index = bind(pstmt, after, index);
+                }
+                pstmt.setInt(index++, PAGE_SIZE);
+                pstmt.setInt(index, skip);
+                List<Object[]> rows = new ArrayList<>(PAGE_SIZE);
+                Object[] lastKey = null;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(mapper.map(rs));
+                        lastKey = new Object[]{rs.getObject("paged_sort_key"), rs.getObject("paged_row_key")};
+                    }
+                }
+                return new Page(rows, lastKey);
+            }
+        }, result -> {
+            if (gen != generation) {
+                return;
+            }
+            pending.remove(page);
+            pages.put(page, result.rows());
+            if (result.lastKey() != null && result.rows().size() == PAGE_SIZE) {
+                anchors.put(page + 1, result.lastKey());
+            }
+            int first = page * PAGE_SIZE;
+            int last = Math.min(rowCount, first + PAGE_SIZE) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, e -> {
+            if (gen == generation) {
+                pending.remove(page);
+                fail(e);
+            }
+        });
+    }
+
+    private record Page(List<Object[]> rows, Object[] lastKey) {
+    }
+
+    private String pageQuery(boolean afterKey) {
+        return pageQuery(select, from, keyColumn, where, sortExpressions[sortColumn], ascending, afterKey);
+    }
+
+    // The SQL builders are static so the benchmarks run exactly the queries the tables run
+
+    static String countQuery(String select, String from, String keyColumn, String where) {
+        return "SELECT COUNT(*) FROM (" + innerQuery(select, from, keyColumn, where) + ")";
+    }
+
+    /**
+     * Page query; binds the filter arguments, then the sort key and row key of
+     * the previous page's last row if {@code afterKey}, then LIMIT and OFFSET.
+     */
+    static String pageQuery(String select, String from, String keyColumn, String where,
+                            String sort, boolean ascending, boolean afterKey) {
+        String direction = ascending ? " ASC" : " DESC";
+        String keyset = "(" + sort + ", " + keyColumn + ") " + (ascending ? ">" : "<") + " (?, ?)";
+        String condition = where == null
+            ? (afterKey ? keyset : null)
+            : (afterKey ? "(" + where + ") AND " + keyset : where);
+        return "SELECT " + select + ", " + sort + " AS paged_sort_key, " + keyColumn + " AS paged_row_key"
+            + " FROM " + from
+            + (condition == null ? "" : " WHERE " + condition)
+            + " ORDER BY " + sort + direction + ", " + keyColumn + direction
+            + " LIMIT ? OFFSET ?";
+    }
+
+    private static String innerQuery(String select, String from, String keyColumn, String where) {
+        return "SELECT " + select + ", " + keyColumn + " AS paged_row_key FROM " + from
+            + (where == null ? "" : " WHERE " + where);
+    }
+
+    private static int bind(PreparedStatement pstmt, Object[] values, int index) throws SQLException {
+        for (Object value : values) {
+            pstmt.setObject(index++, value);
+        }
+        return index;
+    }
+
+    private void fail(SQLException e) {
+        if (onError != null) {
+            onError.accept(e);
+        }
+    }
+
+    /** Returns a row sorter that shows the current order in the header and re-sorts through SQL. */
+    public RowSorter<PagedTableModel> createSorter() {
+        return new SqlSorter();
+    }
+
+    /** Row sorter that never reorders rows itself; clicks on a header become a new ORDER BY. */
+    private class SqlSorter extends RowSorter<PagedTableModel> {
+        @Override
+        public PagedTableModel getModel() {
+            return PagedTableModel.this;
+        }
+
+        @Override
+        public void toggleSortOrder(int column) {
+            if (sortExpressions[column] == null) {
+                return;
+            }
+            setSort(column, column == sortColumn ? !ascending : true);
+            fireSortOrderChanged();
+        }
+
+        @Override
+        public int convertRowIndexToModel(int index) {
+            return index;
+        }
+
+        @Override
+        public int convertRowIndexToView(int index) {
+            return index;
+        }
+
+        @Override
+        public void setSortKeys(List<? extends SortKey> keys) {
+            if (keys == null || keys.isEmpty()) {
+                return;
+            }
+            SortKey key = keys.get(0);
+            setSort(key.getColumn(), key.getSortOrder() != SortOrder.DESCENDING);
+            fireSortOrderChanged();
+        }
+
+        @Override
+        public List<? extends SortKey> getSortKeys() {
+            return Collections.singletonList(
+                new SortKey(sortColumn, ascending ? SortOrder.ASCENDING : SortOrder.DESCENDING));
+        }
+
+        @Override
+        public int getViewRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public int getModelRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void modelStructureChanged() {
+        }
+
+        @Override
+        public void allRowsChanged() {
+        }
+
+        @Override
+        public void rowsInserted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsDeleted(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow) {
+        }
+
+        @Override
+        public void rowsUpdated(int firstRow, int endRow, int column) {
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package librorent;
+
+import java.beans.ConstructorProperties;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import javax.management.ObjectName;
+
+/**
+ * Latency and row counts for every database call, grouped by query template.
+ *
+ * The connection pools hand out statements wrapped by
+ * {@link InstrumentedStatement}, which reports here how long each execute
+ * and the fetching of its rows took and how many rows it read or wrote.
+ * The SQL is reduced to a template first, with literals and IN lists
+ * replaced by ?, so a query built by string concatenation still lands in
+ * one bucket. The pools report how long each borrow waited for a
+ * connection and how often all connections were in use.
+ *
+ * The numbers are published as the {@code librorent:type=QueryMetrics}
+ * MXBean and written to {@code librorent.metrics.file} (default
+ * librorent-metrics.txt) every {@code librorent.metrics.snapshotIntervalSec}
+ * seconds (default 60, 0 turns the file off) and when the application
+ * shuts down. {@code -Dlibrorent.metrics.enabled=false} leaves the
+ * statements unwrapped.
+ */
+public final class QueryMetrics implements QueryMetricsMXBean {
+    private static final Log LOG = Log.get(QueryMetrics.class);
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("librorent.metrics.enabled", "true"));
+    private static final String SNAPSHOT_FILE = System.getProperty("librorent.metrics.file", "librorent-metrics.txt");
+    private static final long SNAPSHOT_INTERVAL_S = Long.getLong("librorent.metrics.snapshotIntervalSec", 60L);
+    private static final String OBJECT_NAME = "librorent:type=QueryMetrics";
+
+    // Past this many templates new ones share a bucket, so ad-hoc SQL cannot grow the registry forever
+    private static final int MAX_TEMPLATES = 500;
+    private static final int MAX_TEMPLATE_LENGTH = 1000;
+    private static final String OTHER_QUERIES = "(other queries)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])\\d+(?:\\.\\d+)?");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static QueryMetrics instance;
+
+    private final Map<String, QueryStats> queries = new ConcurrentHashMap<>();
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
+    private final Map<String, PoolStats> pools = new ConcurrentHashMap<>();
+    private volatile LocalDateTime since = LocalDateTime.now();
+    private ScheduledExecutorService snapshotScheduler;
+
+    private QueryMetrics() {
+    }
+
+    public static synchronized QueryMetrics getInstance() {
+        if (instance == null) {
+            instance = new QueryMetrics();
+            if (ENABLED) {
+                instance.start();
+            }
+        }
+        return instance;
+    }
+
+    private void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            LOG.warn("Could not register the query metrics MBean", "error", e.getMessage());
+        }
+        if (SNAPSHOT_INTERVAL_S > 0) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "librorent-metrics-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::writeSnapshot,
+                SNAPSHOT_INTERVAL_S, SNAPSHOT_INTERVAL_S, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Wraps a statement returned by {@code method} (createStatement,
+     * prepareStatement or prepareCall) so its executions are measured.
+     */
+    Statement instrument(Statement stmt, Method method, Object[] args) {
+        if (!ENABLED) {
+            return stmt;
+        }
+        Class<?> type = method.getReturnType();
+        if (!Statement.class.isAssignableFrom(type)) {
+            type = stmt instanceof CallableStatement ? CallableStatement.class
+                : stmt instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        }
+        QueryStats prepared = args != null && args.length > 0 && args[0] instanceof String sql ? query(sql) : null;
+        return (Statement) Proxy.newProxyInstance(
+            QueryMetrics.class.getClassLoader(),
+            new Class<?>[]{type},
+            new InstrumentedStatement(stmt, prepared));
+    }
+
+    /** The counters for the template of {@code sql}. */
+    QueryStats query(String sql) {
+        String template = template(sql);
+        QueryStats stats = queries.get(template);
+        if (stats != null) {
+            return stats;
+        }
+        if (queries.size() >= MAX_TEMPLATES) {
+            return queries.computeIfAbsent(OTHER_QUERIES, QueryStats::new);
+        }
+        return queries.computeIfAbsent(template, QueryStats::new);
+    }
+
+    /** Registers a pool's counters under {@code name}, replacing an earlier pool of that name. */
+    PoolStats pool(String name, ConnectionPool pool) {
+        PoolStats stats = new PoolStats(name, pool);
+        pools.put(name, stats);
+        return stats;
+    }
+
+    /** Reduces SQL to its shape: literals and IN lists become ?, whitespace one space. */
+    String template(String sql) {
+        String template = templates.get(sql);
+        if (template == null) {
+            template = STRING_LITERAL.matcher(sql).replaceAll("?");
+            template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+            template = IN_LIST.matcher(template).replaceAll("(?, ...)");
+            template = WHITESPACE.matcher(template).replaceAll(" ").trim();
+            if (template.length() > MAX_TEMPLATE_LENGTH) {
+                template = template.substring(0, MAX_TEMPLATE_LENGTH) + "...";
+            }
+            if (templates.size() >= MAX_TEMPLATES * 4) {
+                templates.clear();
+            }
+            templates.put(sql, template);
+        }
+        return template;
+    }
+
+    @Override
+    public List<QuerySummary> getQueries() {
+        List<QuerySummary> summaries = new ArrayList<>();
+        for (QueryStats stats : queries.values()) {
+            if (stats.latency.getCount() > 0 || stats.errors.sum() > 0) {
+                summaries.add(stats.summary());
+            }
+        }
+        summaries.sort(Comparator.comparingDouble(QuerySummary::getTotalMillis).reversed());
+        return summaries;
+    }
+
+    @Override
+    public List<PoolSummary> getPools() {
+        List<PoolSummary> summaries = new ArrayList<>();
+        for (PoolStats stats : pools.values()) {
+            summaries.add(stats.summary());
+        }
+        summaries.sort(Comparator.comparing(PoolSummary::getName));
+        return summaries;
+    }
+
+    @Override
+    public String getSince() {
+        return since.truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    @Override
+    public String getSnapshotFile() {
+        return Paths.get(SNAPSHOT_FILE).toAbsolutePath().toString();
+    }
+
+    /** Replaces the snapshot file with the current numbers. */
+    @Override
+    public synchronized void writeSnapshot() {
+        if (!ENABLED || queries.isEmpty() && pools.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(SNAPSHOT_FILE).toAbsolutePath();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, formatSnapshot(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not write the metrics snapshot", "file", file, "error", e.getMessage());
+        }
+    }
+
+    @Override
+    public void reset() {
+        queries.clear();
+        for (PoolStats stats : pools.values()) {
+            stats.reset();
+        }
+        since = LocalDateTime.now();
+    }
+
+    /** The snapshot as a plain-text report: pools first, then the queries by total time. */
+    String formatSnapshot() {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.printf("LibroRent database metrics at %s, counting since %s%n%n",
+            LocalDateTime.now().format(TIMESTAMP), since.format(TIMESTAMP));
+
+        out.println("Connection pools (wait times in ms)");
+        out.printf("%-8s %4s %5s %5s %7s %8s %10s %8s %9s %9s %9s %9s%n",
+            "pool", "max", "open", "idle", "active", "waiting", "borrows", "waited", "timeouts",
+            "wait p50", "wait p99", "wait max");
+        for (PoolSummary pool : getPools()) {
+            out.printf("%-8s %4d %5d %5d %7d %8d %10d %8d %9d %9.2f %9.2f %9.2f%n",
+                pool.getName(), pool.getMaxSize(), pool.getOpen(), pool.getIdle(), pool.getActive(),
+                pool.getWaiting(), pool.getBorrows(), pool.getWaited(), pool.getTimeouts(),
+                pool.getWaitP50Millis(), pool.getWaitP99Millis(), pool.getWaitMaxMillis());
+        }
+
+        out.println();
+        out.println("Queries by total time (times in ms)");
+        out.printf("%10s %7s %12s %11s %9s %9s %9s %9s %9s  %s%n",
+            "count", "errors", "rows", "total", "mean", "p50", "p95", "p99", "max", "query");
+        for (QuerySummary query : getQueries()) {
+            out.printf("%10d %7d %12d %11.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                query.getCount(), query.getErrors(), query.getRows(), query.getTotalMillis(),
+                query.getMeanMillis(), query.getP50Millis(), query.getP95Millis(), query.getP99Millis(),
+                query.getMaxMillis(), query.getQuery());
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    private static double millis(double micros) {
+        return micros / 1000.0;
+    }
+
+    /** Counters for one query template. */
+    static final class QueryStats {
+        private final String template;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        QueryStats(String template) {
+            this.template = template;
+        }
+
+        void record(long nanos, long rowCount) {
+            latency.recordNanos(nanos);
+            rows.add(rowCount);
+        }
+
+        void failed() {
+            errors.increment();
+        }
+
+        QuerySummary summary() {
+            return new QuerySummary(template, latency.getCount(), errors.sum(), rows.sum(),
+                millis(latency.getTotalMicros()), millis(latency.getMeanMicros()),
+                millis(latency.getPercentileMicros(50)), millis(latency.getPercentileMicros(95)),
+                millis(latency.getPercentileMicros(99)), millis(latency.getMaxMicros()));
+        }
+    }
+
+    /** Borrow counters for one connection pool; its gauges are read from the pool itself. */
+    static final class PoolStats {
+        private final String name;
+        private final ConnectionPool pool;
+        private final LatencyHistogram wait = new LatencyHistogram();
+        private final LongAdder waited = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        PoolStats(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        /** A borrow got a connection after {@code nanos}; {@code contended} if none was free at first. */
+        void borrowed(long nanos, boolean contended) {
+            wait.recordNanos(nanos);
+            if (contended) {
+                waited.increment();
+            }
+        }
+
+        void timedOut() {
+            timeouts.increment();
+        }
+
+        void reset() {
+            wait.reset();
+            waited.reset();
+            timeouts.reset();
+        }
+
+        PoolSummary summary() {
+            return new PoolSummary(name, pool.getMaxSize(), pool.getOpenCount(), pool.getIdleCount(),
+                pool.getActiveCount(), pool.getWaitingCount(), wait.getCount(), waited.sum(), timeouts.sum(),
+                millis(wait.getPercentileMicros(50)), millis(wait.getPercentileMicros(99)),
+                millis(wait.getMaxMicros()));
+        }
+    }
+
+    /** One row of the query table, in the getter form JMX maps to composite data. */
+    public static final class QuerySummary {
+        private final String query;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        @ConstructorProperties({"query", "count", "errors", "rows", "totalMillis", "meanMillis",
+            "p50Millis", "p95Millis", "p99Millis", "maxMillis"})
+        public QuerySummary(String query, long count, long errors, long rows, double totalMillis,
+                            double meanMillis, double p50Millis, double p95Millis, double p99Millis,
+                            double maxMillis) {
+            this.query = query;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalMillis = totalMillis;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    /** One row of the pool table; active and waiting are the counts at the time it was taken. */
+    public static final class PoolSummary {
+        private final String name;
+        private final int maxSize;
+        private final int open;
+        private final int idle;
+        private final int active;
+        private final int waiting;
+        private final long borrows;
+        private final long waited;
+        private final long timeouts;
+        private final double waitP50Millis;
+        private final double waitP99Millis;
+        private final double waitMaxMillis;
+
+        @ConstructorProperties({"name", "maxSize", "open", "idle", "active", "waiting", "borrows", "waited",
+            "timeouts", "waitP50Millis", "waitP99Millis", "waitMaxMillis"})
+        public PoolSummary(String name, int maxSize, int open, int idle, int active, int waiting, long borrows,
+                           long waited, long timeouts, double waitP50Millis, double waitP99Millis,
+                           double waitMaxMillis) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.open = open;
+            this.idle = idle;
+            this.active = active;
+            this.waiting = waiting;
+            this.borrows = borrows;
+            this.waited = waited;
+            this.timeouts = timeouts;
+            this.waitP50Millis = waitP50Millis;
+            this.waitP99Millis = waitP99Millis;
+            this.waitMaxMillis = waitMaxMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getOpen() {
+            return open;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        /** Borrows that found every connection in use and had to wait. */
+        public long getWaited() {
+            return waited;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public double getWaitP50Millis() {
+            return waitP50Millis;
+        }
+
+        public double getWaitP99Millis() {
+            return waitP99Millis;
+        }
+
+        public double getWaitMaxMillis() {
+            return waitMaxMillis;
+        }
+    }
+}
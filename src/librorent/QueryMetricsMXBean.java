@@ -0,0 +1,23 @@
+package librorent;
+
+import java.util.List;
+
+/**
+ * The database metrics as seen in JConsole or VisualVM, under
+ * {@code librorent:type=QueryMetrics}.
+ */
+public interface QueryMetricsMXBean {
+    /** Every query template seen since the last reset, slowest in total first. */
+    List<QueryMetrics.QuerySummary> getQueries();
+
+    List<QueryMetrics.PoolSummary> getPools();
+
+    /** The time the counters started, as an ISO date-time. */
+    String getSince();
+
+    String getSnapshotFile();
+
+    void writeSnapshot();
+
+    void reset();
+}
@@ -6,6 +6,7 @@ import java.sql.*;
 import java.util.regex.Pattern;
 
 public class RegisterForm extends JFrame {
+    private static final Log LOG = Log.get(RegisterForm.class);
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JPasswordField confirmPasswordField;
@@ -13,7 +14,13 @@ public class RegisterForm extends JFrame {
     private JTextField emailField;
     private JTextField phoneField;
     private JLabel memberIdLabel;
+    private JLabel usernameStatusLabel;
     private LoginForm loginForm;
+    
+    // Username lookups wait for a pause in typing and only the latest result is shown
+    private static final int LOOKUP_DELAY_MS = 300;
+    private final Timer lookupTimer = new Timer(LOOKUP_DELAY_MS, e -> fetchUserInfo());
+    private final AsyncLoader.Channel lookups = AsyncLoader.channel();
 
     public RegisterForm(LoginForm loginForm) {
         this.loginForm = loginForm;
@@ -61,10 +68,16 @@ public class RegisterForm extends JFrame {
         gbc.gridx = 1;
         usernameField = new JTextField(20);
         formPanel.add(usernameField, gbc);
+        
+        // Availability message, on its own row under the username
+        gbc.gridy = 2;
+        usernameStatusLabel = new JLabel(" ");
+        usernameStatusLabel.setForeground(new Color(192, 57, 43));
+        formPanel.add(usernameStatusLabel, gbc);
 
         // Password
         gbc.gridx = 0;
-        gbc.gridy = 2;
+        gbc.gridy = 3;
         formPanel.add(new JLabel("Password:"), gbc);
         gbc.gridx = 1;
         passwordField = new JPasswordField(20);
@@ -72,7 +85,7 @@ public class RegisterForm extends JFrame {
 
         // Confirm Password
         gbc.gridx = 0;
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         formPanel.add(new JLabel("Confirm Password:"), gbc);
         gbc.gridx = 1;
         confirmPasswordField = new JPasswordField(20);
@@ -80,7 +93,7 @@ public class RegisterForm extends JFrame {
 
         // Name
         gbc.gridx = 0;
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         formPanel.add(new JLabel("Full Name:"), gbc);
         gbc.gridx = 1;
         nameField = new JTextField(20);
@@ -89,7 +102,7 @@ public class RegisterForm extends JFrame {
 
         // Email
         gbc.gridx = 0;
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         formPanel.add(new JLabel("Email:"), gbc);
         gbc.gridx = 1;
         emailField = new JTextField(20);
@@ -98,7 +111,7 @@ public class RegisterForm extends JFrame {
 
         // Phone
         gbc.gridx = 0;
-        gbc.gridy = 6;
+        gbc.gridy = 7;
         formPanel.add(new JLabel("Phone Number:"), gbc);
         gbc.gridx = 1;
         phoneField = new JTextField(20);
@@ -124,11 +137,12 @@ public class RegisterForm extends JFrame {
         buttonPanel.add(backButton);
         mainPanel.add(buttonPanel);
 
-        // Add auto-fetch functionality for name and email
+        // Add auto-fetch functionality for name and email, once typing pauses
+        lookupTimer.setRepeats(false);
         usernameField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
-            public void changedUpdate(javax.swing.event.DocumentEvent e) { fetchUserInfo(); }
-            public void removeUpdate(javax.swing.event.DocumentEvent e) { fetchUserInfo(); }
-            public void insertUpdate(javax.swing.event.DocumentEvent e) { fetchUserInfo(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { lookupTimer.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { lookupTimer.restart(); }
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { lookupTimer.restart(); }
         });
 
         add(mainPanel);
@@ -137,34 +151,41 @@ public class RegisterForm extends JFrame {
     private void fetchUserInfo() {
         String username = usernameField.getText().trim();
         if (username.isEmpty()) {
-            nameField.setText("");
-            emailField.setText("");
+            lookups.cancel();
+            showUserInfo(null);
             return;
         }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT full_name, email FROM users WHERE username = ?")) {
-            
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                // If user exists, populate the fields
-                nameField.setText(rs.getString("full_name"));
-                emailField.setText(rs.getString("email"));
-                
-                JOptionPane.showMessageDialog(this,
-                    "User already exists. Please use a different username.",
-                    "Username Taken",
-                    JOptionPane.WARNING_MESSAGE);
-            } else {
-                // If user doesn't exist, clear the fields
-                nameField.setText("");
-                emailField.setText("");
+        // Unknown usernames are answered from memory; only taken ones are looked up
+        lookups.submit(conn -> {
+            if (!UsernameDirectory.getInstance().contains(conn, username)) {
+                return null;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT full_name, email FROM users WHERE username = ?")) {
+                pstmt.setString(1, username);
+                ResultSet rs = pstmt.executeQuery();
+                return rs.next() ? new String[]{rs.getString("full_name"), rs.getString("email")} : null;
+            }
+        }, info -> {
+            // Ignore the result if the field changed while the query ran
+            if (username.equals(usernameField.getText().trim())) {
+                showUserInfo(info);
+            }
+        }, e -> LOG.warn("Error checking username", e, "username", username));
+    }
+
+    private void showUserInfo(String[] info) {
+        if (info != null) {
+            // If user exists, populate the fields
+            nameField.setText(info[0]);
+            emailField.setText(info[1]);
+            usernameStatusLabel.setText("User already exists. Please use a different username.");
+        } else {
+            // If user doesn't exist, clear the fields
+            nameField.setText("");
+            emailField.setText("");
+            usernameStatusLabel.setText(" ");
         }
     }
 
@@ -210,27 +231,10 @@ public class RegisterForm extends JFrame {
             return;
         }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "INSERT INTO users (username, password, full_name, email, phone) " +
-                 "VALUES (?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
-            
-            pstmt.setString(1, username);
-            pstmt.setString(2, password); // In a real application, use password hashing
-            pstmt.setString(3, name);
-            pstmt.setString(4, email);
-            pstmt.setString(5, phone);
-            
-            pstmt.executeUpdate();
-            
-            // Get the generated member ID
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    int memberId = generatedKeys.getInt(1);
-                    memberIdLabel.setText(String.format("LIB-%06d", memberId));
-                    memberIdLabel.setForeground(Color.BLACK);
-                }
-            }
+        try {
+            int memberId = UserRepository.create(username, password, name, email, phone, "Member");
+            memberIdLabel.setText(String.format("LIB-%06d", memberId));
+            memberIdLabel.setForeground(Color.BLACK);
             
             JOptionPane.showMessageDialog(this,
                 "Registration successful! Your Member ID is " + memberIdLabel.getText() + "\nPlease login.",
@@ -0,0 +1,56 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts the rental rows for a multi-copy rental.
+ *
+ * Every copy gets its own rentals row, but the rows only differ in their
+ * id, so they are produced by a single INSERT ... SELECT over a counting
+ * CTE. However many copies are rented, that is one prepared statement and
+ * one round trip, and RETURNING hands back the new rental ids. SQLite
+ * does not promise the order of RETURNING rows, so the ids are sorted
+ * before they are returned. The caller owns the transaction.
+ */
+public final class RentalBatch {
+    private static final String INSERT_COPIES = """
+        WITH RECURSIVE copy(n) AS (
+            SELECT 1 UNION ALL SELECT n + 1 FROM copy WHERE n < ?
+        )
+        INSERT INTO rentals (user_id, book_id, rental_date, due_date, status)
+        SELECT ?, ?, ?, ?, ? FROM copy
+        RETURNING id
+        """;
+
+    private RentalBatch() {
+    }
+
+    /** Inserts one rental per copy and returns the generated rental ids, lowest first. */
+    public static List<Integer> insertCopies(Connection conn, int userId, int bookId, String rentalDate,
+                                             String dueDate, String status, int copies) throws SQLException {
+        List<Integer> rentalIds = new ArrayList<>(copies);
+        if (copies <= 0) {
+            return rentalIds;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_COPIES)) {
+            pstmt.setInt(1, copies);
+            pstmt.setInt(2, userId);
+            pstmt.setInt(3, bookId);
+            pstmt.setString(4, rentalDate);
+            pstmt.setString(5, dueDate);
+            pstmt.setString(6, status);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rentalIds.add(rs.getInt(1));
+                }
+            }
+        }
+        if (rentalIds.size() != copies) {
+            throw new SQLException("Expected " + copies + " rentals but inserted " + rentalIds.size());
+        }
+        rentalIds.sort(null);
+        return rentalIds;
+    }
+}
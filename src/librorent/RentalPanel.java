@@ -9,6 +9,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 public class RentalPanel extends BasePanel {
+    private static final Log LOG = Log.get(RentalPanel.class);
     private JTable bookTable;
     private JTable rentalTable;
     private DefaultTableModel bookTableModel;
@@ -20,6 +21,16 @@ public class RentalPanel extends BasePanel {
     public RentalPanel() {
         super();
         initializeComponents();
+        BookCatalog.getInstance().addListener(() -> {
+            if (currentUserId <= 0) {
+                return;
+            }
+            try {
+                loadAvailableBooks();
+            } catch (SQLException e) {
+                LOG.error("Error refreshing available books", e);
+            }
+        });
     }
     
     @Override
@@ -127,17 +138,10 @@ public class RentalPanel extends BasePanel {
         bookTableModel.setRowCount(0);
         rentalTableModel.setRowCount(0);
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
             // Get user's name
-            String userName = "";
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT full_name FROM users WHERE id = ?")) {
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    userName = rs.getString("full_name");
-                }
-            }
+            UserRepository.User user = UserRepository.findById(conn, currentUserId);
+            String userName = user != null ? user.fullName() : "";
             
             // Create welcome message
             JPanel welcomePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -160,43 +164,20 @@ public class RentalPanel extends BasePanel {
             }
             
             // Load available books
-            try (Statement stmt = conn.createStatement();
-                 ResultSet rs = stmt.executeQuery("SELECT * FROM books WHERE copies > 0 ORDER BY book_id DESC")) {
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("format"),
-                        rs.getInt("copies") + " available",
-                        "Rent"
-                    };
-                    bookTableModel.addRow(row);
-                }
-            }
+            loadAvailableBooks();
             
-            // Load user's active rentals
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT r.*, b.title FROM rentals r " +
-                    "JOIN books b ON r.book_id = b.book_id " +
-                    "WHERE r.user_id = ? AND r.status = 'Active'")) {
-                
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("rental_date"),
-                        rs.getString("due_date"),
-                        rs.getString("status"),
-                        rs.getString("payment_status"),
-                        "Return"
-                    };
-                    rentalTableModel.addRow(row);
-                }
+            // Load user's open rentals
+            for (RentalRepository.Rental rental : RentalRepository.openRentals(conn, currentUserId)) {
+                Object[] row = {
+                    rental.bookId(),
+                    rental.title(),
+                    rental.rentalDate(),
+                    rental.dueDate(),
+                    rental.status(),
+                    rental.paymentStatus(),
+                    "Return"
+                };
+                rentalTableModel.addRow(row);
             }
             
         } catch (SQLException e) {
@@ -207,6 +188,23 @@ public class RentalPanel extends BasePanel {
         }
     }
     
+    // Fill the book table from the shared catalog
+    private void loadAvailableBooks() throws SQLException {
+        bookTableModel.setRowCount(0);
+        for (BookCatalog.Book book : BookCatalog.getInstance().query(book -> book.copies() > 0,
+                BookCatalog.NEWEST_FIRST)) {
+            Object[] row = {
+                book.bookId(),
+                book.title(),
+                book.author(),
+                book.format(),
+                book.copies() + " available",
+                "Rent"
+            };
+            bookTableModel.addRow(row);
+        }
+    }
+    
     private void filterBooks() {
         String searchText = searchField.getText().toLowerCase();
         String filterOption = (String) filterCombo.getSelectedItem();
@@ -251,57 +249,23 @@ public class RentalPanel extends BasePanel {
             return;
         }
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            conn.setAutoCommit(false);
-            try {
-                // Check if book has available copies
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "SELECT copies FROM books WHERE book_id = ?")) {
-                    pstmt.setInt(1, bookId);
-                    ResultSet rs = pstmt.executeQuery();
-                    if (!rs.next() || rs.getInt("copies") <= 0) {
-                        throw new SQLException("No copies available for this book");
-                    }
-                }
-                
-                // Calculate dates
-                LocalDate today = LocalDate.now();
-                LocalDate dueDate = today.plusDays(14);
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                
-                // Insert rental record
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "INSERT INTO rentals (user_id, book_id, rental_date, due_date, status) VALUES (?, ?, ?, ?, 'Active')")) {
-                    pstmt.setInt(1, currentUserId);
-                    pstmt.setInt(2, bookId);
-                    pstmt.setString(3, today.format(formatter));
-                    pstmt.setString(4, dueDate.format(formatter));
-                    pstmt.executeUpdate();
-                }
-                
-                // Decrease available copies
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "UPDATE books SET copies = copies - 1 WHERE book_id = ?")) {
-                    pstmt.setInt(1, bookId);
-                    pstmt.executeUpdate();
-                }
-                
-                conn.commit();
-                
-                // Update UI
-                loadData(); // Reload all data to reflect changes
-                
-                JOptionPane.showMessageDialog(this,
-                    "Book rented successfully! Due date: " + dueDate.format(formatter),
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
-            }
+        try {
+            // Calculate dates
+            LocalDate today = LocalDate.now();
+            LocalDate dueDate = today.plusDays(14);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+            
+            // Checks the stock and inserts the rental in one short transaction
+            CheckoutService.checkout(currentUserId, bookId, 1,
+                today.format(formatter), dueDate.format(formatter), "Active");
+            
+            // Update UI
+            loadData(); // Reload all data to reflect changes
+            
+            JOptionPane.showMessageDialog(this,
+                "Book rented successfully! Due date: " + dueDate.format(formatter),
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
             
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
@@ -320,45 +284,20 @@ public class RentalPanel extends BasePanel {
             return;
         }
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            conn.setAutoCommit(false);
-            try {
-                // Update rental record
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "UPDATE rentals SET status = 'Returned', return_date = ? WHERE book_id = ? AND user_id = ? AND status = 'Active'")) {
-                    pstmt.setString(1, LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-                    pstmt.setInt(2, bookId);
-                    pstmt.setInt(3, currentUserId);
-                    int updated = pstmt.executeUpdate();
-                    if (updated == 0) {
-                        throw new SQLException("No active rental found for this book");
-                    }
-                }
-                
-                // Increase available copies
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "UPDATE books SET copies = copies + 1 WHERE book_id = ?")) {
-                    pstmt.setInt(1, bookId);
-                    pstmt.executeUpdate();
-                }
-                
-                conn.commit();
-                
-                // Update UI
-                loadData(); // Reload all data to reflect changes
-                
-                JOptionPane.showMessageDialog(this,
-                    "Book returned successfully!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+        try {
+            // The book_availability triggers put the copies back on the shelf
+            if (RentalRepository.returnBook(currentUserId, bookId) == 0) {
+                throw new SQLException("No active rental found for this book");
             }
             
+            // Update UI
+            loadData(); // Reload all data to reflect changes
+            
+            JOptionPane.showMessageDialog(this,
+                "Book returned successfully!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error returning book: " + e.getMessage(),
@@ -472,12 +411,8 @@ class PaymentStatusEditor extends DefaultCellEditor {
         int rentalId = (int) table.getValueAt(row, 0);
         
         // Update payment status in database
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "UPDATE rentals SET payment_status = ? WHERE id = ?")) {
-            pstmt.setString(1, newStatus);
-            pstmt.setInt(2, rentalId);
-            pstmt.executeUpdate();
+        try {
+            RentalRepository.setPaymentStatus(rentalId, newStatus);
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(null,
                 "Error updating payment status: " + e.getMessage(),
@@ -0,0 +1,432 @@
+package librorent;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A rental search string parsed once into typed predicates.
+ *
+ * Recognised terms, combined with AND:
+ * <ul>
+ * <li>{@code 123} or {@code #123}: rental id</li>
+ * <li>{@code 2025-05-29}, {@code 2025-05}, {@code May 29, 2025}, {@code may 2025}, {@code may}:
+ *     a day or month matched against the rental, due or return date;
+ *     prefix with {@code rented:}, {@code due:} or {@code returned:} to pick one</li>
+ * <li>{@code 2025-05-01..2025-05-31}: a date range, same prefixes</li>
+ * <li>{@code active}, {@code returned}, {@code overdue}: rental status</li>
+ * <li>{@code paid}, {@code pending}: payment status</li>
+ * <li>{@code fee>10}, {@code fee<=50}, {@code fee:10-50}, {@code fee:25}: late fee range</li>
+ * <li>{@code user:dan}, {@code title:"one piece"}: a field contains the text</li>
+ * <li>any other word or quoted phrase: the book title or username contains it</li>
+ * </ul>
+ *
+ * {@link #where()} only puts range comparisons on rentals columns, so
+ * SQLite can walk the rentals indexes, and matches titles and usernames
+ * in subqueries over the much smaller books and users tables. Dates are
+ * half-open ranges ({@code >= start AND < day after end}), which hold for
+ * both the date-only and the date-time values stored in the rentals table.
+ * The condition is written against {@code rentals r}, {@code books b} and
+ * {@code users u}, the tables of the admin rentals view, and the results
+ * are paged by {@link PagedTableModel} with keyset pagination.
+ */
+public final class RentalQuery {
+    public enum DateField {
+        ANY, RENTED, DUE, RETURNED
+    }
+
+    public enum Status {
+        ACTIVE, RETURNED, OVERDUE
+    }
+
+    /** Inclusive range of days. */
+    public record DateRange(DateField field, LocalDate from, LocalDate to) {
+    }
+
+    private static final Pattern ISO_DAY = Pattern.compile("(\\d{4})-(\\d{1,2})-(\\d{1,2})");
+    private static final Pattern ISO_MONTH = Pattern.compile("(\\d{4})-(\\d{1,2})");
+    private static final Pattern DAY_NUMBER = Pattern.compile("(\\d{1,2}),?");
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+    private static final Pattern RENTAL_ID = Pattern.compile("#?(\\d+)");
+    private static final Pattern FEE = Pattern.compile("fee(>=|<=|>|<|:|=)(.+)");
+    private static final Pattern NUMBER_RANGE = Pattern.compile("(\\d+(?:\\.\\d+)?)-(\\d+(?:\\.\\d+)?)");
+
+    private Integer rentalId;
+    private final List<DateRange> dates = new ArrayList<>();
+    private Status status;
+    private String paymentStatus;
+    private Double minFee;
+    private Double maxFee;
+    private final List<String> users = new ArrayList<>();
+    private final List<String> titles = new ArrayList<>();
+    private final List<String> words = new ArrayList<>();
+
+    private RentalQuery() {
+    }
+
+    /**
+     * Parses a search string.
+     *
+     * @throws IllegalArgumentException if a term is recognised but its value is invalid, e.g. {@code fee>abc}
+     */
+    public static RentalQuery parse(String text) {
+        RentalQuery query = new RentalQuery();
+        List<String> tokens = tokenize(text == null ? "" : text);
+        for (int i = 0; i < tokens.size(); i++) {
+            i = query.parseTerm(tokens, i);
+        }
+        return query;
+    }
+
+    public boolean isEmpty() {
+        return rentalId == null && dates.isEmpty() && status == null && paymentStatus == null
+            && minFee == null && maxFee == null && users.isEmpty() && titles.isEmpty() && words.isEmpty();
+    }
+
+    public Integer getRentalId() {
+        return rentalId;
+    }
+
+    public List<DateRange> getDates() {
+        return dates;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    public Double getMinFee() {
+        return minFee;
+    }
+
+    public Double getMaxFee() {
+        return maxFee;
+    }
+
+    /** SQL condition for the parsed predicates, or null if there are none. */
+    public String where() {
+        List<String> conditions = new ArrayList<>();
+        if (rentalId != null) {
+            conditions.add("r.id = ?");
+        }
+        for (DateRange range : dates) {
+            conditions.add(switch (range.field()) {
+                case RENTED -> "(r.rental_date >= ? AND r.rental_date < ?)";
+                case DUE -> "(r.due_date >= ? AND r.due_date < ?)";
+                case RETURNED -> "(r.return_date >= ? AND r.return_date < ?)";
+                case ANY -> "((r.rental_date >= ? AND r.rental_date < ?)"
+                    + " OR (r.due_date >= ? AND r.due_date < ?)"
+                    + " OR (r.return_date >= ? AND r.return_date < ?))";
+            });
+        }
+        if (status != null) {
+            conditions.add(switch (status) {
+                case ACTIVE -> "r.return_date IS NULL";
+                case RETURNED -> "r.return_date IS NOT NULL";
+                case OVERDUE -> "(r.return_date IS NULL AND r.due_date < datetime('now'))";
+            });
+        }
+        if (paymentStatus != null) {
+            conditions.add("LOWER(r.payment_status) = ?");
+        }
+        if (minFee != null) {
+            conditions.add("COALESCE(r.late_fee, 0) >= ?");
+        }
+        if (maxFee != null) {
+            conditions.add("COALESCE(r.late_fee, 0) <= ?");
+        }
+        for (int i = 0; i < users.size(); i++) {
+            conditions.add("r.user_id IN (SELECT id FROM users WHERE LOWER(username) LIKE ?)");
+        }
+        for (int i = 0; i < titles.size(); i++) {
+            conditions.add("r.book_id IN (SELECT book_id FROM books WHERE LOWER(title) LIKE ?)");
+        }
+        for (int i = 0; i < words.size(); i++) {
+            conditions.add("(r.book_id IN (SELECT book_id FROM books WHERE LOWER(title) LIKE ?)"
+                + " OR r.user_id IN (SELECT id FROM users WHERE LOWER(username) LIKE ?))");
+        }
+        return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+    }
+
+    /** Arguments for the {@code ?}s in {@link #where()}, in order. */
+    public Object[] args() {
+        List<Object> args = new ArrayList<>();
+        if (rentalId != null) {
+            args.add(rentalId);
+        }
+        for (DateRange range : dates) {
+            int columns = range.field() == DateField.ANY ? 3 : 1;
+            for (int i = 0; i < columns; i++) {
+                args.add(range.from().toString());
+                args.add(range.to().plusDays(1).toString());
+            }
+        }
+        if (paymentStatus != null) {
+            args.add(paymentStatus);
+        }
+        if (minFee != null) {
+            args.add(minFee);
+        }
+        if (maxFee != null) {
+            args.add(maxFee);
+        }
+        for (String user : users) {
+            args.add(contains(user));
+        }
+        for (String title : titles) {
+            args.add(contains(title));
+        }
+        for (String word : words) {
+            args.add(contains(word));
+            args.add(contains(word));
+        }
+        return args.toArray();
+    }
+
+    private static String contains(String text) {
+        return "%" + text.toLowerCase(Locale.ROOT) + "%";
+    }
+
+    // Parses the term starting at tokens[i] and returns the index of its last token
+    private int parseTerm(List<String> tokens, int i) {
+        String token = tokens.get(i);
+        String lower = token.toLowerCase(Locale.ROOT);
+
+        int colon = lower.indexOf(':');
+        if (colon > 0 && !lower.startsWith("fee")) {
+            String key = lower.substring(0, colon);
+            String value = token.substring(colon + 1);
+            switch (key) {
+                case "user" -> {
+                    users.add(value);
+                    return i;
+                }
+                case "title" -> {
+                    titles.add(value);
+                    return i;
+                }
+                case "id" -> {
+                    rentalId = parseId(value);
+                    return i;
+                }
+                case "rented", "due", "returned", "date" -> {
+                    DateField field = switch (key) {
+                        case "rented" -> DateField.RENTED;
+                        case "due" -> DateField.DUE;
+                        case "returned" -> DateField.RETURNED;
+                        default -> DateField.ANY;
+                    };
+                    // The value may continue in the next tokens, as in "due:may 29, 2025"
+                    List<String> rest = new ArrayList<>(tokens.subList(i, tokens.size()));
+                    rest.set(0, value);
+                    int used = parseDate(rest, 0, field);
+                    if (used < 0) {
+                        throw new IllegalArgumentException("Not a date: " + value);
+                    }
+                    return i + used;
+                }
+                default -> {
+                    // Not a known key; treat the whole token as text
+                }
+            }
+        }
+
+        Matcher fee = FEE.matcher(lower);
+        if (fee.matches()) {
+            parseFee(fee.group(1), fee.group(2));
+            return i;
+        }
+
+        switch (lower) {
+            case "active" -> {
+                status = Status.ACTIVE;
+                return i;
+            }
+            case "returned" -> {
+                status = Status.RETURNED;
+                return i;
+            }
+            case "overdue" -> {
+                status = Status.OVERDUE;
+                return i;
+            }
+            case "paid", "pending" -> {
+                paymentStatus = lower;
+                return i;
+            }
+            default -> {
+            }
+        }
+
+        int used = parseDate(tokens, i, DateField.ANY);
+        if (used >= 0) {
+            return i + used;
+        }
+
+        Matcher id = RENTAL_ID.matcher(lower);
+        if (id.matches()) {
+            rentalId = parseId(id.group(1));
+            return i;
+        }
+
+        words.add(token);
+        return i;
+    }
+
+    /**
+     * Parses a date or date range starting at tokens[i] and adds it.
+     * Returns how many extra tokens it used, or -1 if tokens[i] does not start a date.
+     */
+    private int parseDate(List<String> tokens, int i, DateField field) {
+        String token = tokens.get(i).toLowerCase(Locale.ROOT);
+        int dots = token.indexOf("..");
+        if (dots > 0) {
+            DateRange start = parseIsoDate(token.substring(0, dots), field);
+            DateRange end = parseIsoDate(token.substring(dots + 2), field);
+            if (start == null || end == null) {
+                return -1;
+            }
+            dates.add(new DateRange(field, start.from(), end.to()));
+            return 0;
+        }
+
+        DateRange iso = parseIsoDate(token, field);
+        if (iso != null) {
+            dates.add(iso);
+            return 0;
+        }
+
+        Month month = parseMonth(token);
+        if (month == null) {
+            return -1;
+        }
+        // "may", "may 2025", "may 29", "may 29, 2025"
+        int used = 0;
+        Integer day = null;
+        int year = LocalDate.now().getYear();
+        if (i + 1 < tokens.size()) {
+            Matcher dayMatcher = DAY_NUMBER.matcher(tokens.get(i + 1));
+            if (dayMatcher.matches()) {
+                day = Integer.parseInt(dayMatcher.group(1));
+                used++;
+            }
+        }
+        if (i + used + 1 < tokens.size() && YEAR.matcher(tokens.get(i + used + 1)).matches()) {
+            year = Integer.parseInt(tokens.get(i + used + 1));
+            used++;
+        }
+        try {
+            if (day == null) {
+                YearMonth yearMonth = YearMonth.of(year, month);
+                dates.add(new DateRange(field, yearMonth.atDay(1), yearMonth.atEndOfMonth()));
+            } else {
+                LocalDate date = LocalDate.of(year, month, day);
+                dates.add(new DateRange(field, date, date));
+            }
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a valid date: "
+                + month.getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + day + ", " + year);
+        }
+        return used;
+    }
+
+    private static DateRange parseIsoDate(String token, DateField field) {
+        try {
+            Matcher day = ISO_DAY.matcher(token);
+            if (day.matches()) {
+                LocalDate date = LocalDate.of(Integer.parseInt(day.group(1)),
+                    Integer.parseInt(day.group(2)), Integer.parseInt(day.group(3)));
+                return new DateRange(field, date, date);
+            }
+            Matcher month = ISO_MONTH.matcher(token);
+            if (month.matches()) {
+                YearMonth yearMonth = YearMonth.of(Integer.parseInt(month.group(1)), Integer.parseInt(month.group(2)));
+                return new DateRange(field, yearMonth.atDay(1), yearMonth.atEndOfMonth());
+            }
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a valid date: " + token);
+        }
+        return null;
+    }
+
+    // Full month names and any prefix of at least three letters, e.g. "sep" and "sept"
+    private static Month parseMonth(String token) {
+        if (token.length() < 3) {
+            return null;
+        }
+        for (Month month : Month.values()) {
+            if (month.name().toLowerCase(Locale.ROOT).startsWith(token)) {
+                return month;
+            }
+        }
+        return null;
+    }
+
+    private void parseFee(String operator, String value) {
+        try {
+            Matcher range = NUMBER_RANGE.matcher(value);
+            if (operator.equals(":") && range.matches()) {
+                minFee = Double.parseDouble(range.group(1));
+                maxFee = Double.parseDouble(range.group(2));
+                return;
+            }
+            double amount = Double.parseDouble(value);
+            // Fees are stored with cents, so strict bounds move by half a cent
+            switch (operator) {
+                case ">" -> minFee = amount + 0.005;
+                case ">=" -> minFee = amount;
+                case "<" -> maxFee = amount - 0.005;
+                case "<=" -> maxFee = amount;
+                default -> {
+                    minFee = amount;
+                    maxFee = amount;
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a fee amount: " + value);
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value.startsWith("#") ? value.substring(1) : value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a rental id: " + value);
+        }
+    }
+
+    // Splits on whitespace, keeping "quoted phrases" together, also after a key as in title:"one piece"
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
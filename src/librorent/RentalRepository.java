@@ -0,0 +1,209 @@
+package librorent;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and returns rentals.
+ *
+ * Every panel that lists a member's rentals goes through here, so they all
+ * see the same rows: a rental is open while its return_date is NULL, and
+ * returned rentals are read from the rental_history view so archived rows
+ * still show up. Reads take the caller's connection, usually one handed to
+ * an {@link AsyncLoader} work item; returns run in their own short write
+ * transaction and refresh the {@link BookCatalog} after committing.
+ */
+public final class RentalRepository {
+    private static final String COLUMNS =
+        "SELECT r.id, r.user_id, r.book_id, b.title, b.author, r.rental_date, r.due_date, r.return_date, " +
+        "r.status, r.payment_status, r.late_fee, b.late_return_fee ";
+
+    /**
+     * One rental joined with its book. {@code dailyLateFee} is the book's
+     * late return fee, or the default rate when the book has none.
+     */
+    public record Rental(int id, int userId, int bookId, String title, String author, String rentalDate,
+                         String dueDate, String returnDate, String status, String paymentStatus,
+                         double lateFee, double dailyLateFee) {
+
+        /** The fee this rental would owe if it were returned on {@code day}. */
+        public double lateFeeOn(LocalDate day) {
+            return LateFeeEngine.calculate(dueDate, day, dailyLateFee);
+        }
+    }
+
+    private RentalRepository() {
+    }
+
+    /** The user's open rentals, newest first. */
+    public static List<Rental> openRentals(Connection conn, int userId) throws SQLException {
+        return list(conn, COLUMNS + "FROM rentals r JOIN books b ON r.book_id = b.book_id " +
+            "WHERE r.user_id = ? AND r.return_date IS NULL ORDER BY r.rental_date DESC", userId);
+    }
+
+    /** The user's open rentals of one book, oldest due first. */
+    public static List<Rental> openRentals(Connection conn, int userId, int bookId) throws SQLException {
+        return list(conn, COLUMNS + "FROM rentals r JOIN books b ON r.book_id = b.book_id " +
+            "WHERE r.user_id = ? AND r.book_id = ? AND r.return_date IS NULL ORDER BY r.due_date", userId, bookId);
+    }
+
+    /** The user's returned rentals, including archived ones, most recently returned first. */
+    public static List<Rental> history(Connection conn, int userId) throws SQLException {
+        return list(conn, COLUMNS + "FROM rental_history r JOIN books b ON r.book_id = b.book_id " +
+            "WHERE r.user_id = ? AND r.return_date IS NOT NULL ORDER BY r.return_date DESC", userId);
+    }
+
+    /** How many copies of each book the user has out, by book id. */
+    public static Map<Integer, Integer> openCopiesByBook(Connection conn, int userId) throws SQLException {
+        Map<Integer, Integer> counts = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT book_id, COUNT(*) FROM rentals WHERE user_id = ? AND return_date IS NULL GROUP BY book_id")) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the given rentals now and settles their late fees, in one
+     * transaction. Rentals that are already returned are skipped.
+     *
+     * @return how many rentals were returned
+     */
+    public static int returnRentals(List<Integer> rentalIds) throws SQLException {
+        Set<Integer> bookIds = new LinkedHashSet<>();
+        int returned = 0;
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE rentals SET return_date = datetime('now'), status = 'Returned' " +
+                        "WHERE id = ? AND return_date IS NULL RETURNING book_id")) {
+                    for (int rentalId : rentalIds) {
+                        pstmt.setInt(1, rentalId);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            if (rs.next()) {
+                                bookIds.add(rs.getInt(1));
+                                LateFeeEngine.settle(conn, rentalId);
+                                returned++;
+                            }
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (!bookIds.isEmpty()) {
+            BookCatalog.getInstance().bookChanged(bookIds.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return returned;
+    }
+
+    /**
+     * Returns every open rental the user has of one book and settles the
+     * late fees, in one transaction.
+     *
+     * @return how many rentals were returned
+     */
+    public static int returnBook(int userId, int bookId) throws SQLException {
+        List<Integer> rentalIds = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE rentals SET return_date = datetime('now'), status = 'Returned' " +
+                        "WHERE user_id = ? AND book_id = ? AND return_date IS NULL RETURNING id")) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setInt(2, bookId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            rentalIds.add(rs.getInt(1));
+                        }
+                    }
+                }
+                for (int rentalId : rentalIds) {
+                    LateFeeEngine.settle(conn, rentalId);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        if (!rentalIds.isEmpty()) {
+            BookCatalog.getInstance().bookChanged(bookId);
+        }
+        return rentalIds.size();
+    }
+
+    /** @return false if there is no such rental */
+    public static boolean setPaymentStatus(int rentalId, String paymentStatus) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE rentals SET payment_status = ? WHERE id = ?")) {
+            pstmt.setString(1, paymentStatus);
+            pstmt.setInt(2, rentalId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /** Sets the payment status of every rental, returned or not. @return how many rentals were updated */
+    public static int setAllPaymentStatus(String paymentStatus) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE rentals SET payment_status = ?")) {
+            pstmt.setString(1, paymentStatus);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    private static List<Rental> list(Connection conn, String sql, int... params) throws SQLException {
+        List<Rental> rentals = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setInt(i + 1, params[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                double defaultRate = Double.NaN;
+                while (rs.next()) {
+                    double dailyLateFee = rs.getDouble("late_return_fee");
+                    if (rs.wasNull()) {
+                        if (Double.isNaN(defaultRate)) {
+                            defaultRate = LateFeeEngine.getDefaultRate();
+                        }
+                        dailyLateFee = defaultRate;
+                    }
+                    rentals.add(new Rental(
+                        rs.getInt("id"),
+                        rs.getInt("user_id"),
+                        rs.getInt("book_id"),
+                        rs.getString("title"),
+                        rs.getString("author"),
+                        rs.getString("rental_date"),
+                        rs.getString("due_date"),
+                        rs.getString("return_date"),
+                        rs.getString("status"),
+                        rs.getString("payment_status"),
+                        rs.getDouble("late_fee"),
+                        dailyLateFee));
+                }
+            }
+        }
+        return rentals;
+    }
+}
@@ -10,47 +10,20 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class RentalReturnPanel extends BasePanel {
+    private static final Log LOG = Log.get(RentalReturnPanel.class);
     private JTable rentalTable;
     private DefaultTableModel tableModel;
     private JTextField bookIdField;
     private JTextField returnBookIdField;
     private int currentUserId;
     
-    private double getLateFeeRate() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT late_return_fee FROM books WHERE book_id = ?")) {
-            
-            pstmt.setInt(1, Integer.parseInt(bookIdField.getText().trim()));
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble("late_return_fee");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting late fee rate: " + e.getMessage());
-        }
-        // Default rate if not found
-        return 5.0;
-    }
-    
-    private int getDefaultRentalDuration() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT value FROM settings WHERE key = 'default_rental_duration'")) {
-            
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return Integer.parseInt(rs.getString("value")); // Return seconds directly
-            }
-        } catch (SQLException e) {
-            System.err.println("Error getting default rental duration: " + e.getMessage());
-        }
-        // Default duration if settings table doesn't exist or duration not found
-        return 14 * 24 * 3600; // 14 days in seconds
-    }
-    
     public RentalReturnPanel() {
         // Initialize components
         initializeComponents();
@@ -319,48 +292,8 @@ public class RentalReturnPanel extends BasePanel {
     }
     
     private void loadData() {
-        // Clear existing data
-        tableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Load all books with rental count for current user
-            String query = 
-                "SELECT b.*, " +
-                "       (SELECT COUNT(*) FROM rentals r " +
-                "        WHERE r.book_id = b.book_id " +
-                "        AND r.user_id = ? " +
-                "        AND r.return_date IS NULL) as total_rented " +
-                "FROM books b " +
-                "ORDER BY b.title";
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        "B" + rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("isbn"),
-                        rs.getString("format"),
-                        rs.getString("genre"),
-                        rs.getInt("copies"),
-                        rs.getString("status"),
-                        String.format("₱%.2f", rs.getDouble("fee")),
-                        String.format("₱%.2f", rs.getDouble("late_return_fee")),
-                        rs.getInt("total_rented")
-                    };
-                    tableModel.addRow(row);
-                }
-            }
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading book data: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        // Every book from the shared catalog, with the copies this user has out
+        searchBooks("");
     }
     
     private void rentBook() {
@@ -383,211 +316,187 @@ public class RentalReturnPanel extends BasePanel {
             return;
         }
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            System.out.println("Starting rental process for book ID: " + bookId + " by user: " + currentUserId);
-            
-            // Check if book exists and has available copies
-            final String bookTitle;
-            final String bookAuthor;
-            final double bookFee;
-            final int totalCopies;
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT title, author, copies, status, fee FROM books WHERE book_id = ?")) {
-                pstmt.setInt(1, Integer.parseInt(bookId));
-                ResultSet rs = pstmt.executeQuery();
-                if (!rs.next()) {
-                    throw new SQLException("Book not found");
-                }
-                if (rs.getInt("copies") <= 0) {
-                    throw new SQLException("No copies available for this book");
-                }
-                if (!rs.getString("status").equals("Available")) {
-                    throw new SQLException("Book is not available for rental");
-                }
-                bookTitle = rs.getString("title");
-                bookAuthor = rs.getString("author");
-                bookFee = rs.getDouble("fee");
-                totalCopies = rs.getInt("copies");
-                System.out.println("Book is available for rental. Current copies: " + totalCopies + ", Fee per day: " + bookFee);
+        LOG.debug("Starting rental", "bookId", bookId, "userId", currentUserId);
+        
+        // Read the book for the dialog; no transaction is open while the dialog is showing
+        final String bookTitle;
+        final String bookAuthor;
+        final double bookFee;
+        final int totalCopies;
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            BookCatalog.Book book = BookRepository.findById(conn, Integer.parseInt(bookId));
+            if (book == null) {
+                throw new SQLException("Book not found");
             }
-            
-            // Create rental duration selection dialog
-            JDialog durationDialog = new JDialog((Frame)SwingUtilities.getWindowAncestor(this), "Select Rental Duration", true);
-            durationDialog.setLayout(new BorderLayout(10, 10));
-            
-            JPanel formPanel = new JPanel(new GridBagLayout());
-            GridBagConstraints gbc = new GridBagConstraints();
-            gbc.fill = GridBagConstraints.HORIZONTAL;
-            gbc.insets = new Insets(5, 5, 5, 5);
-            
-            // Book details
-            gbc.gridx = 0; gbc.gridy = 0;
-            formPanel.add(new JLabel("Book Title:"), gbc);
-            gbc.gridx = 1;
-            formPanel.add(new JLabel(bookTitle), gbc);
-            
-            gbc.gridx = 0; gbc.gridy = 1;
-            formPanel.add(new JLabel("Author:"), gbc);
-            gbc.gridx = 1;
-            formPanel.add(new JLabel(bookAuthor), gbc);
-            
-            gbc.gridx = 0; gbc.gridy = 2;
-            formPanel.add(new JLabel("Fee per day:"), gbc);
-            gbc.gridx = 1;
-            formPanel.add(new JLabel(String.format("₱%.2f", bookFee)), gbc);
-            
-            // Rental duration selection
-            gbc.gridx = 0; gbc.gridy = 3;
-            formPanel.add(new JLabel("Rental Duration (days):"), gbc);
-            gbc.gridx = 1;
-            JSpinner durationSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 30, 1));
-            formPanel.add(durationSpinner, gbc);
-            
-            // Total fee display
-            gbc.gridx = 0; gbc.gridy = 4;
-            formPanel.add(new JLabel("Total Fee:"), gbc);
-            gbc.gridx = 1;
-            JLabel totalFeeLabel = new JLabel(String.format("₱%.2f", bookFee));
-            formPanel.add(totalFeeLabel, gbc);
-            
-            // Update total fee when duration changes
-            durationSpinner.addChangeListener(e -> {
-                int days = (Integer)durationSpinner.getValue();
-                double total = days * bookFee;
-                totalFeeLabel.setText(String.format("₱%.2f", total));
-            });
-            
-            // Copies selection
-            gbc.gridx = 0; gbc.gridy = 5;
-            formPanel.add(new JLabel("Number of Copies:"), gbc);
-            gbc.gridx = 1;
-            JSpinner copiesSpinner = new JSpinner(new SpinnerNumberModel(1, 1, totalCopies, 1));
-            formPanel.add(copiesSpinner, gbc);
-            
-            // Final total display
-            gbc.gridx = 0; gbc.gridy = 6;
-            formPanel.add(new JLabel("Final Total:"), gbc);
-            gbc.gridx = 1;
-            JLabel finalTotalLabel = new JLabel(String.format("₱%.2f", bookFee));
-            formPanel.add(finalTotalLabel, gbc);
-            
-            // Update final total when either duration or copies change
-            ChangeListener updateTotalListener = e -> {
-                int days = (Integer)durationSpinner.getValue();
-                int copies = (Integer)copiesSpinner.getValue();
-                double total = days * bookFee * copies;
-                finalTotalLabel.setText(String.format("₱%.2f", total));
-            };
-            durationSpinner.addChangeListener(updateTotalListener);
-            copiesSpinner.addChangeListener(updateTotalListener);
-            
-            // Buttons
-            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-            JButton confirmButton = new JButton("Confirm Rental");
-            JButton cancelButton = new JButton("Cancel");
-            
-            confirmButton.addActionListener(e -> {
-                int days = (Integer)durationSpinner.getValue();
-                int copies = (Integer)copiesSpinner.getValue();
-                double totalFee = days * bookFee * copies;
-                
-                // Calculate dates
-                LocalDateTime now = LocalDateTime.now();
-                LocalDateTime dueDate = now.plusDays(days);
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                
-                // Show confirmation dialog
-                String message = String.format(
-                        "Rental Details:\n" +
-                        "Book: %s\n" +
-                    "Author: %s\n" +
-                        "Duration: %d days\n" +
-                        "Copies: %d\n" +
-                        "Fee per day: ₱%.2f\n" +
-                    "Total Fee: ₱%.2f\n" +
-                    "Due Date: %s\n\n" +
-                    "IMPORTANT: Please pay the total fee of ₱%.2f in cash at the front desk before proceeding with the rental.\n\n" +
-                    "Do you want to proceed with the rental?",
-                        bookTitle, bookAuthor, days, copies, bookFee, totalFee,
-                        dueDate.format(formatter), totalFee);
-                
-                int choice = JOptionPane.showConfirmDialog(durationDialog,
-                message,
-                "Confirm Rental",
-                JOptionPane.YES_NO_OPTION,
-                JOptionPane.QUESTION_MESSAGE);
-            
-                if (choice == JOptionPane.YES_OPTION) {
-                    try {
-                        // Insert rental records for each copy
-                        for (int i = 0; i < copies; i++) {
-                            try (PreparedStatement pstmt = conn.prepareStatement(
-                                    "INSERT INTO rentals (user_id, book_id, rental_date, due_date, status) VALUES (?, ?, ?, ?, 'Pending')")) {
-                                pstmt.setInt(1, currentUserId);
-                                pstmt.setInt(2, Integer.parseInt(bookId));
-                                pstmt.setString(3, now.format(formatter));
-                                pstmt.setString(4, dueDate.format(formatter));
-                                pstmt.executeUpdate();
-                            }
-                        }
-                        
-                        // Update book status and decrease available copies
-                        try (PreparedStatement pstmt = conn.prepareStatement(
-                                "UPDATE books SET copies = copies - ?, status = CASE WHEN copies - ? = 0 THEN 'Unavailable' ELSE 'Available' END WHERE book_id = ?")) {
-                            pstmt.setInt(1, copies);
-                            pstmt.setInt(2, copies);
-                            pstmt.setInt(3, Integer.parseInt(bookId));
-                            pstmt.executeUpdate();
-                        }
-                        
-                        conn.commit();
-                        durationDialog.dispose();
-                        
-                        // Clear input field
-                        bookIdField.setText("");
-                        
-                        // Refresh rental history
-                        loadData();
-                        
-                        // Refresh User Dashboard panels
-                        refreshUserDashboard();
-                        
-                        JOptionPane.showMessageDialog(this,
-                            "Rental request submitted successfully!\nPlease wait for admin approval.",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                            
-                    } catch (SQLException ex) {
-                        ex.printStackTrace();
-                        JOptionPane.showMessageDialog(durationDialog,
-                            "Error processing rental: " + ex.getMessage(),
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                }
-            });
-            
-            cancelButton.addActionListener(e -> durationDialog.dispose());
-            
-            buttonPanel.add(cancelButton);
-            buttonPanel.add(confirmButton);
-            
-            durationDialog.add(formPanel, BorderLayout.CENTER);
-            durationDialog.add(buttonPanel, BorderLayout.SOUTH);
-            durationDialog.pack();
-            durationDialog.setLocationRelativeTo(this);
-            durationDialog.setVisible(true);
-            
+            if (book.copies() <= 0) {
+                throw new SQLException("No copies available for this book");
+            }
+            if (!"Available".equals(book.status())) {
+                throw new SQLException("Book is not available for rental");
+            }
+            bookTitle = book.title();
+            bookAuthor = book.author();
+            bookFee = book.fee();
+            totalCopies = book.copies();
+            LOG.debug("Book is available for rental", "bookId", bookId, "copies", totalCopies, "feePerDay", bookFee);
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error loading book for rental", e, "bookId", bookId);
             JOptionPane.showMessageDialog(this,
                 "Error renting book: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        
+        // Create rental duration selection dialog
+        JDialog durationDialog = new JDialog((Frame)SwingUtilities.getWindowAncestor(this), "Select Rental Duration", true);
+        durationDialog.setLayout(new BorderLayout(10, 10));
+        
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(5, 5, 5, 5);
+        
+        // Book details
+        gbc.gridx = 0; gbc.gridy = 0;
+        formPanel.add(new JLabel("Book Title:"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(new JLabel(bookTitle), gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 1;
+        formPanel.add(new JLabel("Author:"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(new JLabel(bookAuthor), gbc);
+        
+        gbc.gridx = 0; gbc.gridy = 2;
+        formPanel.add(new JLabel("Fee per day:"), gbc);
+        gbc.gridx = 1;
+        formPanel.add(new JLabel(String.format("₱%.2f", bookFee)), gbc);
+        
+        // Rental duration selection
+        gbc.gridx = 0; gbc.gridy = 3;
+        formPanel.add(new JLabel("Rental Duration (days):"), gbc);
+        gbc.gridx = 1;
+        JSpinner durationSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 30, 1));
+        formPanel.add(durationSpinner, gbc);
+        
+        // Total fee display
+        gbc.gridx = 0; gbc.gridy = 4;
+        formPanel.add(new JLabel("Total Fee:"), gbc);
+        gbc.gridx = 1;
+        JLabel totalFeeLabel = new JLabel(String.format("₱%.2f", bookFee));
+        formPanel.add(totalFeeLabel, gbc);
+        
+        // Update total fee when duration changes
+        durationSpinner.addChangeListener(e -> {
+            int days = (Integer)durationSpinner.getValue();
+            double total = days * bookFee;
+            totalFeeLabel.setText(String.format("₱%.2f", total));
+        });
+        
+        // Copies selection
+        gbc.gridx = 0; gbc.gridy = 5;
+        formPanel.add(new JLabel("Number of Copies:"), gbc);
+        gbc.gridx = 1;
+        JSpinner copiesSpinner = new JSpinner(new SpinnerNumberModel(1, 1, totalCopies, 1));
+        formPanel.add(copiesSpinner, gbc);
+        
+        // Final total display
+        gbc.gridx = 0; gbc.gridy = 6;
+        formPanel.add(new JLabel("Final Total:"), gbc);
+        gbc.gridx = 1;
+        JLabel finalTotalLabel = new JLabel(String.format("₱%.2f", bookFee));
+        formPanel.add(finalTotalLabel, gbc);
+        
+        // Update final total when either duration or copies change
+        ChangeListener updateTotalListener = e -> {
+            int days = (Integer)durationSpinner.getValue();
+            int copies = (Integer)copiesSpinner.getValue();
+            double total = days * bookFee * copies;
+            finalTotalLabel.setText(String.format("₱%.2f", total));
+        };
+        durationSpinner.addChangeListener(updateTotalListener);
+        copiesSpinner.addChangeListener(updateTotalListener);
+        
+        // Buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton confirmButton = new JButton("Confirm Rental");
+        JButton cancelButton = new JButton("Cancel");
+        
+        confirmButton.addActionListener(e -> {
+            int days = (Integer)durationSpinner.getValue();
+            int copies = (Integer)copiesSpinner.getValue();
+            double totalFee = days * bookFee * copies;
+            
+            // Calculate dates
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime dueDate = now.plusDays(days);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            
+            // Show confirmation dialog
+            String message = String.format(
+                    "Rental Details:\n" +
+                    "Book: %s\n" +
+                "Author: %s\n" +
+                    "Duration: %d days\n" +
+                    "Copies: %d\n" +
+                    "Fee per day: ₱%.2f\n" +
+                "Total Fee: ₱%.2f\n" +
+                "Due Date: %s\n\n" +
+                "IMPORTANT: Please pay the total fee of ₱%.2f in cash at the front desk before proceeding with the rental.\n\n" +
+                "Do you want to proceed with the rental?",
+                    bookTitle, bookAuthor, days, copies, bookFee, totalFee,
+                    dueDate.format(formatter), totalFee);
+            
+            int choice = JOptionPane.showConfirmDialog(durationDialog,
+            message,
+            "Confirm Rental",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE);
+        
+            if (choice == JOptionPane.YES_OPTION) {
+                try {
+                    // Claims the copies and inserts the rentals in one short transaction;
+                    // another desk may have taken them while this dialog was open
+                    CheckoutService.Checkout checkout = CheckoutService.checkout(currentUserId, Integer.parseInt(bookId),
+                        copies, now.format(formatter), dueDate.format(formatter), "Pending");
+                    LOG.info("Created rentals", "rentalIds", checkout.rentalIds(), "bookId", bookId, "userId", currentUserId);
+                    durationDialog.dispose();
+                    
+                    // Clear input field
+                    bookIdField.setText("");
+                    
+                    // Refresh rental history
+                    loadData();
+                    
+                    // Refresh User Dashboard panels
+                    refreshUserDashboard();
+                    
+                    JOptionPane.showMessageDialog(this,
+                        "Rental request submitted successfully!\nPlease wait for admin approval.",
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                        
+                } catch (SQLException ex) {
+                    LOG.error("Error processing rental", ex, "bookId", bookId, "userId", currentUserId);
+                    JOptionPane.showMessageDialog(durationDialog,
+                        "Error processing rental: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+        
+        cancelButton.addActionListener(e -> durationDialog.dispose());
+        
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(confirmButton);
+        
+        durationDialog.add(formPanel, BorderLayout.CENTER);
+        durationDialog.add(buttonPanel, BorderLayout.SOUTH);
+        durationDialog.pack();
+        durationDialog.setLocationRelativeTo(this);
+        durationDialog.setVisible(true);
     }
     
     private void returnBook(String bookId) {
@@ -609,292 +518,248 @@ public class RentalReturnPanel extends BasePanel {
             return;
         }
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            // Check if book is physical and current time is within business hours
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT format FROM books WHERE book_id = ?")) {
-                pstmt.setInt(1, Integer.parseInt(bookId));
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    String format = rs.getString("format");
-                    if (format.equalsIgnoreCase("Physical")) {
-                        LocalDateTime now = LocalDateTime.now();
-                        int hour = now.getHour();
-                        if (hour < 8 || hour >= 17) {
-                            JOptionPane.showMessageDialog(this,
-                                "Physical books can only be returned between 8:00 AM and 5:00 PM.\n" +
-                                "Please return during business hours.",
-                                "Return Time Restriction",
-                                JOptionPane.WARNING_MESSAGE);
-                            return;
-                        }
-                    }
-                }
-            }
+        // Read the open rentals for the dialogs; the return itself is one short
+        // write transaction that starts only after the member has confirmed
+        BookCatalog.Book book;
+        List<RentalRepository.Rental> activeRentals;
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            book = BookRepository.findById(conn, Integer.parseInt(bookId));
             
             // Get all active rentals for this book
-            java.util.List<Object[]> activeRentals = new java.util.ArrayList<>();
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT r.id, r.due_date, b.title, b.author, b.copies, b.book_id, b.late_return_fee " +
-                    "FROM rentals r " +
-                    "JOIN books b ON r.book_id = b.book_id " +
-                    "WHERE r.book_id = ? AND r.user_id = ? AND r.return_date IS NULL " +
-                    "ORDER BY r.rental_date DESC")) {
-                pstmt.setInt(1, Integer.parseInt(bookId));
-                pstmt.setInt(2, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (!rs.next()) {
-                    throw new SQLException("No active rentals found for this book");
-                }
-                
-                do {
-                    String dueDateStr = rs.getString("due_date");
-                    LocalDateTime dueDate;
-                    try {
-                        dueDate = LocalDateTime.parse(dueDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                    } catch (Exception e) {
-                        dueDate = LocalDate.parse(dueDateStr).atTime(23, 59, 59);
-                    }
-                    
-                    double lateFee = 0.0;
-                    LocalDateTime returnDate = LocalDateTime.now();
-                    if (returnDate.isAfter(dueDate)) {
-                        // Calculate days late using ChronoUnit.DAYS
-                        long daysLate = java.time.temporal.ChronoUnit.DAYS.between(dueDate.toLocalDate(), returnDate.toLocalDate());
-                        double dailyLateFee = rs.getDouble("late_return_fee");
-                        lateFee = daysLate * dailyLateFee;
-                        System.out.println("Debug - Rental Selection - Days Late: " + daysLate);
-                        System.out.println("Debug - Rental Selection - Daily Late Fee: " + dailyLateFee);
-                        System.out.println("Debug - Rental Selection - Total Late Fee: " + lateFee);
-                    }
-                    
-                    activeRentals.add(new Object[]{
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        dueDateStr,
-                        lateFee,
-                        rs.getInt("book_id")
-                    });
-                } while (rs.next());
+            activeRentals = RentalRepository.openRentals(conn, currentUserId, Integer.parseInt(bookId));
+            if (activeRentals.isEmpty()) {
+                throw new SQLException("No active rentals found for this book");
             }
-            
-            // If there's only one rental, proceed with it
-            if (activeRentals.size() == 1) {
-                Object[] rental = activeRentals.get(0);
-                double lateFee = (double)rental[4];
-                
-                // Show confirmation dialog for single return
-                StringBuilder message = new StringBuilder();
-                message.append("Return Summary:\n\n");
-                message.append(String.format("Book: %s\n", rental[1]));
-                message.append(String.format("Due Date: %s\n", rental[3]));
-                
-                if (lateFee > 0) {
-                    message.append(String.format("\nLate Fee: ₱%.2f\n", lateFee));
-                    message.append("\nIMPORTANT: Please pay the late fee in cash at the front desk before proceeding with the return.\n");
-                }
-                
-                message.append("\nDo you want to proceed with returning this book?");
-                
-                int choice = JOptionPane.showConfirmDialog(this,
-                    message.toString(),
-                    "Confirm Return",
-                    JOptionPane.YES_NO_OPTION,
-                    JOptionPane.QUESTION_MESSAGE);
-                
-                if (choice == JOptionPane.YES_OPTION) {
-                    processReturn(conn, (int)rental[0], (String)rental[1], 
-                        (String)rental[2], (String)rental[3], lateFee);
-                
-                // Show single success message for single return
-                    String successMessage = lateFee > 0 ? 
-                    String.format("Book returned successfully!\nLate fee: ₱%.2f\n\nIMPORTANT: Please pay the late fee in cash at the front desk.", 
-                            lateFee) :
-                    "Book returned successfully!";
-                
+        } catch (SQLException e) {
+            LOG.error("Error loading rentals to return", e, "userId", currentUserId);
+            JOptionPane.showMessageDialog(this,
+                "Error returning book: " + e.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Check if book is physical and current time is within business hours
+        if (book != null && "Physical".equalsIgnoreCase(book.format())) {
+            int hour = LocalDateTime.now().getHour();
+            if (hour < 8 || hour >= 17) {
                 JOptionPane.showMessageDialog(this,
-                    successMessage,
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                }
+                    "Physical books can only be returned between 8:00 AM and 5:00 PM.\n" +
+                    "Please return during business hours.",
+                    "Return Time Restriction",
+                    JOptionPane.WARNING_MESSAGE);
                 return;
             }
+        }
+        
+        // Preview of the fees LateFeeEngine.settle stores when the return is committed
+        LocalDate today = LocalDate.now();
+        double[] lateFees = new double[activeRentals.size()];
+        for (int i = 0; i < lateFees.length; i++) {
+            lateFees[i] = activeRentals.get(i).lateFeeOn(today);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Late fee for rental selection", "dueDate", activeRentals.get(i).dueDate(), "lateFee", lateFees[i]);
+            }
+        }
+        
+        // If there's only one rental, proceed with it
+        if (activeRentals.size() == 1) {
+            RentalRepository.Rental rental = activeRentals.get(0);
+            double lateFee = lateFees[0];
             
-            // Create custom panel for rental selection
-            JPanel selectionPanel = new JPanel(new BorderLayout(10, 10));
-            selectionPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-            
-            // Add title label
-            JLabel titleLabel = new JLabel("Select Rentals to Return");
-            titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
-            titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            selectionPanel.add(titleLabel, BorderLayout.NORTH);
-            
-            // Create panel for rental buttons
-            JPanel rentalsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
-            rentalsPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
-            
-            // List to store checkboxes
-            java.util.List<JCheckBox> checkboxes = new java.util.ArrayList<>();
+            // Show confirmation dialog for single return
+            StringBuilder message = new StringBuilder();
+            message.append("Return Summary:\n\n");
+            message.append(String.format("Book: %s\n", rental.title()));
+            message.append(String.format("Due Date: %s\n", rental.dueDate()));
             
-            // Add rental buttons
-            for (int i = 0; i < activeRentals.size(); i++) {
-                Object[] rental = activeRentals.get(i);
-                JPanel rentalPanel = new JPanel();
-                rentalPanel.setLayout(new BoxLayout(rentalPanel, BoxLayout.Y_AXIS));
-                rentalPanel.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(new Color(70, 130, 180)),
-                    BorderFactory.createEmptyBorder(10, 10, 10, 10)
-                ));
-                
-                // Add checkbox
-                JCheckBox checkbox = new JCheckBox();
-                checkbox.setAlignmentX(Component.LEFT_ALIGNMENT);
-                checkboxes.add(checkbox);
-                
-                // Add rental details
-                JLabel titleLabel2 = new JLabel("<html><b>" + rental[1] + "</b></html>");
-                JLabel dueDateLabel = new JLabel("Due: " + rental[3]);
-                JLabel lateFeeLabel = new JLabel(String.format("Late Fee: ₱%.2f", rental[4]));
-                lateFeeLabel.setForeground((double)rental[4] > 0 ? new Color(231, 76, 60) : new Color(46, 204, 113));
-                
-                rentalPanel.add(checkbox);
-                rentalPanel.add(Box.createVerticalStrut(5));
-                rentalPanel.add(titleLabel2);
-                rentalPanel.add(Box.createVerticalStrut(5));
-                rentalPanel.add(dueDateLabel);
-                rentalPanel.add(Box.createVerticalStrut(5));
-                rentalPanel.add(lateFeeLabel);
-                
-                rentalsPanel.add(rentalPanel);
+            if (lateFee > 0) {
+                message.append(String.format("\nLate Fee: ₱%.2f\n", lateFee));
+                message.append("\nIMPORTANT: Please pay the late fee in cash at the front desk before proceeding with the return.\n");
             }
             
-            // Add scroll pane
-            JScrollPane scrollPane = new JScrollPane(rentalsPanel);
-            scrollPane.setPreferredSize(new Dimension(600, 400));
-            selectionPanel.add(scrollPane, BorderLayout.CENTER);
+            message.append("\nDo you want to proceed with returning this book?");
             
-            // Add button panel at the bottom
-            JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
-            JButton returnButton = new JButton("Return Selected");
-            returnButton.addActionListener(e -> {
-                // Get selected rentals
-                java.util.List<Object[]> selectedRentals = new java.util.ArrayList<>();
-                double totalLateFee = 0.0;
-                int selectedCount = 0;
-                
-                for (int i = 0; i < checkboxes.size(); i++) {
-                    if (checkboxes.get(i).isSelected()) {
-                        selectedRentals.add(activeRentals.get(i));
-                        totalLateFee += (double)activeRentals.get(i)[4];
-                        selectedCount++;
-                    }
-                }
-                
-                if (selectedRentals.isEmpty()) {
+            int choice = JOptionPane.showConfirmDialog(this,
+                message.toString(),
+                "Confirm Return",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+            
+            if (choice == JOptionPane.YES_OPTION) {
+                try {
+                    processReturns(List.of(rental));
+                } catch (SQLException e) {
+                    LOG.error("Error returning book", e, "userId", currentUserId, "rentalId", rental.id());
                     JOptionPane.showMessageDialog(this,
-                        "Please select at least one rental to return",
-                        "No Selection",
-                        JOptionPane.WARNING_MESSAGE);
+                        "Error returning book: " + e.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                
-                // Show confirmation dialog with summary
-                StringBuilder message = new StringBuilder();
-                message.append("Return Summary:\n\n");
-                message.append(String.format("Book: %s\n", selectedRentals.get(0)[1]));
-                message.append(String.format("Number of copies to return: %d\n", selectedCount));
-                
-                if (totalLateFee > 0) {
-                    message.append(String.format("\nTotal Late Fee: ₱%.2f\n", totalLateFee));
-                    message.append("\nIMPORTANT: Please pay the total late fee in cash at the front desk before proceeding with the returns.\n");
-                }
-                
-                message.append("\nDo you want to proceed with returning these books?");
-                
-                int choice = JOptionPane.showConfirmDialog(this,
-                    message.toString(),
-                    "Confirm Returns",
-                    JOptionPane.YES_NO_OPTION,
-                    JOptionPane.QUESTION_MESSAGE);
-                
-                if (choice == JOptionPane.YES_OPTION) {
-                    try {
-                        // Process each selected return
-                        for (Object[] rental : selectedRentals) {
-                            processReturn(conn, (int)rental[0], (String)rental[1], 
-                                (String)rental[2], (String)rental[3], (double)rental[4]);
-                        }
-                        
-                        // Show single success message
-                        String successMessage = totalLateFee > 0 ? 
-                            String.format("Books returned successfully!\nNumber of copies returned: %d\nTotal late fee: ₱%.2f\n\nIMPORTANT: Please pay the late fee in cash at the front desk.", 
-                                selectedCount, totalLateFee) :
-                            String.format("Books returned successfully!\nNumber of copies returned: %d", selectedCount);
-                        
-                        JOptionPane.showMessageDialog(this,
-                            successMessage,
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                        
-                        // Close the selection dialog
-                        Window window = SwingUtilities.getWindowAncestor(selectionPanel);
-                        if (window != null) {
-                            window.dispose();
-                        }
-                    } catch (SQLException ex) {
-                        ex.printStackTrace();
-                        JOptionPane.showMessageDialog(this,
-                            "Error returning books: " + ex.getMessage(),
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
-                }
-            });
             
-            buttonPanel.add(returnButton);
-            selectionPanel.add(buttonPanel, BorderLayout.SOUTH);
+            // Show single success message for single return
+                String successMessage = lateFee > 0 ? 
+                String.format("Book returned successfully!\nLate fee: ₱%.2f\n\nIMPORTANT: Please pay the late fee in cash at the front desk.", 
+                        lateFee) :
+                "Book returned successfully!";
             
-            // Show the custom dialog
-            JOptionPane.showMessageDialog(this,
-                selectionPanel,
-                "Select Rentals to Return",
-                JOptionPane.PLAIN_MESSAGE);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
             JOptionPane.showMessageDialog(this,
-                "Error returning book: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
-    private void processReturn(Connection conn, int rentalId, String bookTitle, String bookAuthor, String dueDate, double lateFee) throws SQLException {
-        // Update rental record with return date and status
-        try (PreparedStatement pstmt = conn.prepareStatement(
-                "UPDATE rentals SET return_date = datetime('now'), status = 'Returned' WHERE id = ?")) {
-            pstmt.setInt(1, rentalId);
-            pstmt.executeUpdate();
-            System.out.println("Debug - Updated rental record");
+                successMessage,
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            }
+            return;
         }
         
-        // Update book status to Available
-        try (PreparedStatement pstmt = conn.prepareStatement(
-                "UPDATE books SET copies = copies + 1, status = 'Available' WHERE book_id = " +
-                "(SELECT book_id FROM rentals WHERE id = ?)")) {
-            pstmt.setInt(1, rentalId);
-            pstmt.executeUpdate();
-            System.out.println("Debug - Updated book status to Available");
+        // Create custom panel for rental selection
+        JPanel selectionPanel = new JPanel(new BorderLayout(10, 10));
+        selectionPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        // Add title label
+        JLabel titleLabel = new JLabel("Select Rentals to Return");
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        selectionPanel.add(titleLabel, BorderLayout.NORTH);
+        
+        // Create panel for rental buttons
+        JPanel rentalsPanel = new JPanel(new GridLayout(0, 2, 10, 10));
+        rentalsPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+        
+        // List to store checkboxes
+        List<JCheckBox> checkboxes = new ArrayList<>();
+        
+        // Add rental buttons
+        for (int i = 0; i < activeRentals.size(); i++) {
+            RentalRepository.Rental rental = activeRentals.get(i);
+            JPanel rentalPanel = new JPanel();
+            rentalPanel.setLayout(new BoxLayout(rentalPanel, BoxLayout.Y_AXIS));
+            rentalPanel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(70, 130, 180)),
+                BorderFactory.createEmptyBorder(10, 10, 10, 10)
+            ));
+            
+            // Add checkbox
+            JCheckBox checkbox = new JCheckBox();
+            checkbox.setAlignmentX(Component.LEFT_ALIGNMENT);
+            checkboxes.add(checkbox);
+            
+            // Add rental details
+            JLabel titleLabel2 = new JLabel("<html><b>" + rental.title() + "</b></html>");
+            JLabel dueDateLabel = new JLabel("Due: " + rental.dueDate());
+            JLabel lateFeeLabel = new JLabel(String.format("Late Fee: ₱%.2f", lateFees[i]));
+            lateFeeLabel.setForeground(lateFees[i] > 0 ? new Color(231, 76, 60) : new Color(46, 204, 113));
+            
+            rentalPanel.add(checkbox);
+            rentalPanel.add(Box.createVerticalStrut(5));
+            rentalPanel.add(titleLabel2);
+            rentalPanel.add(Box.createVerticalStrut(5));
+            rentalPanel.add(dueDateLabel);
+            rentalPanel.add(Box.createVerticalStrut(5));
+            rentalPanel.add(lateFeeLabel);
+            
+            rentalsPanel.add(rentalPanel);
         }
         
-        conn.commit();
-        System.out.println("Debug - Transaction committed");
+        // Add scroll pane
+        JScrollPane scrollPane = new JScrollPane(rentalsPanel);
+        scrollPane.setPreferredSize(new Dimension(600, 400));
+        selectionPanel.add(scrollPane, BorderLayout.CENTER);
+        
+        // Add button panel at the bottom
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        JButton returnButton = new JButton("Return Selected");
+        returnButton.addActionListener(e -> {
+            // Get selected rentals
+            List<RentalRepository.Rental> selectedRentals = new ArrayList<>();
+            double totalLateFee = 0.0;
+            int selectedCount = 0;
+            
+            for (int i = 0; i < checkboxes.size(); i++) {
+                if (checkboxes.get(i).isSelected()) {
+                    selectedRentals.add(activeRentals.get(i));
+                    totalLateFee += lateFees[i];
+                    selectedCount++;
+                }
+            }
+            
+            if (selectedRentals.isEmpty()) {
+                JOptionPane.showMessageDialog(this,
+                    "Please select at least one rental to return",
+                    "No Selection",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            
+            // Show confirmation dialog with summary
+            StringBuilder message = new StringBuilder();
+            message.append("Return Summary:\n\n");
+            message.append(String.format("Book: %s\n", selectedRentals.get(0).title()));
+            message.append(String.format("Number of copies to return: %d\n", selectedCount));
+            
+            if (totalLateFee > 0) {
+                message.append(String.format("\nTotal Late Fee: ₱%.2f\n", totalLateFee));
+                message.append("\nIMPORTANT: Please pay the total late fee in cash at the front desk before proceeding with the returns.\n");
+            }
+            
+            message.append("\nDo you want to proceed with returning these books?");
+            
+            int choice = JOptionPane.showConfirmDialog(this,
+                message.toString(),
+                "Confirm Returns",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+            
+            if (choice == JOptionPane.YES_OPTION) {
+                try {
+                    // Return the selected rentals together
+                    processReturns(selectedRentals);
+                    
+                    // Show single success message
+                    String successMessage = totalLateFee > 0 ? 
+                        String.format("Books returned successfully!\nNumber of copies returned: %d\nTotal late fee: ₱%.2f\n\nIMPORTANT: Please pay the late fee in cash at the front desk.", 
+                            selectedCount, totalLateFee) :
+                        String.format("Books returned successfully!\nNumber of copies returned: %d", selectedCount);
+                    
+                    JOptionPane.showMessageDialog(this,
+                        successMessage,
+                        "Success",
+                        JOptionPane.INFORMATION_MESSAGE);
+                    
+                    // Close the selection dialog
+                    Window window = SwingUtilities.getWindowAncestor(selectionPanel);
+                    if (window != null) {
+                        window.dispose();
+                    }
+                } catch (SQLException ex) {
+                    LOG.error("Error returning books", ex, "userId", currentUserId);
+                    JOptionPane.showMessageDialog(this,
+                        "Error returning books: " + ex.getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+        
+        buttonPanel.add(returnButton);
+        selectionPanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        // Show the custom dialog
+        JOptionPane.showMessageDialog(this,
+            selectionPanel,
+            "Select Rentals to Return",
+            JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    // Returns the rentals in one short write transaction and refreshes the panels
+    private void processReturns(List<RentalRepository.Rental> rentals) throws SQLException {
+        List<Integer> rentalIds = new ArrayList<>();
+        for (RentalRepository.Rental rental : rentals) {
+            rentalIds.add(rental.id());
+        }
+        // The book_availability triggers put the copies back on the shelf
+        int returned = RentalRepository.returnRentals(rentalIds);
+        LOG.info("Returned rentals", "userId", currentUserId, "bookId", rentals.get(0).bookId(), "count", returned);
         
         // Clear input field
         returnBookIdField.setText("");
@@ -908,42 +773,36 @@ public class RentalReturnPanel extends BasePanel {
     
     private void searchBooks(String searchTerm) {
         tableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String query = 
-                "SELECT b.*, " +
-                "       (SELECT COUNT(*) FROM rentals r " +
-                "        WHERE r.book_id = b.book_id " +
-                "        AND r.user_id = ? " +
-                "        AND r.return_date IS NULL) as total_rented " +
-                "FROM books b " +
-                "WHERE LOWER(b.title) LIKE ? OR LOWER(b.author) LIKE ? OR LOWER(b.isbn) LIKE ? OR LOWER(b.genre) LIKE ? " +
-                "ORDER BY b.title";
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            // Ranked matches from the full-text index; a blank search lists every book
+            boolean listAll = searchTerm.trim().isEmpty();
+            List<Integer> bookIds = listAll ? List.of()
+                : BookSearch.search(conn, searchTerm, BookSearch.Field.ALL, BookSearch.DEFAULT_LIMIT);
+            if (!listAll && bookIds.isEmpty()) {
+                return;
+            }
             
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                String searchPattern = "%" + searchTerm.toLowerCase() + "%";
-                pstmt.setInt(1, currentUserId);
-                pstmt.setString(2, searchPattern);
-                pstmt.setString(3, searchPattern);
-                pstmt.setString(4, searchPattern);
-                pstmt.setString(5, searchPattern);
-                
-                ResultSet rs = pstmt.executeQuery();
-                while (rs.next()) {
-                    Object[] row = {
-                        "B" + rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("isbn"),
-                        rs.getString("format"),
-                        rs.getString("genre"),
-                        rs.getInt("copies"),
-                        rs.getString("status"),
-                        String.format("₱%.2f", rs.getDouble("fee")),
-                        String.format("₱%.2f", rs.getDouble("late_return_fee")),
-                        rs.getInt("total_rented")
-                    };
-                    tableModel.addRow(row);
-                }
+            // Copies this user currently has out, per book
+            Map<Integer, Integer> rentedByBook = RentalRepository.openCopiesByBook(conn, currentUserId);
+            
+            Set<Integer> matches = new HashSet<>(bookIds);
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(
+                    listAll ? null : book -> matches.contains(book.bookId()),
+                    listAll ? BookCatalog.BY_TITLE : BookSearch.rankOrder(bookIds))) {
+                Object[] row = {
+                    "B" + book.bookId(),
+                    book.title(),
+                    book.author(),
+                    book.isbn(),
+                    book.format(),
+                    book.genre(),
+                    book.copies(),
+                    book.status(),
+                    String.format("₱%.2f", book.fee()),
+                    String.format("₱%.2f", book.lateReturnFee()),
+                    rentedByBook.getOrDefault(book.bookId(), 0)
+                };
+                tableModel.addRow(row);
             }
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
@@ -954,7 +813,6 @@ public class RentalReturnPanel extends BasePanel {
     }
     
     private void refreshUserDashboard() {
-        System.out.println("Refreshing User Dashboard...");
         // Find the UserDashboardPanel in the parent container
         Container parent = getParent();
         while (parent != null && !(parent instanceof JPanel)) {
@@ -962,19 +820,16 @@ public class RentalReturnPanel extends BasePanel {
         }
         
         if (parent != null) {
-            System.out.println("Found parent container");
             // Find the UserDashboardPanel in the content panel
             for (Component comp : parent.getComponents()) {
                 if (comp instanceof UserDashboardPanel) {
-                    System.out.println("Found UserDashboardPanel, refreshing data...");
                     UserDashboardPanel dashboard = (UserDashboardPanel) comp;
                     dashboard.handleRentalUpdate();
-                    System.out.println("UserDashboardPanel refreshed successfully");
                     break;
                 }
             }
         } else {
-            System.out.println("Could not find parent container");
+            LOG.debug("No parent container to refresh the user dashboard in");
         }
     }
     
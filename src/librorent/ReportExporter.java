@@ -0,0 +1,487 @@
+package librorent;
+
+import java.awt.Component;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+
+/**
+ * Streams report queries straight to CSV, JSON Lines or XLSX files.
+ *
+ * Rows are read with a forward-only, read-only cursor and written out as
+ * they arrive, so memory use does not depend on the size of the report and
+ * nothing goes through a table model. XLSX files are written by hand as a
+ * zip of SpreadsheetML parts: worksheets are streamed first, starting a new
+ * sheet whenever one reaches Excel's row limit, and the workbook parts that
+ * list the sheets are added at the end, once their number is known.
+ */
+public final class ReportExporter {
+    private static final Log LOG = Log.get(ReportExporter.class);
+    private static final int FETCH_SIZE = 1000;
+    private static final int PROGRESS_ROWS = 10_000;
+    /** Excel's limit is 1,048,576 rows per sheet, one of which holds the header. */
+    private static final int XLSX_ROWS_PER_SHEET = 1_048_575;
+
+    public enum Format {
+        CSV("csv"),
+        JSON_LINES("jsonl"),
+        XLSX("xlsx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /** Picks the format from the file extension, defaulting to CSV. */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (name.endsWith("." + format.extension)) {
+                    return format;
+                }
+            }
+            return name.endsWith(".ndjson") ? JSON_LINES : CSV;
+        }
+    }
+
+    /** The reports offered in the admin screens. */
+    public enum Report {
+        // Live and archived rentals; the view merges both tables in id order without sorting
+        RENTALS("rentals", """
+            SELECT r.id AS rental_id, r.book_id, b.title, u.username, r.rental_date, r.due_date, r.return_date,
+                   CASE WHEN r.return_date IS NOT NULL THEN 'Returned' ELSE 'Active' END AS rental_status,
+                   r.payment_status, COALESCE(r.late_fee, 0) AS late_fee
+            FROM rental_history r
+            LEFT JOIN books b ON r.book_id = b.book_id
+            LEFT JOIN users u ON r.user_id = u.id
+            ORDER BY r.id
+            """),
+        // Per member over the same live and archived rentals, so archived fees still count
+        USER_FEES("user-fees", """
+            SELECT u.id AS user_id, u.username, u.full_name,
+                   COUNT(DISTINCT r.book_id) AS total_books,
+                   COALESCE(SUM(r.late_fee), 0) AS total_late_fees,
+                   COUNT(CASE WHEN r.return_date IS NULL THEN 1 END) AS active_rentals,
+                   COUNT(CASE WHEN r.return_date IS NULL AND r.due_date < datetime('now') THEN 1 END) AS overdue_rentals
+            FROM users u
+            LEFT JOIN rental_history r ON u.id = r.user_id
+            WHERE u.role = 'Member'
+            GROUP BY u.id
+            ORDER BY total_late_fees DESC, active_rentals DESC, overdue_rentals DESC
+            """),
+        // The same counters as InventoryPanel: copies owned, on the shelf and rented out
+        INVENTORY("inventory", """
+            SELECT b.book_id, b.title, b.author, b.format, b.genre,
+                   a.total_copies AS copies, MAX(0, a.available_copies) AS available, a.rented_copies
+            FROM books b
+            JOIN book_availability a ON a.book_id = b.book_id
+            WHERE b.retired_at IS NULL
+            ORDER BY b.book_id
+            """);
+
+        private final String fileName;
+        private final String sql;
+
+        Report(String fileName, String sql) {
+            this.fileName = fileName;
+            this.sql = sql;
+        }
+    }
+
+    /** Called on the exporting thread every {@value #PROGRESS_ROWS} rows. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void progress(long rows);
+    }
+
+    private ReportExporter() {
+    }
+
+    /**
+     * Writes the report to {@code file} in the format given by its
+     * extension. The rows go to a temporary file next to it first, so a
+     * failed export never leaves a truncated report behind.
+     *
+     * @return the number of rows written
+     */
+    public static long exportFile(Report report, Path file, ProgressListener listener)
+            throws IOException, SQLException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), ".export", ".tmp");
+        try {
+            long rows;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                rows = export(report, Format.of(file), out, listener);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static long export(Report report, Format format, OutputStream out, ProgressListener listener)
+            throws IOException, SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            return export(conn, report.sql, null, format, out, listener);
+        }
+    }
+
+    /** Streams the rows of any query. The caller keeps ownership of the connection and the stream. */
+    public static long export(Connection conn, String sql, AsyncLoader.Binder binder, Format format,
+                              OutputStream out, ProgressListener listener) throws IOException, SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(FETCH_SIZE);
+            if (binder != null) {
+                binder.bind(pstmt);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                String[] columns = new String[meta.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = meta.getColumnLabel(i + 1);
+                }
+
+                RowWriter writer = switch (format) {
+                    case CSV -> new CsvWriter(out);
+                    case JSON_LINES -> new JsonLinesWriter(out);
+                    case XLSX -> new XlsxWriter(out);
+                };
+                Object[] values = new Object[columns.length];
+                long rows = 0;
+                writer.start(columns);
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    writer.row(values);
+                    rows++;
+                    if (listener != null && rows % PROGRESS_ROWS == 0) {
+                        listener.progress(rows);
+                    }
+                }
+                writer.finish();
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Asks for a file and exports the report to it on a background thread,
+     * then tells the user how it went. Must be called on the EDT.
+     */
+    public static void showExportDialog(Component parent, Report report) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export Report");
+        FileNameExtensionFilter csv = new FileNameExtensionFilter("CSV (*.csv)", "csv");
+        FileNameExtensionFilter jsonl = new FileNameExtensionFilter("JSON Lines (*.jsonl)", "jsonl");
+        FileNameExtensionFilter xlsx = new FileNameExtensionFilter("Excel Workbook (*.xlsx)", "xlsx");
+        chooser.addChoosableFileFilter(csv);
+        chooser.addChoosableFileFilter(jsonl);
+        chooser.addChoosableFileFilter(xlsx);
+        chooser.setFileFilter(csv);
+        chooser.setSelectedFile(new java.io.File(report.fileName + ".csv"));
+        if (chooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+
+        Path chosen = chooser.getSelectedFile().toPath();
+        String extension = chooser.getFileFilter() == xlsx ? "xlsx" : chooser.getFileFilter() == jsonl ? "jsonl" : "csv";
+        String name = chosen.getFileName().toString();
+        Path file = name.contains(".") ? chosen : chosen.resolveSibling(name + "." + extension);
+
+        Thread exporter = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                long rows = exportFile(report, file, null);
+                long elapsed = System.currentTimeMillis() - start;
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(parent,
+                    String.format("Exported %,d row(s) to %s in %.1f s.", rows, file, elapsed / 1000.0),
+                    "Export Complete",
+                    JOptionPane.INFORMATION_MESSAGE));
+            } catch (IOException | SQLException e) {
+                LOG.error("Error exporting report", e);
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(parent,
+                    "Error exporting report: " + e.getMessage(),
+                    "Export Error",
+                    JOptionPane.ERROR_MESSAGE));
+            }
+        }, "librorent-report-export");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    private interface RowWriter {
+        void start(String[] columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static Writer utf8(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /** RFC 4180 CSV with a header row. */
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(OutputStream out) {
+            this.out = utf8(out);
+        }
+
+        @Override
+        public void start(String[] columns) throws IOException {
+            row(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object value = values[i];
+                if (value instanceof Number) {
+                    out.write(value.toString());
+                } else if (value != null) {
+                    writeText(value.toString());
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private void writeText(String text) throws IOException {
+            // A leading =, +, - or @ would make a spreadsheet evaluate the cell as a formula
+            if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                out.write(text);
+                return;
+            }
+            out.write('"');
+            out.write(text.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    /** One JSON object per line, keyed by column name. */
+    private static final class JsonLinesWriter implements RowWriter {
+        private final Writer out;
+        private String[] keys;
+
+        JsonLinesWriter(OutputStream out) {
+            this.out = utf8(out);
+        }
+
+        @Override
+        public void start(String[] columns) {
+            keys = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                keys[i] = quote(columns[i]) + ":";
+            }
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            out.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(keys[i]);
+                Object value = values[i];
+                if (value == null) {
+                    out.write("null");
+                } else if (value instanceof Number number && Double.isFinite(number.doubleValue())) {
+                    out.write(value.toString());
+                } else {
+                    out.write(quote(value.toString()));
+                }
+            }
+            out.write("}\n");
+        }
+
+        private static String quote(String text) {
+            StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    /** Minimal Office Open XML workbook with inline strings and no shared string table. */
+    private static final class XlsxWriter implements RowWriter {
+        private final ZipOutputStream zip;
+        private final Writer out;
+        private String[] columns;
+        private int sheets = 0;
+        private int rowsInSheet = 0;
+
+        XlsxWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(out, 1 << 16));
+            this.out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void start(String[] columns) throws IOException {
+            this.columns = columns;
+            startSheet();
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            if (rowsInSheet == XLSX_ROWS_PER_SHEET) {
+                endSheet();
+                startSheet();
+            }
+            writeRow(values);
+            rowsInSheet++;
+        }
+
+        private void startSheet() throws IOException {
+            sheets++;
+            rowsInSheet = 0;
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+            writeRow(columns);
+        }
+
+        private void endSheet() throws IOException {
+            out.write("</sheetData></worksheet>");
+            out.flush();
+            zip.closeEntry();
+        }
+
+        private void writeRow(Object[] values) throws IOException {
+            out.write("<row>");
+            for (Object value : values) {
+                if (value == null) {
+                    out.write("<c/>");
+                } else if (value instanceof Number number && Double.isFinite(number.doubleValue())) {
+                    out.write("<c><v>");
+                    out.write(value.toString());
+                    out.write("</v></c>");
+                } else {
+                    out.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                    writeEscaped(value.toString());
+                    out.write("</t></is></c>");
+                }
+            }
+            out.write("</row>");
+        }
+
+        private void writeEscaped(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&' -> out.write("&amp;");
+                    case '<' -> out.write("&lt;");
+                    case '>' -> out.write("&gt;");
+                    case '"' -> out.write("&quot;");
+                    default -> {
+                        // Control characters other than tab and line breaks are not allowed in XML
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                            out.write(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            endSheet();
+
+            StringBuilder types = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+            StringBuilder workbook = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+            StringBuilder workbookRels = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+            for (int i = 1; i <= sheets; i++) {
+                types.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                    .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+                workbook.append("<sheet name=\"Sheet").append(i).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+                workbookRels.append("<Relationship Id=\"rId").append(i).append("\" ")
+                    .append("Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" ")
+                    .append("Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+            }
+            types.append("</Types>");
+            workbook.append("</sheets></workbook>");
+            workbookRels.append("</Relationships>");
+
+            writeEntry("[Content_Types].xml", types.toString());
+            writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" "
+                + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+                + "Target=\"xl/workbook.xml\"/></Relationships>");
+            writeEntry("xl/workbook.xml", workbook.toString());
+            writeEntry("xl/_rels/workbook.xml.rels", workbookRels.toString());
+            zip.finish();
+            zip.flush();
+        }
+
+        private void writeEntry(String name, String content) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            out.write(content);
+            out.flush();
+            zip.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package librorent;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Expires active reservations in the background as soon as they run out.
+ *
+ * Pending expirations sit in a min-heap ordered by expiration time, and a
+ * single scheduler thread sleeps until the earliest one is due. A wake-up
+ * expires every reservation that is due with one set-based UPDATE served by
+ * the reservations(status, expiration_date) index; the book_availability
+ * triggers return the reserved copies to the shelf in the same statement.
+ *
+ * Reservations made through this terminal are added with {@link #track};
+ * the heap is also reloaded from the database every
+ * {@code librorent.reservations.resyncMs} so reservations made elsewhere
+ * are picked up. Listeners run on the EDT after each sweep that expired
+ * something.
+ */
+public class ReservationExpiryEngine {
+    private static final Log LOG = Log.get(ReservationExpiryEngine.class);
+    private static ReservationExpiryEngine instance;
+
+    private static final long RESYNC_MS = Long.getLong("librorent.reservations.resyncMs", 300_000L);
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Counters for monitoring the engine. Lag is how long after its expiration time a reservation was released. */
+    public record Metrics(long sweeps, long rowsExpired, long lastLagMillis, long maxLagMillis, int pending) {
+    }
+
+    private record Expiration(long dueMillis, int reservationId) {
+    }
+
+    private final PriorityQueue<Expiration> heap =
+        new PriorityQueue<>((a, b) -> Long.compare(a.dueMillis(), b.dueMillis()));
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sweeps = new AtomicLong();
+    private final AtomicLong rowsExpired = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextWake;
+    private long nextWakeMillis = Long.MAX_VALUE;
+    private long lastResync = 0;
+
+    private ReservationExpiryEngine() {
+    }
+
+    public static synchronized ReservationExpiryEngine getInstance() {
+        if (instance == null) {
+            instance = new ReservationExpiryEngine();
+        }
+        return instance;
+    }
+
+    /** Starts the scheduler thread; does nothing if it is already running. */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "librorent-reservation-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        // Load the heap and expire anything that ran out while the application was closed
+        scheduler.execute(this::run);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        nextWake = null;
+        nextWakeMillis = Long.MAX_VALUE;
+        heap.clear();
+    }
+
+    /** Schedules a reservation that was just created; {@code expirationDate} is the stored UTC timestamp. */
+    public synchronized void track(int reservationId, String expirationDate) {
+        heap.add(new Expiration(parseMillis(expirationDate), reservationId));
+        reschedule();
+    }
+
+    /** Registers a callback run on the EDT after reservations have been expired. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(sweeps.get(), rowsExpired.get(), lastLagMillis.get(), maxLagMillis.get(), heap.size());
+    }
+
+    private void run() {
+        try {
+            if (System.currentTimeMillis() - lastResync >= RESYNC_MS) {
+                resync();
+            }
+            expireDue();
+        } catch (SQLException e) {
+            LOG.error("Error expiring reservations", e);
+        } finally {
+            synchronized (this) {
+                nextWake = null;
+                nextWakeMillis = Long.MAX_VALUE;
+                reschedule();
+            }
+        }
+    }
+
+    // Rebuild the heap from the database so reservations made elsewhere are scheduled too
+    private void resync() throws SQLException {
+        List<Expiration> active = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT id, expiration_date FROM reservations WHERE status = 'Active' ORDER BY expiration_date")) {
+            while (rs.next()) {
+                active.add(new Expiration(parseMillis(rs.getString("expiration_date")), rs.getInt("id")));
+            }
+        }
+        synchronized (this) {
+            heap.clear();
+            heap.addAll(active);
+            lastResync = System.currentTimeMillis();
+        }
+    }
+
+    private void expireDue() throws SQLException {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (heap.isEmpty() || heap.peek().dueMillis() > now) {
+                return;
+            }
+            while (!heap.isEmpty() && heap.peek().dueMillis() <= now) {
+                heap.poll();
+            }
+        }
+        String cutoff = LocalDateTime.ofEpochSecond(now / 1000, 0, ZoneOffset.UTC).format(SQL_DATE_TIME);
+
+        Set<Integer> bookIds = new LinkedHashSet<>();
+        int expired = 0;
+        long earliestDue = Long.MAX_VALUE;
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // The book_availability triggers give the reserved copies back
+                try (PreparedStatement pstmt = conn.prepareStatement("""
+                        UPDATE reservations SET status = 'Expired'
+                        WHERE status = 'Active' AND expiration_date <= ?
+                        RETURNING book_id, expiration_date
+                        """)) {
+                    pstmt.setString(1, cutoff);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            bookIds.add(rs.getInt("book_id"));
+                            earliestDue = Math.min(earliestDue, parseMillis(rs.getString("expiration_date")));
+                            expired++;
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        sweeps.incrementAndGet();
+        if (expired == 0) {
+            return;
+        }
+        rowsExpired.addAndGet(expired);
+        if (earliestDue > 0) {
+            long lag = Math.max(0, System.currentTimeMillis() - earliestDue);
+            lastLagMillis.set(lag);
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+        }
+        LOG.info("Expired reservations", "count", expired, "lagMs", lastLagMillis.get());
+
+        BookCatalog.getInstance().bookChanged(bookIds.stream().mapToInt(Integer::intValue).toArray());
+        SwingUtilities.invokeLater(() -> {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        });
+    }
+
+    // Wake at the earliest expiration, or at the next resync if that comes first
+    private void reschedule() {
+        if (scheduler == null) {
+            return;
+        }
+        long wakeAt = lastResync + RESYNC_MS;
+        if (!heap.isEmpty()) {
+            wakeAt = Math.min(wakeAt, heap.peek().dueMillis());
+        }
+        if (nextWake != null && nextWakeMillis <= wakeAt) {
+            return;
+        }
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        nextWakeMillis = wakeAt;
+        nextWake = scheduler.schedule(this::run,
+            Math.max(0, wakeAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    // Reservation timestamps are stored by SQLite's datetime(), i.e. UTC "yyyy-MM-dd HH:mm:ss"
+    private static long parseMillis(String expirationDate) {
+        if (expirationDate == null) {
+            return 0;
+        }
+        try {
+            String value = expirationDate.length() > 19 ? expirationDate.substring(0, 19) : expirationDate;
+            return LocalDateTime.parse(value.replace('T', ' '), SQL_DATE_TIME).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // Unknown format: treat it as due so the next sweep lets SQL decide
+            return 0;
+        }
+    }
+}
@@ -9,8 +9,13 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class ReservationPanel extends BasePanel {
+    private static final Log LOG = Log.get(ReservationPanel.class);
     private JTable bookTable;
     private JTable reservationTable;
     private DefaultTableModel bookTableModel;
@@ -18,10 +23,14 @@ public class ReservationPanel extends BasePanel {
     private JTextField searchField;
     private JComboBox<String> filterCombo;
     private int currentUserId;
+    private final AsyncLoader.Channel searchLoads = AsyncLoader.channel();
     
     public ReservationPanel() {
         super();
         initializeComponents();
+        BookCatalog.getInstance().addListener(this::filterBooks);
+        // Reservations are expired in the background; show the new statuses when that happens
+        ReservationExpiryEngine.getInstance().addListener(this::loadReservations);
     }
     
     @Override
@@ -88,7 +97,7 @@ public class ReservationPanel extends BasePanel {
         refreshButton.setFocusPainted(false);
         refreshButton.setBorderPainted(false);
         refreshButton.addActionListener(e -> {
-            loadBooks();
+            BookCatalog.getInstance().invalidate();
             loadReservations();
         });
         searchPanel.add(refreshButton);
@@ -255,25 +264,27 @@ public class ReservationPanel extends BasePanel {
     }
     
     private void loadBooks() {
+        showBooks(null, BookCatalog.NEWEST_FIRST);
+    }
+    
+    // Fill the book table from the shared catalog
+    private void showBooks(Predicate<BookCatalog.Book> filter, Comparator<BookCatalog.Book> order) {
         bookTableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books ORDER BY book_id DESC")) {
-            
-            while (rs.next()) {
+        try {
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(filter, order)) {
                 Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getInt("copies"),
+                    "B" + book.bookId(),
+                    book.title(),
+                    book.author(),
+                    book.format(),
+                    book.status(),
+                    book.copies(),
                     "Reserve"
                 };
                 bookTableModel.addRow(row);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error loading books", e);
             JOptionPane.showMessageDialog(this,
                 "Error loading books: " + e.getMessage(),
                 "Error",
@@ -281,92 +292,25 @@ public class ReservationPanel extends BasePanel {
         }
     }
     
-    private void checkAndUpdateExpiredReservations() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            try {
-                // Get all active reservations that have expired
-                String query = """
-                    SELECT r.id, r.book_id, r.copies 
-                    FROM reservations r 
-                    WHERE r.status = 'Active' 
-                    AND datetime(r.expiration_date) < datetime('now')
-                """;
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                    ResultSet rs = pstmt.executeQuery();
-                    
-                    while (rs.next()) {
-                        int reservationId = rs.getInt("id");
-                        int bookId = rs.getInt("book_id");
-                        int copies = rs.getInt("copies");
-                        
-                        // Update reservation status to Expired
-                        try (PreparedStatement updateReservation = conn.prepareStatement(
-                                "UPDATE reservations SET status = 'Expired' WHERE id = ?")) {
-                            updateReservation.setInt(1, reservationId);
-                            updateReservation.executeUpdate();
-                        }
-                        
-                        // Update book copies and status
-                        try (PreparedStatement updateBook = conn.prepareStatement(
-                                "UPDATE books SET copies = copies + ?, status = 'Available' WHERE book_id = ?")) {
-                            updateBook.setInt(1, copies);
-                            updateBook.setInt(2, bookId);
-                            updateBook.executeUpdate();
-                        }
-                    }
-                }
-                
-                conn.commit();
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error updating expired reservations: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void loadReservations() {
         if (currentUserId <= 0) return;
         
-        // First check and update any expired reservations
-        checkAndUpdateExpiredReservations();
-        
         reservationTableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("""
-                SELECT r.*, b.title 
-                FROM reservations r 
-                JOIN books b ON r.book_id = b.book_id 
-                WHERE r.user_id = ?
-                ORDER BY r.reservation_date DESC
-             """)) {
-            
-            pstmt.setInt(1, currentUserId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            for (ReservationRepository.Reservation reservation : ReservationRepository.forUser(conn, currentUserId)) {
                 Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("reservation_date"),
-                    rs.getString("expiration_date"),
-                    rs.getString("status"),
-                    rs.getInt("copies"),
+                    "B" + reservation.bookId(),
+                    reservation.title(),
+                    reservation.reservationDate(),
+                    reservation.expirationDate(),
+                    reservation.status(),
+                    reservation.copies(),
                     "Cancel"
                 };
                 reservationTableModel.addRow(row);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error loading reservations", e);
             JOptionPane.showMessageDialog(this,
                 "Error loading reservations: " + e.getMessage(),
                 "Error",
@@ -375,73 +319,52 @@ public class ReservationPanel extends BasePanel {
     }
     
     private void filterBooks() {
-        String searchTerm = searchField.getText().trim().toLowerCase();
+        String searchTerm = searchField.getText().trim();
         String filter = (String) filterCombo.getSelectedItem();
+        Predicate<BookCatalog.Book> statusFilter = book -> "All Books".equals(filter) || filter.equals(book.status());
         
-        bookTableModel.setRowCount(0);
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement("""
-                SELECT * FROM books 
-                WHERE (LOWER(title) LIKE ? OR LOWER(author) LIKE ?)
-                AND (? = 'All Books' OR status = ?)
-                ORDER BY book_id DESC
-             """)) {
-            
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, filter);
-            pstmt.setString(4, filter.equals("Available") ? "Available" : 
-                              filter.equals("Reserved") ? "Reserved" : "Available");
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    "B" + rs.getInt("book_id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getInt("copies"),
-                    "Reserve"
-                };
-                bookTableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
+        if (searchTerm.isEmpty()) {
+            searchLoads.cancel();
+            showBooks(statusFilter, BookCatalog.NEWEST_FIRST);
+            return;
+        }
+        
+        // Look the text up in the full-text index off the EDT; later keystrokes cancel earlier lookups
+        searchLoads.submit(
+            conn -> BookSearch.search(conn, searchTerm, BookSearch.Field.ALL, BookSearch.DEFAULT_LIMIT),
+            bookIds -> {
+                Set<Integer> matches = new HashSet<>(bookIds);
+                showBooks(statusFilter.and(book -> matches.contains(book.bookId())), BookSearch.rankOrder(bookIds));
+            },
+            e -> JOptionPane.showMessageDialog(this,
                 "Error filtering books: " + e.getMessage(),
                 "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
     
     private void reserveBook(int bookId) {
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Check if book is available and get available copies
-            int availableCopies = 0;
-            String bookTitle = "";
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT copies, title FROM books WHERE book_id = ?")) {
-                pstmt.setInt(1, bookId);
-                ResultSet rs = pstmt.executeQuery();
-                if (!rs.next()) {
-                    JOptionPane.showMessageDialog(this,
-                        "Book not found",
-                        "Reservation Error",
-                        JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
-                availableCopies = rs.getInt("copies");
-                bookTitle = rs.getString("title");
-                
-                if (availableCopies <= 0) {
-                    JOptionPane.showMessageDialog(this,
-                        "No copies available for this book",
-                        "Reservation Error",
-                        JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
+        try {
+            // Read the current stock rather than the cached catalog copy
+            BookCatalog.Book book;
+            try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+                book = BookRepository.findById(conn, bookId);
+            }
+            if (book == null) {
+                JOptionPane.showMessageDialog(this,
+                    "Book not found",
+                    "Reservation Error",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            int availableCopies = book.copies();
+            String bookTitle = book.title();
+            
+            if (availableCopies <= 0) {
+                JOptionPane.showMessageDialog(this,
+                    "No copies available for this book",
+                    "Reservation Error",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
             }
             
             // Show dialog to select number of copies
@@ -465,35 +388,18 @@ public class ReservationPanel extends BasePanel {
             }
             
             int copiesToReserve = Integer.parseInt(selectedCopies);
+            ReservationRepository.reserve(currentUserId, bookId, copiesToReserve);
             
-            // Create reservation
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "INSERT INTO reservations (user_id, book_id, reservation_date, expiration_date, status, copies) " +
-                    "VALUES (?, ?, datetime('now'), datetime('now', '+24 hours'), 'Active', ?)")) {
-                pstmt.setInt(1, currentUserId);
-                pstmt.setInt(2, bookId);
-                pstmt.setInt(3, copiesToReserve);
-                pstmt.executeUpdate();
-                
-                // Update book copies
-                try (PreparedStatement updateStmt = conn.prepareStatement(
-                        "UPDATE books SET copies = copies - ? WHERE book_id = ?")) {
-                    updateStmt.setInt(1, copiesToReserve);
-                    updateStmt.setInt(2, bookId);
-                    updateStmt.executeUpdate();
-                }
-                
-                JOptionPane.showMessageDialog(this,
-                    "Successfully reserved " + copiesToReserve + " copy/copies of '" + bookTitle + "'!",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                
-                // Refresh tables
-                loadBooks();
-                loadReservations();
-            }
+            JOptionPane.showMessageDialog(this,
+                "Successfully reserved " + copiesToReserve + " copy/copies of '" + bookTitle + "'!",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
+            
+            // Refresh tables
+            loadBooks();
+            loadReservations();
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error creating reservation", e);
             JOptionPane.showMessageDialog(this,
                 "Error creating reservation: " + e.getMessage(),
                 "Error",
@@ -502,66 +408,24 @@ public class ReservationPanel extends BasePanel {
     }
     
     private void cancelReservation(int bookId) {
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Start transaction
-            conn.setAutoCommit(false);
-            try {
-                // Get the number of copies from the active reservation
-                int reservedCopies = 0;
-                try (PreparedStatement getCopiesStmt = conn.prepareStatement(
-                        "SELECT copies FROM reservations WHERE book_id = ? AND user_id = ? AND status = 'Active'")) {
-                    getCopiesStmt.setInt(1, bookId);
-                    getCopiesStmt.setInt(2, currentUserId);
-                    ResultSet rs = getCopiesStmt.executeQuery();
-                    if (rs.next()) {
-                        reservedCopies = rs.getInt("copies");
-                    }
-                }
-
-            // Update reservation status
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "UPDATE reservations SET status = 'Cancelled' WHERE book_id = ? AND user_id = ? AND status = 'Active'")) {
-                pstmt.setInt(1, bookId);
-                pstmt.setInt(2, currentUserId);
-                int updated = pstmt.executeUpdate();
+        try {
+            if (ReservationRepository.cancel(currentUserId, bookId) > 0) {
+                JOptionPane.showMessageDialog(this,
+                    "Reservation cancelled successfully!",
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
                 
-                if (updated > 0) {
-                        // Update book copies and status
-                    try (PreparedStatement updateStmt = conn.prepareStatement(
-                                "UPDATE books SET copies = copies + ?, status = CASE WHEN copies + ? > 0 THEN 'Available' ELSE status END WHERE book_id = ?")) {
-                            updateStmt.setInt(1, reservedCopies);
-                            updateStmt.setInt(2, reservedCopies);
-                            updateStmt.setInt(3, bookId);
-                        updateStmt.executeUpdate();
-                    }
-                        
-                        // Commit transaction
-                        conn.commit();
-                    
-                    JOptionPane.showMessageDialog(this,
-                        "Reservation cancelled successfully!",
-                        "Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                    
-                    // Refresh tables
-                    loadBooks();
-                    loadReservations();
-                } else {
-                        conn.rollback();
-                    JOptionPane.showMessageDialog(this,
-                        "No active reservation found for this book",
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-                }
-                }
-            } catch (SQLException e) {
-                conn.rollback();
-                throw e;
-            } finally {
-                conn.setAutoCommit(true);
+                // Refresh tables
+                loadBooks();
+                loadReservations();
+            } else {
+                JOptionPane.showMessageDialog(this,
+                    "No active reservation found for this book",
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error cancelling reservation", e);
             JOptionPane.showMessageDialog(this,
                 "Error cancelling reservation: " + e.getMessage(),
                 "Error",
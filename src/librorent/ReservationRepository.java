@@ -0,0 +1,110 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads, creates and cancels reservations. The book_availability triggers
+ * move the reserved copies off and back onto the shelf, so every write
+ * refreshes the book in the {@link BookCatalog} after committing. Expiry
+ * is done in bulk by the {@link ReservationExpiryEngine}.
+ */
+public final class ReservationRepository {
+
+    /** One reservation joined with its book's title. */
+    public record Reservation(int id, int userId, int bookId, String title, String reservationDate,
+                              String expirationDate, String status, int copies) {
+    }
+
+    private ReservationRepository() {
+    }
+
+    /** All of the user's reservations, newest first. */
+    public static List<Reservation> forUser(Connection conn, int userId) throws SQLException {
+        List<Reservation> reservations = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("""
+                SELECT r.id, r.user_id, r.book_id, b.title, r.reservation_date, r.expiration_date, r.status, r.copies
+                FROM reservations r
+                JOIN books b ON r.book_id = b.book_id
+                WHERE r.user_id = ?
+                ORDER BY r.reservation_date DESC
+                """)) {
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reservations.add(new Reservation(
+                        rs.getInt("id"),
+                        rs.getInt("user_id"),
+                        rs.getInt("book_id"),
+                        rs.getString("title"),
+                        rs.getString("reservation_date"),
+                        rs.getString("expiration_date"),
+                        rs.getString("status"),
+                        rs.getInt("copies")));
+                }
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Reserves {@code copies} copies of a book until the reservation_expiration
+     * setting runs out, and schedules the expiry. Like a checkout, the insert
+     * only matches the book while it is not retired and still has the copies
+     * on the shelf, so the stock is checked and taken in one statement.
+     *
+     * @return the new reservation's id
+     * @throws CheckoutService.UnavailableException if the book is missing, retired or has fewer copies left
+     */
+    public static int reserve(int userId, int bookId, int copies) throws SQLException {
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies must be positive: " + copies);
+        }
+        int reservationId;
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("""
+                 INSERT INTO reservations (user_id, book_id, reservation_date, expiration_date, status, copies)
+                 SELECT ?, book_id, datetime('now'), datetime('now', '+' || ? || ' seconds'), 'Active', ?
+                 FROM books
+                 WHERE book_id = ? AND retired_at IS NULL AND copies >= ?
+                 RETURNING id, expiration_date
+                 """)) {
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, Settings.getInstance().getReservationExpiration());
+            pstmt.setInt(3, copies);
+            pstmt.setInt(4, bookId);
+            pstmt.setInt(5, copies);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new CheckoutService.UnavailableException(
+                        "The book is no longer available in the requested number of copies");
+                }
+                reservationId = rs.getInt("id");
+                ReservationExpiryEngine.getInstance().track(reservationId, rs.getString("expiration_date"));
+            }
+        }
+        BookCatalog.getInstance().bookChanged(bookId);
+        return reservationId;
+    }
+
+    /**
+     * Cancels the user's active reservations of a book.
+     *
+     * @return how many reservations were cancelled
+     */
+    public static int cancel(int userId, int bookId) throws SQLException {
+        int cancelled;
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "UPDATE reservations SET status = 'Cancelled' WHERE book_id = ? AND user_id = ? AND status = 'Active'")) {
+            pstmt.setInt(1, bookId);
+            pstmt.setInt(2, userId);
+            cancelled = pstmt.executeUpdate();
+        }
+        if (cancelled > 0) {
+            BookCatalog.getInstance().bookChanged(bookId);
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,194 @@
+package librorent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies numbered schema migrations in order and records each one in the
+ * {@code schema_version} table, so a database that is already up to date is
+ * recognised with a single query at startup.
+ *
+ * Every migration runs in its own transaction together with its version row.
+ * Foreign key enforcement is switched off while migrating (SQLite ignores the
+ * pragma inside a transaction) so steps can rebuild tables; any violations
+ * found by {@code PRAGMA foreign_key_check} afterwards are logged.
+ */
+public class SchemaMigrator {
+    private static final Log LOG = Log.get(SchemaMigrator.class);
+
+    /** A single schema change. */
+    public interface Migration {
+        void apply(Connection conn, Statement stmt) throws SQLException;
+    }
+
+    private static class Step {
+        final int version;
+        final String description;
+        final Migration migration;
+
+        Step(int version, String description, Migration migration) {
+            this.version = version;
+            this.description = description;
+            this.migration = migration;
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+
+    /** Registers a migration; versions must be added in increasing order. */
+    public SchemaMigrator add(int version, String description, Migration migration) {
+        if (!steps.isEmpty() && steps.get(steps.size() - 1).version >= version) {
+            throw new IllegalArgumentException("Migration " + version + " is out of order");
+        }
+        steps.add(new Step(version, description, migration));
+        return this;
+    }
+
+    public int getLatestVersion() {
+        return steps.isEmpty() ? 0 : steps.get(steps.size() - 1).version;
+    }
+
+    /** Brings the database up to the latest version and returns the version it started at. */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                "version INTEGER PRIMARY KEY," +
+                "description TEXT NOT NULL," +
+                "applied_at TEXT NOT NULL DEFAULT (datetime('now'))" +
+                ")");
+        }
+
+        int current = getCurrentVersion(conn);
+        if (current >= getLatestVersion()) {
+            return current;
+        }
+
+        boolean autoCommit = conn.getAutoCommit();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            try {
+                for (Step step : steps) {
+                    if (step.version <= current) {
+                        continue;
+                    }
+                    applyStep(conn, step);
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+                stmt.execute("PRAGMA foreign_keys = ON");
+            }
+        }
+        return current;
+    }
+
+    public static int getCurrentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /** Returns the column names of a table, or an empty set if it does not exist. */
+    public static Set<String> getColumns(Connection conn, String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                columns.add(rs.getString("name").toLowerCase());
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Recreates a table with a new definition, e.g. to change its foreign
+     * keys, which ALTER TABLE cannot do. Rows are copied for the columns the
+     * old and new definitions share, and the AUTOINCREMENT counter is kept so
+     * ids of deleted rows are not handed out again. Indexes on the old table
+     * are dropped with it and must be recreated by the caller.
+     *
+     * @param definition column and constraint list, without the parentheses
+     */
+    public static void rebuildTable(Connection conn, String table, String definition) throws SQLException {
+        Set<String> oldColumns = getColumns(conn, table);
+        String rebuilt = table + "_rebuild";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + rebuilt);
+            stmt.execute("CREATE TABLE " + rebuilt + " (" + definition + ")");
+
+            List<String> shared = new ArrayList<>();
+            for (String column : getColumns(conn, rebuilt)) {
+                if (oldColumns.contains(column)) {
+                    shared.add(column);
+                }
+            }
+            String columns = String.join(", ", shared);
+            stmt.execute("INSERT INTO " + rebuilt + " (" + columns + ") SELECT " + columns + " FROM " + table);
+
+            long sequence = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT seq FROM sqlite_sequence WHERE name = ?")) {
+                pstmt.setString(1, table);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    sequence = rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                // No AUTOINCREMENT table exists yet, so there is no counter to keep
+            }
+
+            stmt.execute("DROP TABLE " + table);
+            stmt.execute("ALTER TABLE " + rebuilt + " RENAME TO " + table);
+
+            if (sequence > 0) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "UPDATE sqlite_sequence SET seq = MAX(seq, ?) WHERE name = ?")) {
+                    pstmt.setLong(1, sequence);
+                    pstmt.setString(2, table);
+                    if (pstmt.executeUpdate() == 0) {
+                        try (PreparedStatement insert = conn.prepareStatement(
+                                "INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)")) {
+                            insert.setString(1, table);
+                            insert.setLong(2, sequence);
+                            insert.executeUpdate();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void applyStep(Connection conn, Step step) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            step.migration.apply(conn, stmt);
+
+            // Older databases may already hold orphaned rows, so report them instead of failing startup
+            try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+                int violations = 0;
+                while (rs.next()) {
+                    violations++;
+                }
+                if (violations > 0) {
+                    LOG.warn("Foreign key violations after migration", "version", step.version,
+                        "violations", violations);
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                pstmt.setInt(1, step.version);
+                pstmt.setString(2, step.description);
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            LOG.info("Applied schema migration", "version", step.version, "description", step.description);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration " + step.version + " (" + step.description + ") failed: "
+                + e.getMessage(), e);
+        }
+    }
+}
@@ -4,12 +4,16 @@ import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.sql.*;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.function.Predicate;
 
 public class SearchFilterPanel extends BasePanel {
     private JTable searchResultsTable;
     private DefaultTableModel tableModel;
     private JTextField searchField;
     private JComboBox<String> searchTypeCombo;
+    private final AsyncLoader.Channel searchLoads = AsyncLoader.channel();
     
     public SearchFilterPanel() {
         // Initialize components
@@ -106,69 +110,45 @@ public class SearchFilterPanel extends BasePanel {
             return;
         }
         
-        // Clear existing results
-        tableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT * FROM books WHERE LOWER(" + searchType.toLowerCase() + ") LIKE ? ORDER BY book_id DESC")) {
-            
-            pstmt.setString(1, "%" + searchTerm.toLowerCase() + "%");
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getInt("copies") // Use actual copies from database
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
+        // Run the search off the EDT; a newer search cancels this one
+        setStatus("Searching...");
+        searchLoads.submit(
+            conn -> BookSearch.search(conn, searchTerm, BookSearch.Field.fromLabel(searchType), BookSearch.DEFAULT_LIMIT),
+            bookIds -> showBooks(new HashSet<>(bookIds)::contains, BookSearch.rankOrder(bookIds)),
+            e -> JOptionPane.showMessageDialog(this,
                 "Error searching books: " + e.getMessage(),
                 "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-        
-        // Update status
-        JLabel statusLabel = (JLabel) ((JPanel) contentArea.getComponent(2)).getComponent(0);
-        statusLabel.setText("Found " + tableModel.getRowCount() + " results");
+                JOptionPane.ERROR_MESSAGE));
     }
     
     private void clearSearch() {
         searchField.setText("");
         loadData(); // Load all books when clearing search
-        JLabel statusLabel = (JLabel) ((JPanel) contentArea.getComponent(2)).getComponent(0);
-        statusLabel.setText("Ready");
+        setStatus("Ready");
     }
     
     private void loadData() {
-        // Clear existing data
+        // Show the whole catalog from memory; drop any search still running
+        searchLoads.cancel();
+        showBooks(null, BookCatalog.NEWEST_FIRST);
+    }
+    
+    private void showBooks(Predicate<Integer> idFilter, Comparator<BookCatalog.Book> order) {
         tableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM books ORDER BY book_id DESC")) {
-            
-            while (rs.next()) {
+        try {
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(
+                    idFilter == null ? null : book -> idFilter.test(book.bookId()), order)) {
                 Object[] row = {
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("genre"),
-                    rs.getString("format"),
-                    rs.getString("status"),
-                    rs.getInt("copies")
+                    book.title(),
+                    book.author(),
+                    book.genre(),
+                    book.format(),
+                    book.status(),
+                    book.copies()
                 };
                 tableModel.addRow(row);
             }
-            
-            // Update status
-            JLabel statusLabel = (JLabel) ((JPanel) contentArea.getComponent(2)).getComponent(0);
-            statusLabel.setText("Found " + tableModel.getRowCount() + " results");
+            setStatus("Found " + tableModel.getRowCount() + " results");
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                 "Error loading books: " + e.getMessage(),
@@ -177,6 +157,11 @@ public class SearchFilterPanel extends BasePanel {
         }
     }
     
+    private void setStatus(String text) {
+        JLabel statusLabel = (JLabel) ((JPanel) contentArea.getComponent(2)).getComponent(0);
+        statusLabel.setText(text);
+    }
+    
     @Override
     protected String getTitle() {
         return "Search & Filter";
@@ -0,0 +1,172 @@
+package librorent;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Cached, typed access to the settings table.
+ *
+ * The whole table is read once on first use and served from memory after
+ * that. Changes go through {@link #putAll}, which writes them in one
+ * transaction, updates the cache and tells every listener which keys
+ * changed, so open panels and background engines pick up new values
+ * without re-querying the table.
+ */
+public class Settings {
+    private static final Log LOG = Log.get(Settings.class);
+    private static Settings instance;
+
+    public static final String DEFAULT_RENTAL_DURATION = "default_rental_duration";
+    public static final String LATE_FEE_RATE = "late_fee_rate";
+    public static final String RESERVATION_EXPIRATION = "reservation_expiration";
+
+    private static final int DEFAULT_RENTAL_DURATION_SECONDS = 14 * 24 * 3600;
+    private static final double DEFAULT_LATE_FEE_RATE = 10.0;
+    private static final int DEFAULT_RESERVATION_SECONDS = 24 * 3600;
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loaded = false;
+
+    private Settings() {
+    }
+
+    public static synchronized Settings getInstance() {
+        if (instance == null) {
+            instance = new Settings();
+        }
+        return instance;
+    }
+
+    /** Default rental duration in seconds. */
+    public int getDefaultRentalDuration() {
+        return getInt(DEFAULT_RENTAL_DURATION, DEFAULT_RENTAL_DURATION_SECONDS);
+    }
+
+    /** Late fee per day for books without their own late return fee. */
+    public double getLateFeeRate() {
+        return getDouble(LATE_FEE_RATE, DEFAULT_LATE_FEE_RATE);
+    }
+
+    /** How long a reservation holds its copies, in seconds. */
+    public int getReservationExpiration() {
+        return getInt(RESERVATION_EXPIRATION, DEFAULT_RESERVATION_SECONDS);
+    }
+
+    public String get(String key, String defaultValue) {
+        ensureLoaded();
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid integer setting", "key", key, "value", value);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid numeric setting", "key", key, "value", value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Saves the given settings in one transaction and notifies listeners of
+     * the keys whose value actually changed.
+     *
+     * @return the keys that changed
+     */
+    public Set<String> putAll(Map<String, ?> changes) throws SQLException {
+        ensureLoaded();
+        Map<String, String> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, ?> entry : changes.entrySet()) {
+            String value = String.valueOf(entry.getValue());
+            if (!Objects.equals(values.get(entry.getKey()), value)) {
+                changed.put(entry.getKey(), value);
+            }
+        }
+        if (changed.isEmpty()) {
+            return changed.keySet();
+        }
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO settings (key, value, last_updated) VALUES (?, ?, datetime('now'))")) {
+                for (Map.Entry<String, String> entry : changed.entrySet()) {
+                    pstmt.setString(1, entry.getKey());
+                    pstmt.setString(2, entry.getValue());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        values.putAll(changed);
+        Set<String> keys = Set.copyOf(changed.keySet());
+        fireChanged(keys);
+        return keys;
+    }
+
+    /** Registers a callback run on the EDT with the keys that changed. */
+    public void addListener(Consumer<Set<String>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Set<String>> listener) {
+        listeners.remove(listener);
+    }
+
+    /** Drops the cache so the next read reloads the table, e.g. after another terminal changed it. */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT key, value FROM settings")) {
+            Map<String, String> fresh = new ConcurrentHashMap<>();
+            while (rs.next()) {
+                fresh.put(rs.getString("key"), rs.getString("value"));
+            }
+            values.clear();
+            values.putAll(fresh);
+            loaded = true;
+        } catch (SQLException e) {
+            // Serve defaults and try again on the next read
+            LOG.error("Error loading settings", "error", e.getMessage());
+        }
+    }
+
+    private void fireChanged(Set<String> keys) {
+        SwingUtilities.invokeLater(() -> {
+            for (Consumer<Set<String>> listener : listeners) {
+                listener.accept(keys);
+            }
+        });
+    }
+}
@@ -380,46 +380,31 @@ public class SignUpForm extends JDialog {
             return;
         }
         
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Check if username already exists
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT username FROM users WHERE username = ?")) {
-                pstmt.setString(1, username);
-                if (pstmt.executeQuery().next()) {
+        try {
+            try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+                // Check if username already exists
+                if (UserRepository.findByUsername(conn, username) != null) {
                     errorLabel.setText("Username already exists");
                     return;
                 }
-            }
-            
-            // Check if email already exists
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT email FROM users WHERE email = ?")) {
-                pstmt.setString(1, email);
-                if (pstmt.executeQuery().next()) {
+                
+                // Check if email already exists
+                if (UserRepository.findByEmail(conn, email) != null) {
                     errorLabel.setText("Email already registered");
                     return;
                 }
             }
             
             // Insert new user
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "INSERT INTO users (full_name, email, username, password, role) VALUES (?, ?, ?, ?, ?)")) {
-                pstmt.setString(1, fullName);
-                pstmt.setString(2, email);
-                pstmt.setString(3, username);
-                pstmt.setString(4, password); // In a real application, this should be hashed
-                pstmt.setString(5, role);
-                pstmt.executeUpdate();
-                
-                JOptionPane.showMessageDialog(this,
-                    "Account created successfully! Please log in.",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-                
-                dispose();
-                new LoginForm((Frame) getParent()).setVisible(true);
-            }
+            UserRepository.create(username, password, fullName, email, null, role);
+            
+            JOptionPane.showMessageDialog(this,
+                "Account created successfully! Please log in.",
+                "Success",
+                JOptionPane.INFORMATION_MESSAGE);
             
+            dispose();
+            new LoginForm((Frame) getParent()).setVisible(true);
         } catch (SQLException e) {
             errorLabel.setText("Database error: " + e.getMessage());
         }
@@ -6,10 +6,12 @@ import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
-import java.util.*;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Predicate;
 
 public class UserDashboard extends JFrame {
+    private static final Log LOG = Log.get(UserDashboard.class);
     private JPanel mainPanel;
     private JTable booksTable;
     private DefaultTableModel tableModel;
@@ -22,12 +24,11 @@ public class UserDashboard extends JFrame {
     private JTextField nameField;
     private JTextField emailField;
     private String currentUser;
-    private Connection conn;
+    private int currentUserId;
     
     public UserDashboard(String username) {
         this.currentUser = username;
         initializeComponents();
-        setupDatabaseConnection();
         loadUserInfo();
         loadBooks();
     }
@@ -250,38 +251,17 @@ public class UserDashboard extends JFrame {
         setupActionListeners();
     }
     
-    private void setupDatabaseConnection() {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            conn = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/librorent",
-                "root",
-                ""
-            );
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Database connection failed: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
-    }
-    
     private void loadUserInfo() {
-        try {
-            String query = "SELECT id, full_name, email FROM users WHERE username = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, currentUser);
-            ResultSet rs = pstmt.executeQuery();
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            UserRepository.User user = UserRepository.findByUsername(conn, currentUser);
             
-            if (rs.next()) {
-                int userId = rs.getInt("id");
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
+            if (user != null) {
+                currentUserId = user.id();
                 
                 // Set member ID with LIB- prefix
-                memberIdField.setText(String.format("LIB-%06d", userId));
-                nameField.setText(fullName);
-                emailField.setText(email);
+                memberIdField.setText(String.format("LIB-%06d", user.id()));
+                nameField.setText(user.fullName());
+                emailField.setText(user.email());
             } else {
                 memberIdField.setText("User not found");
                 nameField.setText("");
@@ -291,25 +271,26 @@ public class UserDashboard extends JFrame {
             memberIdField.setText("Error loading user info");
             nameField.setText("");
             emailField.setText("");
-            e.printStackTrace();
+            LOG.error("Error loading user info", e, "username", currentUser);
         }
     }
     
     private void loadBooks() {
+        showBooks(null);
+    }
+    
+    // Fill the book table from the shared catalog
+    private void showBooks(Predicate<BookCatalog.Book> filter) {
         tableModel.setRowCount(0);
         try {
-            String query = "SELECT * FROM books ORDER BY title";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
+            for (BookCatalog.Book book : BookCatalog.getInstance().query(filter, BookCatalog.BY_TITLE)) {
                 Object[] row = {
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("isbn"),
-                    rs.getString("status"),
-                    rs.getInt("copies")
+                    book.bookId(),
+                    book.title(),
+                    book.author(),
+                    book.isbn(),
+                    book.status(),
+                    book.copies()
                 };
                 tableModel.addRow(row);
             }
@@ -338,34 +319,9 @@ public class UserDashboard extends JFrame {
     
     private void searchBooks() {
         String searchTerm = searchField.getText().trim();
-        tableModel.setRowCount(0);
-        
-        try {
-            String query = "SELECT * FROM books WHERE title LIKE ? OR author LIKE ? OR isbn LIKE ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                Object[] row = {
-                    rs.getInt("id"),
-                    rs.getString("title"),
-                    rs.getString("author"),
-                    rs.getString("isbn"),
-                    rs.getString("status"),
-                    rs.getInt("copies")
-                };
-                tableModel.addRow(row);
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error searching books: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        showBooks(book -> BookCatalog.contains(book.title(), searchTerm)
+            || BookCatalog.contains(book.author(), searchTerm)
+            || BookCatalog.contains(book.isbn(), searchTerm));
     }
     
     private void borrowBook() {
@@ -390,24 +346,12 @@ public class UserDashboard extends JFrame {
         }
         
         try {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            // Update book status
-            String updateBook = "UPDATE books SET status = 'Borrowed' WHERE id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(updateBook);
-            pstmt.setInt(1, bookId);
-            pstmt.executeUpdate();
-            
-            // Create borrowing record
-            String insertBorrow = "INSERT INTO borrowings (book_id, user_id, borrow_date) VALUES (?, ?, ?)";
-            pstmt = conn.prepareStatement(insertBorrow);
-            pstmt.setInt(1, bookId);
-            pstmt.setString(2, currentUser);
-            pstmt.setDate(3, new java.sql.Date(System.currentTimeMillis()));
-            pstmt.executeUpdate();
+            LocalDate today = LocalDate.now();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
             
-            conn.commit();
+            // Checks the stock and inserts the rental in one short transaction
+            CheckoutService.checkout(currentUserId, bookId, 1,
+                today.format(formatter), today.plusDays(14).format(formatter), "Active");
             loadBooks();
             
             JOptionPane.showMessageDialog(this,
@@ -416,21 +360,11 @@ public class UserDashboard extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
                 
         } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
+            LOG.error("Error borrowing book", e, "bookId", bookId, "userId", currentUserId);
             JOptionPane.showMessageDialog(this,
                 "Error borrowing book: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
-        } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
     
@@ -445,35 +379,15 @@ public class UserDashboard extends JFrame {
         }
         
         int bookId = (int) tableModel.getValueAt(selectedRow, 0);
-        String status = (String) tableModel.getValueAt(selectedRow, 4);
-        
-        if (!status.equals("Borrowed")) {
-            JOptionPane.showMessageDialog(this,
-                "This book is not currently borrowed",
-                "Not Borrowed",
-                JOptionPane.WARNING_MESSAGE);
-            return;
-        }
         
         try {
-            // Start transaction
-            conn.setAutoCommit(false);
-            
-            // Update book status
-            String updateBook = "UPDATE books SET status = 'Available' WHERE id = ?";
-            PreparedStatement pstmt = conn.prepareStatement(updateBook);
-            pstmt.setInt(1, bookId);
-            pstmt.executeUpdate();
-            
-            // Update borrowing record
-            String updateBorrow = "UPDATE borrowings SET return_date = ? WHERE book_id = ? AND user_id = ? AND return_date IS NULL";
-            pstmt = conn.prepareStatement(updateBorrow);
-            pstmt.setDate(1, new java.sql.Date(System.currentTimeMillis()));
-            pstmt.setInt(2, bookId);
-            pstmt.setString(3, currentUser);
-            pstmt.executeUpdate();
-            
-            conn.commit();
+            if (RentalRepository.returnBook(currentUserId, bookId) == 0) {
+                JOptionPane.showMessageDialog(this,
+                    "This book is not currently borrowed",
+                    "Not Borrowed",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             loadBooks();
             
             JOptionPane.showMessageDialog(this,
@@ -482,21 +396,11 @@ public class UserDashboard extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
                 
         } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
+            LOG.error("Error returning book", e, "bookId", bookId, "userId", currentUserId);
             JOptionPane.showMessageDialog(this,
                 "Error returning book: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
-        } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
         }
     }
     
@@ -10,10 +10,13 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.text.SimpleDateFormat;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class UserDashboardPanel extends BasePanel {
+    private static final Log LOG = Log.get(UserDashboardPanel.class);
     private JTextField nameField;
     private JTextField emailField;
     private JTextField phoneField;
@@ -26,6 +29,10 @@ public class UserDashboardPanel extends BasePanel {
     private JButton saveButton;
     private DefaultTableModel historyTableModel;
     private DefaultTableModel currentRentalsTableModel;
+    private final AsyncLoader.Channel currentRentalLoads = AsyncLoader.channel();
+    private final AsyncLoader.Channel historyLoads = AsyncLoader.channel();
+    private final AsyncLoader.Channel currentRentalsTableLoads = AsyncLoader.channel();
+    private final AsyncLoader.Channel historyTableLoads = AsyncLoader.channel();
     private JPanel rentalHistoryPanel;
     private JPanel currentRentalsPanel;
 
@@ -219,7 +226,7 @@ public class UserDashboardPanel extends BasePanel {
             currentRentalsTable.getColumnModel().getColumn(5).setPreferredWidth(100);  // Status
             currentRentalsTable.getColumnModel().getColumn(6).setPreferredWidth(100);  // Late Fee
         } catch (Exception e) {
-            System.err.println("Error setting current rentals column widths: " + e.getMessage());
+            LOG.warn("Error setting current rentals column widths", "error", e.getMessage());
         }
     }
 
@@ -232,7 +239,7 @@ public class UserDashboardPanel extends BasePanel {
             rentalHistoryTable.getColumnModel().getColumn(4).setPreferredWidth(100);  // Status
             rentalHistoryTable.getColumnModel().getColumn(5).setPreferredWidth(100);  // Late Fee
         } catch (Exception e) {
-            System.err.println("Error setting rental history column widths: " + e.getMessage());
+            LOG.warn("Error setting rental history column widths", "error", e.getMessage());
         }
     }
 
@@ -385,13 +392,13 @@ public class UserDashboardPanel extends BasePanel {
     }
 
     public void setCurrentUserId(int userId) {
-        System.out.println("Setting current user ID: " + userId);
+        LOG.debug("Setting current user", "userId", userId);
         this.currentUserId = userId;
         if (userId > 0) {
             loadUserData();
             loadRentals();
         } else {
-            System.out.println("Invalid user ID: " + userId);
+            LOG.warn("Invalid user ID", "userId", userId);
             JOptionPane.showMessageDialog(this,
                 "Invalid user ID. Please log in again.",
                 "Authentication Error",
@@ -400,34 +407,18 @@ public class UserDashboardPanel extends BasePanel {
     }
 
     private void loadUserData() {
-        System.out.println("Loading user data for ID: " + currentUserId);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "SELECT id, full_name, email, phone FROM users WHERE id = ?")) {
-            
-            pstmt.setInt(1, currentUserId);
-            ResultSet rs = pstmt.executeQuery();
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
+            UserRepository.User user = UserRepository.findById(conn, currentUserId);
             
-            if (rs.next()) {
-                System.out.println("User data found in database");
-                
+            if (user != null) {
                 // Set member ID (LIB-XXXXXX format)
                 String memberId = String.format("LIB-%06d", currentUserId);
                 memberIdLabel.setText(memberId);
-                System.out.println("Set member ID: " + memberId);
-                
-                // Set user data
-                String fullName = rs.getString("full_name");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                
-                System.out.println("User data - Name: " + fullName + ", Email: " + email + ", Phone: " + phone);
                 
                 // Set the fields with user data
-                nameField.setText(fullName != null ? fullName : "");
-                emailField.setText(email != null ? email : "");
-                phoneField.setText(phone != null ? phone : "");
+                nameField.setText(user.fullName() != null ? user.fullName() : "");
+                emailField.setText(user.email() != null ? user.email() : "");
+                phoneField.setText(user.phone() != null ? user.phone() : "");
                 
                 // Force UI update
                 memberIdLabel.revalidate();
@@ -439,15 +430,14 @@ public class UserDashboardPanel extends BasePanel {
                 phoneField.revalidate();
                 phoneField.repaint();
             } else {
-                System.out.println("No user data found for ID: " + currentUserId);
+                LOG.warn("No user data found", "userId", currentUserId);
                 JOptionPane.showMessageDialog(this,
                     "User data not found",
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
             }
         } catch (SQLException e) {
-            System.err.println("Error loading user data: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error loading user data", e, "userId", currentUserId);
             JOptionPane.showMessageDialog(this, 
                 "Error loading user data: " + e.getMessage(),
                 "Error",
@@ -456,12 +446,12 @@ public class UserDashboardPanel extends BasePanel {
     }
 
     private boolean verifyUserData() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+        try (Connection conn = DatabaseManager.getInstance().getReadConnection()) {
             // First check if the users table exists
             try (Statement stmt = conn.createStatement()) {
                 ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='users'");
                 if (!rs.next()) {
-                    System.err.println("Users table does not exist!");
+                    LOG.error("Users table does not exist");
                     JOptionPane.showMessageDialog(this,
                         "Database error: Users table not found",
                         "Database Error",
@@ -471,33 +461,20 @@ public class UserDashboardPanel extends BasePanel {
             }
 
             // Then check if the user exists
-            try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM users WHERE id = ?")) {
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                if (!rs.next()) {
-                    System.err.println("User with ID " + currentUserId + " not found in database!");
-                    JOptionPane.showMessageDialog(this,
-                        "User not found in database",
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-                    return false;
-                }
-
-                // Print user data for debugging
-                System.out.println("Found user in database:");
-                System.out.println("ID: " + rs.getInt("id"));
-                System.out.println("Username: " + rs.getString("username"));
-                System.out.println("Full Name: " + rs.getString("full_name"));
-                System.out.println("Email: " + rs.getString("email"));
-                System.out.println("Phone: " + rs.getString("phone"));
-                System.out.println("Admin ID: " + rs.getInt("admin_id"));
+            UserRepository.User user = UserRepository.findById(conn, currentUserId);
+            if (user == null) {
+                LOG.error("User not found in database", "userId", currentUserId);
+                JOptionPane.showMessageDialog(this,
+                    "User not found in database",
+                    "Database Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return false;
             }
+            LOG.debug("Found user in database", "userId", currentUserId, "username", user.username());
 
             return true;
         } catch (SQLException e) {
-            System.err.println("Database verification error: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Database verification error", e, "userId", currentUserId);
             JOptionPane.showMessageDialog(this,
                 "Database error: " + e.getMessage(),
                 "Database Error",
@@ -507,16 +484,10 @@ public class UserDashboardPanel extends BasePanel {
     }
 
     private void saveUserData() {
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(
-                 "UPDATE users SET full_name = ?, phone = ? WHERE id = ?")) {
-            
-            pstmt.setString(1, nameField.getText().trim());
-            pstmt.setString(2, phoneField.getText().trim());
-            pstmt.setInt(3, currentUserId);
-            
-            int updated = pstmt.executeUpdate();
-            if (updated > 0) {
+        try {
+            boolean updated = UserRepository.updateProfile(currentUserId, nameField.getText().trim(),
+                phoneField.getText().trim());
+            if (updated) {
                 JOptionPane.showMessageDialog(this,
                     "Profile updated successfully!",
                     "Success",
@@ -528,7 +499,7 @@ public class UserDashboardPanel extends BasePanel {
                     JOptionPane.ERROR_MESSAGE);
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error updating profile", e, "userId", currentUserId);
             JOptionPane.showMessageDialog(this,
                 "Error updating profile: " + e.getMessage(),
                 "Error",
@@ -537,97 +508,63 @@ public class UserDashboardPanel extends BasePanel {
     }
 
     private void loadRentals() {
-        // Clear existing data
-        currentRentalsModel.setRowCount(0);
-        rentalHistoryModel.setRowCount(0);
-        
         if (currentUserId <= 0) {
-            System.out.println("No user ID set, skipping rental load");
+            // Clear existing data
+            currentRentalLoads.cancel();
+            historyLoads.cancel();
+            currentRentalsModel.setRowCount(0);
+            rentalHistoryModel.setRowCount(0);
             return;
         }
         
-        System.out.println("Loading rentals for user ID: " + currentUserId);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            // Load current rentals
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT r.id, b.title, b.author, r.rental_date, r.due_date, r.late_fee " +
-                    "FROM rentals r " +
-                    "JOIN books b ON r.book_id = b.book_id " +
-                    "WHERE r.user_id = ? AND r.return_date IS NULL " +
-                    "ORDER BY r.rental_date DESC")) {
-                
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("rental_date"),
-                        rs.getString("due_date"),
-                        String.format("₱%.2f", rs.getDouble("late_fee"))
-                    };
-                    currentRentalsModel.addRow(row);
-                }
-            }
-            
-            // Load rental history
-            try (PreparedStatement pstmt = conn.prepareStatement(
-                    "SELECT r.id, b.title, b.author, r.rental_date, r.due_date, r.return_date, r.late_fee " +
-                    "FROM rentals r " +
-                    "JOIN books b ON r.book_id = b.book_id " +
-                    "WHERE r.user_id = ? AND r.return_date IS NOT NULL " +
-                    "ORDER BY r.return_date DESC")) {
-                
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        rs.getString("rental_date"),
-                        rs.getString("due_date"),
-                        rs.getString("return_date"),
-                        String.format("₱%.2f", rs.getDouble("late_fee"))
-                    };
-                    rentalHistoryModel.addRow(row);
-                }
-            }
-            
-            System.out.println("Finished processing rentals. Current: " + (currentRentalsModel.getRowCount() > 0) + 
-                ", History: " + (rentalHistoryModel.getRowCount() > 0));
-            
-            // Force UI update
-            currentRentalsTable.revalidate();
-            currentRentalsTable.repaint();
-            rentalHistoryTable.revalidate();
-            rentalHistoryTable.repaint();
-            System.out.println("UI updated");
-            
-        } catch (SQLException e) {
-            System.err.println("Error loading rentals: " + e.getMessage());
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Error loading rentals: " + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            System.err.println("Unexpected error: " + e.getMessage());
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                "Unexpected error: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+        int userId = currentUserId;
+        
+        // Load current rentals
+        currentRentalLoads.loadTable(currentRentalsModel,
+            conn -> RentalRepository.openRentals(conn, userId),
+            rental -> new Object[]{
+                rental.id(),
+                rental.title(),
+                rental.author(),
+                rental.rentalDate(),
+                rental.dueDate(),
+                String.format("₱%.2f", rental.lateFee())
+            },
+            () -> {
+                currentRentalsTable.revalidate();
+                currentRentalsTable.repaint();
+            },
+            this::showRentalLoadError);
+        
+        // Load rental history
+        historyLoads.loadTable(rentalHistoryModel,
+            conn -> RentalRepository.history(conn, userId),
+            rental -> new Object[]{
+                rental.id(),
+                rental.title(),
+                rental.author(),
+                rental.rentalDate(),
+                rental.dueDate(),
+                rental.returnDate(),
+                String.format("₱%.2f", rental.lateFee())
+            },
+            () -> {
+                rentalHistoryTable.revalidate();
+                rentalHistoryTable.repaint();
+            },
+            this::showRentalLoadError);
+    }
+    
+    private void showRentalLoadError(SQLException e) {
+        LOG.error("Error loading rentals", e, "userId", currentUserId);
+        JOptionPane.showMessageDialog(this,
+            "Error loading rentals: " + e.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
     }
 
     // Add a method to refresh the dashboard
     public void refreshDashboard() {
-        System.out.println("Refreshing dashboard...");
         // Ensure we have a valid user ID
         if (currentUserId > 0) {
             try {
@@ -638,26 +575,22 @@ public class UserDashboardPanel extends BasePanel {
                 // Force UI update
                 revalidate();
                 repaint();
-                System.out.println("Dashboard refresh complete");
             } catch (Exception e) {
-                System.err.println("Error refreshing dashboard: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Error refreshing dashboard", e, "userId", currentUserId);
             }
         } else {
-            System.out.println("Cannot refresh dashboard: Invalid user ID");
+            LOG.warn("Cannot refresh dashboard without a user", "userId", currentUserId);
         }
     }
 
     // Add a method to handle rental updates
     public void handleRentalUpdate() {
-        System.out.println("Handling rental update...");
         try {
             loadRentals();
             revalidate();
             repaint();
         } catch (Exception e) {
-            System.err.println("Error handling rental update: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling rental update", e, "userId", currentUserId);
         }
     }
 
@@ -909,86 +842,61 @@ public class UserDashboardPanel extends BasePanel {
     private void loadRentalHistory() {
         if (historyTableModel == null) return;
         
-        // Clear existing data
-        historyTableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String query = "SELECT r.id, r.book_id, b.title, b.author, r.rental_date, r.due_date, r.return_date, r.late_fee " +
-                          "FROM rentals r " +
-                          "JOIN books b ON r.book_id = b.book_id " +
-                          "WHERE r.user_id = ? AND r.return_date IS NOT NULL " +
-                          "ORDER BY r.return_date DESC";
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    Object[] row = {
-                        "B" + rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        formatDate(rs.getString("rental_date")),
-                        formatDate(rs.getString("due_date")),
-                        formatDate(rs.getString("return_date")),
-                        String.format("₱%.2f", rs.getDouble("late_fee"))
-                    };
-                    historyTableModel.addRow(row);
-                }
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
+        int userId = currentUserId;
+        
+        historyTableLoads.loadTable(historyTableModel, conn -> RentalRepository.history(conn, userId),
+            rental -> new Object[]{
+                "B" + rental.bookId(),
+                rental.title(),
+                rental.author(),
+                formatDate(rental.rentalDate()),
+                formatDate(rental.dueDate()),
+                formatDate(rental.returnDate()),
+                String.format("₱%.2f", rental.lateFee())
+            },
+            null,
+            e -> JOptionPane.showMessageDialog(this,
                 "Error loading rental history: " + e.getMessage(),
                 "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
     
     private void loadCurrentRentals() {
         if (currentRentalsTableModel == null) return;
         
-        // Clear existing data
-        currentRentalsTableModel.setRowCount(0);
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
-            String query = "SELECT r.id, r.book_id, b.title, b.author, r.rental_date, r.due_date " +
-                          "FROM rentals r " +
-                          "JOIN books b ON r.book_id = b.book_id " +
-                          "WHERE r.user_id = ? AND r.return_date IS NULL " +
-                          "ORDER BY r.due_date ASC";
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, currentUserId);
-                ResultSet rs = pstmt.executeQuery();
-                
-                while (rs.next()) {
-                    String dueDateStr = rs.getString("due_date");
-                    LocalDateTime dueDate;
-                    try {
-                        dueDate = LocalDateTime.parse(dueDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                    } catch (Exception e) {
-                        dueDate = LocalDate.parse(dueDateStr).atTime(23, 59, 59);
-                    }
-                    
-                    String status = LocalDateTime.now().isAfter(dueDate) ? "Overdue" : "Active";
-                    
-                    Object[] row = {
-                        "B" + rs.getInt("book_id"),
-                        rs.getString("title"),
-                        rs.getString("author"),
-                        formatDate(rs.getString("rental_date")),
-                        formatDate(dueDateStr),
-                        status
-                    };
-                    currentRentalsTableModel.addRow(row);
+        int userId = currentUserId;
+        
+        currentRentalsTableLoads.loadTable(currentRentalsTableModel,
+            conn -> {
+                List<RentalRepository.Rental> rentals = RentalRepository.openRentals(conn, userId);
+                rentals.sort(Comparator.comparing(RentalRepository.Rental::dueDate));
+                return rentals;
+            },
+            rental -> {
+                String dueDateStr = rental.dueDate();
+                LocalDateTime dueDate;
+                try {
+                    dueDate = LocalDateTime.parse(dueDateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+                } catch (Exception e) {
+                    dueDate = LocalDate.parse(dueDateStr).atTime(23, 59, 59);
                 }
-            }
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
+                
+                String status = LocalDateTime.now().isAfter(dueDate) ? "Overdue" : "Active";
+                
+                return new Object[]{
+                    "B" + rental.bookId(),
+                    rental.title(),
+                    rental.author(),
+                    formatDate(rental.rentalDate()),
+                    formatDate(dueDateStr),
+                    status
+                };
+            },
+            null,
+            e -> JOptionPane.showMessageDialog(this,
                 "Error loading current rentals: " + e.getMessage(),
                 "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
     
     private String formatDate(String dateStr) {
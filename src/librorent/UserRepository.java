@@ -0,0 +1,103 @@
+package librorent;
+
+import java.sql.*;
+
+/**
+ * Reads, creates and updates user accounts. Lookups take the caller's
+ * connection and return null when there is no such user. Every new account
+ * is created here, so the {@link UsernameDirectory} learns about it at once.
+ */
+public final class UserRepository {
+    private static final String COLUMNS = "SELECT id, username, full_name, email, phone, role FROM users ";
+
+    /** One users row, without the password. */
+    public record User(int id, String username, String fullName, String email, String phone, String role) {
+    }
+
+    private UserRepository() {
+    }
+
+    public static User findById(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE id = ?")) {
+            pstmt.setInt(1, userId);
+            return single(pstmt);
+        }
+    }
+
+    public static User findByUsername(Connection conn, String username) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE username = ?")) {
+            pstmt.setString(1, username);
+            return single(pstmt);
+        }
+    }
+
+    public static User findByEmail(Connection conn, String email) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE email = ? LIMIT 1")) {
+            pstmt.setString(1, email);
+            return single(pstmt);
+        }
+    }
+
+    /** The user with these credentials, or null if they do not match. */
+    public static User authenticate(Connection conn, String username, String password) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COLUMNS + "WHERE username = ? AND password = ?")) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, password);
+            return single(pstmt);
+        }
+    }
+
+    /**
+     * Creates an account. The UNIQUE constraint on username is the final
+     * check that the name is free.
+     *
+     * @return the new user's id
+     */
+    public static int create(String username, String password, String fullName, String email, String phone,
+                             String role) throws SQLException {
+        int userId;
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "INSERT INTO users (username, password, full_name, email, phone, role) VALUES (?, ?, ?, ?, ?, ?) " +
+                 "RETURNING id")) {
+            pstmt.setString(1, username);
+            pstmt.setString(2, password); // In production, this should be hashed
+            pstmt.setString(3, fullName);
+            pstmt.setString(4, email);
+            pstmt.setString(5, phone);
+            pstmt.setString(6, role);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                userId = rs.getInt(1);
+            }
+        }
+        UsernameDirectory.getInstance().add(username);
+        return userId;
+    }
+
+    /** @return false if there is no such user */
+    public static boolean updateProfile(int userId, String fullName, String phone) throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("UPDATE users SET full_name = ?, phone = ? WHERE id = ?")) {
+            pstmt.setString(1, fullName);
+            pstmt.setString(2, phone);
+            pstmt.setInt(3, userId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    private static User single(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            return new User(
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("full_name"),
+                rs.getString("email"),
+                rs.getString("phone"),
+                rs.getString("role"));
+        }
+    }
+}
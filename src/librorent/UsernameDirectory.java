@@ -0,0 +1,65 @@
+package librorent;
+
+import java.sql.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of every username in the users table, used to answer "is
+ * this username taken?" while the user is still typing without a query per
+ * keystroke. The set is loaded lazily, kept current by the forms that create
+ * users, and reloaded after {@code librorent.usernames.refreshMs} so accounts
+ * added from another terminal show up too. The UNIQUE constraint on
+ * users.username remains the final check when an account is inserted.
+ */
+public class UsernameDirectory {
+    private static UsernameDirectory instance;
+    private static final long REFRESH_MS = Long.getLong("librorent.usernames.refreshMs", 300_000L);
+
+    private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+    private volatile long loadedAt = 0;
+
+    private UsernameDirectory() {
+    }
+
+    public static synchronized UsernameDirectory getInstance() {
+        if (instance == null) {
+            instance = new UsernameDirectory();
+        }
+        return instance;
+    }
+
+    /** Returns true if the username is known to exist. May hit the database on the first call or after a refresh interval. */
+    public boolean contains(Connection conn, String username) throws SQLException {
+        ensureLoaded(conn);
+        return usernames.contains(username);
+    }
+
+    /**
+     * Records a username that has just been inserted. Synchronized with the
+     * reload, which could otherwise drop a name added after its snapshot.
+     */
+    public synchronized void add(String username) {
+        usernames.add(username);
+    }
+
+    public void invalidate() {
+        loadedAt = 0;
+    }
+
+    private synchronized void ensureLoaded(Connection conn) throws SQLException {
+        if (loadedAt != 0 && System.currentTimeMillis() - loadedAt < REFRESH_MS) {
+            return;
+        }
+        Set<String> fresh = ConcurrentHashMap.newKeySet();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT username FROM users")) {
+            while (rs.next()) {
+                fresh.add(rs.getString(1));
+            }
+        }
+        usernames.retainAll(fresh);
+        usernames.addAll(fresh);
+        loadedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,147 @@
+package librorent;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** The CSV and JSON record readers behind {@link BookImporter}, without a database. */
+public class BookImporterSourceTest {
+
+    private static List<BookImporter.RawRecord> csv(String text) throws IOException {
+        return readAll(new BookImporter.CsvSource(new StringReader(text)));
+    }
+
+    private static List<BookImporter.RawRecord> json(String text) throws IOException {
+        return readAll(new BookImporter.JsonSource(new StringReader(text)));
+    }
+
+    private static List<BookImporter.RawRecord> readAll(BookImporter.RecordSource source) throws IOException {
+        List<BookImporter.RawRecord> records = new ArrayList<>();
+        BookImporter.RawRecord record;
+        while ((record = source.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test
+    public void csvQuotedFieldKeepsItsLineBreaks() throws IOException {
+        List<BookImporter.RawRecord> records = csv(
+            "title,author\n\"Line one\nLine two\",Someone\nNext,Author\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Line one\nLine two", records.get(0).values().get("title"));
+        assertEquals(2, records.get(0).line());
+        // The second record starts after the line break inside the quotes
+        assertEquals("Next", records.get(1).values().get("title"));
+        assertEquals(4, records.get(1).line());
+    }
+
+    @Test
+    public void csvDoubledQuotesAreOneQuote() throws IOException {
+        List<BookImporter.RawRecord> records = csv("title,author\n\"He said \"\"hi\"\", twice\",A\n");
+
+        assertEquals("He said \"hi\", twice", records.get(0).values().get("title"));
+        assertEquals("A", records.get(0).values().get("author"));
+    }
+
+    @Test
+    public void csvOversizedFieldRejectsOnlyItsRecord() throws IOException {
+        List<BookImporter.RawRecord> records = csv(
+            "title,author\n" + "x".repeat(5000) + ",A\nShort,B\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Field longer than 4096 characters", records.get(0).error());
+        assertNull(records.get(1).error());
+        assertEquals("Short", records.get(1).values().get("title"));
+    }
+
+    @Test
+    public void csvSkipsByteOrderMarkAndCrLf() throws IOException {
+        List<BookImporter.RawRecord> records = csv("\uFEFFTitle,Author\r\nT,A\r\n");
+
+        assertEquals(1, records.size());
+        assertEquals("T", records.get(0).values().get("title"));
+        assertEquals("A", records.get(0).values().get("author"));
+    }
+
+    @Test
+    public void csvUnterminatedQuoteIsRejected() throws IOException {
+        List<BookImporter.RawRecord> records = csv("title,author\n\"Never closed,A\n");
+
+        assertEquals("Unterminated quoted field", records.get(0).error());
+    }
+
+    @Test(expected = IOException.class)
+    public void csvWithoutTitleColumnFails() throws IOException {
+        csv("name,author\nT,A\n");
+    }
+
+    @Test
+    public void jsonArrayAndLinesGiveTheSameRecords() throws IOException {
+        List<BookImporter.RawRecord> array = json("[{\"title\": \"T\", \"author\": \"A\", \"copies\": 2}]");
+        List<BookImporter.RawRecord> lines = json("{\"title\": \"T\", \"author\": \"A\", \"copies\": 2}\n");
+
+        assertEquals(1, array.size());
+        assertEquals(array.get(0).values(), lines.get(0).values());
+        assertEquals("2", array.get(0).values().get("copies"));
+    }
+
+    @Test
+    public void jsonSkipsByteOrderMark() throws IOException {
+        List<BookImporter.RawRecord> records = json("\uFEFF[{\"title\": \"T\", \"author\": \"A\"}]");
+
+        assertEquals("T", records.get(0).values().get("title"));
+    }
+
+    @Test
+    public void jsonDecodesEscapes() throws IOException {
+        List<BookImporter.RawRecord> records = json("{\"title\": \"Say \\\"hi\\\"\\n\\u00e9\", \"author\": \"A\"}");
+
+        assertEquals("Say \"hi\"\n\u00e9", records.get(0).values().get("title"));
+    }
+
+    @Test
+    public void jsonOversizedStringRejectsOnlyItsRecord() throws IOException {
+        List<BookImporter.RawRecord> records = json(
+            "{\"title\": \"" + "x".repeat(5000) + "\", \"author\": \"A\"}\n{\"title\": \"T\", \"author\": \"B\"}");
+
+        assertEquals(2, records.size());
+        assertEquals("Field longer than 4096 characters", records.get(0).error());
+        assertTrue(records.get(0).values().isEmpty());
+        assertEquals("T", records.get(1).values().get("title"));
+    }
+
+    @Test
+    public void jsonNestedValueRejectsOnlyItsRecord() throws IOException {
+        List<BookImporter.RawRecord> records = json(
+            "[{\"title\": \"T\", \"tags\": {\"a\": [1, \"]\"]}, \"author\": \"A\"}, {\"title\": \"U\", \"author\": \"B\"}]");
+
+        assertEquals(2, records.size());
+        assertEquals("Nested value for \"tags\"", records.get(0).error());
+        assertEquals("U", records.get(1).values().get("title"));
+    }
+
+    @Test
+    public void jsonDeepNestingDoesNotOverflowTheStack() throws IOException {
+        int depth = 100_000;
+        List<BookImporter.RawRecord> records = json(
+            "{\"title\": \"T\", \"deep\": " + "[".repeat(depth) + "]".repeat(depth) + ", \"author\": \"A\"}");
+
+        assertEquals(1, records.size());
+        assertEquals("Nested value for \"deep\"", records.get(0).error());
+    }
+
+    @Test(expected = IOException.class)
+    public void jsonUnbalancedNestingFails() throws IOException {
+        json("{\"title\": \"T\", \"deep\": [[[]]");
+    }
+
+    @Test(expected = IOException.class)
+    public void jsonBadLiteralFails() throws IOException {
+        json("{\"title\": \"T\", \"copies\": twelve}");
+    }
+}
@@ -0,0 +1,151 @@
+package librorent;
+
+import java.time.LocalDate;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Date and fee ranges parsed from the admin rental search box. */
+public class RentalQueryTest {
+
+    private static RentalQuery.DateRange onlyDate(String text) {
+        RentalQuery query = RentalQuery.parse(text);
+        assertEquals(1, query.getDates().size());
+        return query.getDates().get(0);
+    }
+
+    @Test
+    public void emptySearchHasNoCondition() {
+        RentalQuery query = RentalQuery.parse("  ");
+
+        assertTrue(query.isEmpty());
+        assertNull(query.where());
+        assertEquals(0, query.args().length);
+    }
+
+    @Test
+    public void isoDayIsOneDayOnAnyDate() {
+        RentalQuery.DateRange range = onlyDate("2023-06-05");
+
+        assertEquals(RentalQuery.DateField.ANY, range.field());
+        assertEquals(LocalDate.of(2023, 6, 5), range.from());
+        assertEquals(LocalDate.of(2023, 6, 5), range.to());
+    }
+
+    @Test
+    public void isoMonthCoversTheWholeMonth() {
+        RentalQuery.DateRange range = onlyDate("2024-02");
+
+        assertEquals(LocalDate.of(2024, 2, 1), range.from());
+        assertEquals(LocalDate.of(2024, 2, 29), range.to());
+    }
+
+    @Test
+    public void dayRangeIsInclusive() {
+        RentalQuery.DateRange range = onlyDate("2023-06-01..2023-06-07");
+
+        assertEquals(LocalDate.of(2023, 6, 1), range.from());
+        assertEquals(LocalDate.of(2023, 6, 7), range.to());
+    }
+
+    @Test
+    public void monthRangeRunsToTheEndOfTheLastMonth() {
+        RentalQuery.DateRange range = onlyDate("2023-05..2023-06");
+
+        assertEquals(LocalDate.of(2023, 5, 1), range.from());
+        assertEquals(LocalDate.of(2023, 6, 30), range.to());
+    }
+
+    @Test
+    public void prefixPicksTheDateColumn() {
+        assertEquals(RentalQuery.DateField.RENTED, onlyDate("rented:2023-06-01..2023-06-07").field());
+        assertEquals(RentalQuery.DateField.DUE, onlyDate("due:2023-06").field());
+        assertEquals(RentalQuery.DateField.RETURNED, onlyDate("returned:2023-06-01").field());
+    }
+
+    @Test
+    public void monthNameWithDayAndYear() {
+        RentalQuery.DateRange range = onlyDate("May 29, 2025");
+
+        assertEquals(LocalDate.of(2025, 5, 29), range.from());
+        assertEquals(LocalDate.of(2025, 5, 29), range.to());
+    }
+
+    @Test
+    public void prefixedMonthNameUsesTheFollowingTokens() {
+        RentalQuery.DateRange range = onlyDate("due:sept 2023");
+
+        assertEquals(RentalQuery.DateField.DUE, range.field());
+        assertEquals(LocalDate.of(2023, 9, 1), range.from());
+        assertEquals(LocalDate.of(2023, 9, 30), range.to());
+    }
+
+    @Test
+    public void dateRangeBindsHalfOpenBounds() {
+        RentalQuery query = RentalQuery.parse("due:2023-06-01..2023-06-07");
+
+        assertEquals("(r.due_date >= ? AND r.due_date < ?)", query.where());
+        assertArrayEquals(new Object[]{"2023-06-01", "2023-06-08"}, query.args());
+    }
+
+    @Test
+    public void anyDateBindsAllThreeColumns() {
+        RentalQuery query = RentalQuery.parse("2023-12-31");
+
+        assertArrayEquals(new Object[]{"2023-12-31", "2024-01-01", "2023-12-31", "2024-01-01",
+            "2023-12-31", "2024-01-01"}, query.args());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void impossibleDayIsRejected() {
+        RentalQuery.parse("2023-02-30");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void prefixWithoutADateIsRejected() {
+        RentalQuery.parse("due:soon");
+    }
+
+    @Test
+    public void feeRange() {
+        RentalQuery query = RentalQuery.parse("fee:10-30");
+
+        assertEquals(10.0, query.getMinFee(), 0.0);
+        assertEquals(30.0, query.getMaxFee(), 0.0);
+        assertEquals("COALESCE(r.late_fee, 0) >= ? AND COALESCE(r.late_fee, 0) <= ?", query.where());
+    }
+
+    @Test
+    public void exactFee() {
+        RentalQuery query = RentalQuery.parse("fee:25");
+
+        assertEquals(25.0, query.getMinFee(), 0.0);
+        assertEquals(25.0, query.getMaxFee(), 0.0);
+    }
+
+    @Test
+    public void strictFeeBoundsMoveByHalfACent() {
+        assertEquals(50.005, RentalQuery.parse("fee>50").getMinFee(), 1e-9);
+        assertNull(RentalQuery.parse("fee>50").getMaxFee());
+        assertEquals(19.995, RentalQuery.parse("fee<20").getMaxFee(), 1e-9);
+    }
+
+    @Test
+    public void inclusiveFeeBounds() {
+        assertEquals(5.5, RentalQuery.parse("fee>=5.5").getMinFee(), 0.0);
+        assertEquals(20.0, RentalQuery.parse("FEE<=20").getMaxFee(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonNumericFeeIsRejected() {
+        RentalQuery.parse("fee>abc");
+    }
+
+    @Test
+    public void termsCombineInArgumentOrder() {
+        RentalQuery query = RentalQuery.parse("pending fee:10-30 2023-06");
+
+        assertEquals("pending", query.getPaymentStatus());
+        assertArrayEquals(new Object[]{"2023-06-01", "2023-07-01", "2023-06-01", "2023-07-01",
+            "2023-06-01", "2023-07-01", "pending", 10.0, 30.0}, query.args());
+    }
+}